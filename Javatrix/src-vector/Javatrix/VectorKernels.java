@@ -0,0 +1,102 @@
+package Javatrix;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorKernels - ElementKernels on the incubating Vector API, using the preferred
+ * species width of the platform with a scalar loop for the tail.
+ *
+ * Needs JDK 16+ and --add-modules jdk.incubator.vector at run time; ElementKernels
+ * falls back to its scalar loops when this class cannot be loaded.
+ */
+final class VectorKernels extends ElementKernels
+{
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	@Override
+	boolean isVector()
+	{
+		return true;
+	}
+
+	@Override
+	void add(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		int i = 0;
+		for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, x, xOff + i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, y, yOff + i);
+			a.add(b).intoArray(z, zOff + i);
+		}
+		for (; i < len; i++) {
+			z[zOff + i] = x[xOff + i] + y[yOff + i];
+		}
+	}
+
+	@Override
+	void sub(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		int i = 0;
+		for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, x, xOff + i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, y, yOff + i);
+			a.sub(b).intoArray(z, zOff + i);
+		}
+		for (; i < len; i++) {
+			z[zOff + i] = x[xOff + i] - y[yOff + i];
+		}
+	}
+
+	@Override
+	void mul(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		int i = 0;
+		for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, x, xOff + i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, y, yOff + i);
+			a.mul(b).intoArray(z, zOff + i);
+		}
+		for (; i < len; i++) {
+			z[zOff + i] = x[xOff + i] * y[yOff + i];
+		}
+	}
+
+	@Override
+	void div(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		int i = 0;
+		for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+			DoubleVector a = DoubleVector.fromArray(SPECIES, x, xOff + i);
+			DoubleVector b = DoubleVector.fromArray(SPECIES, y, yOff + i);
+			a.div(b).intoArray(z, zOff + i);
+		}
+		for (; i < len; i++) {
+			z[zOff + i] = x[xOff + i] / y[yOff + i];
+		}
+	}
+
+	@Override
+	void scale(double[] x, int xOff, double s, double[] z, int zOff, int len)
+	{
+		int i = 0;
+		for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, x, xOff + i).mul(s).intoArray(z, zOff + i);
+		}
+		for (; i < len; i++) {
+			z[zOff + i] = x[xOff + i] * s;
+		}
+	}
+
+	@Override
+	void negate(double[] x, int xOff, double[] z, int zOff, int len)
+	{
+		int i = 0;
+		for (int bound = SPECIES.loopBound(len); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, x, xOff + i).neg().intoArray(z, zOff + i);
+		}
+		for (; i < len; i++) {
+			z[zOff + i] = -x[xOff + i];
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package Javatrix;
+
+/**
+ * BandMatrix - an m x n matrix whose nonzero elements lie within kl diagonals below
+ * and ku diagonals above the main diagonal, in packed storage.
+ *
+ * Row i stores columns i-kl .. i+ku in kl+ku+1 consecutive slots, element (i, j)
+ * being data[i*(kl+ku+1) + j-i+kl]. Slots that fall outside the matrix stay zero.
+ * Elements outside the band are zero and cannot be set to anything else.
+ */
+public class BandMatrix
+{
+	private final int m;
+	private final int n;
+	private final int kl;
+	private final int ku;
+	private final double[] data;
+
+	/**
+	 * Creates an m x n band matrix of zeros.
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @param kl - Number of diagonals below the main one
+	 * @param ku - Number of diagonals above the main one
+	 * @throws IllegalArgumentException - If an argument is negative, or the band has more
+	 * 		elements than an array can hold
+	 */
+	public BandMatrix(int m, int n, int kl, int ku) throws IllegalArgumentException
+	{
+		if(m < 0 || n < 0 || kl < 0 || ku < 0) throw new IllegalArgumentException();
+		this.m = m;
+		this.n = n;
+		this.kl = kl;
+		this.ku = ku;
+		this.data = new double[Matrix.elements(m, (long)kl + ku + 1)];
+	}
+
+	/**
+	 * Constructs a packed copy of the band of a dense matrix. Elements of A outside
+	 * the band are not read.
+	 *
+	 * @param A - the dense matrix
+	 * @param kl - Number of diagonals below the main one
+	 * @param ku - Number of diagonals above the main one
+	 */
+	public BandMatrix(Matrix A, int kl, int ku)
+	{
+		this(A.getRowDimension(), A.getColumnDimension(), kl, ku);
+		int w = kl + ku + 1;
+		for (int i = 0; i < m; i++) {
+			for (int j = Math.max(0, i - kl), end = Math.min(n - 1, i + ku); j <= end; j++) {
+				data[i * w + j - i + kl] = A.get(i, j);
+			}
+		}
+	}
+
+	/**
+	 * toMatrix - returns a dense copy of this matrix
+	 *
+	 * @return Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix A = new Matrix(m, n);
+		double[] a = A.storage();
+		int w = kl + ku + 1;
+		for (int i = 0; i < m; i++) {
+			for (int j = Math.max(0, i - kl), end = Math.min(n - 1, i + ku); j <= end; j++) {
+				a[i * n + j] = data[i * w + j - i + kl];
+			}
+		}
+		return A;
+	}
+
+	/**
+	 * copy - Copies the matrix.
+	 *
+	 * @return BandMatrix
+	 */
+	public BandMatrix copy()
+	{
+		BandMatrix C = new BandMatrix(m, n, kl, ku);
+		System.arraycopy(data, 0, C.data, 0, data.length);
+		return C;
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * getLowerBandwidth - Gets the number of diagonals below the main one.
+	 *
+	 * @return int
+	 */
+	public int getLowerBandwidth()
+	{
+		return kl;
+	}
+
+	/**
+	 * getUpperBandwidth - Gets the number of diagonals above the main one.
+	 *
+	 * @return int
+	 */
+	public int getUpperBandwidth()
+	{
+		return ku;
+	}
+
+	/**
+	 * get - returns a specific element from the matrix
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		return j >= i - kl && j <= i + ku ? data[i * (kl + ku + 1) + j - i + kl] : 0;
+	}
+
+	/**
+	 * set - sets a specific element of the band
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 * @param s - the value
+	 * @throws IllegalArgumentException - If (i, j) is outside the band and s is not zero
+	 */
+	public void set(int i, int j, double s) throws ArrayIndexOutOfBoundsException, IllegalArgumentException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		if(j >= i - kl && j <= i + ku) data[i * (kl + ku + 1) + j - i + kl] = s;
+		else if(s != 0) throw new IllegalArgumentException();
+	}
+
+	/**
+	 * times - band times dense, doing only the multiply-adds of the band
+	 *
+	 * @param B - dense right operand
+	 * @return Matrix product
+	 */
+	public Matrix times(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		B = B.plain();
+		int p = B.getColumnDimension();
+		Matrix C = new Matrix(m, p);
+		double[] b = B.storage(), c = C.storage();
+		int ldb = B.stride(), bOff = B.offset(), w = kl + ku + 1;
+		for (int i = 0; i < m; i++) {
+			int ci = i * p;
+			for (int k = Math.max(0, i - kl), end = Math.min(n - 1, i + ku); k <= end; k++) {
+				double s = data[i * w + k - i + kl];
+				if(s == 0) continue;
+				int bk = bOff + k * ldb;
+				for (int j = 0; j < p; j++) {
+					c[ci + j] += s * b[bk + j];
+				}
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * times - s*A
+	 *
+	 * @param s - the scalar
+	 * @return BandMatrix
+	 */
+	public BandMatrix times(double s)
+	{
+		BandMatrix C = new BandMatrix(m, n, kl, ku);
+		for (int k = 0; k < data.length; k++) C.data[k] = s * data[k];
+		return C;
+	}
+
+	/**
+	 * plus - A + B, whose band covers the bands of both
+	 *
+	 * @param B - a band matrix of the same dimensions
+	 * @return BandMatrix
+	 */
+	public BandMatrix plus(BandMatrix B) throws IllegalArgumentException
+	{
+		return add(B, 1);
+	}
+
+	/**
+	 * minus - A - B, whose band covers the bands of both
+	 *
+	 * @param B - a band matrix of the same dimensions
+	 * @return BandMatrix
+	 */
+	public BandMatrix minus(BandMatrix B) throws IllegalArgumentException
+	{
+		return add(B, -1);
+	}
+
+	private BandMatrix add(BandMatrix B, double sign)
+	{
+		if(B.m != m || B.n != n) throw new IllegalArgumentException();
+		BandMatrix C = new BandMatrix(m, n, Math.max(kl, B.kl), Math.max(ku, B.ku));
+		int w = kl + ku + 1, bw = B.kl + B.ku + 1, cw = C.kl + C.ku + 1;
+		for (int i = 0; i < m; i++) {
+			int ci = i * cw + C.kl - i;
+			for (int j = Math.max(0, i - kl), end = Math.min(n - 1, i + ku); j <= end; j++) {
+				C.data[ci + j] = data[i * w + j - i + kl];
+			}
+			for (int j = Math.max(0, i - B.kl), end = Math.min(n - 1, i + B.ku); j <= end; j++) {
+				C.data[ci + j] += sign * B.data[i * bw + j - i + B.kl];
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * transpose - A', an n x m band matrix with the bandwidths swapped
+	 *
+	 * @return BandMatrix
+	 */
+	public BandMatrix transpose()
+	{
+		BandMatrix T = new BandMatrix(n, m, ku, kl);
+		int w = kl + ku + 1;
+		for (int i = 0; i < m; i++) {
+			for (int j = Math.max(0, i - kl), end = Math.min(n - 1, i + ku); j <= end; j++) {
+				T.data[j * w + i - j + ku] = data[i * w + j - i + kl];
+			}
+		}
+		return T;
+	}
+
+	/**
+	 * norm1 - returns one norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each column.
+	 */
+	public double norm1()
+	{
+		double[] sums = new double[n];
+		int w = kl + ku + 1;
+		for (int i = 0; i < m; i++) {
+			for (int j = Math.max(0, i - kl), end = Math.min(n - 1, i + ku); j <= end; j++) {
+				sums[j] += Math.abs(data[i * w + j - i + kl]);
+			}
+		}
+		double max = 0;
+		for (int j = 0; j < n; j++) max = Math.max(max, sums[j]);
+		return max;
+	}
+
+	/**
+	 * normInF - returns infinity norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each row.
+	 */
+	public double normInF()
+	{
+		double max = 0;
+		int w = kl + ku + 1;
+		for (int i = 0; i < m; i++) {
+			double sum = 0;
+			for (int k = i * w; k < (i + 1) * w; k++) sum += Math.abs(data[k]);
+			max = Math.max(max, sum);
+		}
+		return max;
+	}
+
+	/**
+	 * normF - returns Frobenius norm of the matrix.
+	 *
+	 * @return sqrt of sum of squares of all elements.
+	 */
+	public double normF()
+	{
+		double sum = 0;
+		for (int k = 0; k < data.length; k++) {
+			sum += data[k] * data[k];
+		}
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * solve - X with A*X = B, by Gaussian elimination with partial pivoting that
+	 * 		stays inside the band. Row exchanges widen the upper band to kl+ku, so the
+	 * 		elimination works on a copy with kl more diagonals; the cost is
+	 * 		O(n*kl*(kl+ku)) plus O(n*(kl+ku)) per column of B.
+	 *
+	 * @param B - right hand side, n rows
+	 * @return Matrix X
+	 * @throws IllegalArgumentException - If A is not square, B has the wrong number of rows or A is singular
+	 */
+	public Matrix solve(Matrix B) throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		int p = B.getColumnDimension();
+		Matrix X = B.copy();
+		double[] x = X.storage();
+		//Row i of the work copy holds columns i-kl .. i+ku+kl
+		double[] u = new double[Matrix.elements(n, 2L * kl + ku + 1)];
+		int uw = kl + ku, w = kl + uw + 1, aw = kl + ku + 1;
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(data, i * aw, u, i * w, aw);
+		}
+		for (int k = 0; k < n; k++) {
+			int end = Math.min(n - 1, k + kl), last = Math.min(n - 1, k + uw);
+			int pivot = k;
+			for (int r = k + 1; r <= end; r++) {
+				if(Math.abs(u[r * w + k - r + kl]) > Math.abs(u[pivot * w + k - pivot + kl])) pivot = r;
+			}
+			if(pivot != k) {
+				for (int j = k; j <= last; j++) {
+					int a = k * w + j - k + kl, b = pivot * w + j - pivot + kl;
+					double t = u[a];
+					u[a] = u[b];
+					u[b] = t;
+				}
+				for (int j = 0; j < p; j++) {
+					double t = x[k * p + j];
+					x[k * p + j] = x[pivot * p + j];
+					x[pivot * p + j] = t;
+				}
+			}
+			double d = u[k * w + kl];
+			if(d == 0) throw new IllegalArgumentException("Matrix is singular.");
+			for (int r = k + 1; r <= end; r++) {
+				int rk = r * w + kl - r, kk = k * w + kl - k;
+				double f = u[rk + k] / d;
+				if(f == 0) continue;
+				for (int j = k; j <= last; j++) {
+					u[rk + j] -= f * u[kk + j];
+				}
+				for (int j = 0; j < p; j++) {
+					x[r * p + j] -= f * x[k * p + j];
+				}
+			}
+		}
+		//Back substitution against the widened upper band
+		for (int i = n - 1; i >= 0; i--) {
+			int ii = i * w + kl - i, xi = i * p;
+			for (int k = i + 1, last = Math.min(n - 1, i + uw); k <= last; k++) {
+				double s = u[ii + k];
+				if(s == 0) continue;
+				for (int j = 0; j < p; j++) {
+					x[xi + j] -= s * x[k * p + j];
+				}
+			}
+			double d = u[ii + i];
+			for (int j = 0; j < p; j++) {
+				x[xi + j] /= d;
+			}
+		}
+		return X;
+	}
+}
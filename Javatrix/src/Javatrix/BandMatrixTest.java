@@ -0,0 +1,97 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class BandMatrixTest {
+
+	private static Matrix band(Matrix a, int kl, int ku) {
+		Matrix t = a.copy();
+		for (int i = 0; i < t.getRowDimension(); i++) {
+			for (int j = 0; j < t.getColumnDimension(); j++) {
+				if(j < i - kl || j > i + ku) t.set(i, j, 0);
+			}
+		}
+		return t;
+	}
+
+	@Test
+	public void testTooLarge() {
+		try {
+			new BandMatrix(65536, 1, 65536, 0);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			new BandMatrix(1, 1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testConversion() {
+		Matrix a = Matrix.random(6, 8);
+		BandMatrix b = new BandMatrix(a, 1, 2);
+		assertEquals(1, b.getLowerBandwidth());
+		assertEquals(2, b.getUpperBandwidth());
+		assertArrayEquals(band(a, 1, 2).getRowPackedCopy(), b.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.get(3, 5), b.get(3, 5), 0);
+		assertEquals(0, b.get(3, 6), 0);
+		b.set(5, 4, 8);
+		assertEquals(8, b.get(5, 4), 0);
+		try {
+			b.set(5, 3, 1);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			b.get(6, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix a = Matrix.random(7, 5), b = Matrix.random(7, 5), c = Matrix.random(5, 3);
+		Matrix da = band(a, 2, 1), db = band(b, 0, 3);
+		BandMatrix ba = new BandMatrix(a, 2, 1), bb = new BandMatrix(b, 0, 3);
+		assertArrayEquals(da.times(c).getRowPackedCopy(), ba.times(c).getRowPackedCopy(), 1e-14);
+		BandMatrix sum = ba.plus(bb);
+		assertEquals(2, sum.getLowerBandwidth());
+		assertEquals(3, sum.getUpperBandwidth());
+		assertArrayEquals(da.plus(db).getRowPackedCopy(), sum.toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(da.minus(db).getRowPackedCopy(), ba.minus(bb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(da.times(2).getRowPackedCopy(), ba.times(2).toMatrix().getRowPackedCopy(), 0);
+		BandMatrix t = ba.transpose();
+		assertEquals(5, t.getRowDimension());
+		assertEquals(1, t.getLowerBandwidth());
+		assertArrayEquals(da.transpose().getRowPackedCopy(), t.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(da.norm1(), ba.norm1(), 1e-14);
+		assertEquals(da.normInF(), ba.normInF(), 1e-14);
+		assertEquals(da.normF(), ba.normF(), 1e-12);
+		try {
+			ba.plus(t);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testSolve() {
+		int[][] bands = {{1, 1}, {2, 0}, {0, 3}, {3, 2}};
+		for (int[] k : bands) {
+			Matrix a = band(Matrix.random(40, 40), k[0], k[1]), b = Matrix.random(40, 3);
+			Matrix x = new BandMatrix(a, k[0], k[1]).solve(b);
+			assertArrayEquals(a.solve(b).getRowPackedCopy(), x.getRowPackedCopy(), 1e-8 * a.norm1() * x.norm1());
+		}
+		//Needs a row exchange: the leading element is zero
+		BandMatrix p = new BandMatrix(new Matrix(new double[][] {{0, 1, 0}, {2, 1, 1}, {0, 1, 3}}), 1, 1);
+		assertArrayEquals(new double[] {0.5, 1, 0}, p.solve(new Matrix(new double[] {1, 2, 1}, 3)).getRowPackedCopy(), 1e-15);
+		try {
+			new BandMatrix(3, 3, 1, 1).solve(new Matrix(3, 1));
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			new BandMatrix(3, 4, 1, 1).solve(new Matrix(3, 1));
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
@@ -0,0 +1,476 @@
+package Javatrix;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ChunkedReader - parallel parser for large text matrix files.
+ *
+ * The file is cut into chunks of about CHUNK bytes, each moved forward to the
+ * start of a line, and every chunk is memory mapped on its own. A first parallel
+ * pass counts the rows (or values) in each chunk, which fixes where each chunk's
+ * rows go; the Matrix is then allocated once and a second parallel pass parses
+ * every chunk straight into its rows with TextParser.parseDouble. Matrix Market
+ * coordinate entries carry their own position and need only the second pass.
+ * Chunks run on the shared pool of Matrix, or on the calling thread when
+ * getParallelism() is 1.
+ */
+final class ChunkedReader
+{
+	static final int WHITESPACE = 0;
+	static final int CSV = 1;
+	static final int MATRIX_MARKET = 2;
+
+	/** Bytes per chunk; lines longer than this simply make a chunk larger. */
+	static final long CHUNK = 32L << 20;
+
+	private ChunkedReader() {}
+
+	/**
+	 * Chars - the bytes of a mapped chunk seen as ASCII characters, for the
+	 * 		CharSequence methods of TextParser.
+	 */
+	private static final class Chars implements CharSequence
+	{
+		final ByteBuffer buf;
+
+		Chars(ByteBuffer buf)
+		{
+			this.buf = buf;
+		}
+
+		public int length()
+		{
+			return buf.limit();
+		}
+
+		public char charAt(int i)
+		{
+			return (char)(buf.get(i) & 0xff);
+		}
+
+		public CharSequence subSequence(int start, int end)
+		{
+			StringBuilder sb = new StringBuilder(end - start);
+			for (int i = start; i < end; i++) sb.append(charAt(i));
+			return sb.toString();
+		}
+
+		@Override
+		public String toString()
+		{
+			return subSequence(0, length()).toString();
+		}
+
+		/** Index of the next '\n' at or after p, or the length. */
+		int lineEnd(int p)
+		{
+			int end = buf.limit();
+			while(p < end && buf.get(p) != '\n') p++;
+			return p;
+		}
+
+		/** End of the line content ending at eol, without a trailing '\r'. */
+		int trim(int p, int eol)
+		{
+			return eol > p && buf.get(eol - 1) == '\r' ? eol - 1 : eol;
+		}
+	}
+
+	/**
+	 * Chunk - one line-aligned byte range and what the passes learn about it.
+	 */
+	private static final class Chunk
+	{
+		final long start;
+		final long end;
+		/** Rows (or values) in this chunk before the first empty line. */
+		long count;
+		boolean emptyLine;
+		/** Index of the first row (or value) of this chunk in the matrix. */
+		long first;
+
+		Chunk(long start, long end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Task - work done on one chunk, given its mapped characters
+	 */
+	private interface Task
+	{
+		void run(Chunk c, Chars s) throws IOException;
+	}
+
+	/**
+	 * read - parses a whole file in the given format
+	 *
+	 * @return Matrix, or null if the file holds no rows
+	 * @throws IOException - If the file cannot be read or is malformed
+	 */
+	static Matrix read(Path path, int format, long chunk) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(format == MATRIX_MARKET) return readMatrixMarket(ch, chunk);
+			return readRows(ch, format == CSV, chunk);
+		}
+	}
+
+	private static Matrix readRows(FileChannel ch, final boolean csv, long chunk) throws IOException
+	{
+		long size = ch.size();
+		if(size == 0) return null;
+		final int cols;
+		Chars head = map(ch, 0, Math.min(size, Integer.MAX_VALUE));
+		int eol = head.lineEnd(0), end = head.trim(0, eol);
+		if(end == 0) return null;
+		cols = csv ? fields(head, 0, end) : tokens(head, 0, end);
+
+		List<Chunk> chunks = split(ch, 0, size, chunk);
+		run(ch, chunks, new Task() {
+			public void run(Chunk c, Chars s)
+			{
+				for (int p = 0, n = s.length(); p < n; ) {
+					int eol = s.lineEnd(p);
+					if(s.trim(p, eol) == p) {
+						c.emptyLine = true;
+						return;
+					}
+					c.count++;
+					p = eol + 1;
+				}
+			}
+		});
+		final long rows = place(chunks);
+		if(rows * Math.max(cols, 1) > Integer.MAX_VALUE) {
+			throw new IOException("Matrix " + rows + "x" + cols + " is too large to load, use MappedMatrix.");
+		}
+		final Matrix A = new Matrix((int)rows, cols);
+		final double[] data = A.storage();
+		run(ch, chunks, new Task() {
+			public void run(Chunk c, Chars s) throws IOException
+			{
+				int p = 0;
+				for (long r = c.first; r < c.first + c.count; r++) {
+					int eol = s.lineEnd(p), end = s.trim(p, eol);
+					int base = (int)r * cols, k = 0;
+					try {
+						if(csv) {
+							for (int q = p; q <= end; q++) {
+								int f = q;
+								while(q < end && s.charAt(q) != ',') q++;
+								if(k == cols) throw new IOException("Row " + (r + 1) + " has more than " + cols + " values.");
+								int a = TextParser.skip(s, f, q), b = q;
+								while(b > a && s.charAt(b - 1) <= ' ') b--;
+								data[base + k++] = TextParser.parseDouble(s, a, b);
+							}
+						}
+						else {
+							for (int q = TextParser.skip(s, p, end); q < end; q = TextParser.skip(s, q, end)) {
+								if(k == cols) throw new IOException("Row " + (r + 1) + " has more than " + cols + " values.");
+								int t = TextParser.token(s, q, end);
+								data[base + k++] = TextParser.parseDouble(s, q, t);
+								q = t;
+							}
+						}
+					} catch(NumberFormatException e) {
+						throw new IOException("Row " + (r + 1) + ": " + e.getMessage());
+					}
+					p = eol + 1;
+				}
+			}
+		});
+		return A;
+	}
+
+	private static Matrix readMatrixMarket(FileChannel ch, long chunk) throws IOException
+	{
+		long size = ch.size();
+		Chars head = map(ch, 0, Math.min(size, Integer.MAX_VALUE));
+		int eol = head.lineEnd(0);
+		String[] banner = head.subSequence(0, head.trim(0, eol)).toString().trim().toLowerCase().split("\\s+");
+		if(banner.length != 5 || !banner[0].equals("%%matrixmarket") || !banner[1].equals("matrix")) {
+			throw new IOException("Not a Matrix Market matrix file.");
+		}
+		final boolean coordinate = banner[2].equals("coordinate");
+		final boolean pattern = banner[3].equals("pattern");
+		final String symmetry = banner[4];
+		if(!coordinate && !banner[2].equals("array")
+				|| !pattern && !banner[3].equals("real") && !banner[3].equals("integer")
+				|| pattern && !coordinate
+				|| !symmetry.equals("general") && !symmetry.equals("symmetric") && !symmetry.equals("skew-symmetric")) {
+			throw new IOException("Unsupported Matrix Market type: " + String.join(" ", banner));
+		}
+		//Comments, then the size line
+		int p = eol + 1;
+		String[] dims = null;
+		while(p < head.length()) {
+			eol = head.lineEnd(p);
+			String line = head.subSequence(p, head.trim(p, eol)).toString().trim();
+			p = eol + 1;
+			if(line.isEmpty() || line.charAt(0) == '%') continue;
+			dims = line.split("\\s+");
+			break;
+		}
+		if(dims == null || dims.length != (coordinate ? 3 : 2)) throw new IOException("Missing Matrix Market size line.");
+		final int m, n;
+		final long entries;
+		try {
+			m = Integer.parseInt(dims[0]);
+			n = Integer.parseInt(dims[1]);
+			entries = coordinate ? Long.parseLong(dims[2]) : 0;
+		} catch(NumberFormatException e) {
+			throw new IOException("Bad Matrix Market size line.");
+		}
+		final boolean symmetric = !symmetry.equals("general"), skew = symmetry.equals("skew-symmetric");
+		if(m < 0 || n < 0 || symmetric && m != n) throw new IOException("Bad Matrix Market size line.");
+		if((long)m * n > Integer.MAX_VALUE) {
+			throw new IOException("Matrix " + m + "x" + n + " is too large to load, use MappedMatrix.");
+		}
+		final Matrix A = new Matrix(m, n);
+		final double[] data = A.storage();
+		List<Chunk> chunks = split(ch, Math.min(p, size), size, chunk);
+
+		if(coordinate) {
+			run(ch, chunks, new Task() {
+				public void run(Chunk c, Chars s) throws IOException
+				{
+					for (int p = 0, len = s.length(); p < len; ) {
+						int eol = s.lineEnd(p), end = s.trim(p, eol);
+						int q = TextParser.skip(s, p, end);
+						if(q < end && s.charAt(q) != '%') {
+							int t = TextParser.token(s, q, end);
+							int i = index(s, q, t, m);
+							q = TextParser.skip(s, t, end);
+							t = TextParser.token(s, q, end);
+							int j = index(s, q, t, n);
+							double v = 1;
+							if(!pattern) {
+								q = TextParser.skip(s, t, end);
+								t = TextParser.token(s, q, end);
+								v = number(s, q, t);
+							}
+							data[i * n + j] = v;
+							if(symmetric && i != j) data[j * n + i] = skew ? -v : v;
+							c.count++;
+						}
+						p = eol + 1;
+					}
+				}
+			});
+			long total = 0;
+			for (Chunk c : chunks) total += c.count;
+			if(total != entries) throw new IOException("Expected " + entries + " entries, found " + total + ".");
+			return A;
+		}
+
+		//Arrays list columns in order, only on and below (or strictly below) the diagonal when symmetric
+		run(ch, chunks, new Task() {
+			public void run(Chunk c, Chars s)
+			{
+				for (int p = 0, len = s.length(); p < len; ) {
+					int eol = s.lineEnd(p), end = s.trim(p, eol);
+					int q = TextParser.skip(s, p, end);
+					if(q < end && s.charAt(q) != '%') {
+						for (; q < end; q = TextParser.skip(s, q, end)) {
+							q = TextParser.token(s, q, end);
+							c.count++;
+						}
+					}
+					p = eol + 1;
+				}
+			}
+		});
+		long total = place(chunks);
+		long expected = !symmetric ? (long)m * n : skew ? (long)n * (n - 1) / 2 : (long)n * (n + 1) / 2;
+		if(total != expected) throw new IOException("Expected " + expected + " values, found " + total + ".");
+		run(ch, chunks, new Task() {
+			public void run(Chunk c, Chars s) throws IOException
+			{
+				if(c.count == 0) return;
+				//Position of value c.first
+				long k = c.first;
+				int i = 0, j = 0;
+				while(true) {
+					int top = symmetric ? (skew ? j + 1 : j) : 0;
+					if(k < m - top) {
+						i = top + (int)k;
+						break;
+					}
+					k -= m - top;
+					j++;
+				}
+				for (int p = 0, len = s.length(); p < len; ) {
+					int eol = s.lineEnd(p), end = s.trim(p, eol);
+					int q = TextParser.skip(s, p, end);
+					if(q < end && s.charAt(q) != '%') {
+						for (; q < end; q = TextParser.skip(s, q, end)) {
+							int t = TextParser.token(s, q, end);
+							double v = number(s, q, t);
+							data[i * n + j] = v;
+							if(symmetric && i != j) data[j * n + i] = skew ? -v : v;
+							if(++i == m) {
+								j++;
+								i = symmetric ? (skew ? j + 1 : j) : 0;
+							}
+							q = t;
+						}
+					}
+					p = eol + 1;
+				}
+			}
+		});
+		return A;
+	}
+
+	/** A 1-based index token as a 0-based index below limit. */
+	private static int index(Chars s, int start, int end, int limit) throws IOException
+	{
+		double v = number(s, start, end);
+		if(v != Math.rint(v) || v < 1 || v > limit) throw new IOException("Bad index " + s.subSequence(start, end) + ".");
+		return (int)v - 1;
+	}
+
+	private static double number(Chars s, int start, int end) throws IOException
+	{
+		if(start == end) throw new IOException("Missing value.");
+		try {
+			return TextParser.parseDouble(s, start, end);
+		} catch(NumberFormatException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	private static int tokens(Chars s, int p, int end)
+	{
+		int k = 0;
+		for (p = TextParser.skip(s, p, end); p < end; p = TextParser.skip(s, p, end)) {
+			p = TextParser.token(s, p, end);
+			k++;
+		}
+		return k;
+	}
+
+	private static int fields(Chars s, int p, int end)
+	{
+		int k = 1;
+		for (; p < end; p++) {
+			if(s.charAt(p) == ',') k++;
+		}
+		return k;
+	}
+
+	/**
+	 * place - sets the first row of each chunk from the counts of those before it,
+	 * 		dropping chunks after the first empty line
+	 *
+	 * @return total count
+	 */
+	private static long place(List<Chunk> chunks)
+	{
+		long total = 0;
+		for (int k = 0; k < chunks.size(); k++) {
+			Chunk c = chunks.get(k);
+			c.first = total;
+			total += c.count;
+			if(c.emptyLine) {
+				chunks.subList(k + 1, chunks.size()).clear();
+				break;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * split - cuts [start, end) into chunks of about chunk bytes, each beginning at
+	 * 		the start of a line
+	 */
+	private static List<Chunk> split(FileChannel ch, long start, long end, long chunk) throws IOException
+	{
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		ByteBuffer probe = ByteBuffer.allocate(4096);
+		long from = start;
+		while(from < end) {
+			long to = from + chunk;
+			if(to >= end) to = end;
+			else {
+				//Move to just past the next newline
+				search:
+				while(to < end) {
+					((Buffer)probe).clear();
+					int got = ch.read(probe, to);
+					if(got <= 0) {
+						to = end;
+						break;
+					}
+					for (int i = 0; i < got; i++) {
+						if(probe.get(i) == '\n') {
+							to += i + 1;
+							break search;
+						}
+					}
+					to += got;
+				}
+			}
+			chunks.add(new Chunk(from, to));
+			from = to;
+		}
+		return chunks;
+	}
+
+	private static Chars map(FileChannel ch, long start, long size) throws IOException
+	{
+		MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, start, size);
+		return new Chars(map);
+	}
+
+	/**
+	 * run - applies task to every chunk, on the shared pool when there is one
+	 */
+	private static void run(final FileChannel ch, List<Chunk> chunks, final Task task) throws IOException
+	{
+		ForkJoinPool pool = chunks.size() > 1 ? Matrix.sharedPool(Long.MAX_VALUE) : null;
+		if(pool == null) {
+			for (Chunk c : chunks) task.run(c, map(ch, c.start, c.end - c.start));
+			return;
+		}
+		List<RecursiveAction> actions = new ArrayList<RecursiveAction>();
+		for (final Chunk c : chunks) {
+			actions.add(new RecursiveAction() {
+				@Override
+				protected void compute()
+				{
+					try {
+						task.run(c, map(ch, c.start, c.end - c.start));
+					} catch(IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		}
+		try {
+			pool.invoke(new RecursiveAction() {
+				@Override
+				protected void compute()
+				{
+					invokeAll(actions);
+				}
+			});
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedReaderTest {
+	private Path file;
+	private int parallelism;
+
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("matrix", ".txt");
+		parallelism = Matrix.getParallelism();
+		Matrix.setParallelism(3);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Matrix.setParallelism(parallelism);
+		Files.deleteIfExists(file);
+	}
+
+	private Matrix read(String text, int format, long chunk) throws IOException {
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+		return ChunkedReader.read(file, format, chunk);
+	}
+
+	private void assertFails(String text, int format) {
+		try {
+			read(text, format, 8);
+			fail(text);
+		} catch(IOException e) {}
+	}
+
+	/*
+	 * Tests whitespace separated files agree with Matrix.read for many chunk sizes
+	 */
+	@Test
+	public void testWhitespace() throws IOException {
+		Matrix a = Matrix.random(57, 13).minus(new Matrix(57, 13, 0.5));
+		StringWriter out = new StringWriter();
+		a.write(out, FormatSpec.shortest());
+		String text = out.toString() + "9 9 9\n";
+		for (long chunk : new long[] {1, 7, 100, 4096, ChunkedReader.CHUNK}) {
+			assertArrayEquals(a.getRowPackedCopy(), read(text, ChunkedReader.WHITESPACE, chunk).getRowPackedCopy(), 0);
+		}
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+		assertArrayEquals(a.getRowPackedCopy(), Matrix.readText(file).getRowPackedCopy(), 0);
+
+		String ragged = "1\t2  3\r\n4 5\r\n\t6 7 8 \r\n";
+		Matrix b = read(ragged, ChunkedReader.WHITESPACE, 5);
+		assertArrayEquals(Matrix.read(new BufferedReader(new StringReader(ragged))).getRowPackedCopy(), b.getRowPackedCopy(), 0);
+		assertArrayEquals(new double[] {1, 2, 3, 4, 5, 0, 6, 7, 8}, b.getRowPackedCopy(), 0);
+		assertNull(read("", ChunkedReader.WHITESPACE, 8));
+		assertNull(read("\n1 2\n", ChunkedReader.WHITESPACE, 8));
+		assertFails("1 2\n3 4 5\n", ChunkedReader.WHITESPACE);
+		assertFails("1 2\n3 x\n", ChunkedReader.WHITESPACE);
+	}
+
+	/*
+	 * Tests comma separated files
+	 */
+	@Test
+	public void testCSV() throws IOException {
+		String text = "1, 2,3\r\n-4 ,5.5e1,\t6\n7,8\n";
+		for (long chunk : new long[] {1, 9, 1000}) {
+			assertArrayEquals(new double[] {1, 2, 3, -4, 55, 6, 7, 8, 0}, read(text, ChunkedReader.CSV, chunk).getRowPackedCopy(), 0);
+		}
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+		assertEquals(3, Matrix.readCSV(file).getRowDimension());
+		assertFails("1,2\n3,\n", ChunkedReader.CSV);
+		assertFails("1,2\n3,4,5\n", ChunkedReader.CSV);
+	}
+
+	/*
+	 * Tests Matrix Market coordinate and array files of each symmetry
+	 */
+	@Test
+	public void testMatrixMarket() throws IOException {
+		String general = "%%MatrixMarket matrix coordinate real general\n% comment\n%\n3 4 4\n1 1 1.5\n2 4 -2\n3 2 3e2\n1 3 4\n";
+		for (long chunk : new long[] {1, 12, 1000}) {
+			assertArrayEquals(new double[] {1.5, 0, 4, 0, 0, 0, 0, -2, 0, 300, 0, 0},
+					read(general, ChunkedReader.MATRIX_MARKET, chunk).getRowPackedCopy(), 0);
+		}
+		Files.write(file, general.getBytes(StandardCharsets.US_ASCII));
+		assertEquals(4, Matrix.readMatrixMarket(file).getColumnDimension());
+		assertArrayEquals(new double[] {1, 7, 7, 0}, read("%%MatrixMarket matrix coordinate integer symmetric\n2 2 2\n1 1 1\n2 1 7\n",
+				ChunkedReader.MATRIX_MARKET, 4).getRowPackedCopy(), 0);
+		assertArrayEquals(new double[] {0, -1, 1, 0}, read("%%MatrixMarket matrix coordinate pattern skew-symmetric\n2 2 1\n2 1\n",
+				ChunkedReader.MATRIX_MARKET, 4).getRowPackedCopy(), 0);
+		//Arrays are column major
+		assertArrayEquals(new double[] {1, 3, 5, 2, 4, 6}, read("%%MatrixMarket matrix array real general\n2 3\n1\n2\n3\n4\n5\n6\n",
+				ChunkedReader.MATRIX_MARKET, 3).getRowPackedCopy(), 0);
+		for (long chunk : new long[] {1, 5, 100}) {
+			assertArrayEquals(new double[] {1, 2, 3, 2, 4, 5, 3, 5, 6}, read("%%MatrixMarket matrix array real symmetric\n3 3\n1\n2\n3\n4\n5\n6\n",
+					ChunkedReader.MATRIX_MARKET, chunk).getRowPackedCopy(), 0);
+			assertArrayEquals(new double[] {0, -1, -2, 1, 0, -3, 2, 3, 0}, read("%%MatrixMarket matrix array real skew-symmetric\n3 3\n1\n2\n3\n",
+					ChunkedReader.MATRIX_MARKET, chunk).getRowPackedCopy(), 0);
+		}
+		assertFails("%%MatrixMarket matrix coordinate real general\n2 2 2\n1 1 1\n", ChunkedReader.MATRIX_MARKET);
+		assertFails("%%MatrixMarket matrix coordinate real general\n2 2 1\n3 1 1\n", ChunkedReader.MATRIX_MARKET);
+		assertFails("%%MatrixMarket matrix coordinate complex general\n2 2 1\n1 1 1 0\n", ChunkedReader.MATRIX_MARKET);
+		assertFails("%%MatrixMarket matrix array real general\n2 2\n1\n2\n3\n", ChunkedReader.MATRIX_MARKET);
+		assertFails("1 2\n3 4\n", ChunkedReader.MATRIX_MARKET);
+	}
+}
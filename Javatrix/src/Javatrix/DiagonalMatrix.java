@@ -0,0 +1,403 @@
+package Javatrix;
+
+/**
+ * DiagonalMatrix - an m x n matrix that is zero off its main diagonal.
+ *
+ * Only the min(m, n) diagonal elements are stored, or a single scalar for a scaled
+ * identity, so products, sums and inverses against a dense Matrix cost O(mn) or
+ * O(n) instead of going through the general kernels. Instances are immutable.
+ */
+public class DiagonalMatrix
+{
+	private final int m;
+	private final int n;
+	/** The diagonal, or null when every diagonal element is s. */
+	private final double[] d;
+	private final double s;
+
+	/**
+	 * Creates a square diagonal matrix.
+	 *
+	 * @param d - The diagonal, copied
+	 */
+	public DiagonalMatrix(double[] d)
+	{
+		this(d.length, d.length, d);
+	}
+
+	/**
+	 * Creates an m x n diagonal matrix.
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @param d - The min(m, n) diagonal elements, copied
+	 * @throws IllegalArgumentException - If d does not have min(m, n) elements
+	 */
+	public DiagonalMatrix(int m, int n, double[] d) throws IllegalArgumentException
+	{
+		this(m, n, d.clone(), 0);
+		if(m < 0 || n < 0 || d.length != Math.min(m, n)) throw new IllegalArgumentException();
+	}
+
+	/**
+	 * Constructs the diagonal part of a matrix. Elements of A off the diagonal are
+	 * not read.
+	 *
+	 * @param A - the matrix
+	 */
+	public DiagonalMatrix(Matrix A)
+	{
+		this(A.getRowDimension(), A.getColumnDimension(), new double[Math.min(A.getRowDimension(), A.getColumnDimension())], 0);
+		for (int i = 0; i < d.length; i++) d[i] = A.get(i, i);
+	}
+
+	private DiagonalMatrix(int m, int n, double[] d, double s)
+	{
+		this.m = m;
+		this.n = n;
+		this.d = d;
+		this.s = s;
+	}
+
+	/**
+	 * identity - an m x n identity, stored as a single scalar
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @return DiagonalMatrix
+	 */
+	public static DiagonalMatrix identity(int m, int n)
+	{
+		return identity(m, n, 1);
+	}
+
+	/**
+	 * identity - the scaled identity s*I, stored as a single scalar
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @param s - The diagonal element
+	 * @return DiagonalMatrix
+	 */
+	public static DiagonalMatrix identity(int m, int n, double s)
+	{
+		if(m < 0 || n < 0) throw new IllegalArgumentException();
+		return new DiagonalMatrix(m, n, null, s);
+	}
+
+	private int size()
+	{
+		return Math.min(m, n);
+	}
+
+	private double diagonal(int i)
+	{
+		return d == null ? s : d[i];
+	}
+
+	/**
+	 * getDiagonal - Gets a copy of the min(m, n) diagonal elements.
+	 *
+	 * @return double[]
+	 */
+	public double[] getDiagonal()
+	{
+		double[] c = new double[size()];
+		for (int i = 0; i < c.length; i++) c[i] = diagonal(i);
+		return c;
+	}
+
+	/**
+	 * toMatrix - returns a dense copy of this matrix
+	 *
+	 * @return Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix A = new Matrix(m, n);
+		double[] a = A.storage();
+		for (int i = 0; i < size(); i++) a[i * n + i] = diagonal(i);
+		return A;
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * get - returns a specific element from the matrix
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		return i == j ? diagonal(i) : 0;
+	}
+
+	/**
+	 * times - diagonal times dense, which scales the rows of a copy of B in O(mp)
+	 *
+	 * @param B - dense right operand, n x p
+	 * @return Matrix product, m x p
+	 */
+	public Matrix times(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		if(d == null && m == n) return B.times(s);
+		int k = size(), p = B.getColumnDimension();
+		Matrix C = new Matrix(m, p);
+		if(k > 0 && p > 0) {
+			B.view(0, k - 1, 0, p - 1).times(1, C.view(0, k - 1, 0, p - 1)).scaleRows(getDiagonal());
+		}
+		return C;
+	}
+
+	/**
+	 * leftTimes - dense times diagonal, A*D, which scales the columns of a copy of A in O(qn)
+	 *
+	 * @param A - dense left operand, q x m
+	 * @return Matrix product, q x n
+	 */
+	public Matrix leftTimes(Matrix A) throws IllegalArgumentException
+	{
+		if(A.getColumnDimension() != m) throw new IllegalArgumentException();
+		if(d == null && m == n) return A.times(s);
+		int k = size(), q = A.getRowDimension();
+		Matrix C = new Matrix(q, n);
+		if(k > 0 && q > 0) {
+			A.view(0, q - 1, 0, k - 1).times(1, C.view(0, q - 1, 0, k - 1)).scaleColumns(getDiagonal());
+		}
+		return C;
+	}
+
+	/**
+	 * times - diagonal times diagonal, in O(n)
+	 *
+	 * @param B - diagonal right operand, n x p
+	 * @return DiagonalMatrix product, m x p
+	 */
+	public DiagonalMatrix times(DiagonalMatrix B) throws IllegalArgumentException
+	{
+		if(B.m != n) throw new IllegalArgumentException();
+		int p = B.n, k = Math.min(m, p), common = Math.min(size(), B.size());
+		if(d == null && B.d == null && common == k) return new DiagonalMatrix(m, p, null, s * B.s);
+		double[] c = new double[k];
+		for (int i = 0; i < common; i++) c[i] = diagonal(i) * B.diagonal(i);
+		return new DiagonalMatrix(m, p, c, 0);
+	}
+
+	/**
+	 * times - s*A
+	 *
+	 * @param s - the scalar
+	 * @return DiagonalMatrix
+	 */
+	public DiagonalMatrix times(double s)
+	{
+		if(d == null) return new DiagonalMatrix(m, n, null, s * this.s);
+		double[] c = new double[d.length];
+		for (int i = 0; i < c.length; i++) c[i] = s * d[i];
+		return new DiagonalMatrix(m, n, c, 0);
+	}
+
+	/**
+	 * plus - D + B, adding to the diagonal of a copy of B
+	 *
+	 * @param B - a dense matrix of the same dimensions
+	 * @return Matrix
+	 */
+	public Matrix plus(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != m || B.getColumnDimension() != n) throw new IllegalArgumentException();
+		Matrix C = B.copy();
+		double[] c = C.storage();
+		for (int i = 0; i < size(); i++) c[i * n + i] += diagonal(i);
+		return C;
+	}
+
+	/**
+	 * minus - D - B
+	 *
+	 * @param B - a dense matrix of the same dimensions
+	 * @return Matrix
+	 */
+	public Matrix minus(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != m || B.getColumnDimension() != n) throw new IllegalArgumentException();
+		Matrix C = B.uminus();
+		double[] c = C.storage();
+		for (int i = 0; i < size(); i++) c[i * n + i] += diagonal(i);
+		return C;
+	}
+
+	/**
+	 * plus - D + B
+	 *
+	 * @param B - a diagonal matrix of the same dimensions
+	 * @return DiagonalMatrix
+	 */
+	public DiagonalMatrix plus(DiagonalMatrix B) throws IllegalArgumentException
+	{
+		return add(B, 1);
+	}
+
+	/**
+	 * minus - D - B
+	 *
+	 * @param B - a diagonal matrix of the same dimensions
+	 * @return DiagonalMatrix
+	 */
+	public DiagonalMatrix minus(DiagonalMatrix B) throws IllegalArgumentException
+	{
+		return add(B, -1);
+	}
+
+	private DiagonalMatrix add(DiagonalMatrix B, double sign)
+	{
+		if(B.m != m || B.n != n) throw new IllegalArgumentException();
+		if(d == null && B.d == null) return new DiagonalMatrix(m, n, null, s + sign * B.s);
+		double[] c = new double[size()];
+		for (int i = 0; i < c.length; i++) c[i] = diagonal(i) + sign * B.diagonal(i);
+		return new DiagonalMatrix(m, n, c, 0);
+	}
+
+	/**
+	 * arrayTimes - element-by-element multiplication, D.*B, which is diagonal and
+	 * 		reads only the diagonal of B
+	 *
+	 * @param B - a dense matrix of the same dimensions
+	 * @return DiagonalMatrix
+	 */
+	public DiagonalMatrix arrayTimes(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != m || B.getColumnDimension() != n) throw new IllegalArgumentException();
+		double[] c = new double[size()];
+		for (int i = 0; i < c.length; i++) c[i] = diagonal(i) * B.get(i, i);
+		return new DiagonalMatrix(m, n, c, 0);
+	}
+
+	/**
+	 * transpose - D', an n x m matrix with the same diagonal
+	 *
+	 * @return DiagonalMatrix
+	 */
+	public DiagonalMatrix transpose()
+	{
+		return new DiagonalMatrix(n, m, d, s);
+	}
+
+	/**
+	 * inverse - D^-1, the reciprocals of the diagonal
+	 *
+	 * @return DiagonalMatrix
+	 * @throws IllegalArgumentException - If D is not square or is singular
+	 */
+	public DiagonalMatrix inverse() throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		if(d == null) {
+			if(s == 0 && n > 0) throw new IllegalArgumentException("Matrix is singular.");
+			return new DiagonalMatrix(n, n, null, 1 / s);
+		}
+		double[] c = new double[n];
+		for (int i = 0; i < n; i++) {
+			if(d[i] == 0) throw new IllegalArgumentException("Matrix is singular.");
+			c[i] = 1 / d[i];
+		}
+		return new DiagonalMatrix(n, n, c, 0);
+	}
+
+	/**
+	 * solve - X with D*X = B, dividing the rows of B by the diagonal
+	 *
+	 * @param B - right hand side, n rows
+	 * @return Matrix X
+	 * @throws IllegalArgumentException - If D is not square or is singular, or B has the wrong number of rows
+	 */
+	public Matrix solve(Matrix B) throws IllegalArgumentException
+	{
+		return inverse().times(B);
+	}
+
+	/**
+	 * det - the determinant, the product of the diagonal
+	 *
+	 * @return double
+	 * @throws IllegalArgumentException - If D is not square
+	 */
+	public double det() throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		if(d == null) return Math.pow(s, n);
+		double p = 1;
+		for (int i = 0; i < n; i++) p *= d[i];
+		return p;
+	}
+
+	/**
+	 * trace - sum of the diagonal
+	 *
+	 * @return double
+	 */
+	public double trace()
+	{
+		if(d == null) return s * size();
+		double t = 0;
+		for (int i = 0; i < d.length; i++) t += d[i];
+		return t;
+	}
+
+	/**
+	 * norm1 - returns one norm of the matrix.
+	 *
+	 * @return largest absolute diagonal element.
+	 */
+	public double norm1()
+	{
+		if(d == null) return size() > 0 ? Math.abs(s) : 0;
+		double max = 0;
+		for (int i = 0; i < d.length; i++) max = Math.max(max, Math.abs(d[i]));
+		return max;
+	}
+
+	/**
+	 * normInF - returns infinity norm of the matrix.
+	 *
+	 * @return largest absolute diagonal element.
+	 */
+	public double normInF()
+	{
+		return norm1();
+	}
+
+	/**
+	 * normF - returns Frobenius norm of the matrix.
+	 *
+	 * @return sqrt of sum of squares of the diagonal.
+	 */
+	public double normF()
+	{
+		if(d == null) return Math.abs(s) * Math.sqrt(size());
+		double sum = 0;
+		for (int i = 0; i < d.length; i++) sum += d[i] * d[i];
+		return Math.sqrt(sum);
+	}
+}
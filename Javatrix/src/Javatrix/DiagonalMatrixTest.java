@@ -0,0 +1,90 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class DiagonalMatrixTest {
+
+	@Test
+	public void testConversion() {
+		DiagonalMatrix d = new DiagonalMatrix(2, 3, new double[] {2, -1});
+		assertArrayEquals(new double[] {2, 0, 0, 0, -1, 0}, d.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(-1, d.get(1, 1), 0);
+		assertEquals(0, d.get(0, 2), 0);
+		assertArrayEquals(new double[] {2, -1}, new DiagonalMatrix(d.toMatrix()).getDiagonal(), 0);
+		assertArrayEquals(Matrix.identity(3, 2).getRowPackedCopy(), DiagonalMatrix.identity(3, 2).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(new double[] {5, 5, 5}, DiagonalMatrix.identity(3, 4, 5).getDiagonal(), 0);
+		try {
+			new DiagonalMatrix(2, 3, new double[3]);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			d.get(2, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testTimes() {
+		Matrix b = Matrix.random(4, 3), a = Matrix.random(3, 4);
+		DiagonalMatrix[] ds = {new DiagonalMatrix(new double[] {1, -2, 3, 0.5}), DiagonalMatrix.identity(4, 4, 3),
+				new DiagonalMatrix(3, 4, new double[] {2, 3, 4}), new DiagonalMatrix(5, 4, new double[] {2, 3, 4, 5}),
+				DiagonalMatrix.identity(5, 4, -1)};
+		for (DiagonalMatrix d : ds) {
+			Matrix dense = d.toMatrix();
+			assertArrayEquals(dense.times(b).getRowPackedCopy(), d.times(b).getRowPackedCopy(), 1e-15);
+			assertArrayEquals(dense.times(b.transpose().transposeView()).getRowPackedCopy(),
+					d.times(b.transpose().transposeView()).getRowPackedCopy(), 1e-15);
+			Matrix left = Matrix.random(2, d.getRowDimension());
+			assertArrayEquals(left.times(dense).getRowPackedCopy(), left.times(d).getRowPackedCopy(), 1e-15);
+			assertArrayEquals(dense.transpose().getRowPackedCopy(), d.transpose().toMatrix().getRowPackedCopy(), 0);
+			for (DiagonalMatrix e : ds) {
+				if(e.getRowDimension() != d.getColumnDimension()) continue;
+				assertArrayEquals(dense.times(e.toMatrix()).getRowPackedCopy(), d.times(e).toMatrix().getRowPackedCopy(), 0);
+			}
+		}
+		try {
+			ds[0].times(a);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix b = Matrix.random(3, 3);
+		DiagonalMatrix d = new DiagonalMatrix(new double[] {1, -2, 3}), s = DiagonalMatrix.identity(3, 3, 2);
+		assertArrayEquals(d.toMatrix().plus(b).getRowPackedCopy(), d.plus(b).getRowPackedCopy(), 0);
+		assertArrayEquals(d.toMatrix().minus(b).getRowPackedCopy(), d.minus(b).getRowPackedCopy(), 0);
+		assertArrayEquals(d.toMatrix().arrayTimes(b).getRowPackedCopy(), d.arrayTimes(b).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(new double[] {3, 0, 5}, d.plus(s).getDiagonal(), 0);
+		assertArrayEquals(new double[] {-1, -4, 1}, d.minus(s).getDiagonal(), 0);
+		assertArrayEquals(new double[] {4, 4, 4}, s.plus(s).getDiagonal(), 0);
+		assertArrayEquals(new double[] {-3, 6, -9}, d.times(-3).getDiagonal(), 0);
+		assertEquals(2, d.trace(), 0);
+		assertEquals(6, s.trace(), 0);
+		assertEquals(3, d.norm1(), 0);
+		assertEquals(3, d.normInF(), 0);
+		assertEquals(Math.sqrt(14), d.normF(), 1e-15);
+		assertEquals(Math.sqrt(12), s.normF(), 1e-15);
+	}
+
+	@Test
+	public void testInverse() {
+		DiagonalMatrix d = new DiagonalMatrix(new double[] {1, -2, 4});
+		assertArrayEquals(new double[] {1, -0.5, 0.25}, d.inverse().getDiagonal(), 0);
+		assertArrayEquals(new double[] {0.5, 0.5}, DiagonalMatrix.identity(2, 2, 2).inverse().getDiagonal(), 0);
+		assertEquals(-8, d.det(), 0);
+		assertEquals(8, DiagonalMatrix.identity(3, 3, 2).det(), 0);
+		Matrix b = Matrix.random(3, 2);
+		assertArrayEquals(d.toMatrix().solve(b).getRowPackedCopy(), d.solve(b).getRowPackedCopy(), 1e-15);
+		try {
+			new DiagonalMatrix(new double[] {1, 0}).inverse();
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			DiagonalMatrix.identity(2, 3).inverse();
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
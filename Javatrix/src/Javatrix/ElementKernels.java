@@ -0,0 +1,108 @@
+package Javatrix;
+
+/**
+ * ElementKernels - element-by-element loops over contiguous runs of doubles, used
+ * by Matrix for its element-wise operations.
+ *
+ * This class is the scalar implementation. VectorKernels, compiled from src-vector
+ * when the build runs on JDK 16 or newer, overrides every loop with the incubating
+ * Vector API. It is only ever loaded by reflection, so a runtime without the
+ * jdk.incubator.vector module, or a jar built on an older JDK, keeps the scalar loops.
+ */
+class ElementKernels
+{
+	/** System property that disables the vectorized kernels when set to false. */
+	static final String VECTOR_PROPERTY = "javatrix.vector";
+
+	static final ElementKernels SCALAR = new ElementKernels();
+
+	private static final ElementKernels VECTOR = loadVector();
+
+	/**
+	 * vector - the vectorized kernels, or null when they cannot be used here
+	 */
+	static ElementKernels vector()
+	{
+		return VECTOR;
+	}
+
+	/**
+	 * preferred - the vectorized kernels unless they are unavailable or disabled
+	 * 		with -Djavatrix.vector=false
+	 */
+	static ElementKernels preferred()
+	{
+		if(VECTOR == null || "false".equals(System.getProperty(VECTOR_PROPERTY))) return SCALAR;
+		return VECTOR;
+	}
+
+	private static ElementKernels loadVector()
+	{
+		try {
+			ElementKernels k = (ElementKernels)Class.forName("Javatrix.VectorKernels").getDeclaredConstructor().newInstance();
+			double[] x = {1, 2, 3};
+			k.add(x, 0, x, 0, x, 0, x.length);
+			return x[2] == 6 ? k : null;
+		}
+		catch(Throwable t) {
+			//Not built with the Vector API, or jdk.incubator.vector is not in the boot layer
+			return null;
+		}
+	}
+
+	/**
+	 * isVector - whether these kernels use SIMD instructions
+	 */
+	boolean isVector()
+	{
+		return false;
+	}
+
+	/** z = x + y */
+	void add(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			z[zOff + i] = x[xOff + i] + y[yOff + i];
+		}
+	}
+
+	/** z = x - y */
+	void sub(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			z[zOff + i] = x[xOff + i] - y[yOff + i];
+		}
+	}
+
+	/** z = x .* y */
+	void mul(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			z[zOff + i] = x[xOff + i] * y[yOff + i];
+		}
+	}
+
+	/** z = x ./ y */
+	void div(double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			z[zOff + i] = x[xOff + i] / y[yOff + i];
+		}
+	}
+
+	/** z = s * x */
+	void scale(double[] x, int xOff, double s, double[] z, int zOff, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			z[zOff + i] = x[xOff + i] * s;
+		}
+	}
+
+	/** z = -x */
+	void negate(double[] x, int xOff, double[] z, int zOff, int len)
+	{
+		for (int i = 0; i < len; i++) {
+			z[zOff + i] = -x[xOff + i];
+		}
+	}
+}
@@ -0,0 +1,717 @@
+package Javatrix;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * FloatMatrix - a single precision matrix with the API of Matrix.
+ *
+ * Elements are floats in one flat row-major array, half the memory of a Matrix
+ * of the same shape, so operations limited by memory bandwidth run up to twice
+ * as fast. Sums inside times(FloatMatrix) are carried in float; norms and the
+ * trace accumulate in double. Convert with new FloatMatrix(Matrix), which rounds
+ * each element to the nearest float, and toMatrix(), which is exact.
+ */
+public class FloatMatrix
+{
+	/** Inner dimension block of times(FloatMatrix): KC rows of B, 512 KiB at NC columns. */
+	static final int KC = 256;
+	/** Column block of times(FloatMatrix). */
+	static final int NC = 512;
+	/** Parallel products split down to blocks of this many rows. */
+	static final int ROWS = 64;
+
+	private final float[] data;
+	private final int m;
+	private final int n;
+
+	/**
+	 * Constructor that checks arguments on basis that all rows need to be
+	 * 		the same length
+	 *
+	 * @param A - 2D array from which to construct the matrix
+	 */
+	public FloatMatrix(float[][] A) throws IllegalArgumentException
+	{
+		this.m = A.length;
+		this.n = A[0].length;
+		for (int i = 1; i < m; i++) {
+			if(A[i].length != n) throw new IllegalArgumentException();
+		}
+		this.data = new float[Matrix.elements(m, n)];
+		for (int i = 0; i < m; i++) {
+			System.arraycopy(A[i], 0, data, i*n, n);
+		}
+	}
+
+	/**
+	 * Creates a FloatMatrix quickly, without checking input parameters.
+	 *
+	 * @param A - 2D array from which to construct the matrix
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @throws IllegalArgumentException - If the matrix has more elements than an array can hold
+	 */
+	public FloatMatrix(float[][] A, int m, int n) throws IllegalArgumentException
+	{
+		this.m = m;
+		this.n = n;
+		this.data = new float[Matrix.elements(m, n)];
+		for (int i = 0; i < m; i++) {
+			System.arraycopy(A[i], 0, data, i*n, n);
+		}
+	}
+
+	/**
+	 * FloatMatrix - Construct a matrix from a one-dimensional column packed array
+	 *
+	 * @param vals - The packed array
+	 * @param m - Number of rows to break the array into
+	 * @throws IllegalArgumentException - If the length of vals isn't a multiple of m
+	 */
+	public FloatMatrix(float[] vals, int m) throws IllegalArgumentException
+	{
+		if(vals.length%m != 0) throw new IllegalArgumentException();
+		this.m = m;
+		this.n = vals.length/m;
+		this.data = new float[Matrix.elements(m, n)];
+		Transpose.transpose(vals, 0, m, data, 0, n, n, m);
+	}
+
+	/**
+	 * Creates a new FloatMatrix of the specified size, filled with zeros.
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @throws IllegalArgumentException - If the matrix has more elements than an array can hold
+	 */
+	public FloatMatrix(int m, int n) throws IllegalArgumentException
+	{
+		this(m, n, new float[Matrix.elements(m, n)]);
+	}
+
+	/**
+	 * Creates a new FloatMatrix of the specified size, filled with the specified value.
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @param s - Value to fill the matrix with
+	 */
+	public FloatMatrix(int m, int n, float s)
+	{
+		this(m, n);
+		Arrays.fill(data, s);
+	}
+
+	/**
+	 * Converts a Matrix, rounding each element to the nearest float.
+	 *
+	 * @param A - Matrix to convert
+	 */
+	public FloatMatrix(Matrix A)
+	{
+		this(A.getRowDimension(), A.getColumnDimension());
+		Matrix P = A.plain();
+		double[] a = P.storage();
+		for (int i = 0; i < m; i++) {
+			int src = P.offset() + i * P.stride(), dst = i * n;
+			for (int j = 0; j < n; j++) {
+				data[dst + j] = (float)a[src + j];
+			}
+		}
+	}
+
+	/**
+	 * Wraps a row-major array of length m*n without copying it.
+	 */
+	FloatMatrix(int m, int n, float[] data)
+	{
+		this.m = m;
+		this.n = n;
+		this.data = data;
+	}
+
+	/**
+	 * constructWithCopy - constructs matrix copy from 2D array
+	 *
+	 * @return FloatMatrix copy
+	 */
+	public static FloatMatrix constructWithCopy(float[][] arr) throws IllegalArgumentException
+	{
+		return new FloatMatrix(arr);
+	}
+
+	/**
+	 * toMatrix - converts to a double precision Matrix. Every float is a double, so
+	 * 		this is exact.
+	 *
+	 * @return Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		double[] a = new double[m*n];
+		for (int i = 0; i < a.length; i++) {
+			a[i] = data[i];
+		}
+		return new Matrix(m, n, a);
+	}
+
+	/**
+	 * copy - makes a deep copy of the matrix
+	 *
+	 * @return FloatMatrix
+	 */
+	public FloatMatrix copy()
+	{
+		return new FloatMatrix(m, n, data.clone());
+	}
+
+	/**
+	 * clone - returns a clone of the matrix object
+	 *
+	 * @return Object (clone of matrix)
+	 */
+	public Object clone()
+	{
+		return copy();
+	}
+
+	/**
+	 * getArrayCopy - returns the elements as a new 2D array.
+	 *
+	 * @return float[][]
+	 */
+	public float[][] getArrayCopy()
+	{
+		float[][] copy = new float[m][n];
+		for (int i = 0; i < m; i++) {
+			System.arraycopy(data, i*n, copy[i], 0, n);
+		}
+		return copy;
+	}
+
+	/**
+	 * getArray - Returns the elements as a two-dimensional array. Like Matrix.getArray
+	 * 		this is a copy; changes to it do not affect the matrix.
+	 *
+	 * @return float[][]
+	 */
+	public float[][] getArray()
+	{
+		return getArrayCopy();
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * get - Gets a single element.
+	 *
+	 * @param i - Row index
+	 * @param j - Column index
+	 * @return float
+	 */
+	public float get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		return data[i*n+j];
+	}
+
+	/**
+	 * set - sets a single element.
+	 *
+	 * @param i - Row index
+	 * @param j - Column index
+	 * @param s - Value to store
+	 */
+	public void set(int i, int j, float s) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		data[i*n+j] = s;
+	}
+
+	/**
+	 * random - generates a matrix with random elements in [0, 10)
+	 *
+	 * @param m - number of rows
+	 * @param n - number of columns
+	 */
+	public static FloatMatrix random(int m, int n)
+	{
+		Random r = new Random();
+		FloatMatrix M = new FloatMatrix(m, n);
+		for (int i = 0; i < M.data.length; i++) {
+			M.data[i] = r.nextFloat() * 10;
+		}
+		return M;
+	}
+
+	/**
+	 * identity - returns an m x n matrix with ones on the diagonal and zeroes elsewhere.
+	 *
+	 * @param m - number of rows
+	 * @param n - number of columns
+	 */
+	public static FloatMatrix identity(int m, int n)
+	{
+		FloatMatrix I = new FloatMatrix(m, n);
+		for (int i = 0; i < m && i < n; i++) {
+			I.data[i*n+i] = 1;
+		}
+		return I;
+	}
+
+	/**
+	 * trace - returns the sum of the diagonal of the matrix
+	 */
+	public double trace()
+	{
+		double sum = 0;
+		for (int i = 0; i < m && i < n; i++) {
+			sum += data[i*n+i];
+		}
+		return sum;
+	}
+
+	/**
+	 * plus - A + B
+	 *
+	 * @param B - Matrix to be added. Must be same dimension.
+	 */
+	public FloatMatrix plus(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = data[i] + B.data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * plusEquals - A = A + B
+	 *
+	 * @param B - Matrix to be added. Must be same dimension.
+	 */
+	public FloatMatrix plusEquals(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		for (int i = 0; i < data.length; i++) data[i] += B.data[i];
+		return this;
+	}
+
+	/**
+	 * minus - A - B
+	 *
+	 * @param B - Matrix to be subtracted. Must be same dimension.
+	 */
+	public FloatMatrix minus(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = data[i] - B.data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * minusEquals - A = A - B
+	 *
+	 * @param B - Matrix to be subtracted. Must be same dimension.
+	 */
+	public FloatMatrix minusEquals(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		for (int i = 0; i < data.length; i++) data[i] -= B.data[i];
+		return this;
+	}
+
+	/**
+	 * arrayTimes - element by element product A.*B
+	 *
+	 * @param B - Must be same dimension.
+	 */
+	public FloatMatrix arrayTimes(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = data[i] * B.data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * arrayTimesEquals - element by element product in place, A = A.*B
+	 *
+	 * @param B - Must be same dimension.
+	 */
+	public FloatMatrix arrayTimesEquals(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		for (int i = 0; i < data.length; i++) data[i] *= B.data[i];
+		return this;
+	}
+
+	/**
+	 * arrayRightDivide - element by element right division A./B
+	 *
+	 * @param B - Must be same dimension.
+	 */
+	public FloatMatrix arrayRightDivide(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = data[i] / B.data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * arrayRightDivideEquals - element by element right division in place, A = A./B
+	 *
+	 * @param B - Must be same dimension.
+	 */
+	public FloatMatrix arrayRightDivideEquals(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		for (int i = 0; i < data.length; i++) data[i] /= B.data[i];
+		return this;
+	}
+
+	/**
+	 * arrayLeftDivide - element by element left division A.\B
+	 *
+	 * @param B - Must be same dimension.
+	 */
+	public FloatMatrix arrayLeftDivide(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = B.data[i] / data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * arrayLeftDivideEquals - element by element left division in place, A = A.\B
+	 *
+	 * @param B - Must be same dimension.
+	 */
+	public FloatMatrix arrayLeftDivideEquals(FloatMatrix B) throws IllegalArgumentException
+	{
+		check(B);
+		for (int i = 0; i < data.length; i++) data[i] = B.data[i] / data[i];
+		return this;
+	}
+
+	/**
+	 * times - s*A
+	 *
+	 * @param s - scalar
+	 */
+	public FloatMatrix times(float s)
+	{
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = s * data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * timesEquals - A = s*A
+	 *
+	 * @param s - scalar
+	 */
+	public FloatMatrix timesEquals(float s)
+	{
+		for (int i = 0; i < data.length; i++) data[i] *= s;
+		return this;
+	}
+
+	/**
+	 * uminus - -A
+	 */
+	public FloatMatrix uminus()
+	{
+		float[] c = new float[data.length];
+		for (int i = 0; i < c.length; i++) c[i] = -data[i];
+		return new FloatMatrix(m, n, c);
+	}
+
+	/**
+	 * transpose - A', with the cache-oblivious kernel used by Matrix.transpose
+	 */
+	public FloatMatrix transpose()
+	{
+		FloatMatrix T = new FloatMatrix(n, m);
+		Transpose.transpose(data, 0, n, T.data, 0, m, m, n);
+		return T;
+	}
+
+	/**
+	 * times - linear algebraic A*B. Products of at least Matrix.getParallelThreshold()
+	 * 		multiply-adds run on the shared pool behind Matrix.times.
+	 *
+	 * @param B - Matrix with as many rows as A has columns
+	 * @return FloatMatrix product
+	 */
+	public FloatMatrix times(FloatMatrix B) throws IllegalArgumentException
+	{
+		if(B.m != n) throw new IllegalArgumentException();
+		FloatMatrix C = new FloatMatrix(m, B.n);
+		ForkJoinPool pool = Matrix.sharedPool((long)m * B.n * n);
+		if(pool != null) pool.invoke(new Product(this, B, C, 0, m));
+		else multiply(this, B, C, 0, m);
+		return C;
+	}
+
+	/**
+	 * multiply - adds rows i0..i1-1 of A*B into C, blocked so that a KC x NC block of B
+	 * 		stays in L2 while four rows of C at a time are updated from it in L1.
+	 *
+	 * The block of B is copied row by row into separate arrays, and the C rows being
+	 * updated into a tile, so every inner loop indexes its arrays from 0. The JIT only
+	 * vectorizes a loop over two arrays when their offsets provably match, so this is
+	 * what turns the row updates into SIMD code.
+	 */
+	private static void multiply(FloatMatrix A, FloatMatrix B, FloatMatrix C, int i0, int i1)
+	{
+		float[] a = A.data, b = B.data, c = C.data;
+		int k = A.n, p = B.n;
+		float[][] bp = new float[Math.min(KC, k)][Math.min(NC, p)];
+		float[][] ct = new float[4][Math.min(NC, p)];
+		for (int jc = 0; jc < p; jc += NC) {
+			int w = Math.min(NC, p - jc);
+			for (int pc = 0; pc < k; pc += KC) {
+				int kc = Math.min(KC, k - pc);
+				for (int q = 0; q < kc; q++) {
+					System.arraycopy(b, (pc + q) * p + jc, bp[q], 0, w);
+				}
+				for (int i = i0; i < i1; i += 4) {
+					int rows = Math.min(4, i1 - i);
+					for (int r = 0; r < rows; r++) {
+						System.arraycopy(c, (i + r) * p + jc, ct[r], 0, w);
+					}
+					int ai = i * k + pc;
+					if(rows == 4) {
+						for (int q = 0; q < kc; q++) {
+							update(a[ai + q], a[ai + k + q], a[ai + 2 * k + q], a[ai + 3 * k + q], bp[q], ct, w);
+						}
+					}
+					else {
+						for (int r = 0; r < rows; r++) {
+							for (int q = 0; q < kc; q++) {
+								update(a[ai + r * k + q], bp[q], ct[r], w);
+							}
+						}
+					}
+					for (int r = 0; r < rows; r++) {
+						System.arraycopy(ct[r], 0, c, (i + r) * p + jc, w);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * update - ct[r] += x_r * y for the four rows of the tile
+	 */
+	private static void update(float x0, float x1, float x2, float x3, float[] y, float[][] ct, int len)
+	{
+		float[] c0 = ct[0], c1 = ct[1], c2 = ct[2], c3 = ct[3];
+		for (int j = 0; j < len; j++) {
+			float v = y[j];
+			c0[j] += x0 * v;
+			c1[j] += x1 * v;
+			c2[j] += x2 * v;
+			c3[j] += x3 * v;
+		}
+	}
+
+	/**
+	 * update - c += x * y
+	 */
+	private static void update(float x, float[] y, float[] c, int len)
+	{
+		for (int j = 0; j < len; j++) {
+			c[j] += x * y[j];
+		}
+	}
+
+	/**
+	 * Product - splits the rows of a product in halves until blocks of about ROWS rows.
+	 */
+	private static final class Product extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final FloatMatrix A, B, C;
+		private final int i0, i1;
+
+		Product(FloatMatrix A, FloatMatrix B, FloatMatrix C, int i0, int i1)
+		{
+			this.A = A;
+			this.B = B;
+			this.C = C;
+			this.i0 = i0;
+			this.i1 = i1;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(i1 - i0 <= ROWS) {
+				multiply(A, B, C, i0, i1);
+				return;
+			}
+			int h = i0 + (i1 - i0) / 8 * 4;
+			invokeAll(new Product(A, B, C, i0, h), new Product(A, B, C, h, i1));
+		}
+	}
+
+	/**
+	 * normF - square root of the sum of squares of all elements
+	 */
+	public double normF()
+	{
+		double sum = 0;
+		for (int i = 0; i < data.length; i++) {
+			double x = data[i];
+			sum += x * x;
+		}
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * normInF - largest sum of absolute values from each row
+	 */
+	public double normInF()
+	{
+		double max = 0;
+		for (int i = 0; i < m; i++) {
+			double sum = 0;
+			for (int j = i*n; j < (i+1)*n; j++) {
+				sum += Math.abs(data[j]);
+			}
+			max = Math.max(max, sum);
+		}
+		return max;
+	}
+
+	/**
+	 * norm1 - largest sum of absolute values from each column. Rows are added into
+	 * 		per-column sums in storage order.
+	 */
+	public double norm1()
+	{
+		double[] sums = new double[n];
+		for (int i = 0; i < m; i++) {
+			int row = i*n;
+			for (int j = 0; j < n; j++) {
+				sums[j] += Math.abs(data[row + j]);
+			}
+		}
+		double max = 0;
+		for (int j = 0; j < n; j++) {
+			max = Math.max(max, sums[j]);
+		}
+		return max;
+	}
+
+	/**
+	 * getRowPackedCopy - returns a one dimensional row packed copy of the elements
+	 *
+	 * @return float[]
+	 */
+	public float[] getRowPackedCopy()
+	{
+		return data.clone();
+	}
+
+	/**
+	 * getColumnPackedCopy - returns a one dimensional column packed copy of the elements
+	 *
+	 * @return float[]
+	 */
+	public float[] getColumnPackedCopy()
+	{
+		float[] copy = new float[m*n];
+		Transpose.transpose(data, 0, n, copy, 0, m, m, n);
+		return copy;
+	}
+
+	/**
+	 * print - Print the matrix to stdout, as Matrix.print(NumberFormat, int).
+	 */
+	public void print(NumberFormat format, int width)
+	{
+		print(new PrintWriter(System.out, true), format, width);
+	}
+
+	/**
+	 * print - Print the matrix to output, as Matrix.print(PrintWriter, NumberFormat, int).
+	 */
+	public void print(PrintWriter output, NumberFormat format, int width)
+	{
+		if(width <= 0) return;
+		try {
+			TextWriter.write(output, FormatSpec.numberFormat(format, width), data, 0, n, m, n);
+		} catch(IOException e) {
+			//PrintWriter reports errors through checkError instead
+		}
+	}
+
+	/**
+	 * print - Print the matrix to output with width w and d decimal places.
+	 */
+	public void print(PrintWriter output, int w, int d)
+	{
+		if(w <= 0 || d < 0) return;
+		try {
+			TextWriter.write(output, FormatSpec.fixed(w, d), data, 0, n, m, n);
+		} catch(IOException e) {
+			//PrintWriter reports errors through checkError instead
+		}
+	}
+
+	/**
+	 * print - Print the matrix to stdout with width w and d decimal places.
+	 */
+	public void print(int w, int d)
+	{
+		print(new PrintWriter(System.out, true), w, d);
+	}
+
+	/**
+	 * read - Reads a matrix in the text format of Matrix.read. Each value is rounded
+	 * 		to the nearest float once, straight from its decimal text.
+	 *
+	 * @param input - stream to be read from
+	 * @return FloatMatrix, or null if the input is empty or a row is longer than the first
+	 */
+	public static FloatMatrix read(BufferedReader input) throws IOException
+	{
+		return TextParser.readFloat(input);
+	}
+
+	private void check(FloatMatrix B) throws IllegalArgumentException
+	{
+		if(B.m != m || B.n != n) throw new IllegalArgumentException();
+	}
+}
@@ -0,0 +1,183 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FloatMatrixTest {
+	private static final float[][] A = {{1, 2, 3}, {4, 5, -6}};
+
+	@Test
+	public void testConstructors() {
+		FloatMatrix a = new FloatMatrix(A);
+		assertEquals(2, a.getRowDimension());
+		assertEquals(3, a.getColumnDimension());
+		assertEquals(-6, a.get(1, 2), 0);
+		assertArrayEquals(new float[] {1, 2, 3, 4, 5, -6}, a.getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {1, 4, 2, 5, 3, -6}, a.getColumnPackedCopy(), 0);
+		assertArrayEquals(a.getRowPackedCopy(), new FloatMatrix(a.getColumnPackedCopy(), 2).getRowPackedCopy(), 0);
+		assertArrayEquals(A[1], FloatMatrix.constructWithCopy(A).getArray()[1], 0);
+		assertArrayEquals(new float[] {7, 7}, new FloatMatrix(1, 2, 7).getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {1, 0, 0, 0, 1, 0}, FloatMatrix.identity(2, 3).getRowPackedCopy(), 0);
+		try {
+			new FloatMatrix(new float[][] {{1, 2}, {3}});
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			a.get(2, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testConversion() {
+		Matrix d = new Matrix(new double[][] {{0.1, 1e40}, {-2.5, 1.0 / 3}});
+		FloatMatrix f = new FloatMatrix(d);
+		assertEquals(0.1f, f.get(0, 0), 0);
+		assertEquals(Float.POSITIVE_INFINITY, f.get(0, 1), 0);
+		assertEquals((double)(1.0f / 3), f.toMatrix().get(1, 1), 0);
+		assertEquals(-2.5, f.toMatrix().get(1, 0), 0);
+		//Views and transposed views convert by element position
+		Matrix t = d.transposeView();
+		assertEquals(-2.5f, new FloatMatrix(t).get(0, 1), 0);
+	}
+
+	@Test
+	public void testElementwise() {
+		FloatMatrix a = new FloatMatrix(A);
+		FloatMatrix b = new FloatMatrix(new float[][] {{2, 4, 8}, {1, 2, 4}});
+		assertArrayEquals(new float[] {3, 6, 11, 5, 7, -2}, a.plus(b).getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {-1, -2, -5, 3, 3, -10}, a.minus(b).getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {2, 8, 24, 4, 10, -24}, a.arrayTimes(b).getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {0.5f, 0.5f, 0.375f, 4, 2.5f, -1.5f}, a.arrayRightDivide(b).getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {2, 2, 8f / 3, 0.25f, 0.4f, -4f / 6}, a.arrayLeftDivide(b).getRowPackedCopy(), 1e-6f);
+		assertArrayEquals(new float[] {2, 4, 6, 8, 10, -12}, a.times(2).getRowPackedCopy(), 0);
+		assertArrayEquals(new float[] {-1, -2, -3, -4, -5, 6}, a.uminus().getRowPackedCopy(), 0);
+
+		FloatMatrix c = a.copy();
+		c.plusEquals(b).minusEquals(b).arrayTimesEquals(b).arrayRightDivideEquals(b).timesEquals(3);
+		assertArrayEquals(a.times(3).getRowPackedCopy(), c.getRowPackedCopy(), 1e-6f);
+		c.arrayLeftDivideEquals(b);
+		assertArrayEquals(b.arrayRightDivide(a.times(3)).getRowPackedCopy(), c.getRowPackedCopy(), 1e-6f);
+		try {
+			a.plus(a.transpose());
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testTimes() {
+		int[][] shapes = {{2, 3, 4}, {5, 7, 3}, {67, 300, 530}, {130, 20, 9}};
+		for (int[] s : shapes) {
+			FloatMatrix a = FloatMatrix.random(s[0], s[1]);
+			FloatMatrix b = FloatMatrix.random(s[1], s[2]);
+			Matrix expected = a.toMatrix().times(b.toMatrix());
+			FloatMatrix c = a.times(b);
+			assertEquals(s[0], c.getRowDimension());
+			assertEquals(s[2], c.getColumnDimension());
+			assertArrayEquals(expected.getRowPackedCopy(), c.toMatrix().getRowPackedCopy(), 1e-5 * s[1] * 100);
+		}
+		long threshold = Matrix.getParallelThreshold();
+		int parallelism = Matrix.getParallelism();
+		try {
+			Matrix.setParallelThreshold(0);
+			Matrix.setParallelism(3);
+			FloatMatrix a = FloatMatrix.random(301, 40), b = FloatMatrix.random(40, 33);
+			assertArrayEquals(a.toMatrix().times(b.toMatrix()).getRowPackedCopy(), a.times(b).toMatrix().getRowPackedCopy(), 1e-2);
+		} finally {
+			Matrix.setParallelThreshold(threshold);
+			Matrix.setParallelism(parallelism);
+		}
+		try {
+			new FloatMatrix(A).times(new FloatMatrix(A));
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testNorms() {
+		FloatMatrix a = new FloatMatrix(A);
+		Matrix d = a.toMatrix();
+		assertEquals(d.norm1(), a.norm1(), 0);
+		assertEquals(d.normInF(), a.normInF(), 0);
+		assertEquals(d.normF(), a.normF(), 1e-12);
+		assertEquals(6, a.trace(), 0);
+		assertArrayEquals(new float[] {1, 4, 2, 5, 3, -6}, a.transpose().getRowPackedCopy(), 0);
+	}
+
+	/*
+	 * Tests a size whose element count overflows an int is rejected rather than wrapped
+	 */
+	@Test
+	public void testTooLargeConstructor() {
+		try {
+			new FloatMatrix(65536, 65537);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			new FloatMatrix(new float[][] {{1}}, 65536, 65537);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			new FloatMatrix(-2, -3);
+			fail();
+		} catch(NegativeArraySizeException e) {}
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		FloatMatrix a = FloatMatrix.read(new BufferedReader(new StringReader("1 2.5\n-3 0.1\n")));
+		assertArrayEquals(new float[] {1, 2.5f, -3, 0.1f}, a.getRowPackedCopy(), 0);
+		assertNull(FloatMatrix.read(new BufferedReader(new StringReader(""))));
+	}
+
+	/*
+	 * Tests values are rounded to float once. The first token lies just below the midpoint
+	 * of two floats but rounds to that midpoint as a double, which would then round up.
+	 */
+	@Test
+	public void testReadRoundsOnce() throws IOException {
+		String[] tokens = {"1.00000017881393432617187499", "3.4028236e38", "1e-46", "-0", "0.3", "1234567e-10",
+				"16777217", "1e10", "7e-11"};
+		StringBuilder text = new StringBuilder();
+		for(String t : tokens) text.append(t).append(' ');
+		float[] actual = FloatMatrix.read(new BufferedReader(new StringReader(text.toString()))).getRowPackedCopy();
+		for(int i = 0; i < tokens.length; i++) {
+			assertEquals(tokens[i], Float.floatToIntBits(Float.parseFloat(tokens[i])), Float.floatToIntBits(actual[i]));
+		}
+		assertNotEquals(actual[0], (float)Double.parseDouble(tokens[0]), 0);
+		
+		Random random = new Random(5);
+		for(int i = 0; i < 10000; i++) {
+			String t = (random.nextInt(20000000) - 10000000) + "e" + (random.nextInt(30) - 15);
+			assertEquals(t, Float.parseFloat(t), TextParser.parseFloat(t, 0, t.length()), 0);
+		}
+	}
+
+	/*
+	 * Tests printing formats the float elements the same as the exact double Matrix
+	 */
+	@Test
+	public void testPrint() {
+		FloatMatrix a = new FloatMatrix(new float[][] {{0.1f, -2.5f}, {1e7f, 3}});
+		StringWriter expected = new StringWriter(), actual = new StringWriter();
+		a.toMatrix().print(new PrintWriter(expected), 12, 10);
+		a.print(new PrintWriter(actual), 12, 10);
+		assertEquals(expected.toString(), actual.toString());
+		assertTrue(actual.toString().contains("0.1000000015"));
+		
+		expected = new StringWriter();
+		actual = new StringWriter();
+		a.toMatrix().print(new PrintWriter(expected), new DecimalFormat("0.###"), 10);
+		a.print(new PrintWriter(actual), new DecimalFormat("0.###"), 10);
+		assertEquals(expected.toString(), actual.toString());
+	}
+}
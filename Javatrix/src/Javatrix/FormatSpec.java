@@ -0,0 +1,82 @@
+package Javatrix;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * FormatSpec - how Matrix.write(Writer, FormatSpec) renders elements.
+ *
+ * fixed(w, d) and numberFormat(format, width) produce exactly what the matching
+ * print variants produce; shortest() writes each element with the fewest digits
+ * that read back to the same double. Every mode writes one line per row followed
+ * by an empty line, so the output can be parsed by Matrix.read.
+ */
+public final class FormatSpec
+{
+	static final int FIXED = 0;
+	static final int SHORTEST = 1;
+	static final int NUMBER_FORMAT = 2;
+
+	final int mode;
+	final int width;
+	final int digits;
+	final NumberFormat format;
+	/** Decimal separator of the default format locale, as String.format would use. */
+	final char point;
+	/** Whether that locale writes ASCII digits, which the fast fixed formatter assumes. */
+	final boolean asciiDigits;
+
+	private FormatSpec(int mode, int width, int digits, NumberFormat format)
+	{
+		this.mode = mode;
+		this.width = width;
+		this.digits = digits;
+		this.format = format;
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+		this.point = symbols.getDecimalSeparator();
+		this.asciiDigits = symbols.getZeroDigit() == '0';
+	}
+
+	/**
+	 * fixed - d digits after the decimal point in columns of width w, the output of
+	 * 		print(PrintWriter, w, d). The default format locale is read here.
+	 *
+	 * @param w - Column width
+	 * @param d - Number of digits after the decimal
+	 * @return FormatSpec
+	 * @throws IllegalArgumentException - If w is not positive or d is negative
+	 */
+	public static FormatSpec fixed(int w, int d) throws IllegalArgumentException
+	{
+		if(w <= 0 || d < 0) throw new IllegalArgumentException();
+		return new FormatSpec(FIXED, w, d, null);
+	}
+
+	/**
+	 * shortest - each element as Double.toString writes it, separated by single spaces
+	 *
+	 * @return FormatSpec
+	 */
+	public static FormatSpec shortest()
+	{
+		return new FormatSpec(SHORTEST, 0, 0, null);
+	}
+
+	/**
+	 * numberFormat - elements rendered by a DecimalFormat in columns of the given width,
+	 * 		the output of print(PrintWriter, NumberFormat, int). Like print, writing
+	 * 		adjusts the digit limits of format to the width.
+	 *
+	 * @param format - The DecimalFormat to use
+	 * @param width - The column width
+	 * @return FormatSpec
+	 * @throws IllegalArgumentException - If width is not positive or format is not a DecimalFormat
+	 */
+	public static FormatSpec numberFormat(NumberFormat format, int width) throws IllegalArgumentException
+	{
+		if(width <= 0 || !(format instanceof DecimalFormat)) throw new IllegalArgumentException();
+		return new FormatSpec(NUMBER_FORMAT, width, 0, format);
+	}
+}
@@ -0,0 +1,355 @@
+package Javatrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Gemm - cache-blocked matrix multiply kernel, C += A*B.
+ *
+ * Operands are row-major blocks of a flat array, given as (array, offset of
+ * the first element, row stride).
+ *
+ * B is packed into panels of NR columns and A into panels of MR rows so that
+ * the micro-kernel streams both operands from contiguous memory while it keeps
+ * an MR x NR tile of C in registers.
+ */
+final class Gemm
+{
+	static final int MR = 4;
+	static final int NR = 4;
+	static final int MC = 128;
+	static final int KC = 256;
+	static final int NC = 1024;
+
+	/** Below this many multiply-adds the packing overhead is not worth paying. */
+	static final long SMALL = 32 * 32 * 32;
+
+	/** Parallel tasks stop splitting once both output dimensions are this small... */
+	static final int BLOCK = 256;
+	/** ...or once the task holds fewer multiply-adds than this. */
+	static final long LEAF = 1L << 21;
+
+	private Gemm() {}
+
+	/**
+	 * Scratch - packing buffers kept per thread, so repeated products do not allocate.
+	 * 		They grow to at most KC*NC and MC*KC doubles.
+	 */
+	private static final class Scratch
+	{
+		private static final ThreadLocal<Scratch> LOCAL = new ThreadLocal<Scratch>();
+
+		final double[] bp;
+		final double[] ap;
+		final double[] edge = new double[MR * NR];
+
+		private Scratch(int bSize, int aSize)
+		{
+			bp = new double[bSize];
+			ap = new double[aSize];
+		}
+
+		static Scratch get(int bSize, int aSize)
+		{
+			Scratch w = LOCAL.get();
+			if(w == null || w.bp.length < bSize || w.ap.length < aSize) {
+				w = new Scratch(Math.max(bSize, w == null ? 0 : w.bp.length), Math.max(aSize, w == null ? 0 : w.ap.length));
+				LOCAL.set(w);
+			}
+			return w;
+		}
+	}
+
+	/**
+	 * multiply - C += A*B for an mb x k block A, a k x nb block B and an mb x nb block C
+	 *
+	 * @param a - left operand storage
+	 * @param aOff - index of A(0, 0)
+	 * @param lda - row stride of A
+	 * @param b - right operand storage
+	 * @param bOff - index of B(0, 0)
+	 * @param ldb - row stride of B
+	 * @param c - destination storage
+	 * @param cOff - index of C(0, 0)
+	 * @param ldc - row stride of C
+	 * @param mb - number of rows to compute
+	 * @param nb - number of columns to compute
+	 * @param k - inner dimension
+	 */
+	static void multiply(double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+			double[] c, int cOff, int ldc, int mb, int nb, int k)
+	{
+		multiply(a, aOff, lda, false, b, bOff, ldb, false, c, cOff, ldc, mb, nb, k);
+	}
+
+	/**
+	 * multiply - C += op(A)*op(B), where op(X) is X, or X' when the matching flag is set.
+	 * 		A transposed operand is given by its stored block: op(A) = A' for an
+	 * 		A of k x mb stored at aOff with row stride lda, and likewise for B.
+	 */
+	static void multiply(double[] a, int aOff, int lda, boolean transA, double[] b, int bOff, int ldb, boolean transB,
+			double[] c, int cOff, int ldc, int mb, int nb, int k)
+	{
+		if(mb <= 0 || nb <= 0 || k <= 0) return;
+		if((long)mb * nb * k <= SMALL) {
+			multiplySmall(a, aOff, lda, transA, b, bOff, ldb, transB, c, cOff, ldc, mb, nb, k);
+			return;
+		}
+
+		int ncMax = Math.min(NC, roundUp(nb, NR));
+		int kcMax = Math.min(KC, k);
+		int mcMax = Math.min(MC, roundUp(mb, MR));
+		Scratch w = Scratch.get(kcMax * ncMax, mcMax * kcMax);
+		double[] bp = w.bp;
+		double[] ap = w.ap;
+		double[] edge = w.edge;
+
+		for (int jc = 0; jc < nb; jc += NC) {
+			int nc = Math.min(NC, nb - jc);
+			for (int pc = 0; pc < k; pc += KC) {
+				int kc = Math.min(KC, k - pc);
+				packB(b, transB ? bOff + jc * ldb + pc : bOff + pc * ldb + jc, ldb, transB, kc, nc, bp);
+				for (int ic = 0; ic < mb; ic += MC) {
+					int mc = Math.min(MC, mb - ic);
+					packA(a, transA ? aOff + pc * lda + ic : aOff + ic * lda + pc, lda, transA, mc, kc, ap);
+					for (int jr = 0; jr < nc; jr += NR) {
+						int nr = Math.min(NR, nc - jr);
+						for (int ir = 0; ir < mc; ir += MR) {
+							int mr = Math.min(MR, mc - ir);
+							kernel(kc, ap, ir * kc, bp, jr * kc, c, cOff + (ic + ir) * ldc + jc + jr, ldc, mr, nr, edge);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * multiplyParallel - C += A*B as in multiply, with the output split into
+	 * 		independent blocks that are computed on the given pool.
+	 */
+	static void multiplyParallel(ForkJoinPool pool, double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+			double[] c, int cOff, int ldc, int mb, int nb, int k)
+	{
+		multiplyParallel(pool, a, aOff, lda, false, b, bOff, ldb, false, c, cOff, ldc, mb, nb, k);
+	}
+
+	/**
+	 * multiplyParallel - C += op(A)*op(B) as in multiply, on the given pool.
+	 */
+	static void multiplyParallel(ForkJoinPool pool, double[] a, int aOff, int lda, boolean transA,
+			double[] b, int bOff, int ldb, boolean transB, double[] c, int cOff, int ldc, int mb, int nb, int k)
+	{
+		pool.invoke(new Task(a, aOff, lda, transA, b, bOff, ldb, transB, c, cOff, ldc, mb, nb, k));
+	}
+
+	/**
+	 * Task - recursively halves the larger output dimension until the block is
+	 * 		small enough to hand to the serial kernel.
+	 */
+	private static final class Task extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final double[] a, b, c;
+		private final int aOff, lda, bOff, ldb, cOff, ldc, mb, nb, k;
+		private final boolean transA, transB;
+
+		Task(double[] a, int aOff, int lda, boolean transA, double[] b, int bOff, int ldb, boolean transB,
+				double[] c, int cOff, int ldc, int mb, int nb, int k)
+		{
+			this.a = a;
+			this.aOff = aOff;
+			this.lda = lda;
+			this.transA = transA;
+			this.b = b;
+			this.bOff = bOff;
+			this.ldb = ldb;
+			this.transB = transB;
+			this.c = c;
+			this.cOff = cOff;
+			this.ldc = ldc;
+			this.mb = mb;
+			this.nb = nb;
+			this.k = k;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if((mb <= BLOCK && nb <= BLOCK) || (long)mb * nb * k <= LEAF) {
+				multiply(a, aOff, lda, transA, b, bOff, ldb, transB, c, cOff, ldc, mb, nb, k);
+			}
+			else if(mb >= nb) {
+				int h = roundUp(mb / 2, MR);
+				int aOff2 = transA ? aOff + h : aOff + h * lda;
+				invokeAll(new Task(a, aOff, lda, transA, b, bOff, ldb, transB, c, cOff, ldc, h, nb, k),
+						new Task(a, aOff2, lda, transA, b, bOff, ldb, transB, c, cOff + h * ldc, ldc, mb - h, nb, k));
+			}
+			else {
+				int h = roundUp(nb / 2, NR);
+				int bOff2 = transB ? bOff + h * ldb : bOff + h;
+				invokeAll(new Task(a, aOff, lda, transA, b, bOff, ldb, transB, c, cOff, ldc, mb, h, k),
+						new Task(a, aOff, lda, transA, b, bOff2, ldb, transB, c, cOff + h, ldc, mb, nb - h, k));
+			}
+		}
+	}
+
+	/**
+	 * multiplySmall - unblocked i-k-j product for operands that fit in cache.
+	 */
+	private static void multiplySmall(double[] a, int aOff, int lda, boolean transA, double[] b, int bOff, int ldb,
+			boolean transB, double[] c, int cOff, int ldc, int mb, int nb, int k)
+	{
+		//Element (i, p) of op(A) is at aOff + i*ars + p*acs
+		int ars = transA ? 1 : lda, acs = transA ? lda : 1;
+		for (int i = 0; i < mb; i++) {
+			int ai = aOff + i * ars;
+			int ci = cOff + i * ldc;
+			for (int p = 0; p < k; p++) {
+				double s = a[ai + p * acs];
+				if(transB) {
+					int bp = bOff + p;
+					for (int j = 0; j < nb; j++) {
+						c[ci + j] += s * b[bp + j * ldb];
+					}
+				}
+				else {
+					int bp = bOff + p * ldb;
+					for (int j = 0; j < nb; j++) {
+						c[ci + j] += s * b[bp + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * packA - copies an mc x kc block of op(A) into row panels of height MR,
+	 * 		zero padding the last panel.
+	 */
+	private static void packA(double[] a, int aOff, int lda, boolean transA, int mc, int kc, double[] ap)
+	{
+		if(transA) {
+			//Column p of the block is contiguous in row p of the stored A
+			for (int ir = 0; ir < mc; ir += MR) {
+				int base = ir * kc;
+				int mr = Math.min(MR, mc - ir);
+				for (int p = 0; p < kc; p++) {
+					int src = aOff + p * lda + ir;
+					int dst = base + p * MR;
+					for (int ii = 0; ii < mr; ii++) {
+						ap[dst + ii] = a[src + ii];
+					}
+					for (int ii = mr; ii < MR; ii++) {
+						ap[dst + ii] = 0;
+					}
+				}
+			}
+			return;
+		}
+		for (int ir = 0; ir < mc; ir += MR) {
+			int base = ir * kc;
+			for (int ii = 0; ii < MR; ii++) {
+				if(ir + ii < mc) {
+					int row = aOff + (ir + ii) * lda;
+					for (int p = 0; p < kc; p++) {
+						ap[base + p * MR + ii] = a[row + p];
+					}
+				}
+				else {
+					for (int p = 0; p < kc; p++) {
+						ap[base + p * MR + ii] = 0;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * packB - copies a kc x nc block of op(B) into column panels of width NR,
+	 * 		zero padding the last panel.
+	 */
+	private static void packB(double[] b, int bOff, int ldb, boolean transB, int kc, int nc, double[] bp)
+	{
+		if(transB) {
+			//Column j of the block is contiguous in row j of the stored B
+			for (int jr = 0; jr < nc; jr += NR) {
+				int base = jr * kc;
+				for (int jj = 0; jj < NR; jj++) {
+					if(jr + jj < nc) {
+						int src = bOff + (jr + jj) * ldb;
+						for (int p = 0; p < kc; p++) {
+							bp[base + p * NR + jj] = b[src + p];
+						}
+					}
+					else {
+						for (int p = 0; p < kc; p++) {
+							bp[base + p * NR + jj] = 0;
+						}
+					}
+				}
+			}
+			return;
+		}
+		for (int p = 0; p < kc; p++) {
+			int row = bOff + p * ldb;
+			for (int jr = 0; jr < nc; jr += NR) {
+				int base = jr * kc + p * NR;
+				for (int jj = 0; jj < NR; jj++) {
+					bp[base + jj] = jr + jj < nc ? b[row + jr + jj] : 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * kernel - computes an MR x NR tile over a packed kc slice and adds it into C.
+	 */
+	private static void kernel(int kc, double[] ap, int ai, double[] bp, int bi, double[] c, int ci, int ldc, int mr, int nr, double[] edge)
+	{
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+		for (int p = 0; p < kc; p++) {
+			double a0 = ap[ai], a1 = ap[ai + 1], a2 = ap[ai + 2], a3 = ap[ai + 3];
+			double b0 = bp[bi], b1 = bp[bi + 1], b2 = bp[bi + 2], b3 = bp[bi + 3];
+			c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+			c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+			c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+			c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+			ai += MR;
+			bi += NR;
+		}
+
+		if(mr == MR && nr == NR) {
+			int r = ci;
+			c[r] += c00; c[r + 1] += c01; c[r + 2] += c02; c[r + 3] += c03;
+			r += ldc;
+			c[r] += c10; c[r + 1] += c11; c[r + 2] += c12; c[r + 3] += c13;
+			r += ldc;
+			c[r] += c20; c[r + 1] += c21; c[r + 2] += c22; c[r + 3] += c23;
+			r += ldc;
+			c[r] += c30; c[r + 1] += c31; c[r + 2] += c32; c[r + 3] += c33;
+			return;
+		}
+
+		edge[0] = c00; edge[1] = c01; edge[2] = c02; edge[3] = c03;
+		edge[4] = c10; edge[5] = c11; edge[6] = c12; edge[7] = c13;
+		edge[8] = c20; edge[9] = c21; edge[10] = c22; edge[11] = c23;
+		edge[12] = c30; edge[13] = c31; edge[14] = c32; edge[15] = c33;
+		for (int ii = 0; ii < mr; ii++) {
+			int r = ci + ii * ldc;
+			for (int jj = 0; jj < nr; jj++) {
+				c[r + jj] += edge[ii * NR + jj];
+			}
+		}
+	}
+
+	private static int roundUp(int x, int block)
+	{
+		return (x + block - 1) / block * block;
+	}
+}
@@ -0,0 +1,282 @@
+package Javatrix;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * LUDecomposition - LU factorization with partial pivoting, P*A = L*U, of an
+ * m x n matrix.
+ *
+ * L is m x min(m,n) unit lower triangular and U is min(m,n) x n upper
+ * triangular. Both are stored in one flat row-major array. The factorization
+ * is a right-looking blocked algorithm. Each block of NB columns is factored
+ * with row pivoting, the matching block row of U is found by forward
+ * substitution, and the trailing submatrix is updated with the Gemm kernel,
+ * which is where nearly all of the work goes. solve is blocked the same way, so
+ * inverse() = solve(I) also spends its 2n^3 flops of substitution in Gemm.
+ */
+public class LUDecomposition
+{
+	static final int NB = 64;
+
+	private final double[] lu;
+	private final int m;
+	private final int n;
+	private final int[] piv;
+	private int pivsign;
+
+	/**
+	 * Factors a matrix; A itself is not modified.
+	 *
+	 * @param A - the matrix to factor
+	 */
+	public LUDecomposition(Matrix A)
+	{
+		this.m = A.getRowDimension();
+		this.n = A.getColumnDimension();
+		this.lu = A.getRowPackedCopy();
+		this.piv = new int[m];
+		for (int i = 0; i < m; i++) piv[i] = i;
+		this.pivsign = 1;
+
+		int kn = Math.min(m, n);
+		for (int k0 = 0; k0 < kn; k0 += NB) {
+			int kb = Math.min(NB, kn - k0);
+			factorPanel(k0, kb);
+
+			int j1 = k0 + kb;
+			if(j1 >= n) continue;
+			//U12 = L11^-1 A12
+			for (int i = k0 + 1; i < j1; i++) {
+				int ri = i * n;
+				for (int p = k0; p < i; p++) {
+					double l = lu[ri + p];
+					if(l == 0) continue;
+					int rp = p * n;
+					for (int j = j1; j < n; j++) {
+						lu[ri + j] -= l * lu[rp + j];
+					}
+				}
+			}
+			//A22 -= L21 U12
+			int rows = m - j1;
+			if(rows <= 0) continue;
+			double[] negL21 = new double[rows * kb];
+			for (int i = 0; i < rows; i++) {
+				int ri = (j1 + i) * n + k0;
+				for (int p = 0; p < kb; p++) {
+					negL21[i * kb + p] = -lu[ri + p];
+				}
+			}
+			long flops = (long)rows * (n - j1) * kb;
+			ForkJoinPool pool = Matrix.sharedPool(flops);
+			if(pool != null) {
+				Gemm.multiplyParallel(pool, negL21, 0, kb, lu, k0 * n + j1, n, lu, j1 * n + j1, n, rows, n - j1, kb);
+			}
+			else {
+				Gemm.multiply(negL21, 0, kb, lu, k0 * n + j1, n, lu, j1 * n + j1, n, rows, n - j1, kb);
+			}
+		}
+	}
+
+	/**
+	 * factorPanel - unblocked factorization with partial pivoting of columns k0..k0+kb-1,
+	 * 		rows k0..m-1. Row swaps are applied to whole rows.
+	 */
+	private void factorPanel(int k0, int kb)
+	{
+		int j1 = k0 + kb;
+		for (int j = k0; j < j1; j++) {
+			int p = j;
+			double max = Math.abs(lu[j * n + j]);
+			for (int i = j + 1; i < m; i++) {
+				double v = Math.abs(lu[i * n + j]);
+				if(v > max) {
+					max = v;
+					p = i;
+				}
+			}
+			if(p != j) {
+				int rp = p * n, rj = j * n;
+				for (int c = 0; c < n; c++) {
+					double t = lu[rp + c];
+					lu[rp + c] = lu[rj + c];
+					lu[rj + c] = t;
+				}
+				int t = piv[p];
+				piv[p] = piv[j];
+				piv[j] = t;
+				pivsign = -pivsign;
+			}
+
+			int rj = j * n;
+			double d = lu[rj + j];
+			if(d == 0) continue;
+			for (int i = j + 1; i < m; i++) {
+				int ri = i * n;
+				double l = lu[ri + j] /= d;
+				if(l == 0) continue;
+				for (int c = j + 1; c < j1; c++) {
+					lu[ri + c] -= l * lu[rj + c];
+				}
+			}
+		}
+	}
+
+	/**
+	 * isNonsingular - whether U, and so A if it is square, has no zero on its diagonal
+	 *
+	 * @return boolean
+	 */
+	public boolean isNonsingular()
+	{
+		for (int j = 0; j < Math.min(m, n); j++) {
+			if(lu[j * n + j] == 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * getL - returns the unit lower triangular factor
+	 *
+	 * @return Matrix L, m x min(m,n)
+	 */
+	public Matrix getL()
+	{
+		int kn = Math.min(m, n);
+		Matrix L = new Matrix(m, kn);
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < kn; j++) {
+				if(i > j) L.set(i, j, lu[i * n + j]);
+				else if(i == j) L.set(i, j, 1);
+			}
+		}
+		return L;
+	}
+
+	/**
+	 * getU - returns the upper triangular factor
+	 *
+	 * @return Matrix U, min(m,n) x n
+	 */
+	public Matrix getU()
+	{
+		int kn = Math.min(m, n);
+		Matrix U = new Matrix(kn, n);
+		for (int i = 0; i < kn; i++) {
+			for (int j = i; j < n; j++) {
+				U.set(i, j, lu[i * n + j]);
+			}
+		}
+		return U;
+	}
+
+	/**
+	 * getPivot - returns the row permutation, row i of L*U is row getPivot()[i] of A
+	 *
+	 * @return int[]
+	 */
+	public int[] getPivot()
+	{
+		return piv.clone();
+	}
+
+	/**
+	 * det - returns the determinant of A
+	 *
+	 * @return double
+	 * @throws IllegalArgumentException - If A is not square
+	 */
+	public double det() throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		double d = pivsign;
+		for (int j = 0; j < n; j++) {
+			d *= lu[j * n + j];
+		}
+		return d;
+	}
+
+	/**
+	 * solve - solves A*X = B
+	 *
+	 * @param B - right hand sides, with as many rows as A
+	 * @return Matrix X
+	 * @throws IllegalArgumentException - If A is not square, B has the wrong number
+	 * 		of rows, or A is singular
+	 */
+	public Matrix solve(Matrix B) throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		if(B.getRowDimension() != m) throw new IllegalArgumentException("Matrix row dimensions must agree.");
+		if(!isNonsingular()) throw new IllegalArgumentException("Matrix is singular.");
+
+		int nx = B.getColumnDimension();
+		Matrix X = B.getMatrix(piv, 0, nx - 1);
+		double[] x = X.storage();
+		int xOff = X.offset(), ldx = X.stride();
+
+		//Solve L*Y = B(piv,:) a block of NB rows at a time: the unit lower triangular
+		//diagonal block by substitution, then the rows below it through Gemm
+		for (int k0 = 0; k0 < n; k0 += NB) {
+			int k1 = Math.min(n, k0 + NB);
+			for (int i = k0 + 1; i < k1; i++) {
+				int ri = xOff + i * ldx;
+				for (int p = k0; p < i; p++) {
+					double l = lu[i * n + p];
+					if(l == 0) continue;
+					int rp = xOff + p * ldx;
+					for (int j = 0; j < nx; j++) {
+						x[ri + j] -= l * x[rp + j];
+					}
+				}
+			}
+			//Y2 -= L21 Y1
+			update(k1 * n + k0, n - k1, k1 - k0, x, xOff, ldx, nx, k0, k1);
+		}
+		//Solve U*X = Y from the bottom block up, with the rows above each block updated through Gemm
+		for (int k1 = n; k1 > 0; k1 -= NB) {
+			int k0 = Math.max(0, k1 - NB);
+			for (int i = k1 - 1; i >= k0; i--) {
+				int ri = xOff + i * ldx;
+				for (int p = i + 1; p < k1; p++) {
+					double u = lu[i * n + p];
+					if(u == 0) continue;
+					int rp = xOff + p * ldx;
+					for (int j = 0; j < nx; j++) {
+						x[ri + j] -= u * x[rp + j];
+					}
+				}
+				double d = lu[i * n + i];
+				for (int j = 0; j < nx; j++) {
+					x[ri + j] /= d;
+				}
+			}
+			//X0 -= U01 X1
+			update(k0, k0, k1 - k0, x, xOff, ldx, nx, k0, 0);
+		}
+		return X;
+	}
+
+	/**
+	 * update - subtracts the product of the mb x kb block of lu at aOff and rows
+	 * 		src..src+kb-1 of X from rows dst..dst+mb-1 of X, with the Gemm kernel
+	 */
+	private void update(int aOff, int mb, int kb, double[] x, int xOff, int ldx, int nx, int src, int dst)
+	{
+		if(mb <= 0 || nx == 0) return;
+		double[] neg = new double[kb * nx];
+		for (int p = 0; p < kb; p++) {
+			int rp = xOff + (src + p) * ldx;
+			for (int j = 0; j < nx; j++) {
+				neg[p * nx + j] = -x[rp + j];
+			}
+		}
+		ForkJoinPool pool = Matrix.sharedPool((long)mb * nx * kb);
+		if(pool != null) {
+			Gemm.multiplyParallel(pool, lu, aOff, n, neg, 0, nx, x, xOff + dst * ldx, ldx, mb, nx, kb);
+		}
+		else {
+			Gemm.multiply(lu, aOff, n, neg, 0, nx, x, xOff + dst * ldx, ldx, mb, nx, kb);
+		}
+	}
+}
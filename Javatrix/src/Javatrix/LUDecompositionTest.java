@@ -0,0 +1,100 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LUDecompositionTest {
+	private double delta = 1e-9;
+	
+	/*
+	 * Tests P*A = L*U on a matrix spanning several column blocks, and the shape of L and U
+	 */
+	@Test
+	public void testFactors() {
+		Matrix a = Matrix.random(203, 203);
+		LUDecomposition lu = new LUDecomposition(a);
+		Matrix l = lu.getL();
+		Matrix u = lu.getU();
+		for(int i = 0; i < 203; i++) {
+			assertEquals(1, l.get(i, i), 0);
+			for(int j = i + 1; j < 203; j++) {
+				assertEquals(0, l.get(i, j), 0);
+				assertEquals(0, u.get(j, i), 0);
+				assertTrue(Math.abs(l.get(j, i)) <= 1);
+			}
+		}
+		Matrix pa = a.getMatrix(lu.getPivot(), 0, 202);
+		assertArrayEquals(pa.getRowPackedCopy(), l.times(u).getRowPackedCopy(), delta * a.normInF());
+	}
+	
+	/*
+	 * Tests rectangular matrices, tall and wide
+	 */
+	@Test
+	public void testRectangular() {
+		Matrix[] shapes = {Matrix.random(150, 70), Matrix.random(70, 150)};
+		for(Matrix a : shapes) {
+			LUDecomposition lu = new LUDecomposition(a);
+			Matrix pa = a.getMatrix(lu.getPivot(), 0, a.getColumnDimension() - 1);
+			assertArrayEquals(pa.getRowPackedCopy(), lu.getL().times(lu.getU()).getRowPackedCopy(), delta * a.normInF());
+		}
+	}
+	
+	/*
+	 * Tests solve and det on a system large enough to use the blocked update
+	 */
+	@Test
+	public void testSolve() {
+		Matrix a = Matrix.random(300, 300);
+		Matrix x = Matrix.random(300, 5);
+		Matrix b = a.times(x);
+		LUDecomposition lu = new LUDecomposition(a);
+		assertTrue(lu.isNonsingular());
+		Matrix actual = lu.solve(b);
+		assertArrayEquals(x.getRowPackedCopy(), actual.getRowPackedCopy(), 1e-7);
+		
+		double[][] data = {{0, 2, 0}, {1, 0, 0}, {0, 0, 3}};
+		assertEquals(-6, new LUDecomposition(new Matrix(data)).det(), delta);
+	}
+	
+	/*
+	 * Tests the blocked substitution with many right hand sides: inverse on a size
+	 * that leaves a partial block, serial and on the shared pool
+	 */
+	@Test
+	public void testInverse() {
+		Matrix a = Matrix.random(203, 203).plus(Matrix.identity(203, 203).times(10));
+		Matrix inv = a.inverse();
+		Matrix id = Matrix.identity(203, 203);
+		//Backward error, A*X - B, is small relative to |A||X| whatever the conditioning
+		assertTrue(a.times(inv).minus(id).normInF() <= 1e-13 * a.normInF() * inv.normInF());
+		
+		Matrix b = Matrix.random(203, 130);
+		int p = Matrix.getParallelism();
+		long t = Matrix.getParallelThreshold();
+		try {
+			Matrix.setParallelism(3);
+			Matrix.setParallelThreshold(0);
+			Matrix x = a.solve(b);
+			assertTrue(a.times(x).minus(b).normInF() <= 1e-13 * a.normInF() * x.normInF());
+			Matrix parallel = a.inverse();
+			assertTrue(parallel.minus(inv).normInF() <= 1e-13 * inv.normInF());
+		} finally {
+			Matrix.setParallelThreshold(t);
+			Matrix.setParallelism(p);
+		}
+	}
+	
+	/*
+	 * Tests singular systems are detected
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testSingular() {
+		double[][] data = {{1, 2, 3}, {2, 4, 6}, {1, 0, 1}};
+		LUDecomposition lu = new LUDecomposition(new Matrix(data));
+		assertFalse(lu.isNonsingular());
+		assertEquals(0, lu.det(), delta);
+		lu.solve(Matrix.random(3, 1));
+	}
+}
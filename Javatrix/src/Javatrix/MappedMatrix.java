@@ -0,0 +1,605 @@
+package Javatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedMatrix - a dense matrix kept in a memory-mapped file instead of on the heap.
+ *
+ * The file uses the same binary format as Matrix.write(Path), so a matrix written
+ * there can be opened here and the other way round. Elements are reached through
+ * a list of mapped segments of 2^27 doubles (1 GiB) each, which lifts the 2 GiB
+ * limit of a single mapping and lets the operating system page data in and out,
+ * so the matrix can be far larger than the heap.
+ *
+ * Operations that return a new matrix put it in a temporary file that is deleted
+ * when the result is closed, or in a file given by the caller, which is kept. The
+ * temporary files go to java.io.tmpdir; pass a path on a larger disk for results
+ * that would not fit there. Whole-matrix operations stream the data through small
+ * heap buffers a tile or a run of elements at a time; times is done out of core
+ * by multiply(Path, Path, Path).
+ */
+public class MappedMatrix implements Closeable
+{
+	static final int SEGMENT_SHIFT = 27;
+	/** Edge of the square tiles used by transpose. */
+	static final int TILE = 512;
+	/** Number of elements streamed at a time by the element-wise operations. */
+	static final int RUN = 1 << 16;
+
+	private final Path path;
+	private final boolean temporary;
+	private final boolean writable;
+	private final int m;
+	private final int n;
+	private final int shift;
+	private final long mask;
+	private DoubleBuffer[] segments;
+
+	private MappedMatrix(Path path, boolean temporary, boolean create, boolean writable, int m, int n, int shift) throws IOException
+	{
+		StandardOpenOption[] options = create
+				? new StandardOpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+				: writable ? new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE}
+				: new StandardOpenOption[] {StandardOpenOption.READ};
+		FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+		try (FileChannel ch = FileChannel.open(path, options)) {
+			MatrixFile f = create ? MatrixFile.create(ch, m, n) : MatrixFile.readHeader(ch);
+			if(f.layout != MatrixFile.ROW_MAJOR) throw new IOException("Only row-major files can be mapped.");
+			this.path = path;
+			this.temporary = temporary;
+			this.writable = writable;
+			this.m = f.rows;
+			this.n = f.cols;
+			this.shift = shift;
+			this.mask = (1L << shift) - 1;
+
+			long total = (long)this.m * this.n;
+			int count = (int)((total + mask) >>> shift);
+			this.segments = new DoubleBuffer[count];
+			for (int s = 0; s < count; s++) {
+				long start = (long)s << shift;
+				long len = Math.min(1L << shift, total - start);
+				segments[s] = ch.map(mode, MatrixFile.HEADER + start * 8, len * 8)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+		}
+	}
+
+	/**
+	 * create - creates or overwrites a file holding an m x n matrix of zeros and maps it
+	 *
+	 * @param path - file to create
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @return MappedMatrix
+	 * @throws IOException - If the file cannot be created or mapped
+	 */
+	public static MappedMatrix create(Path path, int m, int n) throws IOException
+	{
+		return create(path, m, n, SEGMENT_SHIFT);
+	}
+
+	static MappedMatrix create(Path path, int m, int n, int shift) throws IOException
+	{
+		if(m < 0 || n < 0) throw new IllegalArgumentException();
+		return new MappedMatrix(path, false, true, true, m, n, shift);
+	}
+
+	/**
+	 * open - maps an existing matrix file for reading and writing
+	 *
+	 * @param path - a file written by Matrix.write(Path) or MappedMatrix.create
+	 * @return MappedMatrix
+	 * @throws IOException - If the file cannot be mapped or is not a row-major matrix file
+	 */
+	public static MappedMatrix open(Path path) throws IOException
+	{
+		return open(path, true);
+	}
+
+	/**
+	 * open - maps an existing matrix file, read-only unless writable is set. A read-only
+	 * 		matrix only needs read access to the file, and set throws on it.
+	 *
+	 * @param path - a file written by Matrix.write(Path) or MappedMatrix.create
+	 * @param writable - whether set may change the file
+	 * @return MappedMatrix
+	 * @throws IOException - If the file cannot be mapped or is not a row-major matrix file
+	 */
+	public static MappedMatrix open(Path path, boolean writable) throws IOException
+	{
+		return open(path, writable, SEGMENT_SHIFT);
+	}
+
+	static MappedMatrix open(Path path, int shift) throws IOException
+	{
+		return open(path, true, shift);
+	}
+
+	static MappedMatrix open(Path path, boolean writable, int shift) throws IOException
+	{
+		return new MappedMatrix(path, false, false, writable, 0, 0, shift);
+	}
+
+	/**
+	 * result - a rows x cols matrix of zeros to hold the result of an operation on this
+	 * 		matrix and B. It is created at c, or in a temporary file deleted on close when
+	 * 		c is null.
+	 *
+	 * @throws IllegalArgumentException - If c is the file of this matrix or of B
+	 */
+	private MappedMatrix result(Path c, MappedMatrix B, int rows, int cols) throws IOException
+	{
+		if(c != null) {
+			if(Files.exists(c) && (Files.isSameFile(c, path) || Files.isSameFile(c, B.path))) {
+				throw new IllegalArgumentException("Output file is also an operand.");
+			}
+			return new MappedMatrix(c, false, true, true, rows, cols, shift);
+		}
+		Path tmp = Files.createTempFile("javatrix", ".bin");
+		try {
+			return new MappedMatrix(tmp, true, true, true, rows, cols, shift);
+		} catch(IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+	}
+
+	/**
+	 * discard - closes a result that failed partway with e, deleting it if it is temporary
+	 */
+	private static void discard(MappedMatrix C, Throwable e)
+	{
+		try {
+			C.close();
+		} catch(IOException x) {
+			e.addSuppressed(x);
+		}
+	}
+
+	/**
+	 * getPath - the file backing this matrix
+	 *
+	 * @return Path
+	 */
+	public Path getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * getRowDimension - Get row dimension
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Get column dimension
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * get - returns the value at (i, j)
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 * @return double
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		long e = (long)i * n + j;
+		return segments[(int)(e >>> shift)].get((int)(e & mask));
+	}
+
+	/**
+	 * set - sets the value at (i, j)
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 * @param s - new value
+	 * @throws IllegalStateException - If the matrix was opened read-only
+	 */
+	public void set(int i, int j, double s) throws ArrayIndexOutOfBoundsException, IllegalStateException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		if(!writable) throw new IllegalStateException("Matrix is read-only.");
+		long e = (long)i * n + j;
+		segments[(int)(e >>> shift)].put((int)(e & mask), s);
+	}
+
+	/**
+	 * read - copies len consecutive row-major elements starting at element e into dst
+	 */
+	void read(long e, double[] dst, int off, int len)
+	{
+		while(len > 0) {
+			int s = (int)(e >>> shift);
+			int p = (int)(e & mask);
+			int run = (int)Math.min(len, (1L << shift) - p);
+			DoubleBuffer d = segments[s].duplicate();
+			((Buffer)d).position(p);
+			d.get(dst, off, run);
+			e += run;
+			off += run;
+			len -= run;
+		}
+	}
+
+	/**
+	 * write - copies len elements of src into consecutive row-major elements starting at element e
+	 */
+	void write(long e, double[] src, int off, int len)
+	{
+		if(!writable) throw new IllegalStateException("Matrix is read-only.");
+		while(len > 0) {
+			int s = (int)(e >>> shift);
+			int p = (int)(e & mask);
+			int run = (int)Math.min(len, (1L << shift) - p);
+			DoubleBuffer d = segments[s].duplicate();
+			((Buffer)d).position(p);
+			d.put(src, off, run);
+			e += run;
+			off += run;
+			len -= run;
+		}
+	}
+
+	/**
+	 * readBlock - copies the rows x cols block at (i0, j0) into dst with row stride ld
+	 */
+	void readBlock(int i0, int j0, int rows, int cols, double[] dst, int ld)
+	{
+		for (int r = 0; r < rows; r++) {
+			read((long)(i0 + r) * n + j0, dst, r * ld, cols);
+		}
+	}
+
+	/**
+	 * writeBlock - copies a rows x cols block with row stride ld from src to (i0, j0)
+	 */
+	void writeBlock(int i0, int j0, int rows, int cols, double[] src, int ld)
+	{
+		for (int r = 0; r < rows; r++) {
+			write((long)(i0 + r) * n + j0, src, r * ld, cols);
+		}
+	}
+
+	/**
+	 * plus - returns A + B in a temporary file
+	 *
+	 * @param B - matrix of the same dimensions
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix plus(MappedMatrix B) throws IOException
+	{
+		return elementwise(B, false, null);
+	}
+
+	/**
+	 * plus - returns A + B in the file c, created or overwritten and kept on close
+	 *
+	 * @param B - matrix of the same dimensions
+	 * @param c - output file, other than the files of A and B
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix plus(MappedMatrix B, Path c) throws IOException
+	{
+		return elementwise(B, false, c);
+	}
+
+	/**
+	 * minus - returns A - B in a temporary file
+	 *
+	 * @param B - matrix of the same dimensions
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix minus(MappedMatrix B) throws IOException
+	{
+		return elementwise(B, true, null);
+	}
+
+	/**
+	 * minus - returns A - B in the file c, created or overwritten and kept on close
+	 *
+	 * @param B - matrix of the same dimensions
+	 * @param c - output file, other than the files of A and B
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix minus(MappedMatrix B, Path c) throws IOException
+	{
+		return elementwise(B, true, c);
+	}
+
+	private MappedMatrix elementwise(MappedMatrix B, boolean subtract, Path c) throws IOException
+	{
+		if(B.m != m || B.n != n) throw new IllegalArgumentException();
+		MappedMatrix C = result(c, B, m, n);
+		try {
+			ElementKernels k = Matrix.kernels();
+			long total = (long)m * n;
+			double[] x = new double[(int)Math.min(RUN, total)];
+			double[] y = new double[x.length];
+			for (long e = 0; e < total; e += RUN) {
+				int len = (int)Math.min(RUN, total - e);
+				read(e, x, 0, len);
+				B.read(e, y, 0, len);
+				if(subtract) k.sub(x, 0, y, 0, x, 0, len);
+				else k.add(x, 0, y, 0, x, 0, len);
+				C.write(e, x, 0, len);
+			}
+		} catch(RuntimeException | Error e) {
+			discard(C, e);
+			throw e;
+		}
+		return C;
+	}
+
+	/**
+	 * times - returns s*A in a temporary file
+	 *
+	 * @param s - scalar
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix times(double s) throws IOException
+	{
+		return times(s, null);
+	}
+
+	/**
+	 * times - returns s*A in the file c, created or overwritten and kept on close
+	 *
+	 * @param s - scalar
+	 * @param c - output file, other than the file of A
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix times(double s, Path c) throws IOException
+	{
+		MappedMatrix C = result(c, this, m, n);
+		try {
+			ElementKernels k = Matrix.kernels();
+			long total = (long)m * n;
+			double[] x = new double[(int)Math.min(RUN, total)];
+			for (long e = 0; e < total; e += RUN) {
+				int len = (int)Math.min(RUN, total - e);
+				read(e, x, 0, len);
+				k.scale(x, 0, s, x, 0, len);
+				C.write(e, x, 0, len);
+			}
+		} catch(RuntimeException | Error e) {
+			discard(C, e);
+			throw e;
+		}
+		return C;
+	}
+
+	/**
+	 * times - returns A*B in a temporary file, computed out of core by multiply(Path, Path, Path)
+	 *
+	 * @param B - matrix with as many rows as A has columns
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix times(MappedMatrix B) throws IOException
+	{
+		if(B.m != n) throw new IllegalArgumentException();
+		Path tmp = Files.createTempFile("javatrix", ".bin");
+		try {
+			OutOfCoreGemm.multiply(path, B.path, tmp, OutOfCoreGemm.TILE);
+			return new MappedMatrix(tmp, true, false, true, 0, 0, shift);
+		} catch(IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+	}
+
+	/**
+	 * times - returns A*B in the file c, created or overwritten and kept on close,
+	 * 		computed out of core by multiply(Path, Path, Path)
+	 *
+	 * @param B - matrix with as many rows as A has columns
+	 * @param c - output file, other than the files of A and B
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be written or mapped
+	 */
+	public MappedMatrix times(MappedMatrix B, Path c) throws IOException
+	{
+		if(B.m != n) throw new IllegalArgumentException();
+		OutOfCoreGemm.multiply(path, B.path, c, OutOfCoreGemm.TILE);
+		return new MappedMatrix(c, false, false, true, 0, 0, shift);
+	}
+
+	/**
+	 * multiply - C = A*B for matrices in binary matrix files, without holding any of them
+	 * 		in memory. Operands are read tile by tile on a background thread while the
+	 * 		previous tiles are multiplied, and each finished tile of C is written to disk.
+	 *
+	 * @param a - row-major matrix file, m x n
+	 * @param b - row-major matrix file, n x p
+	 * @param c - output file, created or overwritten
+	 * @throws IOException - If a file cannot be read or written, or is not a row-major matrix file
+	 * @throws IllegalArgumentException - If the inner dimensions do not agree
+	 */
+	public static void multiply(Path a, Path b, Path c) throws IOException
+	{
+		OutOfCoreGemm.multiply(a, b, c, OutOfCoreGemm.TILE);
+	}
+
+	/**
+	 * multiply - as multiply(Path, Path, Path) with a chosen tile edge. The working set is
+	 * 		about 8 * tile^2 doubles, 64 MiB at the default of 1024.
+	 *
+	 * @param tile - edge of the square tiles read and multiplied at a time
+	 */
+	public static void multiply(Path a, Path b, Path c, int tile) throws IOException
+	{
+		OutOfCoreGemm.multiply(a, b, c, tile);
+	}
+
+	/**
+	 * transpose - returns A' in a temporary file, moved one TILE x TILE block at a time
+	 *
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix transpose() throws IOException
+	{
+		return transpose(null);
+	}
+
+	/**
+	 * transpose - returns A' in the file c, created or overwritten and kept on close
+	 *
+	 * @param c - output file, other than the file of A
+	 * @return MappedMatrix
+	 * @throws IOException - If the result file cannot be created
+	 */
+	public MappedMatrix transpose(Path c) throws IOException
+	{
+		MappedMatrix T = result(c, this, n, m);
+		try {
+			double[] a = new double[TILE * TILE];
+			double[] t = new double[TILE * TILE];
+			for (int i0 = 0; i0 < m; i0 += TILE) {
+				int mi = Math.min(TILE, m - i0);
+				for (int j0 = 0; j0 < n; j0 += TILE) {
+					int nj = Math.min(TILE, n - j0);
+					readBlock(i0, j0, mi, nj, a, nj);
+					for (int i = 0; i < mi; i++) {
+						for (int j = 0; j < nj; j++) {
+							t[j * mi + i] = a[i * nj + j];
+						}
+					}
+					T.writeBlock(j0, i0, nj, mi, t, mi);
+				}
+			}
+		} catch(RuntimeException | Error e) {
+			discard(T, e);
+			throw e;
+		}
+		return T;
+	}
+
+	/**
+	 * norm1 - maximum column sum
+	 *
+	 * @return double
+	 */
+	public double norm1()
+	{
+		double[] sums = new double[n];
+		double[] row = new double[Math.min(RUN, n)];
+		for (int i = 0; i < m; i++) {
+			for (int j0 = 0; j0 < n; j0 += row.length) {
+				int len = Math.min(row.length, n - j0);
+				read((long)i * n + j0, row, 0, len);
+				for (int j = 0; j < len; j++) {
+					sums[j0 + j] += Math.abs(row[j]);
+				}
+			}
+		}
+		double max = 0;
+		for (int j = 0; j < n; j++) {
+			if(sums[j] > max) max = sums[j];
+		}
+		return max;
+	}
+
+	/**
+	 * normInF - maximum row sum
+	 *
+	 * @return double
+	 */
+	public double normInF()
+	{
+		double max = 0;
+		double[] row = new double[Math.min(RUN, n)];
+		for (int i = 0; i < m; i++) {
+			double sum = 0;
+			for (int j0 = 0; j0 < n; j0 += row.length) {
+				int len = Math.min(row.length, n - j0);
+				read((long)i * n + j0, row, 0, len);
+				for (int j = 0; j < len; j++) {
+					sum += Math.abs(row[j]);
+				}
+			}
+			if(sum > max) max = sum;
+		}
+		return max;
+	}
+
+	/**
+	 * normF - square root of the sum of squares of all elements, summed relative to a
+	 * 		running scale so that it does not overflow
+	 *
+	 * @return double
+	 */
+	public double normF()
+	{
+		double[] state = new double[2];
+		long total = (long)m * n;
+		double[] x = new double[(int)Math.min(RUN, total)];
+		for (long e = 0; e < total; e += RUN) {
+			int len = (int)Math.min(RUN, total - e);
+			read(e, x, 0, len);
+			Reductions.accumulateSquares(state, x, 0, len);
+		}
+		return Reductions.scaledNorm(state);
+	}
+
+	/**
+	 * toMatrix - copies the matrix onto the heap
+	 *
+	 * @return Matrix
+	 * @throws IllegalStateException - If the matrix has more elements than a Java array can hold
+	 */
+	public Matrix toMatrix() throws IllegalStateException
+	{
+		long total = (long)m * n;
+		if(total > Integer.MAX_VALUE) throw new IllegalStateException("Matrix is too large for the heap.");
+		double[] data = new double[(int)total];
+		read(0, data, 0, data.length);
+		return new Matrix(m, n, data);
+	}
+
+	/**
+	 * close - releases the mapping and deletes the file if it holds a temporary result.
+	 * 		The matrix cannot be used afterwards.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		segments = null;
+		if(temporary) {
+			try {
+				Files.deleteIfExists(path);
+			} catch(IOException e) {
+				//Some platforms refuse to delete a file that is still mapped
+				path.toFile().deleteOnExit();
+			}
+		}
+	}
+}
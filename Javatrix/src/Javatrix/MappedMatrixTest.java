@@ -0,0 +1,236 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedMatrixTest {
+	private double delta = 1e-9;
+	private Path file;
+	
+	/** Tiny segments so that rows and tiles straddle segment boundaries. */
+	private static final int SHIFT = 7;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("mapped", ".bin");
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+	
+	private MappedMatrix map(Matrix a) throws IOException {
+		a.write(file);
+		return MappedMatrix.open(file, SHIFT);
+	}
+	
+	private void assertMatrixEquals(Matrix expected, MappedMatrix actual) {
+		assertEquals(expected.getRowDimension(), actual.getRowDimension());
+		assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+		assertArrayEquals(expected.getRowPackedCopy(), actual.toMatrix().getRowPackedCopy(), delta);
+	}
+	
+	/*
+	 * Tests create, get and set, and that writes reach the file
+	 */
+	@Test
+	public void testGetSet() throws IOException {
+		try (MappedMatrix a = MappedMatrix.create(file, 13, 17)) {
+			assertEquals(0, a.get(12, 16), 0);
+			a.set(5, 9, 2.5);
+			a.set(12, 16, -1);
+			assertEquals(2.5, a.get(5, 9), 0);
+		}
+		Matrix b = Matrix.load(file);
+		assertEquals(2.5, b.get(5, 9), 0);
+		assertEquals(-1, b.get(12, 16), 0);
+		assertEquals(0, b.get(0, 0), 0);
+	}
+	
+	/*
+	 * Tests a read-only file can be opened and read, and that set is rejected on it
+	 */
+	@Test
+	public void testReadOnly() throws IOException {
+		Matrix a = Matrix.random(19, 23);
+		a.write(file);
+		file.toFile().setWritable(false);
+		try (MappedMatrix ma = MappedMatrix.open(file, false, SHIFT);
+				MappedMatrix scaled = ma.times(2)) {
+			assertMatrixEquals(a, ma);
+			assertMatrixEquals(a.times(2), scaled);
+			scaled.set(0, 0, 1);
+			try {
+				ma.set(0, 0, 1);
+				fail();
+			} catch(IllegalStateException e) {}
+		} finally {
+			file.toFile().setWritable(true);
+		}
+		assertArrayEquals(a.getRowPackedCopy(), Matrix.load(file).getRowPackedCopy(), 0);
+	}
+	
+	/*
+	 * Tests out of range indices are rejected
+	 */
+	@Test(expected=ArrayIndexOutOfBoundsException.class)
+	public void testGetOutOfRange() throws IOException {
+		try (MappedMatrix a = MappedMatrix.create(file, 3, 3)) {
+			a.get(0, 3);
+		}
+	}
+	
+	/*
+	 * Tests plus, minus and times(double)
+	 */
+	@Test
+	public void testElementwise() throws IOException {
+		Matrix a = Matrix.random(21, 34);
+		Matrix b = Matrix.random(21, 34);
+		Path other = Files.createTempFile("mapped", ".bin");
+		try (MappedMatrix ma = map(a)) {
+			b.write(other);
+			try (MappedMatrix mb = MappedMatrix.open(other, SHIFT);
+					MappedMatrix sum = ma.plus(mb);
+					MappedMatrix diff = ma.minus(mb);
+					MappedMatrix scaled = ma.times(3)) {
+				assertMatrixEquals(a.plus(b), sum);
+				assertMatrixEquals(a.minus(b), diff);
+				assertMatrixEquals(a.times(3), scaled);
+			}
+		} finally {
+			Files.delete(other);
+		}
+	}
+	
+	/*
+	 * Tests times and transpose over several tiles
+	 */
+	@Test
+	public void testTimesTranspose() throws IOException {
+		Matrix a = Matrix.random(MappedMatrix.TILE + 37, 300);
+		try (MappedMatrix ma = map(a);
+				MappedMatrix t = ma.transpose();
+				MappedMatrix p = ma.times(t)) {
+			assertMatrixEquals(a.transpose(), t);
+			assertMatrixEquals(a.times(a.transpose()), p);
+			assertTrue(Files.exists(p.getPath()));
+		}
+	}
+	
+	/*
+	 * Tests temporary results are deleted on close
+	 */
+	@Test
+	public void testClose() throws IOException {
+		Path tmp;
+		try (MappedMatrix a = map(Matrix.random(4, 4)); MappedMatrix t = a.transpose()) {
+			tmp = t.getPath();
+			assertTrue(Files.exists(tmp));
+		}
+		assertFalse(Files.exists(tmp));
+		assertTrue(Files.exists(file));
+	}
+	
+	/*
+	 * Tests results written to given files, which are kept on close, and that an
+	 * operand's own file is refused as the output
+	 */
+	@Test
+	public void testDestination() throws IOException {
+		Matrix a = Matrix.random(9, 13);
+		Path dir = Files.createTempDirectory("mapped");
+		Path sum = dir.resolve("sum.bin"), diff = dir.resolve("diff.bin"), scaled = dir.resolve("scaled.bin");
+		Path t = dir.resolve("t.bin"), p = dir.resolve("p.bin");
+		try (MappedMatrix ma = map(a)) {
+			try (MappedMatrix s = ma.plus(ma, sum);
+					MappedMatrix d = ma.minus(ma, diff);
+					MappedMatrix c = ma.times(2, scaled);
+					MappedMatrix mt = ma.transpose(t);
+					MappedMatrix mp = ma.times(mt, p)) {
+				assertEquals(sum, s.getPath());
+				assertMatrixEquals(a.times(2), s);
+				assertMatrixEquals(new Matrix(9, 13), d);
+				assertMatrixEquals(a.times(2), c);
+				assertMatrixEquals(a.transpose(), mt);
+				assertMatrixEquals(a.times(a.transpose()), mp);
+			}
+			for(Path f : new Path[] {sum, diff, scaled, t, p}) assertTrue(Files.exists(f));
+			try {
+				ma.times(2, file);
+				fail();
+			} catch(IllegalArgumentException e) {}
+			assertMatrixEquals(a, ma);
+		} finally {
+			for(Path f : new Path[] {sum, diff, scaled, t, p}) Files.deleteIfExists(f);
+			Files.delete(dir);
+		}
+	}
+	
+	/*
+	 * Tests a temporary result is deleted when the operation fails partway
+	 */
+	@Test
+	public void testFailedResultDeleted() throws IOException {
+		Path dir = file.getParent();
+		int before = count(dir);
+		MappedMatrix ma = map(Matrix.random(5, 5));
+		MappedMatrix closed = MappedMatrix.open(file, SHIFT);
+		closed.close();
+		try {
+			ma.plus(closed);
+			fail();
+		} catch(NullPointerException e) {}
+		assertEquals(before, count(dir));
+		ma.close();
+	}
+	
+	private static int count(Path dir) throws IOException {
+		int k = 0;
+		try (java.nio.file.DirectoryStream<Path> files = Files.newDirectoryStream(dir, "javatrix*.bin")) {
+			for(Path f : files) k++;
+		}
+		return k;
+	}
+	
+	/*
+	 * Tests the norms agree with Matrix
+	 */
+	@Test
+	public void testNorms() throws IOException {
+		Matrix a = Matrix.random(19, 23).minus(new Matrix(19, 23, 0.5));
+		try (MappedMatrix ma = map(a)) {
+			assertEquals(a.norm1(), ma.norm1(), delta);
+			assertEquals(a.normInF(), ma.normInF(), delta);
+			assertEquals(a.normF(), ma.normF(), delta);
+		}
+	}
+	
+	/*
+	 * Tests the file to file product
+	 */
+	@Test
+	public void testMultiply() throws IOException {
+		Matrix a = Matrix.random(40, 30);
+		Matrix b = Matrix.random(30, 50);
+		Path fb = Files.createTempFile("mapped", ".bin");
+		Path fc = Files.createTempFile("mapped", ".bin");
+		try {
+			a.write(file);
+			b.write(fb);
+			MappedMatrix.multiply(file, fb, fc);
+			assertArrayEquals(a.times(b).getRowPackedCopy(), Matrix.load(fc).getRowPackedCopy(), delta);
+		} finally {
+			Files.delete(fb);
+			Files.delete(fc);
+		}
+	}
+}
@@ -4,15 +4,179 @@ import java.text.NumberFormat;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.text.DecimalFormat;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class Matrix 
 {
-	private double[][] matrix;
+	/**
+	 * Row-major element storage, element (i, j) lives at data[offset + i*stride + j],
+	 * 		or at data[offset + j*stride + i] when the matrix is a transposed view.
+	 */
+	private double[] data;
+	private int offset;
+	private int stride;
+	private boolean transposed;
 	private int m;
 	private int n;
 	
+	private static volatile int parallelism = Runtime.getRuntime().availableProcessors();
+	private static volatile long parallelThreshold = 192L * 192 * 192;
+	/** The shared pool, created on first use and dropped when the parallelism changes. */
+	private static volatile ForkJoinPool pool;
+	private static int strassenCrossover = 256;
+	private static volatile ElementKernels kernels = ElementKernels.preferred();
+	
+	/**
+	 * setParallelism - Sets the number of threads used by the shared pool behind times(Matrix).
+	 * 		Operations already running on the old pool finish there; it is not shut down,
+	 * 		and its idle worker threads exit on their own.
+	 * 
+	 * @param p - Number of worker threads, 1 disables the parallel path
+	 * @throws IllegalArgumentException - If p is less than 1
+	 */
+	public static synchronized void setParallelism(int p) throws IllegalArgumentException
+	{
+		if(p < 1) throw new IllegalArgumentException();
+		if(pool != null && pool.getParallelism() != p) pool = null;
+		parallelism = p;
+	}
+	
+	/**
+	 * getParallelism - Gets the number of threads used by the shared pool.
+	 * 
+	 * @return int
+	 */
+	public static int getParallelism()
+	{
+		return parallelism;
+	}
+	
+	/**
+	 * setParallelThreshold - Sets the size cutoff for the parallel path of times(Matrix).
+	 * 
+	 * @param flops - Products with fewer multiply-adds (m*n*k) than this stay single-threaded,
+	 * 		as do sums and norms of matrices with fewer elements
+	 */
+	public static void setParallelThreshold(long flops)
+	{
+		parallelThreshold = flops;
+	}
+	
+	/**
+	 * getParallelThreshold - Gets the size cutoff for the parallel path of times(Matrix).
+	 * 
+	 * @return long
+	 */
+	public static long getParallelThreshold()
+	{
+		return parallelThreshold;
+	}
+	
+	/**
+	 * setStrassenCrossover - Sets the size at which timesStrassen stops recursing and
+	 * 		falls back to the blocked classic kernel.
+	 * 
+	 * @param size - Products with any dimension at or below this use the classic kernel
+	 * @throws IllegalArgumentException - If size is less than 1
+	 */
+	public static synchronized void setStrassenCrossover(int size) throws IllegalArgumentException
+	{
+		if(size < 1) throw new IllegalArgumentException();
+		strassenCrossover = size;
+	}
+	
+	/**
+	 * getStrassenCrossover - Gets the size at which timesStrassen falls back to the classic kernel.
+	 * 
+	 * @return int
+	 */
+	public static synchronized int getStrassenCrossover()
+	{
+		return strassenCrossover;
+	}
+	
+	/**
+	 * setVectorized - Selects SIMD kernels (the jdk.incubator.vector API) or plain scalar loops
+	 * 		for the element-wise operations. SIMD is the default when the running JVM has the
+	 * 		module (--add-modules jdk.incubator.vector) unless -Djavatrix.vector=false is set.
+	 * 
+	 * @param on - true to use the SIMD kernels if they are available
+	 * @return boolean - whether the SIMD kernels are now in use
+	 */
+	public static boolean setVectorized(boolean on)
+	{
+		ElementKernels vector = ElementKernels.vector();
+		kernels = on && vector != null ? vector : ElementKernels.SCALAR;
+		return kernels.isVector();
+	}
+	
+	/**
+	 * isVectorized - Whether the element-wise operations use the SIMD kernels.
+	 * 
+	 * @return boolean
+	 */
+	public static boolean isVectorized()
+	{
+		return kernels.isVector();
+	}
+	
+	/**
+	 * kernels - The element-wise kernels currently selected, for use in this package.
+	 */
+	static ElementKernels kernels()
+	{
+		return kernels;
+	}
+	
+	/**
+	 * sharedPool - Lazily creates the pool used for products of the given size, or reductions
+	 * 		over that many elements, or null when they should run single-threaded. Only
+	 * 		creating the pool takes the lock.
+	 */
+	static ForkJoinPool sharedPool(long flops)
+	{
+		if(parallelism < 2 || flops < parallelThreshold) return null;
+		ForkJoinPool shared = pool;
+		return shared != null ? shared : createPool();
+	}
+	
+	private static synchronized ForkJoinPool createPool()
+	{
+		if(pool == null) pool = new ForkJoinPool(parallelism);
+		return pool;
+	}
+	
+	/**
+	 * elements - m*n as the length of an array holding an m x n matrix
+	 * 
+	 * @throws NegativeArraySizeException - If m or n is negative, as for new double[m][n]
+	 * @throws IllegalArgumentException - If m*n is more than an array can hold
+	 */
+	static int elements(long m, long n) throws IllegalArgumentException
+	{
+		if(m < 0 || n < 0) throw new NegativeArraySizeException();
+		if(m * n > Integer.MAX_VALUE) throw new IllegalArgumentException("Matrix is too large.");
+		return (int)(m * n);
+	}
+	
+	/**
+	 * triangle - n*(n+1)/2 as the length of an array holding a packed n x n triangle.
+	 * 		n*(n+1) itself must fit in an int, so that row offsets i*(i+1)/2 and i*n can
+	 * 		be computed in int arithmetic.
+	 * 
+	 * @throws IllegalArgumentException - If n is negative or n*(n+1) is more than an int can hold
+	 */
+	static int triangle(long n) throws IllegalArgumentException
+	{
+		if(n < 0) throw new IllegalArgumentException();
+		if(n * (n + 1) > Integer.MAX_VALUE) throw new IllegalArgumentException("Matrix is too large.");
+		return (int)(n * (n + 1) / 2);
+	}
+	
 	/**
 	 * Constructor that checks arguments on basis that all rows need to be
 	 * 		the same length
@@ -26,11 +190,10 @@ public class Matrix
 		for (int i = 1; i < m; i++) {
 			if(A[i].length != n) throw new IllegalArgumentException();
 		}
-		this.matrix = new double[m][n];
+		this.data = new double[elements(m, n)];
+		this.stride = n;
 		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				matrix[i][j] = A[i][j];
-			}
+			System.arraycopy(A[i], 0, data, i*n, n);
 		}
 		
 	}
@@ -41,16 +204,16 @@ public class Matrix
 	 * @param A - 2D array from which to construct the matrix
 	 * @param m - Number of rows
 	 * @param n - Number of columns
+	 * @throws IllegalArgumentException - If the matrix has more elements than an array can hold
 	 */
-	public Matrix(double[][] A, int m, int n)
+	public Matrix(double[][] A, int m, int n) throws IllegalArgumentException
 	{
 		this.m = m;
 		this.n = n;
-		this.matrix = new double[m][n];
+		this.data = new double[elements(m, n)];
+		this.stride = n;
 		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				matrix[i][j] = A[i][j];
-			}
+			System.arraycopy(A[i], 0, data, i*n, n);
 		}
 	}
 	
@@ -67,10 +230,11 @@ public class Matrix
 		else {
 			this.m = m;
 			this.n = vals.length/m;
-			this.matrix = new double[m][n];
+			this.data = new double[elements(m, n)];
+			this.stride = n;
 			for (int i = 0; i < n; i++) {
 				for (int j = 0; j < m; j++) {
-					matrix[j][i] = vals[i*m+j];
+					data[j*n+i] = vals[i*m+j];
 				}
 			}
 		}
@@ -81,14 +245,44 @@ public class Matrix
 	 * 
 	 * @param m - Number of rows
 	 * @param n - Number of columns
+	 * @throws IllegalArgumentException - If the matrix has more elements than an array can hold
+	 */
+	public Matrix(int m, int n) throws IllegalArgumentException
+	{
+		this.data = new double[elements(m, n)];
+		this.stride = n;
+		this.m = m;
+		this.n = n;
+	}
+	
+	/**
+	 * Wraps a row-major array of length m*n without copying it.
+	 * 
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @param data - Row-major elements, now owned by the matrix
 	 */
-	public Matrix(int m, int n)
+	Matrix(int m, int n, double[] data)
 	{
-		this.matrix = new double[m][n];
+		this.data = data;
+		this.stride = n;
 		this.m = m;
 		this.n = n;
 	}
 	
+	/**
+	 * Creates a view sharing another matrix's storage.
+	 */
+	private Matrix(double[] data, int offset, int stride, int m, int n, boolean transposed)
+	{
+		this.data = data;
+		this.offset = offset;
+		this.stride = stride;
+		this.m = m;
+		this.n = n;
+		this.transposed = transposed;
+	}
+	
 	/**
 	 * Creates a new Matrix object of the specified size, filled with the specified value.
 	 * 
@@ -99,11 +293,7 @@ public class Matrix
 	public Matrix(int m, int n, double s)
 	{
 		this(m, n);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				matrix[i][j] = s;
-			}
-		}
+		Arrays.fill(data, s);
 	}
 	
 	/**
@@ -117,13 +307,7 @@ public class Matrix
 		for (int i = 1; i < row; i++) {
 			if(arr[i].length != col) throw new IllegalArgumentException();
 		}
-		double[][] cp = new double[row][col];
-		for (int i = 0; i < row; i++) {
-			for (int j  = 0; j < col; j++) {
-				cp[i][j] = arr[i][j];
-			}
-		}
-		return new Matrix(cp);
+		return new Matrix(arr, row, col);
 	}
 	
 	/**
@@ -133,10 +317,12 @@ public class Matrix
 	 */
 	public Matrix copy() {
 		Matrix M = new Matrix(m, n);
+		if(transposed) {
+			Transpose.transpose(data, offset, stride, M.data, 0, n, n, m);
+			return M;
+		}
 		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				M.matrix[i][j] = matrix[i][j];
-			}
+			System.arraycopy(data, offset+i*stride, M.data, i*n, n);
 		}
 		return M;
 	}
@@ -156,11 +342,10 @@ public class Matrix
 	 * @return double[][]
 	 */
 	public double[][] getArrayCopy() {
+		if(transposed) return copy().getArrayCopy();
 		double[][] copy = new double[m][n];
 		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				copy[i][j] = matrix[i][j];
-			}
+			System.arraycopy(data, offset+i*stride, copy[i], 0, n);
 		}
 		return copy;
 	}
@@ -175,7 +360,7 @@ public class Matrix
 	{
 		if(i >= 0 && i < m && j >= 0 && j < n)
 	    {
-			matrix[i][j] = s;
+			data[index(i, j)] = s;
 	    }
 		else
 		{
@@ -192,35 +377,189 @@ public class Matrix
 	public static Matrix random(int m, int n) {
 		Random r = new Random();
 		Matrix M = new Matrix(m,n);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				M.matrix[i][j] = r.nextDouble() * 10;
-			}
+		for (int i = 0; i < M.data.length; i++) {
+			M.data[i] = r.nextDouble() * 10;
 		}
 		return M;	
 	}
 	
 	/**
-	 * trace - returns the sum of the diagonal of the matrix
+	 * trace - returns the compensated sum of the diagonal of the matrix
 	 */
 	public double trace() {
-		double sum = 0;
+		double sum = 0, c = 0;
 		for (int i = 0; i < m && i < n; i++) {
-			sum += matrix[i][i];
+			double x = data[offset+i*stride+i], t = sum + x, z = t - sum;
+			c += (sum - (t - z)) + (x - z);
+			sum = t;
 		}
-		return sum;
+		return Reductions.total(sum, c);
 	}
 	
 	/**
-	 * getArray - Accesses the internal two-dimensional array.
+	 * getArray - Returns the elements as a two-dimensional array. The matrix is stored
+	 * 		in one flat row-major array, so this is a copy kept for compatibility; changes
+	 * 		to it do not affect the matrix.
 	 * 
 	 * @return double[][]
 	 */
 	public double[][] getArray()
 	{
-		return matrix;
+		return getArrayCopy();
+	}
+	
+	/**
+	 * storage - The backing row-major array, for the kernels in this package. For a view
+	 * 		this is the parent's array.
+	 */
+	double[] storage()
+	{
+		return data;
+	}
+	
+	/**
+	 * offset - The index of element (0, 0) in storage().
+	 */
+	int offset()
+	{
+		return offset;
+	}
+	
+	/**
+	 * stride - The distance between the starts of consecutive rows in storage().
+	 */
+	int stride()
+	{
+		return stride;
+	}
+	
+	/**
+	 * transposed - Whether storage() holds the transpose of this matrix, so that element
+	 * 		(i, j) is at offset() + j*stride() + i. Code that only handles row-major
+	 * 		storage should work on plain() instead.
+	 */
+	boolean transposed()
+	{
+		return transposed;
+	}
+	
+	/**
+	 * plain - This matrix if it is stored row-major, otherwise a row-major copy.
+	 */
+	Matrix plain()
+	{
+		return transposed ? copy() : this;
+	}
+	
+	/**
+	 * untransposed - The stored block of a transposed view, as a row-major view of A'.
+	 */
+	private Matrix untransposed()
+	{
+		return new Matrix(data, offset, stride, n, m, false);
 	}
 	
+	/**
+	 * index - The position of element (i, j) in storage().
+	 */
+	private int index(int i, int j)
+	{
+		return transposed ? offset+j*stride+i : offset+i*stride+j;
+	}
+
+	/**
+	 * alias - How X shares storage with C: MatrixExpression.NONE if no element of X is
+	 * 		stored where an element of C is, ALIGNED if both have the same layout, so they
+	 * 		only share elements at the same positions, and SHIFTED otherwise.
+	 */
+	static int alias(Matrix X, Matrix C)
+	{
+		if(X.data != C.data) return MatrixExpression.NONE;
+		if(X.offset == C.offset && X.stride == C.stride && X.transposed == C.transposed) return MatrixExpression.ALIGNED;
+		int xr = X.transposed ? X.n : X.m, xc = X.transposed ? X.m : X.n;
+		int cr = C.transposed ? C.n : C.m, cc = C.transposed ? C.m : C.n;
+		if(xr == 0 || xc == 0 || cr == 0 || cc == 0) return MatrixExpression.NONE;
+		int s = X.stride;
+		if(s == C.stride && s > 0 && X.offset%s + xc <= s && C.offset%s + cc <= s) {
+			//Blocks of the same parent: disjoint unless both the rows and the columns meet
+			int xi = X.offset/s, xj = X.offset%s, ci = C.offset/s, cj = C.offset%s;
+			boolean rows = xi < ci + cr && ci < xi + xr;
+			boolean cols = xj < cj + cc && cj < xj + xc;
+			return rows && cols ? MatrixExpression.SHIFTED : MatrixExpression.NONE;
+		}
+		long xEnd = X.offset + (long)(xr-1)*X.stride + xc, cEnd = C.offset + (long)(cr-1)*C.stride + cc;
+		return X.offset < cEnd && C.offset < xEnd ? MatrixExpression.SHIFTED : MatrixExpression.NONE;
+	}
+
+	/**
+	 * elementwise - C = A op B for one of the MatrixExpression operators. C may be A or B,
+	 * 		but must not overlap them otherwise.
+	 */
+	private Matrix elementwise(int op, Matrix B, Matrix C) throws IllegalArgumentException
+	{
+		if(B.m != m || B.n != n || C.m != m || C.n != n) throw new IllegalArgumentException();
+		if(alias(this, C) == MatrixExpression.SHIFTED || alias(B, C) == MatrixExpression.SHIFTED) {
+			throw new IllegalArgumentException("Destination overlaps an operand.");
+		}
+		if(C.transposed) {
+			transposeView().elementwise(op, B.transposeView(), C.untransposed());
+			return C;
+		}
+		Matrix A = plain();
+		B = B.plain();
+		ElementKernels k = kernels;
+		if(A.stride == n && B.stride == n && C.stride == n) {
+			apply(k, op, A.data, A.offset, B.data, B.offset, C.data, C.offset, m*n);
+		}
+		else for(int i = 0; i < m; i++) {
+			apply(k, op, A.data, A.offset+i*A.stride, B.data, B.offset+i*B.stride, C.data, C.offset+i*C.stride, n);
+		}
+		return C;
+	}
+
+	private static void apply(ElementKernels k, int op, double[] x, int xOff, double[] y, int yOff, double[] z, int zOff, int len)
+	{
+		switch(op) {
+			case MatrixExpression.ADD: k.add(x, xOff, y, yOff, z, zOff, len); break;
+			case MatrixExpression.SUB: k.sub(x, xOff, y, yOff, z, zOff, len); break;
+			case MatrixExpression.MUL: k.mul(x, xOff, y, yOff, z, zOff, len); break;
+			case MatrixExpression.RDIV: k.div(x, xOff, y, yOff, z, zOff, len); break;
+			default: k.div(y, yOff, x, xOff, z, zOff, len); break;
+		}
+	}
+
+	/**
+	 * scale - C = s*A, or -A through the negation kernel when s is -1. C may be A, but
+	 * 		must not overlap it otherwise.
+	 */
+	private Matrix scale(double s, Matrix C) throws IllegalArgumentException
+	{
+		if(C.m != m || C.n != n) throw new IllegalArgumentException();
+		if(alias(this, C) == MatrixExpression.SHIFTED) throw new IllegalArgumentException("Destination overlaps an operand.");
+		if(C.transposed) {
+			transposeView().scale(s, C.untransposed());
+			return C;
+		}
+		Matrix A = plain();
+		ElementKernels k = kernels;
+		for(int i = 0; i < m; i++) {
+			if(s == -1) k.negate(A.data, A.offset+i*A.stride, C.data, C.offset+i*C.stride, n);
+			else k.scale(A.data, A.offset+i*A.stride, s, C.data, C.offset+i*C.stride, n);
+		}
+		return C;
+	}
+
+	/**
+	 * copyInto - copies the row-major block X into the row-major block C of the same size
+	 */
+	private static void copyInto(Matrix X, Matrix C)
+	{
+		if(alias(X, C) == MatrixExpression.ALIGNED) return;
+		for(int i = 0; i < X.m; i++) {
+			System.arraycopy(X.data, X.offset+i*X.stride, C.data, C.offset+i*C.stride, X.n);
+		}
+	}
+
 	/**
 	 * getColumnDimension - Gets the column dimension.
 	 * 
@@ -251,7 +590,7 @@ public class Matrix
 	{
 		if(i >= 0 && i < m && j >= 0 && j < n) 
 		{
-			return matrix[i][j];
+			return data[index(i, j)];
 		}
 		else
 		{
@@ -280,38 +619,11 @@ public class Matrix
 	public void print(java.io.PrintWriter output, java.text.NumberFormat format, int width)
 	{
 		if(width <= 0) return;
-		
-		DecimalFormat df = (DecimalFormat)format;
-		if(width == 1) {
-			df.setMaximumFractionDigits(0);
-			df.setMaximumIntegerDigits(1);
-		} else if(width == 2) {
-			df.setMaximumFractionDigits(0);
-			df.setMaximumIntegerDigits(2);
-		} else if(width == 3) {
-			df.setMaximumFractionDigits(1);
-			df.setMaximumIntegerDigits(1);
-		} else if(width >= 4) {
-			int fractDigits = df.getMaximumFractionDigits();
-			int intDigits = df.getMaximumIntegerDigits();
-			if(fractDigits + intDigits > width-1) {
-				df.setMaximumFractionDigits(width/2);
-				df.setMaximumIntegerDigits(width/2);
-			}
-		}
-		
-		for (int i = 0; i < m; i++) 
-		{
-			for (int j = 0; j < n; j++) 
-			{
-				if(matrix[i][j] < 0)
-					output.format("%" + (width+1) + "s", format.format(matrix[i][j]));
-				else
-					output.format(" %" + width + "s", format.format(matrix[i][j]));
-			}
-			output.println();
+		try {
+			write(output, FormatSpec.numberFormat(format, width));
+		} catch(IOException e) {
+			//PrintWriter reports errors through checkError instead
 		}
-		output.println();
 	}
 	
 	/**
@@ -324,19 +636,27 @@ public class Matrix
 	public void print(java.io.PrintWriter output, int w, int d)
 	{
 		if(w <= 0 || d < 0) return;
-		
-		for (int i = 0; i < m; i++) 
-		{
-			for (int j = 0; j < n; j++) 
-			{
-				if(matrix[i][j] < 0)
-					output.print(String.format("%" + (w+1) + "." + d + "f ", (matrix[i][j])));
-				else
-					output.print(String.format(" %" + w + "." + d + "f ", (matrix[i][j])));
-			}
-			output.println();
+		try {
+			write(output, FormatSpec.fixed(w, d));
+		} catch(IOException e) {
+			//PrintWriter reports errors through checkError instead
 		}
-		output.println();
+	}
+	
+	/**
+	 * write - Writes the matrix as text, one line per row followed by an empty line,
+	 * 		through a reusable buffer and without per-element format strings. With
+	 * 		FormatSpec.fixed or FormatSpec.numberFormat the output is the same as the
+	 * 		matching print; with FormatSpec.shortest every element reads back exactly.
+	 * 
+	 * @param output - The Writer to write to. It is flushed but not closed.
+	 * @param spec - How to format the elements
+	 * @throws IOException - If output fails
+	 */
+	public void write(Writer output, FormatSpec spec) throws IOException
+	{
+		Matrix A = plain();
+		TextWriter.write(output, spec, A.data, A.offset, A.stride, m, n);
 	}
 	
 	/**
@@ -356,16 +676,13 @@ public class Matrix
 	 */
 	public Matrix plus(Matrix B)
 	{
+		if(transposed || B.transposed) return plain().plus(B.plain());
 		if(B.m == this.m && B.n == this.n)
 		{
-			Matrix C = new Matrix(new double[m][n]);
-			for(int i = 0; i < m; i++)
-			{
-				for(int j = 0; j < n; j++)
-				{
-					C.set(i, j, matrix[i][j] + B.get(i, j));
-				}
-			}
+			Matrix C = new Matrix(m, n);
+			ElementKernels k = kernels;
+			if(stride == n && B.stride == n) k.add(data, offset, B.data, B.offset, C.data, 0, m*n);
+			else for(int i = 0; i < m; i++) k.add(data, offset+i*stride, B.data, B.offset+i*B.stride, C.data, i*n, n);
 			return C;
 		}
 		else
@@ -376,6 +693,20 @@ public class Matrix
 		
 	}
 	
+	/**
+	 * plus - sum of the matrix and parameter matrix into an existing matrix, without allocating.
+	 * 		C may be this matrix or B, so A.plus(B, A) updates A in place.
+	 * 
+	 * @param B - Matrix operand. Must be same dimension.
+	 * @param C - Destination. Must be same dimension, and not overlap A or B except by being one of them.
+	 * @return C = A + B
+	 * @throws IllegalArgumentException - If a dimension differs or C partially overlaps an operand
+	 */
+	public Matrix plus(Matrix B, Matrix C) throws IllegalArgumentException
+	{
+		return elementwise(MatrixExpression.ADD, B, C);
+	}
+	
 	/**
 	 * minus - Return the difference of the matrix and parameter matrix.
 	 * @param B - Matrix to be subtracted from the current matrix. Must be same dimension.
@@ -383,16 +714,13 @@ public class Matrix
 	 */
 	public Matrix minus(Matrix B)
 	{
+		if(transposed || B.transposed) return plain().minus(B.plain());
 		if(B.m == this.m && B.n == this.n)
 		{
-			Matrix C = new Matrix(new double[m][n]);
-			for(int i = 0; i < m; i++)
-			{
-				for(int j = 0; j < n; j++)
-				{
-					C.set(i, j, matrix[i][j] - B.get(i, j));
-				}
-			}
+			Matrix C = new Matrix(m, n);
+			ElementKernels k = kernels;
+			if(stride == n && B.stride == n) k.sub(data, offset, B.data, B.offset, C.data, 0, m*n);
+			else for(int i = 0; i < m; i++) k.sub(data, offset+i*stride, B.data, B.offset+i*B.stride, C.data, i*n, n);
 			return C;
 		}
 		else
@@ -403,6 +731,20 @@ public class Matrix
 		
 	}
 	
+	/**
+	 * minus - difference of the matrix and parameter matrix into an existing matrix, without allocating.
+	 * 		C may be this matrix or B, so A.minus(B, A) updates A in place.
+	 * 
+	 * @param B - Matrix operand. Must be same dimension.
+	 * @param C - Destination. Must be same dimension, and not overlap A or B except by being one of them.
+	 * @return C = A - B
+	 * @throws IllegalArgumentException - If a dimension differs or C partially overlaps an operand
+	 */
+	public Matrix minus(Matrix B, Matrix C) throws IllegalArgumentException
+	{
+		return elementwise(MatrixExpression.SUB, B, C);
+	}
+	
 	/**
 	 * minusEquals - Return the difference of the matrix and parameter matrix.
 	 * 				-Changes class matrix to returned value. 
@@ -411,15 +753,14 @@ public class Matrix
 	 */
 	public Matrix minusEquals(Matrix B)
 	{
+		if(transposed) return untransposed().minusEquals(B.transposeView()) != null ? this : null;
+		//A view overlapping this one at other positions would be read after it is overwritten
+		B = alias(B, this) == MatrixExpression.SHIFTED ? B.copy() : B.plain();
 		if(B.m == this.m && B.n == this.n)
 		{
-			for(int i = 0; i < m; i++)
-			{
-				for(int j = 0; j < n; j++)
-				{
-					matrix[i][j] -= B.get(i, j);
-				}
-			}
+			ElementKernels k = kernels;
+			if(stride == n && B.stride == n) k.sub(data, offset, B.data, B.offset, data, offset, m*n);
+			else for(int i = 0; i < m; i++) k.sub(data, offset+i*stride, B.data, B.offset+i*B.stride, data, offset+i*stride, n);
 			return this;
 		}
 		else
@@ -438,16 +779,13 @@ public class Matrix
 	 */
 	public Matrix plusEquals(Matrix B)
 	{
-		
+		if(transposed) return untransposed().plusEquals(B.transposeView()) != null ? this : null;
+		B = alias(B, this) == MatrixExpression.SHIFTED ? B.copy() : B.plain();
 		if(B.m == this.m && B.n == this.n)
 		{
-			for(int i = 0; i < m; i++)
-			{
-				for(int j = 0; j < n; j++)
-				{
-					matrix[i][j] += B.get(i, j);
-				}
-			}
+			ElementKernels k = kernels;
+			if(stride == n && B.stride == n) k.add(data, offset, B.data, B.offset, data, offset, m*n);
+			else for(int i = 0; i < m; i++) k.add(data, offset+i*stride, B.data, B.offset+i*B.stride, data, offset+i*stride, n);
 			return this;
 		}
 		else
@@ -458,19 +796,33 @@ public class Matrix
 		
 	}
 	
+	/**
+	 * lazy - Starts a lazy element-wise expression over this matrix. Chained operations on the
+	 * 		result only build an expression tree; evaluate() or evaluateInto(Matrix) then computes
+	 * 		it in one pass over the data, without intermediate matrices.
+	 * 		For example A.lazy().plus(B).minus(C).times(s).evaluate().
+	 * 
+	 * @return MatrixExpression
+	 */
+	public MatrixExpression lazy()
+	{
+		return new MatrixExpression.Leaf(this);
+	}
+	
 	/**
 	 * identity-returns an mxn matrix with ones on the diagonal and zeroes elsewhere.
+	 * 		DiagonalMatrix.identity stores only a scalar and multiplies in O(mn).
 	 * @param m -number of rows
 	 * @param n -number of columns
 	 */
 	public static Matrix identity(int m, int n)
 	{
-		double[][] data = new double[m][n];
+		Matrix I = new Matrix(m, n);
 		for(int i = 0; i < m && i < n; i++)
 		{
-			data[i][i] = 1;
+			I.data[i*n+i] = 1;
 		}
-		return new Matrix(data);
+		return I;
 		
 	}
 	
@@ -481,13 +833,49 @@ public class Matrix
 	 */
 	public Matrix timesEquals(double s)
 	{
-		for(int i = 0; i < m; i++)
-		{
-			for(int j = 0; j < n; j++)
-			{
-				matrix[i][j] *= s;
-			}
+		if(transposed) {
+			untransposed().timesEquals(s);
+			return this;
+		}
+		ElementKernels k = kernels;
+		if(stride == n) k.scale(data, offset, s, data, offset, m*n);
+		else for(int i = 0; i < m; i++) k.scale(data, offset+i*stride, s, data, offset+i*stride, n);
+		return this;
+	}
+	
+	/**
+	 * scaleRows - Multiplies row i by s[i] in place, A = diag(s)*A.
+	 * @param s - one factor per row
+	 * @return This matrix, scaled.
+	 * @throws IllegalArgumentException - If s does not have one element per row
+	 */
+	public Matrix scaleRows(double[] s) throws IllegalArgumentException
+	{
+		if(s.length != m) throw new IllegalArgumentException();
+		if(transposed) {
+			untransposed().scaleColumns(s);
+			return this;
+		}
+		ElementKernels k = kernels;
+		for(int i = 0; i < m; i++) k.scale(data, offset+i*stride, s[i], data, offset+i*stride, n);
+		return this;
+	}
+	
+	/**
+	 * scaleColumns - Multiplies column j by s[j] in place, A = A*diag(s).
+	 * @param s - one factor per column
+	 * @return This matrix, scaled.
+	 * @throws IllegalArgumentException - If s does not have one element per column
+	 */
+	public Matrix scaleColumns(double[] s) throws IllegalArgumentException
+	{
+		if(s.length != n) throw new IllegalArgumentException();
+		if(transposed) {
+			untransposed().scaleRows(s);
+			return this;
 		}
+		ElementKernels k = kernels;
+		for(int i = 0; i < m; i++) k.mul(data, offset+i*stride, s, 0, data, offset+i*stride, n);
 		return this;
 	}
 	
@@ -499,15 +887,28 @@ public class Matrix
 	 */
 	public Matrix arrayTimes(Matrix B) {
 		if(m != B.getRowDimension() || n != B.getColumnDimension()) return null;
+		if(transposed || B.transposed) return plain().arrayTimes(B.plain());
 		Matrix C = new Matrix(m, n);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C.set(i, j, matrix[i][j] * B.get(i, j));
-			}
-		}
+		ElementKernels k = kernels;
+		if(stride == n && B.stride == n) k.mul(data, offset, B.data, B.offset, C.data, 0, m*n);
+		else for (int i = 0; i < m; i++) k.mul(data, offset+i*stride, B.data, B.offset+i*B.stride, C.data, i*n, n);
 		return C;
 	}
 	
+	/**
+	 * arrayTimes - element by element product into an existing matrix, without allocating.
+	 * 		C may be this matrix or B, so A.arrayTimes(B, A) updates A in place.
+	 * 
+	 * @param B - Matrix operand. Must be same dimension.
+	 * @param C - Destination. Must be same dimension, and not overlap A or B except by being one of them.
+	 * @return C = A.*B
+	 * @throws IllegalArgumentException - If a dimension differs or C partially overlaps an operand
+	 */
+	public Matrix arrayTimes(Matrix B, Matrix C) throws IllegalArgumentException
+	{
+		return elementwise(MatrixExpression.MUL, B, C);
+	}
+	
 	/**
 	 * arrayTimes - multiplies the class matrix, and another matrix, returns the product matrix
 	 * 
@@ -516,11 +917,14 @@ public class Matrix
 	 */
 	public Matrix arrayTimesEquals(Matrix B) {
 		if(m != B.getRowDimension() || n != B.getColumnDimension()) return null;
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				matrix[i][j] *= B.get(i, j);
-			}
+		if(transposed) {
+			untransposed().arrayTimesEquals(B.transposeView());
+			return this;
 		}
+		B = alias(B, this) == MatrixExpression.SHIFTED ? B.copy() : B.plain();
+		ElementKernels k = kernels;
+		if(stride == n && B.stride == n) k.mul(data, offset, B.data, B.offset, data, offset, m*n);
+		else for (int i = 0; i < m; i++) k.mul(data, offset+i*stride, B.data, B.offset+i*B.stride, data, offset+i*stride, n);
 		return this;
 	}
 	
@@ -531,17 +935,31 @@ public class Matrix
 	 * @return Matrix (product)
 	 */
 	public Matrix times(double s) {
+		if(transposed) return plain().times(s);
 		Matrix prod = new Matrix(m, n);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				prod.set(i, j, matrix[i][j]*s);
-			}
-		}
+		ElementKernels k = kernels;
+		if(stride == n) k.scale(data, offset, s, prod.data, 0, m*n);
+		else for (int i = 0; i < m; i++) k.scale(data, offset+i*stride, s, prod.data, i*n, n);
 		return prod;
 	}
 	
 	/**
-	 * times - linear algebraic
+	 * times - Scalar, into an existing matrix without allocating. C may be this matrix.
+	 * 
+	 * @param double s - the scalar to multiply the matrix by
+	 * @param C - Destination. Must be same dimension, and not overlap A except by being A.
+	 * @return C = s*A
+	 * @throws IllegalArgumentException - If C has other dimensions or partially overlaps A
+	 */
+	public Matrix times(double s, Matrix C) throws IllegalArgumentException {
+		return scale(s, C);
+	}
+	
+	/**
+	 * times - linear algebraic, using the cache-blocked kernel in Gemm.
+	 * 		Products of at least getParallelThreshold() multiply-adds run on a shared pool
+	 * 		of getParallelism() threads. Square 2x2, 3x3 and 4x4 products use the unrolled
+	 * 		kernels of Matrix2, Matrix3 and Matrix4.
 	 * 
 	 * @param Matrix B
 	 * @return Matrix product
@@ -549,32 +967,207 @@ public class Matrix
 	public Matrix times(Matrix B) throws IllegalArgumentException {
 		if(B.getRowDimension() != n) throw new IllegalArgumentException();
 
-		Matrix prod = new Matrix(m, B.getColumnDimension());
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < B.getColumnDimension(); j++) {
-				for (int k = 0; k < n; k++) {
-					prod.set(i, j, matrix[i][k] * B.get(k, j) + prod.get(i, j));
-				}
-			}
+		Matrix prod = new Matrix(m, B.n);
+		if(timesSmall(this, B, prod.data, 0, prod.stride)) return prod;
+		ForkJoinPool shared = sharedPool((long)m * B.n * n);
+		if(shared != null) Gemm.multiplyParallel(shared, data, offset, stride, transposed, B.data, B.offset, B.stride,
+				B.transposed, prod.data, 0, prod.stride, m, B.n, n);
+		else Gemm.multiply(data, offset, stride, transposed, B.data, B.offset, B.stride, B.transposed,
+				prod.data, 0, prod.stride, m, B.n, n);
+		return prod;
+	}
+	
+	/**
+	 * timesSmall - C = A*B through the unrolled Matrix2, Matrix3 or Matrix4 kernel when
+	 * 		A and B are both untransposed and square of that size.
+	 * 
+	 * @return false if the operands are not that small, leaving C untouched
+	 */
+	private static boolean timesSmall(Matrix A, Matrix B, double[] c, int cOff, int ldc) {
+		if(A.transposed || B.transposed || A.m != A.n || B.m != B.n) return false;
+		switch(A.m) {
+			case 2: Matrix2.multiply(A.data, A.offset, A.stride, B.data, B.offset, B.stride, c, cOff, ldc); return true;
+			case 3: Matrix3.multiply(A.data, A.offset, A.stride, B.data, B.offset, B.stride, c, cOff, ldc); return true;
+			case 4: Matrix4.multiply(A.data, A.offset, A.stride, B.data, B.offset, B.stride, c, cOff, ldc); return true;
+			default: return false;
+		}
+	}
+	
+	/**
+	 * times - linear algebraic, splitting the product into row and column blocks
+	 * 		that are computed on the given pool.
+	 * 
+	 * @param Matrix B
+	 * @param pool - The ForkJoinPool to run on
+	 * @return Matrix product
+	 */
+	public Matrix times(Matrix B, ForkJoinPool pool) throws IllegalArgumentException {
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+
+		Matrix prod = new Matrix(m, B.n);
+		Gemm.multiplyParallel(pool, data, offset, stride, transposed, B.data, B.offset, B.stride, B.transposed,
+				prod.data, 0, prod.stride, m, B.n, n);
+		return prod;
+	}
+	
+	/**
+	 * times - linear algebraic into an existing matrix, without allocating the result.
+	 * 		Uses the shared pool like times(B).
+	 * 
+	 * @param Matrix B
+	 * @param C - Destination, m x B.n. Its contents are overwritten; it must not overlap A or B.
+	 * @return C = A*B
+	 * @throws IllegalArgumentException - If the dimensions do not agree or C overlaps an operand
+	 */
+	public Matrix times(Matrix B, Matrix C) throws IllegalArgumentException {
+		if(B.getRowDimension() != n || C.m != m || C.n != B.n) throw new IllegalArgumentException();
+		if(alias(this, C) != MatrixExpression.NONE || alias(B, C) != MatrixExpression.NONE) {
+			throw new IllegalArgumentException("Destination overlaps an operand.");
+		}
+		if(!C.transposed && timesSmall(this, B, C.data, C.offset, C.stride)) return C;
+		int rows = C.transposed ? C.n : C.m, cols = C.transposed ? C.m : C.n;
+		for(int i = 0; i < rows; i++) {
+			Arrays.fill(C.data, C.offset+i*C.stride, C.offset+i*C.stride+cols, 0);
+		}
+		ForkJoinPool shared = sharedPool((long)m * B.n * n);
+		if(C.transposed) {
+			//Stored C is C' = B'*A'
+			if(shared != null) Gemm.multiplyParallel(shared, B.data, B.offset, B.stride, !B.transposed, data, offset, stride,
+					!transposed, C.data, C.offset, C.stride, B.n, m, n);
+			else Gemm.multiply(B.data, B.offset, B.stride, !B.transposed, data, offset, stride, !transposed,
+					C.data, C.offset, C.stride, B.n, m, n);
+		}
+		else {
+			if(shared != null) Gemm.multiplyParallel(shared, data, offset, stride, transposed, B.data, B.offset, B.stride,
+					B.transposed, C.data, C.offset, C.stride, m, B.n, n);
+			else Gemm.multiply(data, offset, stride, transposed, B.data, B.offset, B.stride, B.transposed,
+					C.data, C.offset, C.stride, m, B.n, n);
 		}
+		return C;
+	}
+	
+	/**
+	 * times - linear algebraic, dense times sparse. Zero elements of this matrix and of S
+	 * 		are skipped entirely.
+	 * 
+	 * @param SparseMatrix S
+	 * @return Matrix product
+	 */
+	public Matrix times(SparseMatrix S) throws IllegalArgumentException {
+		return S.leftTimes(this);
+	}
+	
+	/**
+	 * times - linear algebraic, dense times diagonal, which scales the columns of a copy
+	 * 
+	 * @param DiagonalMatrix D
+	 * @return Matrix product
+	 */
+	public Matrix times(DiagonalMatrix D) throws IllegalArgumentException {
+		return D.leftTimes(this);
+	}
+	
+	/**
+	 * timesStrassen - linear algebraic, using Strassen-Winograd recursion down to
+	 * 		getStrassenCrossover() and the blocked classic kernel below it. Any
+	 * 		dimensions are accepted; odd ones are peeled off at each level. The result
+	 * 		differs from times(B) by at most strassenErrorBound(B).
+	 * 
+	 * @param Matrix B
+	 * @return Matrix product
+	 */
+	public Matrix timesStrassen(Matrix B) throws IllegalArgumentException {
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+
+		Matrix A = plain();
+		B = B.plain();
+		Matrix prod = new Matrix(m, B.n);
+		Strassen.multiply(A.data, A.offset, A.stride, B.data, B.offset, B.stride, prod.data, 0, prod.stride,
+				m, B.n, n, getStrassenCrossover());
 		return prod;
 	}
 	
 	/**
-	 * normF-returns Frobenius norm of a matrix.
+	 * strassenErrorBound - returns the first order rounding error bound of timesStrassen(B),
+	 * 		as a bound on the largest absolute difference from the exact product. The bound
+	 * 		of the classic product, k^2 u max|A| max|B| with k the inner dimension, is the
+	 * 		same value for products below the crossover.
+	 * 
+	 * @param Matrix B
+	 * @return max|timesStrassen(B) - A*B| bound
+	 */
+	public double strassenErrorBound(Matrix B) throws IllegalArgumentException {
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		return Strassen.errorBound(m, B.n, n, getStrassenCrossover(), maxAbs(), B.maxAbs());
+	}
+	
+	/**
+	 * maxAbs - largest absolute value of any element
+	 */
+	private double maxAbs() {
+		double max = 0;
+		int rows = transposed ? n : m, cols = transposed ? m : n;
+		for (int i = 0; i < rows; i++) {
+			int a = offset+i*stride;
+			for (int j = 0; j < cols; j++) {
+				max = Math.max(max, Math.abs(data[a+j]));
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * lu - returns the LU decomposition with partial pivoting of the matrix
+	 * 
+	 * @return LUDecomposition
+	 */
+	public LUDecomposition lu() {
+		return new LUDecomposition(this);
+	}
+	
+	/**
+	 * solve - solves A*X = B for square A
+	 * 
+	 * @param B - right hand sides, with as many rows as A
+	 * @return Matrix X
+	 * @throws IllegalArgumentException - If A is not square or is singular, or B has the wrong number of rows
+	 */
+	public Matrix solve(Matrix B) throws IllegalArgumentException {
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		return new LUDecomposition(this).solve(B);
+	}
+	
+	/**
+	 * inverse - returns the inverse of a square matrix
+	 * 
+	 * @return Matrix A^-1
+	 * @throws IllegalArgumentException - If A is not square or is singular
+	 */
+	public Matrix inverse() throws IllegalArgumentException {
+		return solve(identity(m, m));
+	}
+	
+	/**
+	 * det - returns the determinant of a square matrix
+	 * 
+	 * @return double
+	 * @throws IllegalArgumentException - If A is not square
+	 */
+	public double det() throws IllegalArgumentException {
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		return new LUDecomposition(this).det();
+	}
+	
+	/**
+	 * normF-returns Frobenius norm of a matrix. The squares are summed relative to
+	 * 		a running scale, so the result does not overflow or underflow unless the
+	 * 		norm itself does.
 	 * @return sqrt of sum of squares of all elements.
 	 */
 	public double normF()
 	{
-		double sum = 0;
-		for(int i = 0; i < m; i++)
-		{
-			for(int j = 0; j < n; j++)
-			{
-				sum += matrix[i][j]*matrix[i][j];
-			}
-		}
-		return Math.sqrt(sum);
+		int rows = transposed ? n : m, cols = transposed ? m : n;
+		return Reductions.normF(data, offset, stride, rows, cols);
 	}
 	
 	/**
@@ -583,44 +1176,76 @@ public class Matrix
 	 */
 	public double normInF()
 	{
-		double sum = 0;
-		double temp;
-		for(int i = 0; i < m; i++)
-		{
-			temp = 0;
-			for(int j = 0; j < n; j++)
-			{
-				temp += Math.abs(matrix[i][j]);
-			}
-			if(temp > sum)
-			{
-				sum = temp;
-			}
-		}
-		return sum;
+		if(transposed) return Reductions.maxColumnAbsSum(data, offset, stride, n, m);
+		return Reductions.maxRowAbsSum(data, offset, stride, m, n);
 	}
 	
 	/**
-	 * norm1-returns one norm of a matrix.
+	 * norm1-returns one norm of a matrix. The column sums are accumulated a row at
+	 * 		a time, in storage order.
 	 * @return largest sum of absolute values from each column.
 	 */
 	public double norm1()
 	{
-		double sum = 0;
-		double temp;
-		for(int i = 0; i < n; i++)
-		{
-			temp = 0;
-			for(int j = 0; j < m; j++)
-			{
-				temp += Math.abs(matrix[j][i]);
-			}
-			if(temp > sum)
-			{
-				sum = temp;
-			}
-		}
-		return sum;
+		if(transposed) return Reductions.maxRowAbsSum(data, offset, stride, n, m);
+		return Reductions.maxColumnAbsSum(data, offset, stride, m, n);
+	}
+	
+	/**
+	 * sum - returns the sum of all elements, with the rounding error of each addition
+	 * 		carried along and added back, so it is accurate to about one ulp of the
+	 * 		result unless the elements cancel almost completely.
+	 * 
+	 * @return double
+	 */
+	public double sum()
+	{
+		int rows = transposed ? n : m, cols = transposed ? m : n;
+		return Reductions.sum(data, offset, stride, rows, cols);
+	}
+	
+	/**
+	 * min - returns the smallest element.
+	 * 
+	 * @return double - NaN if any element is NaN, Double.POSITIVE_INFINITY if the matrix is empty
+	 */
+	public double min()
+	{
+		int rows = transposed ? n : m, cols = transposed ? m : n;
+		return Reductions.min(data, offset, stride, rows, cols);
+	}
+	
+	/**
+	 * max - returns the largest element.
+	 * 
+	 * @return double - NaN if any element is NaN, Double.NEGATIVE_INFINITY if the matrix is empty
+	 */
+	public double max()
+	{
+		int rows = transposed ? n : m, cols = transposed ? m : n;
+		return Reductions.max(data, offset, stride, rows, cols);
+	}
+	
+	/**
+	 * rowSums - returns the compensated sum of each row.
+	 * 
+	 * @return double[] of length m
+	 */
+	public double[] rowSums()
+	{
+		if(transposed) return Reductions.columnSums(data, offset, stride, n, m);
+		return Reductions.rowSums(data, offset, stride, m, n);
+	}
+	
+	/**
+	 * columnSums - returns the compensated sum of each column, accumulated a row at a time.
+	 * 
+	 * @return double[] of length n
+	 */
+	public double[] columnSums()
+	{
+		if(transposed) return Reductions.rowSums(data, offset, stride, n, m);
+		return Reductions.columnSums(data, offset, stride, m, n);
 	}
 	
 	/**
@@ -629,12 +1254,9 @@ public class Matrix
 	 * @return double[] column packed array
 	 */
 	public double[] getColumnPackedCopy() {
+		if(transposed) return untransposed().getRowPackedCopy();
 		double[] copy = new double[m*n];
-		for (int i = 0; i < getColumnDimension(); i++) {
-			for (int j = 0; j < getRowDimension(); j++) {
-				copy[i * m + j] = matrix[j][i];
-			}
-		}
+		Transpose.transpose(data, offset, stride, copy, 0, m, m, n);
 		return copy;
 	}
 	
@@ -644,11 +1266,10 @@ public class Matrix
 	 * @return double[] row packed array
 	 */
 	public double[] getRowPackedCopy() {
+		if(transposed) return untransposed().getColumnPackedCopy();
 		double[] copy = new double[m*n];
-		for (int i = 0; i < getRowDimension(); i++) {
-			for (int j = 0; j < getColumnDimension(); j++) {
-				copy[i * n + j] = matrix[i][j]; 
-			}
+		for (int i = 0; i < m; i++) {
+			System.arraycopy(data, offset+i*stride, copy, i*n, n);
 		}
 		return copy;
 	}
@@ -659,28 +1280,94 @@ public class Matrix
 	 * @return -A
 	 */
 	public Matrix uminus() {
-		double[][] A = new double[m][n];
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				A[i][j] = -(matrix[i][j]);
-			}
-		}
-		return new Matrix(A);
+		if(transposed) return plain().uminus();
+		Matrix A = new Matrix(m, n);
+		ElementKernels k = kernels;
+		if(stride == n) k.negate(data, offset, A.data, 0, m*n);
+		else for (int i = 0; i < m; i++) k.negate(data, offset+i*stride, A.data, i*n, n);
+		return A;
+	}
+	
+	/**
+	 * uminus - unary minus into an existing matrix, without allocating. C may be this matrix.
+	 * 
+	 * @param C - Destination. Must be same dimension, and not overlap A except by being A.
+	 * @return C = -A
+	 * @throws IllegalArgumentException - If C has other dimensions or partially overlaps A
+	 */
+	public Matrix uminus(Matrix C) throws IllegalArgumentException {
+		return scale(-1, C);
 	}
 	
 	/**
-	 * transpose - performs matrix transpose
+	 * transpose - performs matrix transpose, with a cache-oblivious recursive kernel
 	 * 
 	 * @return A'
 	 */
 	public Matrix transpose() {
-		double[][] A = new double[n][m];
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				A[j][i] = matrix[i][j];
+		if(transposed) return untransposed().copy();
+		Matrix A = new Matrix(n, m);
+		Transpose.transpose(data, offset, stride, A.data, 0, m, m, n);
+		return A;
+	}
+	
+	/**
+	 * transpose - matrix transpose into an existing matrix, without allocating. C may be
+	 * 		this matrix if it is square, or a transposed view of it.
+	 * 
+	 * @param C - Destination, n x m. Must not overlap A otherwise.
+	 * @return C = A'
+	 * @throws IllegalArgumentException - If C has other dimensions or overlaps A
+	 */
+	public Matrix transpose(Matrix C) throws IllegalArgumentException {
+		if(C.m != n || C.n != m) throw new IllegalArgumentException();
+		if(transposed || C.transposed) {
+			//With one of them transposed the stored blocks hold the same matrix, with both C's holds X'
+			Matrix X = transposed ? untransposed() : this;
+			Matrix Y = C.transposed ? C.untransposed() : C;
+			if(transposed && C.transposed) {
+				X.transpose(Y);
+				return C;
 			}
+			if(alias(X, Y) == MatrixExpression.SHIFTED) throw new IllegalArgumentException("Destination overlaps an operand.");
+			copyInto(X, Y);
+			return C;
+		}
+		int alias = alias(this, C);
+		if(alias == MatrixExpression.ALIGNED && m == n) {
+			Transpose.inPlace(data, offset, stride, n);
 		}
-		return new Matrix(A);
+		else if(alias != MatrixExpression.NONE) {
+			throw new IllegalArgumentException("Destination overlaps an operand.");
+		}
+		else {
+			Transpose.transpose(data, offset, stride, C.data, C.offset, C.stride, m, n);
+		}
+		return C;
+	}
+	
+	/**
+	 * transposeView - returns A' without copying. The result shares storage with this
+	 * 		matrix, like view, and reads and writes the elements in transposed order.
+	 * 		Multiplication, norms, copies and in place operations use it directly;
+	 * 		other operations make a transposed copy first.
+	 * 
+	 * @return A' view
+	 */
+	public Matrix transposeView() {
+		return new Matrix(data, offset, stride, n, m, !transposed);
+	}
+	
+	/**
+	 * transposeInPlace - transposes a square matrix in place, without allocating
+	 * 
+	 * @return A, now holding A'
+	 * @throws IllegalArgumentException - If the matrix is not square
+	 */
+	public Matrix transposeInPlace() throws IllegalArgumentException {
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		Transpose.inPlace(data, offset, stride, n);
+		return this;
 	}
 	
 	/**
@@ -690,15 +1377,28 @@ public class Matrix
 	 */
 	public Matrix arrayLeftDivide(Matrix B) {
 		if(m != B.getRowDimension() || n != B.getColumnDimension()) return null;
+		if(transposed || B.transposed) return plain().arrayLeftDivide(B.plain());
 		Matrix C = new Matrix(m, n);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C.set(i, j, B.get(i, j) / matrix[i][j]);
-			}
-		}
+		ElementKernels k = kernels;
+		if(stride == n && B.stride == n) k.div(B.data, B.offset, data, offset, C.data, 0, m*n);
+		else for (int i = 0; i < m; i++) k.div(B.data, B.offset+i*B.stride, data, offset+i*stride, C.data, i*n, n);
 		return C;
 	}
 	
+	/**
+	 * arrayLeftDivide - element by element left division into an existing matrix, without allocating.
+	 * 		C may be this matrix or B, so A.arrayLeftDivide(B, A) updates A in place.
+	 * 
+	 * @param B - Matrix operand. Must be same dimension.
+	 * @param C - Destination. Must be same dimension, and not overlap A or B except by being one of them.
+	 * @return C = A.\B
+	 * @throws IllegalArgumentException - If a dimension differs or C partially overlaps an operand
+	 */
+	public Matrix arrayLeftDivide(Matrix B, Matrix C) throws IllegalArgumentException
+	{
+		return elementwise(MatrixExpression.LDIV, B, C);
+	}
+	
 	/**
 	 * arrayLeftDivideEquals - element by element left division in place (A = A.\B)
 	 * 
@@ -706,11 +1406,14 @@ public class Matrix
 	 */
 	public Matrix arrayLeftDivideEquals(Matrix B) {
 		if(m != B.getRowDimension() || n != B.getColumnDimension()) return null;
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				matrix[i][j] = B.get(i, j) / matrix[i][j];
-			}
+		if(transposed) {
+			untransposed().arrayLeftDivideEquals(B.transposeView());
+			return this;
 		}
+		B = alias(B, this) == MatrixExpression.SHIFTED ? B.copy() : B.plain();
+		ElementKernels k = kernels;
+		if(stride == n && B.stride == n) k.div(B.data, B.offset, data, offset, data, offset, m*n);
+		else for (int i = 0; i < m; i++) k.div(B.data, B.offset+i*B.stride, data, offset+i*stride, data, offset+i*stride, n);
 		return this;
 	}
 	
@@ -721,15 +1424,28 @@ public class Matrix
 	 */
 	public Matrix arrayRightDivide(Matrix B) {
 		if(m != B.getRowDimension() || n != B.getColumnDimension()) return null;
+		if(transposed || B.transposed) return plain().arrayRightDivide(B.plain());
 		Matrix C = new Matrix(m, n);
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				C.set(i, j, matrix[i][j] / B.get(i, j));
-			}
-		}
+		ElementKernels k = kernels;
+		if(stride == n && B.stride == n) k.div(data, offset, B.data, B.offset, C.data, 0, m*n);
+		else for (int i = 0; i < m; i++) k.div(data, offset+i*stride, B.data, B.offset+i*B.stride, C.data, i*n, n);
 		return C;
 	}
 	
+	/**
+	 * arrayRightDivide - element by element right division into an existing matrix, without allocating.
+	 * 		C may be this matrix or B, so A.arrayRightDivide(B, A) updates A in place.
+	 * 
+	 * @param B - Matrix operand. Must be same dimension.
+	 * @param C - Destination. Must be same dimension, and not overlap A or B except by being one of them.
+	 * @return C = A./B
+	 * @throws IllegalArgumentException - If a dimension differs or C partially overlaps an operand
+	 */
+	public Matrix arrayRightDivide(Matrix B, Matrix C) throws IllegalArgumentException
+	{
+		return elementwise(MatrixExpression.RDIV, B, C);
+	}
+	
 	/**
 	 * arrayRightDivideEquals - element by element right division in place (A = A./B)
 	 * 
@@ -737,11 +1453,14 @@ public class Matrix
 	 */
 	public Matrix arrayRightDivideEquals(Matrix B) {
 		if(m != B.getRowDimension() || n != B.getColumnDimension()) return null;
-		for (int i = 0; i < m; i++) {
-			for (int j = 0; j < n; j++) {
-				matrix[i][j] /= B.get(i, j);
-			}
+		if(transposed) {
+			untransposed().arrayRightDivideEquals(B.transposeView());
+			return this;
 		}
+		B = alias(B, this) == MatrixExpression.SHIFTED ? B.copy() : B.plain();
+		ElementKernels k = kernels;
+		if(stride == n && B.stride == n) k.div(data, offset, B.data, B.offset, data, offset, m*n);
+		else for (int i = 0; i < m; i++) k.div(data, offset+i*stride, B.data, B.offset+i*B.stride, data, offset+i*stride, n);
 		return this;
 	}
 	
@@ -756,13 +1475,13 @@ public class Matrix
 		for(int i = 0; i < c.length; i++)
 			if(c[i] < 0 || c[i] >= n) throw new ArrayIndexOutOfBoundsException();
 
-		double[][] sub = new double[r.length][c.length];
+		Matrix X = new Matrix(r.length, c.length);
 		for (int i = 0; i < r.length; i++) {
 			for (int j = 0; j < c.length; j++) {
-				sub[i][j] = matrix[r[i]][c[j]];
+				X.data[i*X.n+j] = data[index(r[i], c[j])];
 			}
 		}
-		return new Matrix(sub);
+		return X;
 	}
 	
 	/**
@@ -773,15 +1492,16 @@ public class Matrix
 	public Matrix getMatrix(int[] r, int j0, int j1) {
 		for(int i = 0; i < r.length; i++)
 			if(r[i] < 0 || r[i] >= m) throw new ArrayIndexOutOfBoundsException();
-		if(j0 < 0 || j1 >= n) throw new ArrayIndexOutOfBoundsException();
+		if(j0 < 0 || j1 >= n || j1 < j0-1) throw new ArrayIndexOutOfBoundsException();
 
-		double[][] sub = new double[r.length][j1-j0+1];
+		Matrix X = new Matrix(r.length, j1-j0+1);
 		for (int i = 0; i < r.length; i++) {
-			for (int j = j0; j <= j1; j++) {
-				sub[i][j] = matrix[r[i]][j];
+			if(transposed) {
+				for (int j = j0; j <= j1; j++) X.data[i*X.n+j-j0] = data[index(r[i], j)];
 			}
+			else System.arraycopy(data, offset+r[i]*stride+j0, X.data, i*X.n, X.n);
 		}
-		return new Matrix(sub);
+		return X;
 	}
 	
 	/**
@@ -792,37 +1512,49 @@ public class Matrix
 	public Matrix getMatrix(int i0, int i1, int[] c) {
 		for(int i = 0; i < c.length; i++)
 			if(c[i] < 0 || c[i] >= n) throw new ArrayIndexOutOfBoundsException();
-		if(i0 < 0 || i1 >= m) throw new ArrayIndexOutOfBoundsException();
+		if(i0 < 0 || i1 >= m || i1 < i0-1) throw new ArrayIndexOutOfBoundsException();
 
-		double[][] sub = new double[i1-i0+1][c.length];
+		Matrix X = new Matrix(i1-i0+1, c.length);
 		for (int i = i0; i <= i1; i++) {
 			for (int j = 0; j < c.length; j++) {
-				sub[i][j] = matrix[i][c[j]];
+				X.data[(i-i0)*X.n+j] = data[index(i, c[j])];
 			}
 		}
-		return new Matrix(sub);
+		return X;
 	}
 	
 	/**
-	 * getMatrix - returns a submatrix
+	 * getMatrix - returns a copy of a submatrix, see view for one that shares storage
 	 * 
 	 * @return Matrix (submatrix)
 	 */
 	public Matrix getMatrix(int i0, int i1, int j0, int j1) {
-		if(i0 < 0 || i1 >= m) throw new ArrayIndexOutOfBoundsException();
-		if(j0 < 0 || j1 >= n) throw new ArrayIndexOutOfBoundsException();
-
-		double[][] sub = new double[i1-i0+1][j1-j0+1];
-		for (int i = i0; i <= i1; i++) {
-			for (int j = j0; j <= j1; j++) {
-				sub[i][j] = matrix[i][j];
-			}
-		}
-		return new Matrix(sub);
+		return view(i0, i1, j0, j1).copy();
+	}
+	
+	/**
+	 * view - returns a live window onto rows i0..i1 and columns j0..j1. The view shares
+	 * 		storage with this matrix, so a write through either one is seen by both, and
+	 * 		it can be passed to any operation, in place ones included, without copying.
+	 * 
+	 * @param i0 - first row
+	 * @param i1 - last row
+	 * @param j0 - first column
+	 * @param j1 - last column
+	 * @return Matrix of size (i1-i0+1) x (j1-j0+1)
+	 * @throws ArrayIndexOutOfBoundsException - If the range does not lie within the matrix
+	 */
+	public Matrix view(int i0, int i1, int j0, int j1) throws ArrayIndexOutOfBoundsException {
+		if(i0 < 0 || i1 >= m || i1 < i0-1) throw new ArrayIndexOutOfBoundsException();
+		if(j0 < 0 || j1 >= n || j1 < j0-1) throw new ArrayIndexOutOfBoundsException();
+		if(transposed) return new Matrix(data, offset+j0*stride+i0, stride, i1-i0+1, j1-j0+1, true);
+		return new Matrix(data, offset+i0*stride+j0, stride, i1-i0+1, j1-j0+1, false);
 	}
 	
 	/**
-	 * setMatrix - sets a submatrix
+	 * setMatrix - sets a submatrix. X covers this matrix and supplies the elements at the
+	 * 		same positions, so X(r[i], c[j]) is copied to (r[i], c[j]). See setBlock for a
+	 * 		source indexed relative to the block.
 	 */
 	public void setMatrix(int[] r, int[] c, Matrix X) {
 		for(int i = 0; i < r.length; i++)
@@ -832,13 +1564,14 @@ public class Matrix
 
 		for (int i = 0; i < r.length; i++) {
 			for (int j = 0; j < c.length; j++) {
-				matrix[r[i]][c[j]] = X.get(r[i], c[j]);
+				data[index(r[i], c[j])] = X.get(r[i], c[j]);
 			}
 		}
 	}
 	
 	/**
-	 * setMatrix - sets a submatrix
+	 * setMatrix - sets a submatrix. X is indexed by the same positions, as for
+	 * 		setMatrix(int[], int[], Matrix).
 	 */
 	public void setMatrix(int[] r, int j0, int j1, Matrix X) {
 		for(int i = 0; i < r.length; i++)
@@ -847,13 +1580,14 @@ public class Matrix
 
 		for (int i = 0; i < r.length; i++) {
 			for (int j = j0; j <= j1; j++) {
-				matrix[r[i]][j] = X.get(r[i], j);
+				data[index(r[i], j)] = X.get(r[i], j);
 			}
 		}
 	}
 	
 	/**
-	 * setMatrix - sets a submatrix
+	 * setMatrix - sets a submatrix. X is indexed by the same positions, as for
+	 * 		setMatrix(int[], int[], Matrix).
 	 */
 	public void setMatrix(int i0, int i1, int[] c, Matrix X) {
 		for(int i = 0; i < c.length; i++)
@@ -862,13 +1596,14 @@ public class Matrix
 
 		for (int i = i0; i <= i1; i++) {
 			for (int j = 0; j < c.length; j++) {
-				matrix[i][c[j]] = X.get(i, c[j]);
+				data[index(i, c[j])] = X.get(i, c[j]);
 			}
 		}
 	}
 	
 	/**
-	 * setMatrix - sets a submatrix
+	 * setMatrix - sets a submatrix. X is indexed by the same positions, as for
+	 * 		setMatrix(int[], int[], Matrix).
 	 */
 	public void setMatrix(int i0, int i1, int j0, int j1, Matrix X) {
 		if(i0 < 0 || i1 >= m) throw new ArrayIndexOutOfBoundsException();
@@ -876,52 +1611,122 @@ public class Matrix
 
 		for (int i = i0; i <= i1; i++) {
 			for (int j = j0; j <= j1; j++) {
-				matrix[i][j] = X.get(i, j);
+				data[index(i, j)] = X.get(i, j);
 			}
 		}
 	}
 	
 	/**
-	 * read - Reads in a matrix from file
+	 * setBlock - copies X into the block whose top left element is (i0, j0), so X(i, j)
+	 * 		is copied to (i0+i, j0+j).
 	 * 
-	 * @param input - stream to be read from. Contains matrix rows on each line.
+	 * @throws ArrayIndexOutOfBoundsException - If the block does not lie within the matrix
 	 */
-	public static Matrix read(BufferedReader input) throws IOException {
-		int cols = 0, rows = 1;
-		Matrix m = null;
-		String data = "";
+	public void setBlock(int i0, int j0, Matrix X) throws ArrayIndexOutOfBoundsException {
+		if(i0 < 0 || i0+X.m > m) throw new ArrayIndexOutOfBoundsException();
+		if(j0 < 0 || j0+X.n > n) throw new ArrayIndexOutOfBoundsException();
+		if(alias(X, view(i0, i0+X.m-1, j0, j0+X.n-1)) == MatrixExpression.SHIFTED) X = X.copy();
 
-		//Determine number of columns
-		String line = input.readLine();
-		String[] split = line.split(" ");
-		for(int i = 0; i < split.length; i++) {
-			if(split[i].equals("")) continue;
-			cols++;
-		}
-		data += line + "\n";
-		
-		//Determine number of rows
-		while((line = input.readLine()) != null) {
-			data += line + "\n";
-			if(line.equals("")) break;
-			rows++;
+		for (int i = 0; i < X.m; i++) {
+			for (int j = 0; j < X.n; j++) {
+				data[index(i0+i, j0+j)] = X.get(i, j);
+			}
 		}
-		
-		m = new Matrix(rows, cols);
-		
-		split = data.split("\n");
-		if(split.length > rows) return null;
-		for(int i = 0; i < split.length; i++) {
-			String[] nums = split[i].split(" ");
-			int k = 0;
-			for(int j = 0; j < nums.length; j++) {
-				if(nums[j].equals("")) continue;
-				else if(k > cols) return null;
-				m.set(i, k, Double.parseDouble(nums[j]));
-				k++;
+	}
+	
+	/**
+	 * setBlock - copies X into rows r and columns c, so X(i, j) is copied to (r[i], c[j]).
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException - If an index does not lie within the matrix
+	 * @throws IllegalArgumentException - If X is not r.length x c.length
+	 */
+	public void setBlock(int[] r, int[] c, Matrix X) throws ArrayIndexOutOfBoundsException, IllegalArgumentException {
+		for(int i = 0; i < r.length; i++)
+			if(r[i] < 0 || r[i] >= m) throw new ArrayIndexOutOfBoundsException();
+		for(int i = 0; i < c.length; i++)
+			if(c[i] < 0 || c[i] >= n) throw new ArrayIndexOutOfBoundsException();
+		if(X.m != r.length || X.n != c.length) throw new IllegalArgumentException();
+		//The targets may be any elements, so X is staged whenever it shares this storage
+		if(X.data == data) X = X.copy();
+
+		for (int i = 0; i < r.length; i++) {
+			for (int j = 0; j < c.length; j++) {
+				data[index(r[i], c[j])] = X.get(i, j);
 			}
 		}
-		
-		return m;
+	}
+	
+	/**
+	 * read - Reads in a matrix from file
+	 * 
+	 * @param input - stream to be read from. Contains matrix rows on each line,
+	 * 		values separated by spaces or tabs, ending at an empty line or end of input.
+	 * @return Matrix, or null if the input is empty or a row is longer than the first
+	 */
+	public static Matrix read(BufferedReader input) throws IOException {
+		return TextParser.read(input);
+	}
+	
+	/**
+	 * readText - Reads a file in the format of read(BufferedReader): rows of values
+	 * 		separated by spaces or tabs, ending at an empty line or the end of the file.
+	 * 		The file is memory mapped and parsed in parallel chunks on the shared pool.
+	 * 
+	 * @param path - file to read
+	 * @return Matrix, or null if the file is empty
+	 * @throws IOException - If the file cannot be read, a value is not a number or a
+	 * 		row is longer than the first
+	 */
+	public static Matrix readText(Path path) throws IOException {
+		return ChunkedReader.read(path, ChunkedReader.WHITESPACE, ChunkedReader.CHUNK);
+	}
+	
+	/**
+	 * readCSV - Reads a file of comma separated rows of numbers, without a header,
+	 * 		in parallel like readText. Rows shorter than the first are zero filled.
+	 * 
+	 * @param path - file to read
+	 * @return Matrix, or null if the file is empty
+	 * @throws IOException - If the file cannot be read, a field is not a number or a
+	 * 		row is longer than the first
+	 */
+	public static Matrix readCSV(Path path) throws IOException {
+		return ChunkedReader.read(path, ChunkedReader.CSV, ChunkedReader.CHUNK);
+	}
+	
+	/**
+	 * readMatrixMarket - Reads a Matrix Market file: coordinate or array, real, integer
+	 * 		or pattern values, general, symmetric or skew-symmetric, in parallel like readText.
+	 * 
+	 * @param path - file to read
+	 * @return Matrix
+	 * @throws IOException - If the file cannot be read, is malformed or of an unsupported type
+	 */
+	public static Matrix readMatrixMarket(Path path) throws IOException {
+		return ChunkedReader.read(path, ChunkedReader.MATRIX_MARKET, ChunkedReader.CHUNK);
+	}
+	
+	/**
+	 * write - Writes the matrix to a file in the binary matrix format: a short header
+	 * 		with the dimensions, layout and element type followed by the raw little-endian doubles.
+	 * 
+	 * @param path - file to create or overwrite
+	 * @throws IOException - If the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		Matrix A = plain();
+		MatrixFile.write(path, A.data, A.offset, A.stride, m, n);
+	}
+	
+	/**
+	 * load - Loads a matrix written by write(Path). The file is memory mapped and
+	 * 		copied into the matrix without any parsing, so values round-trip exactly.
+	 * 
+	 * @param path - file to read
+	 * @return Matrix
+	 * @throws IOException - If the file cannot be read or is not a matrix file
+	 */
+	public static Matrix load(Path path) throws IOException {
+		return MatrixFile.load(path);
 	}
 }
@@ -0,0 +1,165 @@
+package Javatrix;
+
+/**
+ * Matrix2 - an immutable 2x2 matrix held in fields, with every operation unrolled.
+ *
+ * For 2x2 work the loops, bounds checks and array indirection of the general
+ * Matrix cost more than the arithmetic itself. Element (i, j) is the field mij.
+ * Matrix.times uses the multiply kernel here directly for 2x2 operands.
+ */
+public final class Matrix2
+{
+	public final double m00, m01;
+	public final double m10, m11;
+
+	/**
+	 * Creates a 2x2 matrix from its elements in row-major order.
+	 */
+	public Matrix2(double m00, double m01,
+			double m10, double m11)
+	{
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m10 = m10;
+		this.m11 = m11;
+	}
+
+	/**
+	 * identity - the identity matrix
+	 */
+	public static Matrix2 identity()
+	{
+		return new Matrix2(1, 0, 0, 1);
+	}
+
+	/**
+	 * from - converts a 2x2 Matrix
+	 *
+	 * @throws IllegalArgumentException - If A is not 2x2
+	 */
+	public static Matrix2 from(Matrix A) throws IllegalArgumentException
+	{
+		if(A.getRowDimension() != 2 || A.getColumnDimension() != 2) throw new IllegalArgumentException();
+		return new Matrix2(A.get(0, 0), A.get(0, 1),
+				A.get(1, 0), A.get(1, 1));
+	}
+
+	/**
+	 * toMatrix - converts to a general Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		return new Matrix(2, 2, new double[] {m00, m01, m10, m11});
+	}
+
+	/**
+	 * get - Gets element (i, j).
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= 2 || j < 0 || j >= 2) throw new ArrayIndexOutOfBoundsException();
+		switch(i * 2 + j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m10;
+			default: return m11;
+		}
+	}
+
+	/**
+	 * plus - A + B
+	 */
+	public Matrix2 plus(Matrix2 B)
+	{
+		return new Matrix2(m00 + B.m00, m01 + B.m01,
+				m10 + B.m10, m11 + B.m11);
+	}
+
+	/**
+	 * minus - A - B
+	 */
+	public Matrix2 minus(Matrix2 B)
+	{
+		return new Matrix2(m00 - B.m00, m01 - B.m01,
+				m10 - B.m10, m11 - B.m11);
+	}
+
+	/**
+	 * times - s*A
+	 */
+	public Matrix2 times(double s)
+	{
+		return new Matrix2(s * m00, s * m01,
+				s * m10, s * m11);
+	}
+
+	/**
+	 * times - A*B
+	 */
+	public Matrix2 times(Matrix2 B)
+	{
+		return new Matrix2(m00 * B.m00 + m01 * B.m10,
+				m00 * B.m01 + m01 * B.m11,
+				m10 * B.m00 + m11 * B.m10,
+				m10 * B.m01 + m11 * B.m11);
+	}
+
+	/**
+	 * transpose - A'
+	 */
+	public Matrix2 transpose()
+	{
+		return new Matrix2(m00, m10,
+				m01, m11);
+	}
+
+	/**
+	 * trace - sum of the diagonal
+	 */
+	public double trace()
+	{
+		return m00 + m11;
+	}
+
+	/**
+	 * det - the determinant
+	 */
+	public double det()
+	{
+		return m00 * m11 - m01 * m10;
+	}
+
+	/**
+	 * inverse - A^-1
+	 *
+	 * @throws IllegalArgumentException - If A is singular
+	 */
+	public Matrix2 inverse() throws IllegalArgumentException
+	{
+		double d = det();
+		if(d == 0) throw new IllegalArgumentException("Matrix is singular.");
+		double s = 1 / d;
+		return new Matrix2(m11 * s, -m01 * s,
+				-m10 * s, m00 * s);
+	}
+
+	/**
+	 * multiply - C = A*B for 2x2 row-major blocks, with the same (array, offset,
+	 * 		row stride) operands as Gemm. C must not overlap A or B.
+	 */
+	static void multiply(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc)
+	{
+		int a0 = aOff, b0 = bOff;
+		int a1 = aOff + 1 * lda, b1 = bOff + 1 * ldb;
+		double x00 = a[a0], x01 = a[a0 + 1];
+		double x10 = a[a1], x11 = a[a1 + 1];
+		double y00 = b[b0], y01 = b[b0 + 1];
+		double y10 = b[b1], y11 = b[b1 + 1];
+		int c0 = cOff;
+		c[c0] = x00 * y00 + x01 * y10;
+		c[c0 + 1] = x00 * y01 + x01 * y11;
+		int c1 = cOff + 1 * ldc;
+		c[c1] = x10 * y00 + x11 * y10;
+		c[c1 + 1] = x10 * y01 + x11 * y11;
+	}
+}
@@ -0,0 +1,51 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class Matrix2Test {
+
+	@Test
+	public void testConversion() {
+		Matrix a = Matrix.random(2, 2);
+		Matrix2 f = Matrix2.from(a);
+		assertArrayEquals(a.getRowPackedCopy(), f.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.get(1, 1), f.get(1, 1), 0);
+		assertEquals(a.get(1, 0), f.m10, 0);
+		assertArrayEquals(Matrix.identity(2, 2).getRowPackedCopy(), Matrix2.identity().toMatrix().getRowPackedCopy(), 0);
+		try {
+			Matrix2.from(new Matrix(2, 3));
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			f.get(2, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix a = Matrix.random(2, 2), b = Matrix.random(2, 2);
+		Matrix2 fa = Matrix2.from(a), fb = Matrix2.from(b);
+		assertArrayEquals(a.times(b).getRowPackedCopy(), fa.times(fb).toMatrix().getRowPackedCopy(), 1e-14);
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), fa.plus(fb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.minus(b).getRowPackedCopy(), fa.minus(fb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.times(3).getRowPackedCopy(), fa.times(3).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.transpose().getRowPackedCopy(), fa.transpose().toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.trace(), fa.trace(), 1e-15);
+	}
+
+	@Test
+	public void testDetInverse() {
+		Matrix a = Matrix.random(2, 2).plus(Matrix.identity(2, 2).times(2));
+		Matrix2 f = Matrix2.from(a);
+		assertEquals(a.det(), f.det(), 1e-12 * Math.abs(a.det()));
+		assertArrayEquals(a.inverse().getRowPackedCopy(), f.inverse().toMatrix().getRowPackedCopy(), 1e-12);
+		assertArrayEquals(Matrix.identity(2, 2).getRowPackedCopy(), f.times(f.inverse()).toMatrix().getRowPackedCopy(), 1e-12);
+		try {
+			Matrix2.from(new Matrix(2, 2, 1)).inverse();
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
@@ -0,0 +1,199 @@
+package Javatrix;
+
+/**
+ * Matrix3 - an immutable 3x3 matrix held in fields, with every operation unrolled.
+ *
+ * The 3x3 counterpart of Matrix2, for rotations and 2D homogeneous transforms.
+ * Element (i, j) is the field mij.
+ */
+public final class Matrix3
+{
+	public final double m00, m01, m02;
+	public final double m10, m11, m12;
+	public final double m20, m21, m22;
+
+	/**
+	 * Creates a 3x3 matrix from its elements in row-major order.
+	 */
+	public Matrix3(double m00, double m01, double m02,
+			double m10, double m11, double m12,
+			double m20, double m21, double m22)
+	{
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+	}
+
+	/**
+	 * identity - the identity matrix
+	 */
+	public static Matrix3 identity()
+	{
+		return new Matrix3(1, 0, 0, 0, 1, 0, 0, 0, 1);
+	}
+
+	/**
+	 * from - converts a 3x3 Matrix
+	 *
+	 * @throws IllegalArgumentException - If A is not 3x3
+	 */
+	public static Matrix3 from(Matrix A) throws IllegalArgumentException
+	{
+		if(A.getRowDimension() != 3 || A.getColumnDimension() != 3) throw new IllegalArgumentException();
+		return new Matrix3(A.get(0, 0), A.get(0, 1), A.get(0, 2),
+				A.get(1, 0), A.get(1, 1), A.get(1, 2),
+				A.get(2, 0), A.get(2, 1), A.get(2, 2));
+	}
+
+	/**
+	 * toMatrix - converts to a general Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		return new Matrix(3, 3, new double[] {m00, m01, m02, m10, m11, m12, m20, m21, m22});
+	}
+
+	/**
+	 * get - Gets element (i, j).
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= 3 || j < 0 || j >= 3) throw new ArrayIndexOutOfBoundsException();
+		switch(i * 3 + j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m02;
+			case 3: return m10;
+			case 4: return m11;
+			case 5: return m12;
+			case 6: return m20;
+			case 7: return m21;
+			default: return m22;
+		}
+	}
+
+	/**
+	 * plus - A + B
+	 */
+	public Matrix3 plus(Matrix3 B)
+	{
+		return new Matrix3(m00 + B.m00, m01 + B.m01, m02 + B.m02,
+				m10 + B.m10, m11 + B.m11, m12 + B.m12,
+				m20 + B.m20, m21 + B.m21, m22 + B.m22);
+	}
+
+	/**
+	 * minus - A - B
+	 */
+	public Matrix3 minus(Matrix3 B)
+	{
+		return new Matrix3(m00 - B.m00, m01 - B.m01, m02 - B.m02,
+				m10 - B.m10, m11 - B.m11, m12 - B.m12,
+				m20 - B.m20, m21 - B.m21, m22 - B.m22);
+	}
+
+	/**
+	 * times - s*A
+	 */
+	public Matrix3 times(double s)
+	{
+		return new Matrix3(s * m00, s * m01, s * m02,
+				s * m10, s * m11, s * m12,
+				s * m20, s * m21, s * m22);
+	}
+
+	/**
+	 * times - A*B
+	 */
+	public Matrix3 times(Matrix3 B)
+	{
+		return new Matrix3(m00 * B.m00 + m01 * B.m10 + m02 * B.m20,
+				m00 * B.m01 + m01 * B.m11 + m02 * B.m21,
+				m00 * B.m02 + m01 * B.m12 + m02 * B.m22,
+				m10 * B.m00 + m11 * B.m10 + m12 * B.m20,
+				m10 * B.m01 + m11 * B.m11 + m12 * B.m21,
+				m10 * B.m02 + m11 * B.m12 + m12 * B.m22,
+				m20 * B.m00 + m21 * B.m10 + m22 * B.m20,
+				m20 * B.m01 + m21 * B.m11 + m22 * B.m21,
+				m20 * B.m02 + m21 * B.m12 + m22 * B.m22);
+	}
+
+	/**
+	 * transpose - A'
+	 */
+	public Matrix3 transpose()
+	{
+		return new Matrix3(m00, m10, m20,
+				m01, m11, m21,
+				m02, m12, m22);
+	}
+
+	/**
+	 * trace - sum of the diagonal
+	 */
+	public double trace()
+	{
+		return m00 + m11 + m22;
+	}
+
+	/**
+	 * det - the determinant, by cofactor expansion along the first row
+	 */
+	public double det()
+	{
+		return m00 * (m11 * m22 - m12 * m21) + m01 * (m12 * m20 - m10 * m22) + m02 * (m10 * m21 - m11 * m20);
+	}
+
+	/**
+	 * inverse - A^-1, as the adjugate over the determinant
+	 *
+	 * @throws IllegalArgumentException - If A is singular
+	 */
+	public Matrix3 inverse() throws IllegalArgumentException
+	{
+		double c00 = m11 * m22 - m12 * m21;
+		double c01 = m12 * m20 - m10 * m22;
+		double c02 = m10 * m21 - m11 * m20;
+		double d = m00 * c00 + m01 * c01 + m02 * c02;
+		if(d == 0) throw new IllegalArgumentException("Matrix is singular.");
+		double s = 1 / d;
+		return new Matrix3(c00 * s, (m02 * m21 - m01 * m22) * s, (m01 * m12 - m02 * m11) * s,
+				c01 * s, (m00 * m22 - m02 * m20) * s, (m02 * m10 - m00 * m12) * s,
+				c02 * s, (m01 * m20 - m00 * m21) * s, (m00 * m11 - m01 * m10) * s);
+	}
+
+	/**
+	 * multiply - C = A*B for 3x3 row-major blocks, with the same (array, offset,
+	 * 		row stride) operands as Gemm. C must not overlap A or B.
+	 */
+	static void multiply(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc)
+	{
+		int a0 = aOff, b0 = bOff;
+		int a1 = aOff + 1 * lda, b1 = bOff + 1 * ldb;
+		int a2 = aOff + 2 * lda, b2 = bOff + 2 * ldb;
+		double x00 = a[a0], x01 = a[a0 + 1], x02 = a[a0 + 2];
+		double x10 = a[a1], x11 = a[a1 + 1], x12 = a[a1 + 2];
+		double x20 = a[a2], x21 = a[a2 + 1], x22 = a[a2 + 2];
+		double y00 = b[b0], y01 = b[b0 + 1], y02 = b[b0 + 2];
+		double y10 = b[b1], y11 = b[b1 + 1], y12 = b[b1 + 2];
+		double y20 = b[b2], y21 = b[b2 + 1], y22 = b[b2 + 2];
+		int c0 = cOff;
+		c[c0] = x00 * y00 + x01 * y10 + x02 * y20;
+		c[c0 + 1] = x00 * y01 + x01 * y11 + x02 * y21;
+		c[c0 + 2] = x00 * y02 + x01 * y12 + x02 * y22;
+		int c1 = cOff + 1 * ldc;
+		c[c1] = x10 * y00 + x11 * y10 + x12 * y20;
+		c[c1 + 1] = x10 * y01 + x11 * y11 + x12 * y21;
+		c[c1 + 2] = x10 * y02 + x11 * y12 + x12 * y22;
+		int c2 = cOff + 2 * ldc;
+		c[c2] = x20 * y00 + x21 * y10 + x22 * y20;
+		c[c2 + 1] = x20 * y01 + x21 * y11 + x22 * y21;
+		c[c2 + 2] = x20 * y02 + x21 * y12 + x22 * y22;
+	}
+}
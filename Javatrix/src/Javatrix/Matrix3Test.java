@@ -0,0 +1,51 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class Matrix3Test {
+
+	@Test
+	public void testConversion() {
+		Matrix a = Matrix.random(3, 3);
+		Matrix3 f = Matrix3.from(a);
+		assertArrayEquals(a.getRowPackedCopy(), f.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.get(1, 2), f.get(1, 2), 0);
+		assertEquals(a.get(2, 0), f.m20, 0);
+		assertArrayEquals(Matrix.identity(3, 3).getRowPackedCopy(), Matrix3.identity().toMatrix().getRowPackedCopy(), 0);
+		try {
+			Matrix3.from(new Matrix(3, 4));
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			f.get(3, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix a = Matrix.random(3, 3), b = Matrix.random(3, 3);
+		Matrix3 fa = Matrix3.from(a), fb = Matrix3.from(b);
+		assertArrayEquals(a.times(b).getRowPackedCopy(), fa.times(fb).toMatrix().getRowPackedCopy(), 1e-14);
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), fa.plus(fb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.minus(b).getRowPackedCopy(), fa.minus(fb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.times(3).getRowPackedCopy(), fa.times(3).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.transpose().getRowPackedCopy(), fa.transpose().toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.trace(), fa.trace(), 1e-14);
+	}
+
+	@Test
+	public void testDetInverse() {
+		Matrix a = Matrix.random(3, 3).plus(Matrix.identity(3, 3).times(3));
+		Matrix3 f = Matrix3.from(a);
+		assertEquals(a.det(), f.det(), 1e-12 * Math.abs(a.det()));
+		assertArrayEquals(a.inverse().getRowPackedCopy(), f.inverse().toMatrix().getRowPackedCopy(), 1e-12);
+		assertArrayEquals(Matrix.identity(3, 3).getRowPackedCopy(), f.times(f.inverse()).toMatrix().getRowPackedCopy(), 1e-12);
+		try {
+			Matrix3.from(new Matrix(3, 3, 1)).inverse();
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
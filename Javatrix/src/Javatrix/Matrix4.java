@@ -0,0 +1,250 @@
+package Javatrix;
+
+/**
+ * Matrix4 - an immutable 4x4 matrix held in fields, with every operation unrolled.
+ *
+ * The 4x4 counterpart of Matrix2, for 3D homogeneous transforms. The inverse and
+ * determinant are built from the 2x2 minors of the top and bottom row pairs.
+ * Element (i, j) is the field mij.
+ */
+public final class Matrix4
+{
+	public final double m00, m01, m02, m03;
+	public final double m10, m11, m12, m13;
+	public final double m20, m21, m22, m23;
+	public final double m30, m31, m32, m33;
+
+	/**
+	 * Creates a 4x4 matrix from its elements in row-major order.
+	 */
+	public Matrix4(double m00, double m01, double m02, double m03,
+			double m10, double m11, double m12, double m13,
+			double m20, double m21, double m22, double m23,
+			double m30, double m31, double m32, double m33)
+	{
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+		this.m30 = m30;
+		this.m31 = m31;
+		this.m32 = m32;
+		this.m33 = m33;
+	}
+
+	/**
+	 * identity - the identity matrix
+	 */
+	public static Matrix4 identity()
+	{
+		return new Matrix4(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * from - converts a 4x4 Matrix
+	 *
+	 * @throws IllegalArgumentException - If A is not 4x4
+	 */
+	public static Matrix4 from(Matrix A) throws IllegalArgumentException
+	{
+		if(A.getRowDimension() != 4 || A.getColumnDimension() != 4) throw new IllegalArgumentException();
+		return new Matrix4(A.get(0, 0), A.get(0, 1), A.get(0, 2), A.get(0, 3),
+				A.get(1, 0), A.get(1, 1), A.get(1, 2), A.get(1, 3),
+				A.get(2, 0), A.get(2, 1), A.get(2, 2), A.get(2, 3),
+				A.get(3, 0), A.get(3, 1), A.get(3, 2), A.get(3, 3));
+	}
+
+	/**
+	 * toMatrix - converts to a general Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		return new Matrix(4, 4, new double[] {m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23, m30, m31, m32, m33});
+	}
+
+	/**
+	 * get - Gets element (i, j).
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= 4 || j < 0 || j >= 4) throw new ArrayIndexOutOfBoundsException();
+		switch(i * 4 + j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m02;
+			case 3: return m03;
+			case 4: return m10;
+			case 5: return m11;
+			case 6: return m12;
+			case 7: return m13;
+			case 8: return m20;
+			case 9: return m21;
+			case 10: return m22;
+			case 11: return m23;
+			case 12: return m30;
+			case 13: return m31;
+			case 14: return m32;
+			default: return m33;
+		}
+	}
+
+	/**
+	 * plus - A + B
+	 */
+	public Matrix4 plus(Matrix4 B)
+	{
+		return new Matrix4(m00 + B.m00, m01 + B.m01, m02 + B.m02, m03 + B.m03,
+				m10 + B.m10, m11 + B.m11, m12 + B.m12, m13 + B.m13,
+				m20 + B.m20, m21 + B.m21, m22 + B.m22, m23 + B.m23,
+				m30 + B.m30, m31 + B.m31, m32 + B.m32, m33 + B.m33);
+	}
+
+	/**
+	 * minus - A - B
+	 */
+	public Matrix4 minus(Matrix4 B)
+	{
+		return new Matrix4(m00 - B.m00, m01 - B.m01, m02 - B.m02, m03 - B.m03,
+				m10 - B.m10, m11 - B.m11, m12 - B.m12, m13 - B.m13,
+				m20 - B.m20, m21 - B.m21, m22 - B.m22, m23 - B.m23,
+				m30 - B.m30, m31 - B.m31, m32 - B.m32, m33 - B.m33);
+	}
+
+	/**
+	 * times - s*A
+	 */
+	public Matrix4 times(double s)
+	{
+		return new Matrix4(s * m00, s * m01, s * m02, s * m03,
+				s * m10, s * m11, s * m12, s * m13,
+				s * m20, s * m21, s * m22, s * m23,
+				s * m30, s * m31, s * m32, s * m33);
+	}
+
+	/**
+	 * times - A*B
+	 */
+	public Matrix4 times(Matrix4 B)
+	{
+		return new Matrix4(m00 * B.m00 + m01 * B.m10 + m02 * B.m20 + m03 * B.m30,
+				m00 * B.m01 + m01 * B.m11 + m02 * B.m21 + m03 * B.m31,
+				m00 * B.m02 + m01 * B.m12 + m02 * B.m22 + m03 * B.m32,
+				m00 * B.m03 + m01 * B.m13 + m02 * B.m23 + m03 * B.m33,
+				m10 * B.m00 + m11 * B.m10 + m12 * B.m20 + m13 * B.m30,
+				m10 * B.m01 + m11 * B.m11 + m12 * B.m21 + m13 * B.m31,
+				m10 * B.m02 + m11 * B.m12 + m12 * B.m22 + m13 * B.m32,
+				m10 * B.m03 + m11 * B.m13 + m12 * B.m23 + m13 * B.m33,
+				m20 * B.m00 + m21 * B.m10 + m22 * B.m20 + m23 * B.m30,
+				m20 * B.m01 + m21 * B.m11 + m22 * B.m21 + m23 * B.m31,
+				m20 * B.m02 + m21 * B.m12 + m22 * B.m22 + m23 * B.m32,
+				m20 * B.m03 + m21 * B.m13 + m22 * B.m23 + m23 * B.m33,
+				m30 * B.m00 + m31 * B.m10 + m32 * B.m20 + m33 * B.m30,
+				m30 * B.m01 + m31 * B.m11 + m32 * B.m21 + m33 * B.m31,
+				m30 * B.m02 + m31 * B.m12 + m32 * B.m22 + m33 * B.m32,
+				m30 * B.m03 + m31 * B.m13 + m32 * B.m23 + m33 * B.m33);
+	}
+
+	/**
+	 * transpose - A'
+	 */
+	public Matrix4 transpose()
+	{
+		return new Matrix4(m00, m10, m20, m30,
+				m01, m11, m21, m31,
+				m02, m12, m22, m32,
+				m03, m13, m23, m33);
+	}
+
+	/**
+	 * trace - sum of the diagonal
+	 */
+	public double trace()
+	{
+		return m00 + m11 + m22 + m33;
+	}
+
+	/**
+	 * det - the determinant
+	 */
+	public double det()
+	{
+		double s0 = m00 * m11 - m10 * m01, s1 = m00 * m12 - m10 * m02, s2 = m00 * m13 - m10 * m03;
+		double s3 = m01 * m12 - m11 * m02, s4 = m01 * m13 - m11 * m03, s5 = m02 * m13 - m12 * m03;
+		double c5 = m22 * m33 - m32 * m23, c4 = m21 * m33 - m31 * m23, c3 = m21 * m32 - m31 * m22;
+		double c2 = m20 * m33 - m30 * m23, c1 = m20 * m32 - m30 * m22, c0 = m20 * m31 - m30 * m21;
+		return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+	}
+
+	/**
+	 * inverse - A^-1, as the adjugate over the determinant
+	 *
+	 * @throws IllegalArgumentException - If A is singular
+	 */
+	public Matrix4 inverse() throws IllegalArgumentException
+	{
+		double s0 = m00 * m11 - m10 * m01, s1 = m00 * m12 - m10 * m02, s2 = m00 * m13 - m10 * m03;
+		double s3 = m01 * m12 - m11 * m02, s4 = m01 * m13 - m11 * m03, s5 = m02 * m13 - m12 * m03;
+		double c5 = m22 * m33 - m32 * m23, c4 = m21 * m33 - m31 * m23, c3 = m21 * m32 - m31 * m22;
+		double c2 = m20 * m33 - m30 * m23, c1 = m20 * m32 - m30 * m22, c0 = m20 * m31 - m30 * m21;
+		double d = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		if(d == 0) throw new IllegalArgumentException("Matrix is singular.");
+		double s = 1 / d;
+		return new Matrix4(
+				(m11 * c5 - m12 * c4 + m13 * c3) * s, (-m01 * c5 + m02 * c4 - m03 * c3) * s,
+				(m31 * s5 - m32 * s4 + m33 * s3) * s, (-m21 * s5 + m22 * s4 - m23 * s3) * s,
+				(-m10 * c5 + m12 * c2 - m13 * c1) * s, (m00 * c5 - m02 * c2 + m03 * c1) * s,
+				(-m30 * s5 + m32 * s2 - m33 * s1) * s, (m20 * s5 - m22 * s2 + m23 * s1) * s,
+				(m10 * c4 - m11 * c2 + m13 * c0) * s, (-m00 * c4 + m01 * c2 - m03 * c0) * s,
+				(m30 * s4 - m31 * s2 + m33 * s0) * s, (-m20 * s4 + m21 * s2 - m23 * s0) * s,
+				(-m10 * c3 + m11 * c1 - m12 * c0) * s, (m00 * c3 - m01 * c1 + m02 * c0) * s,
+				(-m30 * s3 + m31 * s1 - m32 * s0) * s, (m20 * s3 - m21 * s1 + m22 * s0) * s);
+	}
+
+	/**
+	 * multiply - C = A*B for 4x4 row-major blocks, with the same (array, offset,
+	 * 		row stride) operands as Gemm. C must not overlap A or B.
+	 */
+	static void multiply(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, double[] c, int cOff, int ldc)
+	{
+		int a0 = aOff, b0 = bOff;
+		int a1 = aOff + 1 * lda, b1 = bOff + 1 * ldb;
+		int a2 = aOff + 2 * lda, b2 = bOff + 2 * ldb;
+		int a3 = aOff + 3 * lda, b3 = bOff + 3 * ldb;
+		double x00 = a[a0], x01 = a[a0 + 1], x02 = a[a0 + 2], x03 = a[a0 + 3];
+		double x10 = a[a1], x11 = a[a1 + 1], x12 = a[a1 + 2], x13 = a[a1 + 3];
+		double x20 = a[a2], x21 = a[a2 + 1], x22 = a[a2 + 2], x23 = a[a2 + 3];
+		double x30 = a[a3], x31 = a[a3 + 1], x32 = a[a3 + 2], x33 = a[a3 + 3];
+		double y00 = b[b0], y01 = b[b0 + 1], y02 = b[b0 + 2], y03 = b[b0 + 3];
+		double y10 = b[b1], y11 = b[b1 + 1], y12 = b[b1 + 2], y13 = b[b1 + 3];
+		double y20 = b[b2], y21 = b[b2 + 1], y22 = b[b2 + 2], y23 = b[b2 + 3];
+		double y30 = b[b3], y31 = b[b3 + 1], y32 = b[b3 + 2], y33 = b[b3 + 3];
+		int c0 = cOff;
+		c[c0] = x00 * y00 + x01 * y10 + x02 * y20 + x03 * y30;
+		c[c0 + 1] = x00 * y01 + x01 * y11 + x02 * y21 + x03 * y31;
+		c[c0 + 2] = x00 * y02 + x01 * y12 + x02 * y22 + x03 * y32;
+		c[c0 + 3] = x00 * y03 + x01 * y13 + x02 * y23 + x03 * y33;
+		int c1 = cOff + 1 * ldc;
+		c[c1] = x10 * y00 + x11 * y10 + x12 * y20 + x13 * y30;
+		c[c1 + 1] = x10 * y01 + x11 * y11 + x12 * y21 + x13 * y31;
+		c[c1 + 2] = x10 * y02 + x11 * y12 + x12 * y22 + x13 * y32;
+		c[c1 + 3] = x10 * y03 + x11 * y13 + x12 * y23 + x13 * y33;
+		int c2 = cOff + 2 * ldc;
+		c[c2] = x20 * y00 + x21 * y10 + x22 * y20 + x23 * y30;
+		c[c2 + 1] = x20 * y01 + x21 * y11 + x22 * y21 + x23 * y31;
+		c[c2 + 2] = x20 * y02 + x21 * y12 + x22 * y22 + x23 * y32;
+		c[c2 + 3] = x20 * y03 + x21 * y13 + x22 * y23 + x23 * y33;
+		int c3 = cOff + 3 * ldc;
+		c[c3] = x30 * y00 + x31 * y10 + x32 * y20 + x33 * y30;
+		c[c3 + 1] = x30 * y01 + x31 * y11 + x32 * y21 + x33 * y31;
+		c[c3 + 2] = x30 * y02 + x31 * y12 + x32 * y22 + x33 * y32;
+		c[c3 + 3] = x30 * y03 + x31 * y13 + x32 * y23 + x33 * y33;
+	}
+}
@@ -0,0 +1,54 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class Matrix4Test {
+
+	@Test
+	public void testConversion() {
+		Matrix a = Matrix.random(4, 4);
+		Matrix4 f = Matrix4.from(a);
+		assertArrayEquals(a.getRowPackedCopy(), f.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.get(1, 3), f.get(1, 3), 0);
+		assertEquals(a.get(3, 0), f.m30, 0);
+		assertArrayEquals(Matrix.identity(4, 4).getRowPackedCopy(), Matrix4.identity().toMatrix().getRowPackedCopy(), 0);
+		try {
+			Matrix4.from(new Matrix(4, 5));
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			f.get(4, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix a = Matrix.random(4, 4), b = Matrix.random(4, 4);
+		Matrix4 fa = Matrix4.from(a), fb = Matrix4.from(b);
+		assertArrayEquals(a.times(b).getRowPackedCopy(), fa.times(fb).toMatrix().getRowPackedCopy(), 1e-14);
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), fa.plus(fb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.minus(b).getRowPackedCopy(), fa.minus(fb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.times(3).getRowPackedCopy(), fa.times(3).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.transpose().getRowPackedCopy(), fa.transpose().toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.trace(), fa.trace(), 1e-14);
+	}
+
+	@Test
+	public void testDetInverse() {
+		Matrix a = Matrix.random(4, 4).plus(Matrix.identity(4, 4).times(4));
+		Matrix4 f = Matrix4.from(a);
+		//Both sides are only accurate to about eps times the condition number of the random matrix
+		Matrix inv = a.inverse();
+		double cond = a.norm1() * inv.norm1();
+		assertEquals(a.det(), f.det(), 1e-14 * cond * Math.abs(a.det()));
+		assertArrayEquals(inv.getRowPackedCopy(), f.inverse().toMatrix().getRowPackedCopy(), 1e-14 * cond * inv.normInF());
+		assertArrayEquals(Matrix.identity(4, 4).getRowPackedCopy(), f.times(f.inverse()).toMatrix().getRowPackedCopy(), 1e-14 * cond);
+		try {
+			Matrix4.from(new Matrix(4, 4, 1)).inverse();
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
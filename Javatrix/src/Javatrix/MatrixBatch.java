@@ -0,0 +1,422 @@
+package Javatrix;
+
+import java.util.Arrays;
+
+/**
+ * MatrixBatch - a batch of same-shaped small matrices in structure-of-arrays layout.
+ *
+ * Element (i, j) of every member is kept in one array of its own, indexed by the
+ * member: plane(i, j)[b] is element (i, j) of matrix b. A batch of a million
+ * 4x4 matrices is 16 arrays rather than a million objects, and each operation is
+ * a set of loops over the batch index that do the same arithmetic on every member.
+ * All arrays in such a loop are indexed by the same b, which is the form the JIT
+ * turns into SIMD code, so several members are computed per instruction.
+ *
+ * Operations walk the batch in chunks of CHUNK members so that the planes of a
+ * chunk stay in cache while every element of the result is formed.
+ * det and inverse use closed forms up to 4x4 and an LU decomposition per member
+ * above that.
+ */
+public class MatrixBatch
+{
+	/** Members processed together; the planes of a 4x4 product chunk take 96 KiB. */
+	static final int CHUNK = 256;
+
+	private final int size;
+	private final int m;
+	private final int n;
+	/** planes[i*n+j][b] is element (i, j) of member b. */
+	private final double[][] planes;
+
+	/**
+	 * Creates a batch of size m x n matrices, filled with zeros.
+	 *
+	 * @param size - Number of matrices
+	 * @param m - Number of rows of each
+	 * @param n - Number of columns of each
+	 * @throws IllegalArgumentException - If a dimension is negative, or the matrices have
+	 * 		more elements than an array can hold
+	 */
+	public MatrixBatch(int size, int m, int n) throws IllegalArgumentException
+	{
+		if(size < 0 || m < 0 || n < 0) throw new IllegalArgumentException();
+		this.size = size;
+		this.m = m;
+		this.n = n;
+		this.planes = new double[Matrix.elements(m, n)][size];
+	}
+
+	/**
+	 * Creates a batch holding copies of the given matrices.
+	 *
+	 * @param list - Matrices, all of the same dimensions
+	 * @throws IllegalArgumentException - If the list is empty or the dimensions differ
+	 */
+	public MatrixBatch(Matrix[] list) throws IllegalArgumentException
+	{
+		this(list.length, list.length == 0 ? 0 : list[0].getRowDimension(), list.length == 0 ? 0 : list[0].getColumnDimension());
+		if(list.length == 0) throw new IllegalArgumentException();
+		for (int b = 0; b < size; b++) {
+			setMatrix(b, list[b]);
+		}
+	}
+
+	/**
+	 * getSize - Gets the number of matrices in the batch.
+	 *
+	 * @return int
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension of each matrix.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension of each matrix.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * get - Gets element (i, j) of matrix b.
+	 *
+	 * @return double
+	 */
+	public double get(int b, int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		check(b, i, j);
+		return planes[i*n+j][b];
+	}
+
+	/**
+	 * set - Sets element (i, j) of matrix b.
+	 */
+	public void set(int b, int i, int j, double s) throws ArrayIndexOutOfBoundsException
+	{
+		check(b, i, j);
+		planes[i*n+j][b] = s;
+	}
+
+	/**
+	 * getMatrix - Copies matrix b out of the batch.
+	 *
+	 * @return Matrix
+	 */
+	public Matrix getMatrix(int b) throws ArrayIndexOutOfBoundsException
+	{
+		if(b < 0 || b >= size) throw new ArrayIndexOutOfBoundsException();
+		double[] a = new double[m*n];
+		for (int e = 0; e < a.length; e++) {
+			a[e] = planes[e][b];
+		}
+		return new Matrix(m, n, a);
+	}
+
+	/**
+	 * setMatrix - Copies A into matrix b of the batch.
+	 *
+	 * @throws IllegalArgumentException - If A has other dimensions than the batch
+	 */
+	public void setMatrix(int b, Matrix A) throws ArrayIndexOutOfBoundsException, IllegalArgumentException
+	{
+		if(b < 0 || b >= size) throw new ArrayIndexOutOfBoundsException();
+		if(A.getRowDimension() != m || A.getColumnDimension() != n) throw new IllegalArgumentException();
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				planes[i*n+j][b] = A.get(i, j);
+			}
+		}
+	}
+
+	/**
+	 * plus - A[b] + B[b] for every member
+	 *
+	 * @param B - Batch of the same size and dimensions
+	 * @return MatrixBatch
+	 */
+	public MatrixBatch plus(MatrixBatch B) throws IllegalArgumentException
+	{
+		return plus(B, new MatrixBatch(size, m, n));
+	}
+
+	/**
+	 * plus - A[b] + B[b] for every member, into an existing batch. C may be A or B.
+	 *
+	 * @param B - Batch of the same size and dimensions
+	 * @param C - Destination of the same size and dimensions
+	 * @return C
+	 */
+	public MatrixBatch plus(MatrixBatch B, MatrixBatch C) throws IllegalArgumentException
+	{
+		if(B.size != size || B.m != m || B.n != n) throw new IllegalArgumentException();
+		if(C.size != size || C.m != m || C.n != n) throw new IllegalArgumentException();
+		for (int e = 0; e < m*n; e++) {
+			double[] x = planes[e], y = B.planes[e], z = C.planes[e];
+			for (int b = 0; b < size; b++) {
+				z[b] = x[b] + y[b];
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * times - A[b] * B[b] for every member
+	 *
+	 * @param B - Batch of the same size, whose matrices have as many rows as A's have columns
+	 * @return MatrixBatch
+	 */
+	public MatrixBatch times(MatrixBatch B) throws IllegalArgumentException
+	{
+		if(B.size != size || B.m != n) throw new IllegalArgumentException();
+		return times(B, new MatrixBatch(size, m, B.n));
+	}
+
+	/**
+	 * times - A[b] * B[b] for every member, into an existing batch
+	 *
+	 * @param B - Batch of the same size, whose matrices have as many rows as A's have columns
+	 * @param C - Destination of the same size with m x B.n matrices, other than A and B
+	 * @return C
+	 */
+	public MatrixBatch times(MatrixBatch B, MatrixBatch C) throws IllegalArgumentException
+	{
+		int p = B.n;
+		if(B.size != size || B.m != n || C.size != size || C.m != m || C.n != p) throw new IllegalArgumentException();
+		if(C == this || C == B) throw new IllegalArgumentException("Destination overlaps an operand.");
+		for (int b0 = 0; b0 < size; b0 += CHUNK) {
+			int b1 = Math.min(size, b0 + CHUNK);
+			for (int i = 0; i < m; i++) {
+				for (int j = 0; j < p; j++) {
+					double[] z = C.planes[i*p+j];
+					if(n == 0) {
+						for (int b = b0; b < b1; b++) z[b] = 0;
+						continue;
+					}
+					double[] x = planes[i*n], y = B.planes[j];
+					for (int b = b0; b < b1; b++) {
+						z[b] = x[b] * y[b];
+					}
+					for (int k = 1; k < n; k++) {
+						x = planes[i*n+k];
+						y = B.planes[k*p+j];
+						for (int b = b0; b < b1; b++) {
+							z[b] += x[b] * y[b];
+						}
+					}
+				}
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * transpose - A[b]' for every member. Only the planes are reordered.
+	 *
+	 * @return MatrixBatch
+	 */
+	public MatrixBatch transpose()
+	{
+		MatrixBatch T = new MatrixBatch(size, n, m);
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				System.arraycopy(planes[i*n+j], 0, T.planes[j*m+i], 0, size);
+			}
+		}
+		return T;
+	}
+
+	/**
+	 * det - the determinant of every member
+	 *
+	 * @return double[] - det(A[b]) at index b
+	 * @throws IllegalArgumentException - If the matrices are not square
+	 */
+	public double[] det() throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		double[] d = new double[size];
+		double[][] p = planes;
+		switch(n) {
+			case 0:
+				Arrays.fill(d, 1);
+				break;
+			case 1:
+				System.arraycopy(p[0], 0, d, 0, size);
+				break;
+			case 2:
+				for (int b = 0; b < size; b++) {
+					d[b] = p[0][b] * p[3][b] - p[1][b] * p[2][b];
+				}
+				break;
+			case 3:
+				det3(d);
+				break;
+			case 4:
+				inverse4(null, d);
+				break;
+			default:
+				for (int b = 0; b < size; b++) {
+					d[b] = getMatrix(b).det();
+				}
+		}
+		return d;
+	}
+
+	/**
+	 * inverse - the inverse of every member. The inverse of a singular member has
+	 * 		infinite or NaN elements; det() tells which members those are.
+	 *
+	 * @return MatrixBatch
+	 * @throws IllegalArgumentException - If the matrices are not square
+	 */
+	public MatrixBatch inverse() throws IllegalArgumentException
+	{
+		if(m != n) throw new IllegalArgumentException("Matrix must be square.");
+		MatrixBatch R = new MatrixBatch(size, n, n);
+		double[][] p = planes, r = R.planes;
+		switch(n) {
+			case 0:
+				break;
+			case 1:
+				for (int b = 0; b < size; b++) {
+					r[0][b] = 1 / p[0][b];
+				}
+				break;
+			case 2:
+				for (int b = 0; b < size; b++) {
+					double a00 = p[0][b], a01 = p[1][b], a10 = p[2][b], a11 = p[3][b];
+					double s = 1 / (a00 * a11 - a01 * a10);
+					r[0][b] = a11 * s;
+					r[1][b] = -a01 * s;
+					r[2][b] = -a10 * s;
+					r[3][b] = a00 * s;
+				}
+				break;
+			case 3:
+				inverse3(r);
+				break;
+			case 4:
+				inverse4(r, new double[size]);
+				break;
+			default:
+				Matrix I = Matrix.identity(n, n);
+				for (int b = 0; b < size; b++) {
+					LUDecomposition lu = getMatrix(b).lu();
+					if(lu.isNonsingular()) {
+						R.setMatrix(b, lu.solve(I));
+					}
+					else {
+						for (int e = 0; e < n*n; e++) r[e][b] = Double.NaN;
+					}
+				}
+		}
+		return R;
+	}
+
+	/**
+	 * det3 - 3x3 determinants by cofactor expansion along the first row
+	 */
+	private void det3(double[] d)
+	{
+		double[] p0 = planes[0], p1 = planes[1], p2 = planes[2], p3 = planes[3], p4 = planes[4];
+		double[] p5 = planes[5], p6 = planes[6], p7 = planes[7], p8 = planes[8];
+		for (int b = 0; b < size; b++) {
+			d[b] = p0[b] * (p4[b] * p8[b] - p5[b] * p7[b])
+					+ p1[b] * (p5[b] * p6[b] - p3[b] * p8[b])
+					+ p2[b] * (p3[b] * p7[b] - p4[b] * p6[b]);
+		}
+	}
+
+	/**
+	 * inverse3 - 3x3 inverses as the adjugate over the determinant
+	 */
+	private void inverse3(double[][] r)
+	{
+		double[] p0 = planes[0], p1 = planes[1], p2 = planes[2], p3 = planes[3], p4 = planes[4];
+		double[] p5 = planes[5], p6 = planes[6], p7 = planes[7], p8 = planes[8];
+		for (int b = 0; b < size; b++) {
+			double a00 = p0[b], a01 = p1[b], a02 = p2[b];
+			double a10 = p3[b], a11 = p4[b], a12 = p5[b];
+			double a20 = p6[b], a21 = p7[b], a22 = p8[b];
+			double c00 = a11 * a22 - a12 * a21;
+			double c01 = a12 * a20 - a10 * a22;
+			double c02 = a10 * a21 - a11 * a20;
+			double s = 1 / (a00 * c00 + a01 * c01 + a02 * c02);
+			r[0][b] = c00 * s;
+			r[1][b] = (a02 * a21 - a01 * a22) * s;
+			r[2][b] = (a01 * a12 - a02 * a11) * s;
+			r[3][b] = c01 * s;
+			r[4][b] = (a00 * a22 - a02 * a20) * s;
+			r[5][b] = (a02 * a10 - a00 * a12) * s;
+			r[6][b] = c02 * s;
+			r[7][b] = (a01 * a20 - a00 * a21) * s;
+			r[8][b] = (a00 * a11 - a01 * a10) * s;
+		}
+	}
+
+	/**
+	 * inverse4 - 4x4 determinants into d and, unless r is null, inverses into r, from
+	 * 		the 2x2 minors of the top two rows (s) and of the bottom two rows (c)
+	 */
+	private void inverse4(double[][] r, double[] d)
+	{
+		double[][] p = planes;
+		for (int b = 0; b < size; b++) {
+			double a00 = p[0][b], a01 = p[1][b], a02 = p[2][b], a03 = p[3][b];
+			double a10 = p[4][b], a11 = p[5][b], a12 = p[6][b], a13 = p[7][b];
+			double a20 = p[8][b], a21 = p[9][b], a22 = p[10][b], a23 = p[11][b];
+			double a30 = p[12][b], a31 = p[13][b], a32 = p[14][b], a33 = p[15][b];
+			double s0 = a00 * a11 - a10 * a01;
+			double s1 = a00 * a12 - a10 * a02;
+			double s2 = a00 * a13 - a10 * a03;
+			double s3 = a01 * a12 - a11 * a02;
+			double s4 = a01 * a13 - a11 * a03;
+			double s5 = a02 * a13 - a12 * a03;
+			double c5 = a22 * a33 - a32 * a23;
+			double c4 = a21 * a33 - a31 * a23;
+			double c3 = a21 * a32 - a31 * a22;
+			double c2 = a20 * a33 - a30 * a23;
+			double c1 = a20 * a32 - a30 * a22;
+			double c0 = a20 * a31 - a30 * a21;
+			double det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+			d[b] = det;
+			if(r == null) continue;
+			double s = 1 / det;
+			r[0][b] = (a11 * c5 - a12 * c4 + a13 * c3) * s;
+			r[1][b] = (-a01 * c5 + a02 * c4 - a03 * c3) * s;
+			r[2][b] = (a31 * s5 - a32 * s4 + a33 * s3) * s;
+			r[3][b] = (-a21 * s5 + a22 * s4 - a23 * s3) * s;
+			r[4][b] = (-a10 * c5 + a12 * c2 - a13 * c1) * s;
+			r[5][b] = (a00 * c5 - a02 * c2 + a03 * c1) * s;
+			r[6][b] = (-a30 * s5 + a32 * s2 - a33 * s1) * s;
+			r[7][b] = (a20 * s5 - a22 * s2 + a23 * s1) * s;
+			r[8][b] = (a10 * c4 - a11 * c2 + a13 * c0) * s;
+			r[9][b] = (-a00 * c4 + a01 * c2 - a03 * c0) * s;
+			r[10][b] = (a30 * s4 - a31 * s2 + a33 * s0) * s;
+			r[11][b] = (-a20 * s4 + a21 * s2 - a23 * s0) * s;
+			r[12][b] = (-a10 * c3 + a11 * c1 - a12 * c0) * s;
+			r[13][b] = (a00 * c3 - a01 * c1 + a02 * c0) * s;
+			r[14][b] = (-a30 * s3 + a31 * s1 - a32 * s0) * s;
+			r[15][b] = (a20 * s3 - a21 * s1 + a22 * s0) * s;
+		}
+	}
+
+	private void check(int b, int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(b < 0 || b >= size || i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+	}
+}
@@ -0,0 +1,96 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MatrixBatchTest {
+
+	private static Matrix[] random(int count, int m, int n) {
+		Matrix[] list = new Matrix[count];
+		for (int b = 0; b < count; b++) {
+			list[b] = Matrix.random(m, n);
+		}
+		return list;
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLarge() {
+		new MatrixBatch(0, 65536, 65537);
+	}
+
+	@Test
+	public void testAccess() {
+		Matrix[] list = random(3, 2, 3);
+		MatrixBatch a = new MatrixBatch(list);
+		assertEquals(3, a.getSize());
+		assertEquals(2, a.getRowDimension());
+		assertEquals(3, a.getColumnDimension());
+		assertEquals(list[2].get(1, 0), a.get(2, 1, 0), 0);
+		a.set(1, 0, 2, -4);
+		assertEquals(-4, a.getMatrix(1).get(0, 2), 0);
+		assertArrayEquals(list[0].getRowPackedCopy(), a.getMatrix(0).getRowPackedCopy(), 0);
+		a.setMatrix(0, list[1].transposeView().transpose());
+		assertArrayEquals(list[1].getRowPackedCopy(), a.getMatrix(0).getRowPackedCopy(), 0);
+		try {
+			a.get(3, 0, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+		try {
+			a.setMatrix(0, new Matrix(3, 2));
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		int count = 600;
+		Matrix[] x = random(count, 3, 4), y = random(count, 4, 2), z = random(count, 3, 4);
+		MatrixBatch a = new MatrixBatch(x), b = new MatrixBatch(y), c = new MatrixBatch(z);
+		MatrixBatch prod = a.times(b), sum = a.plus(c), tr = a.transpose();
+		for (int i = 0; i < count; i++) {
+			assertArrayEquals(x[i].times(y[i]).getRowPackedCopy(), prod.getMatrix(i).getRowPackedCopy(), 1e-12);
+			assertArrayEquals(x[i].plus(z[i]).getRowPackedCopy(), sum.getMatrix(i).getRowPackedCopy(), 0);
+			assertArrayEquals(x[i].transpose().getRowPackedCopy(), tr.getMatrix(i).getRowPackedCopy(), 0);
+		}
+		a.plus(c, a);
+		assertArrayEquals(sum.getMatrix(7).getRowPackedCopy(), a.getMatrix(7).getRowPackedCopy(), 0);
+		MatrixBatch dst = new MatrixBatch(count, 3, 2);
+		assertSame(dst, new MatrixBatch(x).times(b, dst));
+		assertArrayEquals(prod.getMatrix(599).getRowPackedCopy(), dst.getMatrix(599).getRowPackedCopy(), 0);
+		try {
+			a.times(a);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			b.times(new MatrixBatch(count, 2, 2), b);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testDetInverse() {
+		for (int n = 1; n <= 6; n++) {
+			Matrix[] x = random(20, n, n);
+			MatrixBatch a = new MatrixBatch(x);
+			double[] det = a.det();
+			MatrixBatch inv = a.inverse();
+			for (int i = 0; i < x.length; i++) {
+				assertEquals(x[i].det(), det[i], 1e-9 * Math.max(1, Math.abs(det[i])));
+				Matrix expected = x[i].inverse();
+				double tol = 1e-10 * expected.normInF() * expected.normInF() * x[i].normInF();
+				assertArrayEquals(expected.getRowPackedCopy(), inv.getMatrix(i).getRowPackedCopy(), tol);
+			}
+		}
+		try {
+			new MatrixBatch(2, 2, 3).det();
+			fail();
+		} catch(IllegalArgumentException e) {}
+		//A singular member does not stop the others
+		MatrixBatch s = new MatrixBatch(new Matrix[] {new Matrix(3, 3, 1), Matrix.identity(3, 3)});
+		assertEquals(0, s.det()[0], 0);
+		assertArrayEquals(Matrix.identity(3, 3).getRowPackedCopy(), s.inverse().getMatrix(1).getRowPackedCopy(), 0);
+		double v = s.inverse().get(0, 0, 0);
+		assertTrue(Double.isNaN(v) || Double.isInfinite(v));
+	}
+}
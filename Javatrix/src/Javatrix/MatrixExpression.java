@@ -0,0 +1,387 @@
+package Javatrix;
+
+/**
+ * MatrixExpression - a lazily evaluated tree of element-wise operations over
+ * Matrix operands, started with Matrix.lazy().
+ *
+ * Evaluation walks the result in row chunks of CHUNK elements. Each node fills
+ * a chunk from its children, so the whole expression is computed in one fused
+ * pass. The only temporaries are one chunk-sized buffer per tree level.
+ * Expressions are immutable and may be evaluated repeatedly; operands are read
+ * at evaluation time, so later changes to them are seen.
+ */
+public abstract class MatrixExpression
+{
+	static final int CHUNK = 256;
+
+	static final int ADD = 0, SUB = 1, MUL = 2, RDIV = 3, LDIV = 4;
+
+	static final int NONE = 0, ALIGNED = 1, SHIFTED = 2;
+
+	final int m;
+	final int n;
+
+	MatrixExpression(int m, int n)
+	{
+		this.m = m;
+		this.n = n;
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension of the result.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension of the result.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * plus - A + B
+	 *
+	 * @param B - Matrix to be added. Must be same dimension.
+	 */
+	public MatrixExpression plus(Matrix B) throws IllegalArgumentException
+	{
+		return plus(B.lazy());
+	}
+
+	/**
+	 * plus - A + B
+	 *
+	 * @param B - Expression to be added. Must be same dimension.
+	 */
+	public MatrixExpression plus(MatrixExpression B) throws IllegalArgumentException
+	{
+		return new Binary(ADD, this, B);
+	}
+
+	/**
+	 * minus - A - B
+	 *
+	 * @param B - Matrix to be subtracted. Must be same dimension.
+	 */
+	public MatrixExpression minus(Matrix B) throws IllegalArgumentException
+	{
+		return minus(B.lazy());
+	}
+
+	/**
+	 * minus - A - B
+	 *
+	 * @param B - Expression to be subtracted. Must be same dimension.
+	 */
+	public MatrixExpression minus(MatrixExpression B) throws IllegalArgumentException
+	{
+		return new Binary(SUB, this, B);
+	}
+
+	/**
+	 * arrayTimes - element by element product A.*B
+	 *
+	 * @param B - Matrix to multiply by. Must be same dimension.
+	 */
+	public MatrixExpression arrayTimes(Matrix B) throws IllegalArgumentException
+	{
+		return arrayTimes(B.lazy());
+	}
+
+	/**
+	 * arrayTimes - element by element product A.*B
+	 *
+	 * @param B - Expression to multiply by. Must be same dimension.
+	 */
+	public MatrixExpression arrayTimes(MatrixExpression B) throws IllegalArgumentException
+	{
+		return new Binary(MUL, this, B);
+	}
+
+	/**
+	 * arrayRightDivide - element by element right division A./B
+	 *
+	 * @param B - Matrix to divide by. Must be same dimension.
+	 */
+	public MatrixExpression arrayRightDivide(Matrix B) throws IllegalArgumentException
+	{
+		return arrayRightDivide(B.lazy());
+	}
+
+	/**
+	 * arrayRightDivide - element by element right division A./B
+	 *
+	 * @param B - Expression to divide by. Must be same dimension.
+	 */
+	public MatrixExpression arrayRightDivide(MatrixExpression B) throws IllegalArgumentException
+	{
+		return new Binary(RDIV, this, B);
+	}
+
+	/**
+	 * arrayLeftDivide - element by element left division A.\B
+	 *
+	 * @param B - Matrix to be divided. Must be same dimension.
+	 */
+	public MatrixExpression arrayLeftDivide(Matrix B) throws IllegalArgumentException
+	{
+		return arrayLeftDivide(B.lazy());
+	}
+
+	/**
+	 * arrayLeftDivide - element by element left division A.\B
+	 *
+	 * @param B - Expression to be divided. Must be same dimension.
+	 */
+	public MatrixExpression arrayLeftDivide(MatrixExpression B) throws IllegalArgumentException
+	{
+		return new Binary(LDIV, this, B);
+	}
+
+	/**
+	 * times - s*A
+	 *
+	 * @param s - scalar
+	 */
+	public MatrixExpression times(double s)
+	{
+		return new Scale(this, s);
+	}
+
+	/**
+	 * uminus - -A
+	 */
+	public MatrixExpression uminus()
+	{
+		return new Scale(this, -1);
+	}
+
+	/**
+	 * evaluate - computes the expression into a new matrix
+	 *
+	 * @return Matrix
+	 */
+	public Matrix evaluate()
+	{
+		Matrix C = new Matrix(m, n);
+		run(C);
+		return C;
+	}
+
+	/**
+	 * evaluateInto - computes the expression into an existing matrix. C may also be
+	 * 		one of the operands of the expression.
+	 *
+	 * @param C - destination, must have the dimensions of the result
+	 * @return C
+	 */
+	public Matrix evaluateInto(Matrix C) throws IllegalArgumentException
+	{
+		if(C.getRowDimension() != m || C.getColumnDimension() != n) throw new IllegalArgumentException();
+		int alias = alias(C);
+		if(alias == SHIFTED || C.transposed()) {
+			//An operand overlaps C at other positions, so a chunk of C may still be needed later
+			Matrix T = evaluate();
+			C.setMatrix(0, m - 1, 0, n - 1, T);
+		}
+		else if(alias == ALIGNED) {
+			//Each chunk is complete before it is stored, so only the chunk itself needs a copy
+			double[][] buffers = new double[depth()][CHUNK];
+			double[] out = new double[CHUNK];
+			double[] c = C.storage();
+			int cOff = C.offset(), ldc = C.stride();
+			for (int i = 0; i < m; i++) {
+				for (int j0 = 0; j0 < n; j0 += CHUNK) {
+					int len = Math.min(CHUNK, n - j0);
+					eval(i, j0, len, out, 0, buffers, 0);
+					System.arraycopy(out, 0, c, cOff + i * ldc + j0, len);
+				}
+			}
+		}
+		else {
+			run(C);
+		}
+		return C;
+	}
+
+	private void run(Matrix C)
+	{
+		double[][] buffers = new double[depth()][CHUNK];
+		double[] c = C.storage();
+		int cOff = C.offset(), ldc = C.stride();
+		for (int i = 0; i < m; i++) {
+			for (int j0 = 0; j0 < n; j0 += CHUNK) {
+				eval(i, j0, Math.min(CHUNK, n - j0), c, cOff + i * ldc + j0, buffers, 0);
+			}
+		}
+	}
+
+	/**
+	 * eval - writes elements (i, j0) .. (i, j0+len-1) of the expression to out[outOff..],
+	 * 		using buffers[level..] as scratch space.
+	 */
+	abstract void eval(int i, int j0, int len, double[] out, int outOff, double[][] buffers, int level);
+
+	/**
+	 * depth - number of scratch buffers evaluation needs
+	 */
+	abstract int depth();
+
+	/**
+	 * alias - how the operands share storage with C: NONE, ALIGNED when they only share
+	 * 		it at the same element positions, or SHIFTED otherwise
+	 */
+	abstract int alias(Matrix C);
+
+	/**
+	 * Leaf - a Matrix operand.
+	 */
+	static final class Leaf extends MatrixExpression
+	{
+		final Matrix A;
+
+		Leaf(Matrix A)
+		{
+			super(A.getRowDimension(), A.getColumnDimension());
+			this.A = A;
+		}
+
+		@Override
+		void eval(int i, int j0, int len, double[] out, int outOff, double[][] buffers, int level)
+		{
+			double[] a = A.storage();
+			if(A.transposed()) {
+				int ai = A.offset() + j0 * A.stride() + i;
+				for (int j = 0; j < len; j++) {
+					out[outOff + j] = a[ai + j * A.stride()];
+				}
+			}
+			else {
+				System.arraycopy(a, A.offset() + i * A.stride() + j0, out, outOff, len);
+			}
+		}
+
+		@Override
+		int depth()
+		{
+			return 0;
+		}
+
+		@Override
+		int alias(Matrix C)
+		{
+			return Matrix.alias(A, C);
+		}
+	}
+
+	/**
+	 * Binary - an element-wise operation on two subexpressions. Matrix operands on the
+	 * 		right are read in place rather than copied to a buffer.
+	 */
+	static final class Binary extends MatrixExpression
+	{
+		final int op;
+		final MatrixExpression left, right;
+
+		Binary(int op, MatrixExpression left, MatrixExpression right)
+		{
+			super(left.m, left.n);
+			if(right.m != left.m || right.n != left.n) throw new IllegalArgumentException();
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		void eval(int i, int j0, int len, double[] out, int outOff, double[][] buffers, int level)
+		{
+			left.eval(i, j0, len, out, outOff, buffers, level);
+			double[] y;
+			int yOff;
+			if(readsRightInPlace()) {
+				Matrix B = ((Leaf)right).A;
+				y = B.storage();
+				yOff = B.offset() + i * B.stride() + j0;
+			}
+			else {
+				y = buffers[level];
+				yOff = 0;
+				right.eval(i, j0, len, y, 0, buffers, level + 1);
+			}
+			ElementKernels k = Matrix.kernels();
+			switch(op) {
+				case ADD: k.add(out, outOff, y, yOff, out, outOff, len); break;
+				case SUB: k.sub(out, outOff, y, yOff, out, outOff, len); break;
+				case MUL: k.mul(out, outOff, y, yOff, out, outOff, len); break;
+				case RDIV: k.div(out, outOff, y, yOff, out, outOff, len); break;
+				default: k.div(y, yOff, out, outOff, out, outOff, len); break;
+			}
+		}
+
+		@Override
+		int depth()
+		{
+			return Math.max(left.depth(), readsRightInPlace() ? 0 : 1 + right.depth());
+		}
+
+		/**
+		 * readsRightInPlace - whether the right operand is a row-major Matrix that can be
+		 * 		read straight from its storage
+		 */
+		private boolean readsRightInPlace()
+		{
+			return right instanceof Leaf && !((Leaf)right).A.transposed();
+		}
+
+		@Override
+		int alias(Matrix C)
+		{
+			return Math.max(left.alias(C), right.alias(C));
+		}
+	}
+
+	/**
+	 * Scale - a subexpression multiplied by a scalar.
+	 */
+	static final class Scale extends MatrixExpression
+	{
+		final MatrixExpression A;
+		final double s;
+
+		Scale(MatrixExpression A, double s)
+		{
+			super(A.m, A.n);
+			this.A = A;
+			this.s = s;
+		}
+
+		@Override
+		void eval(int i, int j0, int len, double[] out, int outOff, double[][] buffers, int level)
+		{
+			A.eval(i, j0, len, out, outOff, buffers, level);
+			if(s == -1) Matrix.kernels().negate(out, outOff, out, outOff, len);
+			else Matrix.kernels().scale(out, outOff, s, out, outOff, len);
+		}
+
+		@Override
+		int depth()
+		{
+			return A.depth();
+		}
+
+		@Override
+		int alias(Matrix C)
+		{
+			return A.alias(C);
+		}
+	}
+}
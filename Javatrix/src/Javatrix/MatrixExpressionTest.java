@@ -0,0 +1,87 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MatrixExpressionTest {
+	private double delta = 1e-12;
+	
+	/*
+	 * Tests a chain of every operation against the eager Matrix operations
+	 */
+	@Test
+	public void testEvaluate() {
+		Matrix A = Matrix.random(13, 600);
+		Matrix B = Matrix.random(13, 600);
+		Matrix C = Matrix.random(13, 600).plus(new Matrix(13, 600, 1));
+		Matrix expected = A.plus(B).minus(C).times(2.5).arrayTimes(B).arrayRightDivide(C).arrayLeftDivide(A).uminus();
+		MatrixExpression e = A.lazy().plus(B).minus(C).times(2.5).arrayTimes(B).arrayRightDivide(C).arrayLeftDivide(A).uminus();
+		assertEquals(13, e.getRowDimension());
+		assertEquals(600, e.getColumnDimension());
+		assertArrayEquals(expected.getRowPackedCopy(), e.evaluate().getRowPackedCopy(), delta);
+	}
+	
+	/*
+	 * Tests nested subexpressions on the right of an operation
+	 */
+	@Test
+	public void testNested() {
+		Matrix A = Matrix.random(7, 300);
+		Matrix B = Matrix.random(7, 300);
+		Matrix C = Matrix.random(7, 300);
+		Matrix expected = A.minus(B.arrayTimes(C.minus(A))).plus(C.times(3).uminus());
+		MatrixExpression inner = B.lazy().arrayTimes(C.lazy().minus(A));
+		MatrixExpression e = A.lazy().minus(inner).plus(C.lazy().times(3).uminus());
+		assertArrayEquals(expected.getRowPackedCopy(), e.evaluate().getRowPackedCopy(), delta);
+		
+		//The same subexpression on both sides
+		assertArrayEquals(inner.evaluate().times(2).getRowPackedCopy(), inner.plus(inner).evaluate().getRowPackedCopy(), delta);
+	}
+	
+	/*
+	 * Tests evaluateInto, including a destination that is also an operand
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testEvaluateInto() {
+		Matrix A = Matrix.random(5, 4);
+		Matrix B = Matrix.random(5, 4);
+		Matrix expected = A.plus(B).times(0.5);
+		Matrix C = new Matrix(5, 4);
+		assertSame(C, A.lazy().plus(B).times(0.5).evaluateInto(C));
+		assertArrayEquals(expected.getRowPackedCopy(), C.getRowPackedCopy(), delta);
+		
+		Matrix D = B.copy();
+		B.lazy().times(0.5).plus(A.lazy().times(0.5)).minus(B).plus(B).evaluateInto(B);
+		assertArrayEquals(D.plus(A).times(0.5).getRowPackedCopy(), B.getRowPackedCopy(), delta);
+		
+		//Test a destination of the wrong shape is rejected
+		A.lazy().plus(B).evaluateInto(new Matrix(4, 5));
+	}
+	
+	/*
+	 * Tests operands of different shapes are rejected when the expression is built
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testDimensionMismatch() {
+		Matrix.random(3, 4).lazy().plus(Matrix.random(4, 3));
+	}
+	
+	/*
+	 * Tests evaluating into a view that overlaps an operand at other positions
+	 */
+	@Test
+	public void testEvaluateIntoView() {
+		double[][] data = {{1, 2}, {3, 4}, {5, 6}};
+		Matrix a = new Matrix(data);
+		Matrix top = a.view(0, 1, 0, 1);
+		Matrix bottom = a.view(1, 2, 0, 1);
+		top.lazy().plus(top).evaluateInto(bottom);
+		double[][] expected = {{1, 2}, {2, 4}, {6, 8}};
+		double[][] actual = a.getArray();
+		for(int i = 0; i < 3; i++) assertArrayEquals(expected[i], actual[i], 0);
+		
+		bottom.lazy().times(2).evaluateInto(bottom);
+		assertArrayEquals(new double[] {4, 8, 12, 16}, bottom.getRowPackedCopy(), 0);
+	}
+}
@@ -0,0 +1,179 @@
+package Javatrix;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MatrixFile - the binary matrix format behind Matrix.write(Path) and Matrix.load(Path).
+ *
+ * A file is a 32 byte little-endian header followed by the raw elements:
+ *
+ *   offset  size  field
+ *        0     4  magic, the bytes "JTRX"
+ *        4     4  format version
+ *        8     4  element type, FLOAT64
+ *       12     4  layout, ROW_MAJOR or COLUMN_MAJOR
+ *       16     8  number of rows
+ *       24     8  number of columns
+ *       32        rows*cols little-endian IEEE 754 elements
+ *
+ * The header keeps the elements 8 byte aligned. Loading maps the file in
+ * chunks and copies each chunk into the matrix with a bulk get, so there is
+ * nothing to parse and values round-trip bit for bit.
+ */
+final class MatrixFile
+{
+	static final int MAGIC = 'J' | 'T' << 8 | 'R' << 16 | 'X' << 24;
+	static final int VERSION = 1;
+	static final int HEADER = 32;
+
+	static final int FLOAT64 = 1;
+
+	static final int ROW_MAJOR = 0;
+	static final int COLUMN_MAJOR = 1;
+
+	/** Largest region mapped or buffered at once, a multiple of the element size. */
+	static final int CHUNK = 1 << 30;
+	/** Size of the staging buffer used when writing. */
+	static final int WRITE_BUFFER = 1 << 20;
+
+	final int dtype;
+	final int layout;
+	final int rows;
+	final int cols;
+
+	MatrixFile(int dtype, int layout, int rows, int cols)
+	{
+		this.dtype = dtype;
+		this.layout = layout;
+		this.rows = rows;
+		this.cols = cols;
+	}
+
+	/**
+	 * readHeader - reads and validates the header at the start of the channel
+	 *
+	 * @throws IOException - If the channel does not hold a matrix this version understands
+	 */
+	static MatrixFile readHeader(FileChannel ch) throws IOException
+	{
+		ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		while(h.hasRemaining()) {
+			if(ch.read(h, h.position()) < 0) throw new IOException("Not a matrix file.");
+		}
+		((Buffer)h).flip();
+		if(h.getInt() != MAGIC) throw new IOException("Not a matrix file.");
+		int version = h.getInt();
+		if(version != VERSION) throw new IOException("Unsupported matrix file version " + version + ".");
+		int dtype = h.getInt();
+		int layout = h.getInt();
+		long rows = h.getLong();
+		long cols = h.getLong();
+		if(dtype != FLOAT64) throw new IOException("Unsupported element type " + dtype + ".");
+		if(layout != ROW_MAJOR && layout != COLUMN_MAJOR) throw new IOException("Unsupported layout " + layout + ".");
+		if(rows < 0 || cols < 0 || rows > Integer.MAX_VALUE || cols > Integer.MAX_VALUE) {
+			throw new IOException("Invalid matrix dimensions " + rows + "x" + cols + ".");
+		}
+		MatrixFile f = new MatrixFile(dtype, layout, (int)rows, (int)cols);
+		if(ch.size() < f.size()) throw new IOException("Matrix file is truncated.");
+		return f;
+	}
+
+	/**
+	 * create - writes a header for a FLOAT64, ROW_MAJOR m x n matrix and extends the
+	 * 		channel to the full file length, so the elements read back as zeros.
+	 */
+	static MatrixFile create(FileChannel ch, int m, int n) throws IOException
+	{
+		MatrixFile f = new MatrixFile(FLOAT64, ROW_MAJOR, m, n);
+		ByteBuffer h = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+		h.putInt(MAGIC).putInt(VERSION).putInt(FLOAT64).putInt(ROW_MAJOR).putLong(m).putLong(n);
+		((Buffer)h).flip();
+		ch.truncate(0);
+		while(h.hasRemaining()) ch.write(h, h.position());
+		if(f.size() > HEADER) {
+			ByteBuffer last = ByteBuffer.allocate(1);
+			while(last.hasRemaining()) ch.write(last, f.size() - 1);
+		}
+		return f;
+	}
+
+	/**
+	 * size - the total file length in bytes
+	 */
+	long size()
+	{
+		return HEADER + (long)rows * cols * 8;
+	}
+
+	/**
+	 * write - writes an m x n row-major block as a FLOAT64, ROW_MAJOR file
+	 */
+	static void write(Path path, double[] a, int aOff, int lda, int m, int n) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+			buf.putInt(MAGIC).putInt(VERSION).putInt(FLOAT64).putInt(ROW_MAJOR).putLong(m).putLong(n);
+
+			DoubleBuffer d = null;
+			for (int i = 0; i < m; i++) {
+				int row = aOff + i * lda;
+				for (int j = 0; j < n; ) {
+					if(d == null) {
+						d = buf.asDoubleBuffer();
+					}
+					int len = Math.min(n - j, d.remaining());
+					d.put(a, row + j, len);
+					j += len;
+					if(!d.hasRemaining()) {
+						((Buffer)buf).position(buf.position() + d.position() * 8);
+						drain(ch, buf);
+						d = null;
+					}
+				}
+			}
+			if(d != null) ((Buffer)buf).position(buf.position() + d.position() * 8);
+			drain(ch, buf);
+		}
+	}
+
+	private static void drain(FileChannel ch, ByteBuffer buf) throws IOException
+	{
+		((Buffer)buf).flip();
+		while(buf.hasRemaining()) ch.write(buf);
+		((Buffer)buf).clear();
+	}
+
+	/**
+	 * load - reads a whole file into a new Matrix
+	 */
+	static Matrix load(Path path) throws IOException
+	{
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			MatrixFile f = readHeader(ch);
+			if((long)f.rows * f.cols > Integer.MAX_VALUE) {
+				throw new IOException("Matrix " + f.rows + "x" + f.cols + " is too large to load, use MappedMatrix.");
+			}
+			int total = f.rows * f.cols;
+			double[] data = new double[total];
+			int chunk = CHUNK / 8;
+			for (long start = 0; start < total; start += chunk) {
+				int len = (int)Math.min(chunk, total - start);
+				MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, HEADER + start * 8, (long)len * 8);
+				map.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(data, (int)start, len);
+			}
+			if(f.layout == COLUMN_MAJOR) {
+				return new Matrix(f.cols, f.rows, data).transpose();
+			}
+			return new Matrix(f.rows, f.cols, data);
+		}
+	}
+}
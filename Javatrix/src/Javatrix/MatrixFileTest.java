@@ -0,0 +1,79 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MatrixFileTest {
+	private Path file;
+	
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("matrix", ".bin");
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+	
+	/*
+	 * Tests a strided block larger than the write buffer round trips
+	 */
+	@Test
+	public void testWriteStrided() throws IOException {
+		int m = 450, n = 333, lda = 400;
+		double[] a = new double[m * lda];
+		for(int i = 0; i < a.length; i++) a[i] = i * 0.5;
+		MatrixFile.write(file, a, 7, lda, m, n);
+		Matrix b = MatrixFile.load(file);
+		for(int i = 0; i < m; i++) {
+			for(int j = 0; j < n; j++) {
+				assertEquals(a[7 + i * lda + j], b.get(i, j), 0);
+			}
+		}
+	}
+	
+	/*
+	 * Tests column-major files are transposed into place
+	 */
+	@Test
+	public void testColumnMajor() throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(MatrixFile.HEADER + 6 * 8).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(MatrixFile.MAGIC).putInt(MatrixFile.VERSION).putInt(MatrixFile.FLOAT64)
+			.putInt(MatrixFile.COLUMN_MAJOR).putLong(2).putLong(3);
+		for(int i = 1; i <= 6; i++) buf.putDouble(i);
+		Files.write(file, buf.array());
+		double[][] expected = {{1, 3, 5}, {2, 4, 6}};
+		double[][] actual = MatrixFile.load(file).getArray();
+		for(int i = 0; i < 2; i++) assertArrayEquals(expected[i], actual[i], 0);
+	}
+	
+	/*
+	 * Tests files that are not matrices are rejected
+	 */
+	@Test
+	public void testInvalid() throws IOException {
+		Files.write(file, "not a matrix file at all, really".getBytes("US-ASCII"));
+		try {
+			MatrixFile.load(file);
+			fail("accepted a text file");
+		} catch(IOException e) {}
+		
+		new Matrix(4, 4, 1.0).write(file);
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 8));
+		try {
+			MatrixFile.load(file);
+			fail("accepted a truncated file");
+		} catch(IOException e) {}
+	}
+}
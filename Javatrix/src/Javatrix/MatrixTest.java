@@ -8,8 +8,11 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 public class MatrixTest {
@@ -27,11 +30,10 @@ public class MatrixTest {
 		double[][] actual = m.getArray();
 		for(int i = 0; i < 3; i++) assertArrayEquals(expected[i], actual[i], delta);
 		
-		//Test changing array from getArray changes the matrix
-		double[][] expected2 = {{0f, 1f, 2f},{3f, 4f, 5f},{6f, 7f, 3.2}};
+		//Test changing array from getArray doesn't change the matrix
 		actual[2][2] = 3.2;
 		double[][] actual2 = m.getArray();
-		for(int i = 0; i < 3; i++) assertArrayEquals(expected2[i], actual2[i], delta);
+		for(int i = 0; i < 3; i++) assertArrayEquals(expected[i], actual2[i], delta);
 		
 		//Test jagged arrays throw an exception
 		double[][] jagged = {{0f},{1f, 2f},{3f, 4f, 5f}};
@@ -103,6 +105,25 @@ public class MatrixTest {
 		for(int i = 0; i < 3; i++) assertArrayEquals(expected[i], actual[i], delta);
 	}
 	
+	/*
+	 * Tests a size whose element count overflows an int is rejected rather than wrapped
+	 */
+	@Test
+	public void testTooLargeConstructor() {
+		try {
+			new Matrix(65536, 65537);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			new Matrix(new double[][] {{1}}, 65536, 65537);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			new Matrix(-2, -3);
+			fail();
+		} catch(NegativeArraySizeException e) {}
+	}
+	
 	/*
 	 * Test the constructor that initializes a matrix to a specified value.
 	 */
@@ -167,6 +188,8 @@ public class MatrixTest {
 
 		//Test change to one matrix doesn't affect the other
 		t.set(2, 2, 3.2);
+		expected = mat.getArray();
+		actual = t.getArray();
 		for(int i = 0; i < 3; i++) assertArrayEquals(data[i], expected[i], delta);
 		for(int i = 0; i < 3; i++) assertArrayEquals(data2[i], actual[i], delta);
 	}
@@ -353,6 +376,182 @@ public class MatrixTest {
 		double[][] data = {{.1,.2,.3}, {.4,.5,.6}, {.7,.8,.9}};
 		Matrix m = new Matrix(data);
 		assertEquals(m.normF(), 1.6881943016134132, delta);
+	}
+	
+	/*
+	 * Tests normF does not overflow or underflow when the norm itself is representable
+	 */
+	@Test
+	public void testNormFRange()
+	{
+		Matrix big = new Matrix(300, 400, 1e200);
+		assertEquals(1e200 * Math.sqrt(120000), big.normF(), 1e188);
+		Matrix small = new Matrix(300, 400, 1e-200);
+		assertEquals(1e-200 * Math.sqrt(120000), small.normF(), 1e-212);
+		
+		//Rows mixing both ends of the range, and an all-zero row
+		double[][] data = {{3e200, 1e-300, 4e200}, {0, 0, 0}, {3e-200, 4e-200, 0}};
+		Matrix m = new Matrix(data);
+		assertEquals(5e200, m.normF(), 1e188);
+		assertEquals(5e200, m.transpose().normF(), 1e188);
+		assertEquals(5e-200, m.view(1, 2, 0, 2).normF(), 1e-212);
+		assertEquals(0, new Matrix(3, 4).normF(), 0);
+		assertEquals(0, new Matrix(0, 4).normF(), 0);
+		
+		m.set(1, 1, Double.POSITIVE_INFINITY);
+		assertEquals(Double.POSITIVE_INFINITY, m.normF(), 0);
+		m.set(1, 1, Double.NaN);
+		assertTrue(Double.isNaN(m.normF()));
+	}
+	
+	/*
+	 * Tests sum, min, max, rowSums and columnSums, on views and transposes
+	 */
+	@Test
+	public void testReductions()
+	{
+		double[][] data = {{1, -2, 3}, {-4, 5, -6}};
+		Matrix a = new Matrix(data);
+		assertEquals(-3, a.sum(), 0);
+		assertEquals(-6, a.min(), 0);
+		assertEquals(5, a.max(), 0);
+		assertArrayEquals(new double[] {2, -5}, a.rowSums(), 0);
+		assertArrayEquals(new double[] {-3, 3, -3}, a.columnSums(), 0);
+		assertEquals(9, a.norm1(), 0);
+		assertEquals(15, a.normInF(), 0);
+		
+		Matrix t = a.transposeView();
+		assertEquals(-3, t.sum(), 0);
+		assertArrayEquals(new double[] {-3, 3, -3}, t.rowSums(), 0);
+		assertArrayEquals(new double[] {2, -5}, t.columnSums(), 0);
+		assertEquals(15, t.norm1(), 0);
+		assertEquals(9, t.normInF(), 0);
+		
+		Matrix v = a.view(0, 1, 1, 2);
+		assertEquals(0, v.sum(), 0);
+		assertEquals(-6, v.min(), 0);
+		assertArrayEquals(new double[] {1, -1}, v.rowSums(), 0);
+		assertArrayEquals(new double[] {3, -3}, v.columnSums(), 0);
+		
+		//Cancellation the compensated sums recover exactly
+		double[][] c = {{1e16, 1, -1e16, 1}, {1, 1e16, 1, -1e16}};
+		Matrix b = new Matrix(c);
+		assertEquals(4, b.sum(), 0);
+		assertArrayEquals(new double[] {2, 2}, b.rowSums(), 0);
+		assertArrayEquals(new double[] {2, 2}, b.transpose().columnSums(), 0);
+		assertArrayEquals(new double[] {1e16 + 1, 1e16 + 1, -1e16 + 1, -1e16 + 1}, b.columnSums(), 0);
+		assertEquals(1e16, new Matrix(new double[][] {{1e16, 1, -1}, {1, -1, 0}}).trace(), 0);
+		
+		//Empty matrices and NaN elements
+		Matrix e = new Matrix(0, 3);
+		assertEquals(0, e.sum(), 0);
+		assertEquals(Double.POSITIVE_INFINITY, e.min(), 0);
+		assertEquals(Double.NEGATIVE_INFINITY, e.max(), 0);
+		assertArrayEquals(new double[3], e.columnSums(), 0);
+		assertEquals(0, e.norm1(), 0);
+		a.set(0, 0, Double.NaN);
+		assertTrue(Double.isNaN(a.min()));
+		assertTrue(Double.isNaN(a.max()));
+	}
+	
+	/*
+	 * Tests infinite, NaN and overflowing elements give the plain sums, not NaN from
+	 * the compensation
+	 */
+	@Test
+	public void testReductionsNonFinite()
+	{
+		double inf = Double.POSITIVE_INFINITY;
+		Matrix a = new Matrix(new double[][] {{inf, 1}, {2, 3}});
+		assertEquals(inf, a.trace(), 0);
+		assertEquals(inf, a.sum(), 0);
+		assertArrayEquals(new double[] {inf, 5}, a.rowSums(), 0);
+		assertArrayEquals(new double[] {inf, 4}, a.columnSums(), 0);
+		assertEquals(-inf, a.transposeView().times(-1).sum(), 0);
+		
+		Matrix o = new Matrix(new double[][] {{1e308, 1e308}, {1e308, 1e308}});
+		assertEquals(inf, o.sum(), 0);
+		assertEquals(inf, o.trace(), 0);
+		assertArrayEquals(new double[] {inf, inf}, o.rowSums(), 0);
+		assertArrayEquals(new double[] {inf, inf}, o.columnSums(), 0);
+		
+		Matrix n = new Matrix(new double[][] {{Double.NaN, 1}, {2, 3}});
+		assertTrue(Double.isNaN(n.sum()));
+		assertTrue(Double.isNaN(n.trace()));
+		assertTrue(Double.isNaN(n.rowSums()[0]));
+		assertEquals(5, n.rowSums()[1], 0);
+		assertTrue(Double.isNaN(n.columnSums()[0]));
+		assertEquals(4, n.columnSums()[1], 0);
+		assertTrue(Double.isNaN(new Matrix(new double[][] {{inf, -inf}}).sum()));
+		
+		Matrix big = new Matrix(300, 300, 1);
+		big.set(150, 7, inf);
+		int p = Matrix.getParallelism();
+		long t = Matrix.getParallelThreshold();
+		try {
+			Matrix.setParallelism(3);
+			Matrix.setParallelThreshold(0);
+			assertEquals(inf, big.sum(), 0);
+			assertEquals(inf, big.columnSums()[7], 0);
+			assertEquals(300, big.columnSums()[8], 0);
+		} finally {
+			Matrix.setParallelism(p);
+			Matrix.setParallelThreshold(t);
+		}
+	}
+	
+	/*
+	 * Tests the reductions split across the shared pool give the serial results exactly
+	 */
+	@Test
+	public void testReductionsParallel()
+	{
+		Matrix big = Matrix.random(700, 900);
+		Matrix[] ms = {big, big.view(3, 690, 5, 880), big.transposeView(), Matrix.random(1, 100000)};
+		int p = Matrix.getParallelism();
+		long t = Matrix.getParallelThreshold();
+		try {
+			for(Matrix a : ms) {
+				Matrix.setParallelism(1);
+				double[] expected = {a.sum(), a.min(), a.max(), a.normF(), a.norm1(), a.normInF()};
+				double[] rows = a.rowSums(), cols = a.columnSums();
+				Matrix.setParallelism(3);
+				Matrix.setParallelThreshold(0);
+				double[] actual = {a.sum(), a.min(), a.max(), a.normF(), a.norm1(), a.normInF()};
+				assertArrayEquals(expected, actual, 0);
+				assertArrayEquals(rows, a.rowSums(), 0);
+				assertArrayEquals(cols, a.columnSums(), 0);
+				Matrix.setParallelThreshold(t);
+				
+				double[][] x = a.getArray();
+				double sum = 0, ssq = 0, max1 = 0, maxInF = 0;
+				for(int i = 0; i < x.length; i++) {
+					double r = 0;
+					for(int j = 0; j < x[i].length; j++) {
+						sum += x[i][j];
+						ssq += x[i][j] * x[i][j];
+						r += Math.abs(x[i][j]);
+					}
+					assertEquals(r, rows[i], 1e-12 * r);
+					maxInF = Math.max(maxInF, r);
+				}
+				for(int j = 0; j < x[0].length; j++) {
+					double c = 0;
+					for(int i = 0; i < x.length; i++) c += x[i][j];
+					assertEquals(c, cols[j], 1e-12 * Math.abs(c));
+					c = 0;
+					for(int i = 0; i < x.length; i++) c += Math.abs(x[i][j]);
+					max1 = Math.max(max1, c);
+				}
+				assertEquals(sum, expected[0], 1e-12 * sum);
+				assertEquals(Math.sqrt(ssq), expected[3], 1e-12 * expected[3]);
+				assertEquals(max1, expected[4], 1e-12 * max1);
+				assertEquals(maxInF, expected[5], 1e-12 * maxInF);
+			}
+		} finally {
+			Matrix.setParallelThreshold(t);
+			Matrix.setParallelism(p);
+		}
 	}
 	
 	/*
@@ -818,6 +1017,242 @@ public class MatrixTest {
 		for(int i = 0; i < 2; i++) assertArrayEquals(expected[i], actual[i], delta);
 	}
 	
+	/*
+	 * Tests times (linear) on operands large enough to go through the blocked kernel,
+	 * against a naive triple loop.
+	 */
+	@Test
+	public void testTimesBlocked() {
+		Matrix a = Matrix.random(150, 301);
+		Matrix b = Matrix.random(301, 77);
+		double[][] actual = a.times(b).getArray();
+		for(int i = 0; i < 150; i++) {
+			for(int j = 0; j < 77; j++) {
+				double expected = 0;
+				for(int k = 0; k < 301; k++) expected += a.get(i, k) * b.get(k, j);
+				assertEquals(expected, actual[i][j], delta * Math.abs(expected));
+			}
+		}
+	}
+	
+	/*
+	 * Tests scaleRows and scaleColumns, in place on plain matrices, views and transposed views
+	 */
+	@Test
+	public void testScale() {
+		Matrix a = Matrix.random(3, 4);
+		double[] r = {2, -1, 0.5}, c = {1, 3, -2, 0};
+		Matrix expected = new DiagonalMatrix(r).toMatrix().times(a).times(new DiagonalMatrix(c).toMatrix());
+		Matrix b = a.copy();
+		assertSame(b, b.scaleRows(r).scaleColumns(c));
+		assertArrayEquals(expected.getRowPackedCopy(), b.getRowPackedCopy(), 0);
+		Matrix t = a.transpose().transposeView();
+		t.scaleColumns(c).scaleRows(r);
+		assertArrayEquals(expected.getRowPackedCopy(), t.getRowPackedCopy(), 0);
+		Matrix big = new Matrix(5, 6);
+		big.setBlock(1, 1, a);
+		big.view(1, 3, 1, 4).scaleRows(r).scaleColumns(c);
+		assertArrayEquals(expected.getRowPackedCopy(), big.getMatrix(1, 3, 1, 4).getRowPackedCopy(), 0);
+		try {
+			a.scaleRows(c);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+	
+	/*
+	 * Tests the unrolled small-matrix products, on views, transposes and into destinations
+	 */
+	@Test
+	public void testTimesSmall() {
+		Matrix big = Matrix.random(7, 9);
+		for(int s = 2; s <= 4; s++) {
+			Matrix a = big.view(1, s, 2, s + 1), b = big.view(3, s + 2, 0, s - 1);
+			Matrix[][] pairs = {{a, b}, {a.transposeView(), b}, {a, a}, {b, a.transposeView()}};
+			for(Matrix[] p : pairs) {
+				Matrix x = p[0], y = p[1];
+				Matrix product = x.times(y), into = new Matrix(9, 9).view(2, s + 1, 3, s + 2);
+				x.times(y, into);
+				for(int i = 0; i < s; i++) {
+					for(int j = 0; j < s; j++) {
+						double expected = 0;
+						for(int k = 0; k < s; k++) expected += x.get(i, k) * y.get(k, j);
+						assertEquals(expected, product.get(i, j), 1e-15);
+						assertEquals(expected, into.get(i, j), 1e-15);
+					}
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Tests times (linear) on a ForkJoinPool against the single-threaded product
+	 */
+	@Test
+	public void testTimesParallel() {
+		Matrix a = Matrix.random(517, 300);
+		Matrix b = Matrix.random(300, 389);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		double[][] actual = a.times(b, pool).getArray();
+		pool.shutdown();
+		
+		int p = Matrix.getParallelism();
+		Matrix.setParallelism(1);
+		double[][] expected = a.times(b).getArray();
+		Matrix.setParallelism(p);
+		for(int i = 0; i < 517; i++) assertArrayEquals(expected[i], actual[i], delta * 1e3);
+	}
+	
+	/*
+	 * Tests changing the parallelism leaves the old pool usable for products already on it
+	 */
+	@Test
+	public void testSetParallelismKeepsOldPool() {
+		int p = Matrix.getParallelism();
+		long t = Matrix.getParallelThreshold();
+		try {
+			Matrix.setParallelism(2);
+			Matrix.setParallelThreshold(0);
+			ForkJoinPool before = Matrix.sharedPool(1);
+			Matrix.setParallelism(3);
+			ForkJoinPool after = Matrix.sharedPool(1);
+			assertFalse(before.isShutdown());
+			assertEquals(3, after.getParallelism());
+			assertSame(after, Matrix.sharedPool(1));
+			
+			//A product that picked up the old pool still completes on it
+			Matrix a = Matrix.random(40, 40), b = Matrix.random(40, 40);
+			assertArrayEquals(b.times(a).getRowPackedCopy(), b.times(a, before).getRowPackedCopy(), 1e-12);
+		} finally {
+			Matrix.setParallelThreshold(t);
+			Matrix.setParallelism(p);
+		}
+	}
+	
+	/*
+	 * Tests the parallelism and threshold settings
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testParallelSettings() {
+		int p = Matrix.getParallelism();
+		long t = Matrix.getParallelThreshold();
+		try {
+			Matrix.setParallelThreshold(0);
+			assertEquals(0, Matrix.getParallelThreshold());
+			Matrix a = Matrix.random(5, 6);
+			Matrix b = Matrix.random(6, 7);
+			Matrix.setParallelism(3);
+			assertEquals(3, Matrix.getParallelism());
+			double[][] actual = a.times(b).getArray();
+			for(int i = 0; i < 5; i++) {
+				for(int j = 0; j < 7; j++) {
+					double expected = 0;
+					for(int k = 0; k < 6; k++) expected += a.get(i, k) * b.get(k, j);
+					assertEquals(expected, actual[i][j], delta);
+				}
+			}
+		} finally {
+			Matrix.setParallelThreshold(t);
+			Matrix.setParallelism(p);
+		}
+		
+		//Test a non-positive thread count is rejected
+		Matrix.setParallelism(0);
+	}
+	
+	/*
+	 * Tests timesStrassen against times, on odd and even shapes, within its error bound
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testTimesStrassen() {
+		int c = Matrix.getStrassenCrossover();
+		try {
+			Matrix.setStrassenCrossover(16);
+			int[][] shapes = {{128, 128, 128}, {101, 77, 133}, {64, 129, 65}};
+			for(int[] s : shapes) {
+				Matrix a = Matrix.random(s[0], s[1]);
+				Matrix b = Matrix.random(s[1], s[2]);
+				double[][] expected = a.times(b).getArray();
+				double[][] actual = a.timesStrassen(b).getArray();
+				double bound = a.strassenErrorBound(b);
+				assertTrue(bound > 0);
+				for(int i = 0; i < s[0]; i++) assertArrayEquals(expected[i], actual[i], bound);
+			}
+		} finally {
+			Matrix.setStrassenCrossover(c);
+		}
+		
+		//Test mismatched dimensions are rejected
+		Matrix.random(3, 4).timesStrassen(Matrix.random(3, 4));
+	}
+	
+	/*
+	 * Tests the element-wise operations give the same results with and without the SIMD kernels
+	 */
+	@Test
+	public void testVectorized() {
+		Matrix a = Matrix.random(37, 29);
+		Matrix b = Matrix.random(37, 29).plus(new Matrix(37, 29, 1));
+		boolean wasVectorized = Matrix.isVectorized();
+		Matrix[][] results = new Matrix[2][];
+		for(int r = 0; r < 2; r++) {
+			assertEquals(Matrix.setVectorized(r == 1), Matrix.isVectorized());
+			results[r] = new Matrix[] {a.plus(b), a.minus(b), a.arrayTimes(b), a.arrayLeftDivide(b),
+				a.arrayRightDivide(b), a.times(2.5), a.uminus(), a.copy().plusEquals(b), a.copy().minusEquals(b),
+				a.copy().arrayTimesEquals(b), a.copy().arrayLeftDivideEquals(b),
+				a.copy().arrayRightDivideEquals(b), a.copy().timesEquals(2.5)};
+		}
+		Matrix.setVectorized(wasVectorized);
+		assertFalse(Matrix.setVectorized(false));
+		assertFalse(Matrix.isVectorized());
+		Matrix.setVectorized(wasVectorized);
+		for(int i = 0; i < results[0].length; i++) {
+			assertArrayEquals(results[0][i].getRowPackedCopy(), results[1][i].getRowPackedCopy(), 0);
+		}
+	}
+	
+	/*
+	 * Tests solve
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testSolve() {
+		double[][] data = {{2, 1, 1}, {4, -6, 0}, {-2, 7, 2}};
+		double[][] rhs = {{5, 1}, {-2, 4}, {9, -4}};
+		Matrix a = new Matrix(data);
+		Matrix x = a.solve(new Matrix(rhs));
+		double[][] expected = {{1, 1}, {1, 0}, {2, -1}};
+		double[][] actual = x.getArray();
+		for(int i = 0; i < 3; i++) assertArrayEquals(expected[i], actual[i], delta);
+		
+		//Test non-square matrices are rejected
+		Matrix.random(3, 4).solve(Matrix.random(3, 1));
+	}
+	
+	/*
+	 * Tests inverse
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testInverse() {
+		double[][] data = {{4, 7}, {2, 6}};
+		double[][] expected = {{0.6, -0.7}, {-0.2, 0.4}};
+		double[][] actual = new Matrix(data).inverse().getArray();
+		for(int i = 0; i < 2; i++) assertArrayEquals(expected[i], actual[i], delta);
+		
+		//Test singular matrices are rejected
+		double[][] singular = {{1, 2}, {2, 4}};
+		new Matrix(singular).inverse();
+	}
+	
+	/*
+	 * Tests det
+	 */
+	@Test
+	public void testDet() {
+		double[][] data = {{2, 1, 1}, {4, -6, 0}, {-2, 7, 2}};
+		assertEquals(-16, new Matrix(data).det(), delta);
+		double[][] singular = {{1, 2}, {2, 4}};
+		assertEquals(0, new Matrix(singular).det(), delta);
+	}
+	
 	/*
 	 * Test read
 	 */
@@ -834,4 +1269,352 @@ public class MatrixTest {
 			for(int i = 0; i < 4; i++) assertArrayEquals(expected[i], actual[i], delta);
 		} catch(IOException e) {fail(e.toString());}
 	}
+	
+	/*
+	 * Test read with tabs, short rows, long rows and what is left on the stream
+	 */
+	@Test
+	public void testReadLayout() throws IOException {
+		String data = "1\t2.5e1  -3\n\t4 \n7 8 9\n\nrest";
+		BufferedReader input = new BufferedReader(new StringReader(data));
+		double[][] expected = {{1, 25, -3}, {4, 0, 0}, {7, 8, 9}};
+		double[][] actual = Matrix.read(input).getArray();
+		for(int i = 0; i < 3; i++) assertArrayEquals(expected[i], actual[i], 0);
+		assertEquals("rest", input.readLine());
+		
+		assertNull(Matrix.read(new BufferedReader(new StringReader("1 2\n3 4 5\n"))));
+		assertNull(Matrix.read(new BufferedReader(new StringReader(""))));
+	}
+	
+	/*
+	 * Test write and load round trip bit for bit
+	 */
+	@Test
+	public void testWriteLoad() throws IOException {
+		Path file = Files.createTempFile("matrix", ".bin");
+		try {
+			Matrix a = Matrix.random(37, 150);
+			a.set(0, 0, -0.0);
+			a.set(1, 1, Double.NaN);
+			a.set(2, 2, Double.MIN_VALUE);
+			a.write(file);
+			assertEquals(32 + 37 * 150 * 8, Files.size(file));
+			Matrix b = Matrix.load(file);
+			assertEquals(37, b.getRowDimension());
+			assertEquals(150, b.getColumnDimension());
+			double[] expected = a.getRowPackedCopy();
+			double[] actual = b.getRowPackedCopy();
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	/*
+	 * Tests views share storage with the parent and work with every kind of operation
+	 */
+	@Test
+	public void testView() {
+		double[][] data = {{0,1,2,3,4},{5,6,7,8,9},{10,11,12,13,14},{15,16,17,18,19}};
+		Matrix m = new Matrix(data);
+		Matrix v = m.view(1, 2, 1, 3);
+		assertEquals(2, v.getRowDimension());
+		assertEquals(3, v.getColumnDimension());
+		assertEquals(13, v.get(1, 2), 0);
+		
+		//Writes go through in both directions
+		v.set(0, 0, -6);
+		assertEquals(-6, m.get(1, 1), 0);
+		m.set(2, 3, -13);
+		assertEquals(-13, v.get(1, 2), 0);
+		
+		//In place operations only touch the window
+		v.plusEquals(new Matrix(2, 3, 100));
+		double[][] expected = {{0,1,2,3,4},{5,94,107,108,9},{10,111,112,87,14},{15,16,17,18,19}};
+		double[][] actual = m.getArray();
+		for(int i = 0; i < 4; i++) assertArrayEquals(expected[i], actual[i], delta);
+		
+		//Other operations see only the window
+		Matrix w = m.view(0, 3, 1, 1);
+		assertArrayEquals(new double[] {1, 94, 111, 16}, w.getColumnPackedCopy(), delta);
+		assertArrayEquals(new double[] {94, 107, 108, 111, 112, 87}, v.copy().getRowPackedCopy(), delta);
+		assertArrayEquals(v.copy().transpose().getRowPackedCopy(), v.transpose().getRowPackedCopy(), delta);
+		assertArrayEquals(v.copy().times(w.view(0, 2, 0, 0)).getRowPackedCopy(),
+			v.times(m.view(0, 2, 1, 1)).getRowPackedCopy(), delta);
+		assertEquals(v.copy().normF(), v.normF(), delta);
+		assertEquals(v.copy().norm1(), v.norm1(), delta);
+		assertEquals(1 + 94 + 111 + 16, w.norm1(), delta);
+		
+		//Views of views
+		Matrix vv = v.view(1, 1, 1, 2);
+		assertArrayEquals(new double[] {112, 87}, vv.getRowPackedCopy(), delta);
+		assertEquals(0, m.view(2, 1, 0, 4).getRowDimension());
+	}
+	
+	/*
+	 * Tests view bounds
+	 */
+	@Test(expected=ArrayIndexOutOfBoundsException.class)
+	public void testViewBounds() {
+		Matrix m = new Matrix(3, 3);
+		m.view(1, 2, 1, 2).view(0, 1, 0, 2);
+	}
+	
+	/*
+	 * Tests setBlock indexes its source relative to the block
+	 */
+	@Test
+	public void testSetBlock() {
+		Matrix m = new Matrix(4, 5);
+		double[][] block = {{1, 2}, {3, 4}};
+		m.setBlock(1, 2, new Matrix(block));
+		m.setBlock(new int[] {3, 0}, new int[] {4, 0}, new Matrix(block));
+		double[][] expected = {{4,0,0,0,3},{0,0,1,2,0},{0,0,3,4,0},{2,0,0,0,1}};
+		double[][] actual = m.getArray();
+		for(int i = 0; i < 4; i++) assertArrayEquals(expected[i], actual[i], delta);
+		
+		//getMatrix with an offset range
+		double[][] sub = m.getMatrix(1, 2, 2, 3).getArray();
+		for(int i = 0; i < 2; i++) assertArrayEquals(block[i], sub[i], delta);
+		assertArrayEquals(new double[] {1, 2}, m.getMatrix(new int[] {1}, 2, 3).getRowPackedCopy(), delta);
+		assertArrayEquals(new double[] {2, 4}, m.getMatrix(1, 2, new int[] {3}).getRowPackedCopy(), delta);
+		
+		try {
+			m.setBlock(3, 4, new Matrix(block));
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+		try {
+			m.setBlock(new int[] {0}, new int[] {0}, new Matrix(block));
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+	
+	/*
+	 * Tests the in place operations and setBlock with a source view that overlaps the
+	 * destination at other positions
+	 */
+	@Test
+	public void testShiftedOverlap() {
+		double[][] data = {{1, 1}, {2, 2}, {3, 3}, {4, 4}};
+		Matrix p = new Matrix(data);
+		p.view(1, 3, 0, 1).plusEquals(p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 3, 3, 5, 5, 7, 7}, p.getRowPackedCopy(), 0);
+		p = new Matrix(data);
+		p.view(1, 3, 0, 1).minusEquals(p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 1, 1, 1, 1, 1, 1}, p.getRowPackedCopy(), 0);
+		p = new Matrix(data);
+		p.view(1, 3, 0, 1).arrayTimesEquals(p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 2, 2, 6, 6, 12, 12}, p.getRowPackedCopy(), 0);
+		p = new Matrix(data);
+		p.view(1, 3, 0, 1).arrayRightDivideEquals(p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 2, 2, 1.5, 1.5, 4/3.0, 4/3.0}, p.getRowPackedCopy(), 0);
+		p = new Matrix(data);
+		p.view(1, 3, 0, 1).arrayLeftDivideEquals(p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 0.5, 0.5, 2/3.0, 2/3.0, 0.75, 0.75}, p.getRowPackedCopy(), 0);
+		p = new Matrix(data);
+		p.transposeView().view(0, 1, 1, 3).plusEquals(p.view(0, 2, 0, 1).transposeView());
+		assertArrayEquals(new double[] {1, 1, 3, 3, 5, 5, 7, 7}, p.getRowPackedCopy(), 0);
+		
+		p = new Matrix(data);
+		p.setBlock(1, 0, p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 1, 1, 2, 2, 3, 3}, p.getRowPackedCopy(), 0);
+		p = new Matrix(data);
+		p.setBlock(new int[] {1, 2, 3}, new int[] {0, 1}, p.view(0, 2, 0, 1));
+		assertArrayEquals(new double[] {1, 1, 1, 1, 2, 2, 3, 3}, p.getRowPackedCopy(), 0);
+		Matrix q = new Matrix(new double[][] {{1, 2}, {3, 4}});
+		q.setBlock(new int[] {1, 0}, new int[] {0, 1}, q);
+		assertArrayEquals(new double[] {3, 4, 1, 2}, q.getRowPackedCopy(), 0);
+	}
+	
+	/*
+	 * Tests setMatrix reads X at the same positions even when X has the size of the block
+	 */
+	@Test
+	public void testSetMatrixAbsolute() {
+		double[][] data = {{1, 2}, {3, 4}};
+		Matrix m = new Matrix(data);
+		m.setMatrix(new int[] {1, 0}, new int[] {0, 1}, m.copy());
+		assertArrayEquals(new double[] {1, 2, 3, 4}, m.getRowPackedCopy(), 0);
+		Matrix x = new Matrix(data);
+		Matrix n = new Matrix(4, 4);
+		n.setMatrix(0, 1, 0, 1, x);
+		n.setMatrix(new int[] {1}, 0, 1, x);
+		assertArrayEquals(new double[] {1,2,0,0, 3,4,0,0, 0,0,0,0, 0,0,0,0}, n.getRowPackedCopy(), 0);
+		try {
+			n.setMatrix(2, 3, 2, 3, x);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+	
+	/*
+	 * Tests transposeInPlace, on a whole matrix and on a square view
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testTransposeInPlace() {
+		Matrix a = Matrix.random(70, 70);
+		Matrix t = a.transpose();
+		assertSame(a, a.transposeInPlace());
+		assertArrayEquals(t.getRowPackedCopy(), a.getRowPackedCopy(), 0);
+		
+		double[][] data = {{1,2,3},{4,5,6},{7,8,9}};
+		Matrix m = new Matrix(data);
+		m.view(1, 2, 1, 2).transposeInPlace();
+		assertArrayEquals(new double[] {1,2,3,4,5,8,7,6,9}, m.getRowPackedCopy(), 0);
+		
+		//Non-square matrices are rejected
+		Matrix.random(2, 3).transposeInPlace();
+	}
+	
+	/*
+	 * Tests transposed views read, write and take part in operations without copying
+	 */
+	@Test
+	public void testTransposeView() {
+		Matrix a = Matrix.random(37, 53);
+		Matrix t = a.transposeView();
+		Matrix c = a.transpose();
+		assertEquals(53, t.getRowDimension());
+		assertEquals(37, t.getColumnDimension());
+		assertEquals(a.get(5, 40), t.get(40, 5), 0);
+		t.set(40, 5, -1);
+		assertEquals(-1, a.get(5, 40), 0);
+		c.set(40, 5, -1);
+		
+		assertArrayEquals(c.getRowPackedCopy(), t.getRowPackedCopy(), 0);
+		assertArrayEquals(c.getColumnPackedCopy(), t.getColumnPackedCopy(), 0);
+		assertArrayEquals(c.getRowPackedCopy(), t.copy().getRowPackedCopy(), 0);
+		assertArrayEquals(a.getRowPackedCopy(), t.transpose().getRowPackedCopy(), 0);
+		assertArrayEquals(a.getRowPackedCopy(), t.transposeView().getRowPackedCopy(), 0);
+		assertEquals(c.norm1(), t.norm1(), delta);
+		assertEquals(c.normInF(), t.normInF(), delta);
+		assertEquals(c.normF(), t.normF(), delta);
+		assertEquals(c.trace(), t.trace(), delta);
+		
+		//Products with every combination of transposed operands, small and blocked
+		Matrix b = Matrix.random(37, 80);
+		assertArrayEquals(c.times(b).getRowPackedCopy(), t.times(b).getRowPackedCopy(), 1e-9);
+		assertArrayEquals(b.transpose().times(a).getRowPackedCopy(), b.transposeView().times(a).getRowPackedCopy(), 1e-9);
+		assertArrayEquals(c.times(c.transpose()).getRowPackedCopy(), t.times(a).getRowPackedCopy(), 1e-9);
+		ForkJoinPool pool = new ForkJoinPool(2);
+		assertArrayEquals(c.times(c.transpose()).getRowPackedCopy(), t.times(a, pool).getRowPackedCopy(), 1e-9);
+		pool.shutdown();
+		Matrix s = Matrix.random(3, 4);
+		assertArrayEquals(s.transpose().times(s).getRowPackedCopy(), s.transposeView().times(s).getRowPackedCopy(), 1e-12);
+		assertArrayEquals(s.times(s.transpose()).getRowPackedCopy(), s.times(s.transposeView()).getRowPackedCopy(), 1e-12);
+		
+		//Element-wise operations and views of the transposed view
+		assertArrayEquals(c.plus(c).getRowPackedCopy(), t.plus(t).getRowPackedCopy(), delta);
+		assertArrayEquals(c.arrayTimes(c).getRowPackedCopy(), t.arrayTimes(c).getRowPackedCopy(), delta);
+		assertArrayEquals(c.view(2, 10, 3, 4).getRowPackedCopy(), t.view(2, 10, 3, 4).getRowPackedCopy(), 0);
+		assertArrayEquals(c.getMatrix(new int[] {4, 1}, 2, 6).getRowPackedCopy(), t.getMatrix(new int[] {4, 1}, 2, 6).getRowPackedCopy(), 0);
+		
+		//In place operations write through to the original
+		t.plusEquals(c);
+		t.timesEquals(0.5);
+		assertArrayEquals(c.getRowPackedCopy(), t.getRowPackedCopy(), delta);
+		assertArrayEquals(c.transpose().getRowPackedCopy(), a.getRowPackedCopy(), delta);
+		
+		//Lazy expressions read transposed operands
+		assertArrayEquals(c.plus(c).getRowPackedCopy(), t.lazy().plus(t).evaluate().getRowPackedCopy(), delta);
+	}
+	
+	/*
+	 * Tests the overloads that write into a given destination, including views,
+	 * transposed views and a destination that is one of the operands
+	 */
+	@Test
+	public void testDestination() {
+		Matrix a = Matrix.random(6, 5);
+		Matrix b = Matrix.random(6, 5).plus(new Matrix(6, 5, 1));
+		Matrix c = new Matrix(6, 5);
+		assertSame(c, a.plus(b, c));
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), c.getRowPackedCopy(), 0);
+		assertArrayEquals(a.minus(b).getRowPackedCopy(), a.minus(b, c).getRowPackedCopy(), 0);
+		assertArrayEquals(a.arrayTimes(b).getRowPackedCopy(), a.arrayTimes(b, c).getRowPackedCopy(), 0);
+		assertArrayEquals(a.arrayLeftDivide(b).getRowPackedCopy(), a.arrayLeftDivide(b, c).getRowPackedCopy(), 0);
+		assertArrayEquals(a.arrayRightDivide(b).getRowPackedCopy(), a.arrayRightDivide(b, c).getRowPackedCopy(), 0);
+		assertArrayEquals(a.times(3).getRowPackedCopy(), a.times(3, c).getRowPackedCopy(), 0);
+		assertArrayEquals(a.uminus().getRowPackedCopy(), a.uminus(c).getRowPackedCopy(), 0);
+		
+		Matrix t = new Matrix(5, 6);
+		assertSame(t, a.transpose(t));
+		assertArrayEquals(a.transpose().getRowPackedCopy(), t.getRowPackedCopy(), 0);
+		Matrix p = new Matrix(6, 6, 7);
+		a.times(t, p);
+		assertArrayEquals(a.times(a.transpose()).getRowPackedCopy(), p.getRowPackedCopy(), 1e-12);
+		
+		//A destination that is an operand is updated in place
+		Matrix d = a.copy();
+		d.plus(b, d);
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), d.getRowPackedCopy(), 0);
+		Matrix q = Matrix.random(4, 4);
+		Matrix r = q.copy();
+		r.transpose(r);
+		assertArrayEquals(q.transpose().getRowPackedCopy(), r.getRowPackedCopy(), 0);
+		
+		//Views and transposed views as destinations
+		Matrix big = new Matrix(10, 10);
+		a.plus(b, big.view(2, 7, 3, 7));
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), big.getMatrix(2, 7, 3, 7).getRowPackedCopy(), 0);
+		Matrix tv = new Matrix(5, 6).transposeView();
+		a.minus(b, tv);
+		assertArrayEquals(a.minus(b).getRowPackedCopy(), tv.getRowPackedCopy(), 0);
+		Matrix e = new Matrix(6, 5);
+		a.transpose(e.transposeView());
+		assertArrayEquals(a.getRowPackedCopy(), e.getRowPackedCopy(), 0);
+		Matrix x = Matrix.random(40, 50), y = Matrix.random(50, 60);
+		Matrix z = new Matrix(60, 40).transposeView();
+		x.times(y, z);
+		assertArrayEquals(x.times(y).getRowPackedCopy(), z.getRowPackedCopy(), 1e-12);
+	}
+	
+	/*
+	 * Tests mismatched destinations and ones that partly overlap an operand are rejected,
+	 * while disjoint blocks of the same matrix are accepted
+	 */
+	@Test
+	public void testDestinationErrors() {
+		Matrix a = Matrix.random(6, 6);
+		Matrix big = new Matrix(8, 8);
+		Matrix u = big.view(0, 5, 0, 5), v = big.view(1, 6, 1, 6), w = big.view(0, 5, 6, 7);
+		try {
+			a.plus(new Matrix(6, 5), a.copy());
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			a.plus(a, new Matrix(6, 5));
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			u.plus(a, v);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			a.plus(a, a.transposeView());
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			a.times(a, a);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			u.times(a, v);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			u.transpose(v);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		
+		//Disjoint blocks of one matrix do not overlap
+		Matrix c = big.view(6, 7, 0, 5);
+		u.view(0, 1, 0, 5).plus(u.view(0, 1, 0, 5), c);
+		assertArrayEquals(u.view(0, 1, 0, 5).times(2).getRowPackedCopy(), c.getRowPackedCopy(), 0);
+		w.transpose(c);
+		assertEquals(MatrixExpression.NONE, Matrix.alias(w, c));
+		assertEquals(MatrixExpression.SHIFTED, Matrix.alias(u, v));
+		assertEquals(MatrixExpression.ALIGNED, Matrix.alias(a, a.view(0, 5, 0, 5)));
+	}
 }
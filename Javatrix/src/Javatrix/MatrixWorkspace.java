@@ -0,0 +1,278 @@
+package Javatrix;
+
+/**
+ * MatrixWorkspace - a pool of scratch matrices, recycled by shape.
+ *
+ * Matrices are borrowed inside a scope and all go back to the pool when the
+ * scope closes, so a loop that opens a scope per iteration reuses the same
+ * storage every time:
+ *
+ *   MatrixWorkspace ws = MatrixWorkspace.local();
+ *   for (...) {
+ *       try (MatrixWorkspace.Scope s = ws.scope()) {
+ *           Matrix T = s.get(m, k);
+ *           A.times(B, T).plus(C, T);
+ *           ...
+ *       }
+ *   }
+ *
+ * Borrowed matrices are row-major and their contents are left over from the
+ * previous use; operations that write a destination, such as times(B, C),
+ * overwrite them entirely. Neither a matrix nor any view of it may be used
+ * after its scope closes.
+ *
+ * A workspace belongs to the thread that created it and throws
+ * IllegalStateException when used from another one. Scopes nest and must be
+ * closed innermost first, which try-with-resources does. Scope objects and
+ * shape buckets are kept for reuse too, so once every shape has been seen
+ * borrowing and returning allocates nothing.
+ */
+public final class MatrixWorkspace implements AutoCloseable
+{
+	private static final ThreadLocal<MatrixWorkspace> LOCAL = new ThreadLocal<MatrixWorkspace>();
+
+	private final Thread owner;
+	private Bucket[] buckets = new Bucket[8];
+	private int shapes;
+	private Scope[] scopes = new Scope[4];
+	private int depth;
+	private boolean closed;
+
+	private long hits;
+	private long misses;
+	private long retained;
+
+	/**
+	 * Creates an empty workspace owned by the calling thread.
+	 */
+	public MatrixWorkspace()
+	{
+		owner = Thread.currentThread();
+	}
+
+	/**
+	 * local - Gets the calling thread's own workspace, creating it on first use.
+	 *
+	 * @return MatrixWorkspace
+	 */
+	public static MatrixWorkspace local()
+	{
+		MatrixWorkspace ws = LOCAL.get();
+		if(ws == null || ws.closed) {
+			ws = new MatrixWorkspace();
+			LOCAL.set(ws);
+		}
+		return ws;
+	}
+
+	/**
+	 * scope - Opens a scope nested in any scope that is already open.
+	 *
+	 * @return Scope - closing it returns every matrix borrowed from it
+	 * @throws IllegalStateException - If called from another thread or after close
+	 */
+	public Scope scope() throws IllegalStateException
+	{
+		check();
+		if(depth == scopes.length) {
+			Scope[] s = new Scope[2 * depth];
+			System.arraycopy(scopes, 0, s, 0, depth);
+			scopes = s;
+		}
+		Scope s = scopes[depth];
+		if(s == null) s = scopes[depth] = new Scope(this, depth);
+		s.open = true;
+		depth++;
+		return s;
+	}
+
+	/**
+	 * get - Borrows an m x n matrix for the innermost open scope.
+	 *
+	 * @param m - Number of rows
+	 * @param n - Number of columns
+	 * @return Matrix with unspecified contents
+	 * @throws IllegalStateException - If no scope is open, or called from another thread
+	 */
+	public Matrix get(int m, int n) throws IllegalStateException
+	{
+		check();
+		if(depth == 0) throw new IllegalStateException("No open scope.");
+		return scopes[depth - 1].get(m, n);
+	}
+
+	/**
+	 * getHits - Number of borrows served from the pool.
+	 *
+	 * @return long
+	 */
+	public long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * getMisses - Number of borrows that had to allocate a new matrix.
+	 *
+	 * @return long
+	 */
+	public long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * getRetainedBytes - Bytes of matrix storage the workspace holds, borrowed or pooled.
+	 *
+	 * @return long
+	 */
+	public long getRetainedBytes()
+	{
+		return retained;
+	}
+
+	/**
+	 * close - Drops the pooled matrices. The workspace cannot be used afterwards; if it is
+	 * 		the thread's local() workspace, the next call to local() creates a new one.
+	 *
+	 * @throws IllegalStateException - If a scope is still open, or called from another thread
+	 */
+	@Override
+	public void close() throws IllegalStateException
+	{
+		if(closed) return;
+		check();
+		if(depth > 0) throw new IllegalStateException("A scope is still open.");
+		buckets = null;
+		scopes = null;
+		shapes = 0;
+		retained = 0;
+		closed = true;
+	}
+
+	private void check()
+	{
+		if(Thread.currentThread() != owner) throw new IllegalStateException("Workspace used from another thread.");
+		if(closed) throw new IllegalStateException("Workspace is closed.");
+	}
+
+	/**
+	 * bucket - the free list for m x n matrices, created on first use
+	 */
+	private Bucket bucket(int m, int n)
+	{
+		//Programs use few distinct shapes, so a linear scan beats hashing a boxed key
+		for (int i = 0; i < shapes; i++) {
+			Bucket b = buckets[i];
+			if(b.m == m && b.n == n) return b;
+		}
+		if(shapes == buckets.length) {
+			Bucket[] b = new Bucket[2 * shapes];
+			System.arraycopy(buckets, 0, b, 0, shapes);
+			buckets = b;
+		}
+		return buckets[shapes++] = new Bucket(m, n);
+	}
+
+	/**
+	 * Bucket - the pooled matrices of one shape.
+	 */
+	private static final class Bucket
+	{
+		final int m, n;
+		Matrix[] free = new Matrix[4];
+		int count;
+
+		Bucket(int m, int n)
+		{
+			this.m = m;
+			this.n = n;
+		}
+
+		void put(Matrix A)
+		{
+			if(count == free.length) {
+				Matrix[] f = new Matrix[2 * count];
+				System.arraycopy(free, 0, f, 0, count);
+				free = f;
+			}
+			free[count++] = A;
+		}
+	}
+
+	/**
+	 * Scope - a group of borrowed matrices that are returned together by close().
+	 * 		The object is reused by later scopes at the same depth, so keep it no longer
+	 * 		than the try block that opened it.
+	 */
+	public static final class Scope implements AutoCloseable
+	{
+		private final MatrixWorkspace ws;
+		private final int level;
+		private Matrix[] lent = new Matrix[8];
+		private int count;
+		private boolean open;
+
+		private Scope(MatrixWorkspace ws, int level)
+		{
+			this.ws = ws;
+			this.level = level;
+		}
+
+		/**
+		 * get - Borrows an m x n matrix until this scope closes.
+		 *
+		 * @param m - Number of rows
+		 * @param n - Number of columns
+		 * @return Matrix with unspecified contents
+		 * @throws IllegalArgumentException - If a dimension is negative
+		 * @throws IllegalStateException - If the scope is closed, or called from another thread
+		 */
+		public Matrix get(int m, int n) throws IllegalArgumentException, IllegalStateException
+		{
+			ws.check();
+			if(!open) throw new IllegalStateException("Scope is closed.");
+			if(m < 0 || n < 0) throw new IllegalArgumentException();
+			Bucket b = ws.bucket(m, n);
+			Matrix A;
+			if(b.count > 0) {
+				A = b.free[--b.count];
+				b.free[b.count] = null;
+				ws.hits++;
+			}
+			else {
+				A = new Matrix(m, n);
+				ws.misses++;
+				ws.retained += 8L * m * n;
+			}
+			if(count == lent.length) {
+				Matrix[] l = new Matrix[2 * count];
+				System.arraycopy(lent, 0, l, 0, count);
+				lent = l;
+			}
+			lent[count++] = A;
+			return A;
+		}
+
+		/**
+		 * close - Returns every matrix borrowed from this scope to the pool.
+		 *
+		 * @throws IllegalStateException - If an inner scope is still open, or called from another thread
+		 */
+		@Override
+		public void close() throws IllegalStateException
+		{
+			if(!open || ws.closed) return;
+			ws.check();
+			if(ws.depth != level + 1) throw new IllegalStateException("An inner scope is still open.");
+			for (int i = 0; i < count; i++) {
+				Matrix A = lent[i];
+				ws.bucket(A.getRowDimension(), A.getColumnDimension()).put(A);
+				lent[i] = null;
+			}
+			count = 0;
+			open = false;
+			ws.depth--;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MatrixWorkspaceTest {
+
+	@Test
+	public void testReuse() {
+		MatrixWorkspace ws = new MatrixWorkspace();
+		Matrix first;
+		try (MatrixWorkspace.Scope s = ws.scope()) {
+			first = s.get(3, 4);
+			assertEquals(3, first.getRowDimension());
+			assertEquals(4, first.getColumnDimension());
+			assertNotSame(first, s.get(3, 4));
+		}
+		assertEquals(0, ws.getHits());
+		assertEquals(2, ws.getMisses());
+		for (int i = 0; i < 10; i++) {
+			try (MatrixWorkspace.Scope s = ws.scope()) {
+				Matrix a = s.get(3, 4), b = s.get(3, 4), c = s.get(4, 3);
+				assertTrue(a == first || b == first);
+				assertNotSame(a, b);
+				c.set(0, 0, i);
+			}
+		}
+		assertEquals(29, ws.getHits());
+		assertEquals(3, ws.getMisses());
+		assertEquals(3 * 12 * 8, ws.getRetainedBytes());
+		ws.close();
+		assertEquals(0, ws.getRetainedBytes());
+	}
+
+	@Test
+	public void testScopes() {
+		MatrixWorkspace ws = new MatrixWorkspace();
+		try {
+			ws.get(2, 2);
+			fail();
+		} catch(IllegalStateException e) {}
+
+		MatrixWorkspace.Scope outer = ws.scope();
+		Matrix a = ws.get(2, 2);
+		MatrixWorkspace.Scope inner = ws.scope();
+		Matrix b = ws.get(2, 2);
+		assertNotSame(a, b);
+		try {
+			outer.close();
+			fail();
+		} catch(IllegalStateException e) {}
+		inner.close();
+		//b is free again but a is still lent to the outer scope
+		assertSame(b, outer.get(2, 2));
+		try {
+			ws.close();
+			fail();
+		} catch(IllegalStateException e) {}
+		outer.close();
+		outer.close();
+		try {
+			outer.get(2, 2);
+			fail();
+		} catch(IllegalStateException e) {}
+		ws.close();
+		try {
+			ws.scope();
+			fail();
+		} catch(IllegalStateException e) {}
+	}
+
+	@Test
+	public void testThreadConfined() throws InterruptedException {
+		final MatrixWorkspace ws = MatrixWorkspace.local();
+		assertSame(ws, MatrixWorkspace.local());
+		final boolean[] refused = new boolean[1];
+		final MatrixWorkspace[] other = new MatrixWorkspace[1];
+		Thread t = new Thread() {
+			@Override
+			public void run() {
+				try {
+					ws.scope();
+				} catch(IllegalStateException e) {
+					refused[0] = true;
+				}
+				other[0] = MatrixWorkspace.local();
+			}
+		};
+		t.start();
+		t.join();
+		assertTrue(refused[0]);
+		assertNotSame(ws, other[0]);
+	}
+
+	@Test
+	public void testLoop() {
+		Matrix a = Matrix.random(20, 30), b = Matrix.random(30, 10);
+		Matrix expected = a.times(b).plus(a.times(b));
+		MatrixWorkspace ws = new MatrixWorkspace();
+		for (int i = 0; i < 5; i++) {
+			try (MatrixWorkspace.Scope s = ws.scope()) {
+				Matrix t = a.times(b, s.get(20, 10));
+				t.plus(t, t);
+				assertArrayEquals(expected.getRowPackedCopy(), t.getRowPackedCopy(), 1e-12);
+			}
+		}
+		assertEquals(1, ws.getMisses());
+		assertEquals(4, ws.getHits());
+	}
+}
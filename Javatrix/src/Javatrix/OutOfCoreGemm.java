@@ -0,0 +1,205 @@
+package Javatrix;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * OutOfCoreGemm - C = A*B for matrices in binary matrix files, a tile at a time.
+ *
+ * C is produced one tile x tile block at a time, in row-major block order. For
+ * each block the matching row of A tiles and column of B tiles are read with
+ * positional channel reads, multiplied into an on-heap C tile with Gemm, and the
+ * finished tile is written straight to the output file.
+ *
+ * Reads run on a background thread. It fills tile pairs from a fixed pool of
+ * DEPTH buffers while the caller's thread multiplies the previous pair, so disk
+ * and compute overlap. The working set never grows beyond those buffers, one
+ * C tile and one staging buffer, about (2 * DEPTH + 2) * tile^2 * 8 bytes.
+ */
+final class OutOfCoreGemm
+{
+	/** Default tile edge, 8 MiB per tile. */
+	static final int TILE = 1024;
+	/** Number of A/B tile pairs in flight between the reader and the multiplier. */
+	static final int DEPTH = 3;
+
+	private OutOfCoreGemm() {}
+
+	/**
+	 * Pair - an A tile and a B tile read for one step of the inner dimension.
+	 */
+	private static final class Pair
+	{
+		final double[] a;
+		final double[] b;
+		int mi, nj, kk;
+
+		Pair(int tile)
+		{
+			a = new double[tile * tile];
+			b = new double[tile * tile];
+		}
+	}
+
+	/** Handed over in place of a pair when the reader stops early. */
+	private static final Pair FAILED = new Pair(0);
+
+	/**
+	 * multiply - writes A*B to c, creating or overwriting it
+	 *
+	 * @throws IOException - If a file cannot be read or written, or the operands are not
+	 * 		row-major matrix files
+	 * @throws IllegalArgumentException - If the inner dimensions do not agree, c is the
+	 * 		same file as a or b, or a tile of the used size has more than Integer.MAX_VALUE
+	 * 		elements
+	 */
+	static void multiply(Path a, Path b, Path c, int tile) throws IOException
+	{
+		if(tile <= 0) throw new IllegalArgumentException();
+		if(Files.exists(c) && (Files.isSameFile(a, c) || Files.isSameFile(b, c))) {
+			throw new IllegalArgumentException("Output file is also an operand.");
+		}
+		try (FileChannel ca = FileChannel.open(a, StandardOpenOption.READ);
+				FileChannel cb = FileChannel.open(b, StandardOpenOption.READ);
+				FileChannel cc = FileChannel.open(c, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE)) {
+			MatrixFile fa = MatrixFile.readHeader(ca);
+			MatrixFile fb = MatrixFile.readHeader(cb);
+			if(fa.layout != MatrixFile.ROW_MAJOR || fb.layout != MatrixFile.ROW_MAJOR) {
+				throw new IOException("Only row-major files can be multiplied.");
+			}
+			if(fb.rows != fa.cols) throw new IllegalArgumentException();
+			int t = Math.max(1, Math.min(tile, Math.max(fa.rows, Math.max(fa.cols, fb.cols))));
+			if((long)t * t > Integer.MAX_VALUE) throw new IllegalArgumentException("Tile is too large.");
+			MatrixFile.create(cc, fa.rows, fb.cols);
+			run(ca, cb, cc, fa.rows, fa.cols, fb.cols, t);
+		}
+	}
+
+	/**
+	 * run - the pipeline for an m x n by n x p product whose output file already exists
+	 */
+	private static void run(final FileChannel ca, final FileChannel cb, FileChannel cc,
+			final int m, final int n, final int p, final int tile) throws IOException
+	{
+		if(m == 0 || p == 0) return;
+
+		final BlockingQueue<Pair> free = new ArrayBlockingQueue<Pair>(DEPTH);
+		final BlockingQueue<Pair> full = new ArrayBlockingQueue<Pair>(DEPTH + 1);
+		for (int i = 0; i < DEPTH; i++) free.add(new Pair(tile));
+		final Throwable[] error = new Throwable[1];
+
+		Thread reader = new Thread("javatrix-tile-reader") {
+			@Override
+			public void run()
+			{
+				try {
+					ByteBuffer stage = ByteBuffer.allocateDirect(tile * 8).order(ByteOrder.LITTLE_ENDIAN);
+					for (int i0 = 0; i0 < m; i0 += tile) {
+						for (int j0 = 0; j0 < p; j0 += tile) {
+							for (int k0 = 0; k0 < n; k0 += tile) {
+								Pair s = free.take();
+								s.mi = Math.min(tile, m - i0);
+								s.nj = Math.min(tile, p - j0);
+								s.kk = Math.min(tile, n - k0);
+								readBlock(ca, n, i0, k0, s.mi, s.kk, s.a, stage);
+								readBlock(cb, p, k0, j0, s.kk, s.nj, s.b, stage);
+								full.put(s);
+							}
+						}
+					}
+				} catch(InterruptedException e) {
+					full.offer(FAILED);
+				} catch(Throwable e) {
+					error[0] = e;
+					full.offer(FAILED);
+				}
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+
+		double[] ct = new double[tile * tile];
+		ByteBuffer stage = ByteBuffer.allocateDirect(tile * 8).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			for (int i0 = 0; i0 < m; i0 += tile) {
+				int mi = Math.min(tile, m - i0);
+				for (int j0 = 0; j0 < p; j0 += tile) {
+					int nj = Math.min(tile, p - j0);
+					Arrays.fill(ct, 0, mi * nj, 0);
+					for (int k0 = 0; k0 < n; k0 += tile) {
+						Pair s = full.take();
+						if(s == FAILED) {
+							Throwable e = error[0];
+							if(e instanceof IOException) throw (IOException)e;
+							if(e instanceof RuntimeException) throw (RuntimeException)e;
+							if(e instanceof Error) throw (Error)e;
+							throw new IOException("Tile reader stopped.", e);
+						}
+						long flops = (long)s.mi * s.nj * s.kk;
+						ForkJoinPool pool = Matrix.sharedPool(flops);
+						if(pool != null) Gemm.multiplyParallel(pool, s.a, 0, s.kk, s.b, 0, s.nj, ct, 0, nj, mi, nj, s.kk);
+						else Gemm.multiply(s.a, 0, s.kk, s.b, 0, s.nj, ct, 0, nj, mi, nj, s.kk);
+						free.put(s);
+					}
+					writeBlock(cc, p, i0, j0, mi, nj, ct, stage);
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for tiles.");
+		} finally {
+			reader.interrupt();
+			try {
+				reader.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * readBlock - reads the rows x cols block at (i0, j0) of a file with ld columns
+	 * 		into dst, packed with row stride cols
+	 */
+	static void readBlock(FileChannel ch, int ld, int i0, int j0, int rows, int cols, double[] dst, ByteBuffer stage)
+			throws IOException
+	{
+		for (int r = 0; r < rows; r++) {
+			long pos = MatrixFile.HEADER + ((long)(i0 + r) * ld + j0) * 8;
+			((Buffer)stage).clear().limit(cols * 8);
+			while(stage.hasRemaining()) {
+				if(ch.read(stage, pos + stage.position()) < 0) throw new IOException("Matrix file is truncated.");
+			}
+			((Buffer)stage).flip();
+			stage.asDoubleBuffer().get(dst, r * cols, cols);
+		}
+	}
+
+	/**
+	 * writeBlock - writes a rows x cols block, packed with row stride cols, to (i0, j0)
+	 * 		of a file with ld columns
+	 */
+	static void writeBlock(FileChannel ch, int ld, int i0, int j0, int rows, int cols, double[] src, ByteBuffer stage)
+			throws IOException
+	{
+		for (int r = 0; r < rows; r++) {
+			long pos = MatrixFile.HEADER + ((long)(i0 + r) * ld + j0) * 8;
+			((Buffer)stage).clear().limit(cols * 8);
+			stage.asDoubleBuffer().put(src, r * cols, cols);
+			while(stage.hasRemaining()) {
+				ch.write(stage, pos + stage.position());
+			}
+		}
+	}
+}
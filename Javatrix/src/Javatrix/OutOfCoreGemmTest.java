@@ -0,0 +1,108 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutOfCoreGemmTest {
+	private Path a, b, c;
+	
+	@Before
+	public void setUp() throws IOException {
+		a = Files.createTempFile("gemm", ".bin");
+		b = Files.createTempFile("gemm", ".bin");
+		c = Files.createTempFile("gemm", ".bin");
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(a);
+		Files.deleteIfExists(b);
+		Files.deleteIfExists(c);
+	}
+	
+	/*
+	 * Tests tiles that do not divide any of the dimensions, so every edge case is used
+	 */
+	@Test
+	public void testMultiply() throws IOException {
+		int[] tiles = {1, 7, 16, 1000};
+		Matrix x = Matrix.random(45, 23);
+		Matrix y = Matrix.random(23, 31);
+		x.write(a);
+		y.write(b);
+		double[] expected = x.times(y).getRowPackedCopy();
+		for(int t : tiles) {
+			OutOfCoreGemm.multiply(a, b, c, t);
+			Matrix z = Matrix.load(c);
+			assertEquals(45, z.getRowDimension());
+			assertEquals(31, z.getColumnDimension());
+			assertArrayEquals("tile " + t, expected, z.getRowPackedCopy(), 1e-12);
+		}
+	}
+	
+	/*
+	 * Tests an empty inner dimension gives a zero product
+	 */
+	@Test
+	public void testEmptyInner() throws IOException {
+		new Matrix(3, 0).write(a);
+		new Matrix(0, 4).write(b);
+		OutOfCoreGemm.multiply(a, b, c, 2);
+		assertArrayEquals(new double[12], Matrix.load(c).getRowPackedCopy(), 0);
+	}
+	
+	/*
+	 * Tests mismatched operands are rejected
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testMismatch() throws IOException {
+		Matrix.random(4, 5).write(a);
+		Matrix.random(4, 5).write(b);
+		OutOfCoreGemm.multiply(a, b, c, 2);
+	}
+	
+	/*
+	 * Tests a truncated operand surfaces as an IOException
+	 */
+	@Test(expected=IOException.class)
+	public void testTruncated() throws IOException {
+		Matrix.random(4, 4).write(a);
+		byte[] bytes = Files.readAllBytes(a);
+		Files.write(a, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+		Matrix.random(4, 4).write(b);
+		OutOfCoreGemm.multiply(a, b, c, 2);
+	}
+	
+	/*
+	 * Tests an output file that is also an operand is rejected before it is overwritten
+	 */
+	@Test
+	public void testOutputIsOperand() throws IOException {
+		Matrix x = Matrix.random(4, 4);
+		x.write(a);
+		Matrix.random(4, 4).write(b);
+		try {
+			OutOfCoreGemm.multiply(a, b, a, 2);
+			fail();
+		} catch(IllegalArgumentException e) {
+			assertArrayEquals(x.getRowPackedCopy(), Matrix.load(a).getRowPackedCopy(), 0);
+		}
+	}
+	
+	/*
+	 * Tests a tile whose element count overflows an int is rejected
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLargeTile() throws IOException {
+		new Matrix(50000, 1).write(a);
+		new Matrix(1, 50000).write(b);
+		OutOfCoreGemm.multiply(a, b, c, 50000);
+	}
+}
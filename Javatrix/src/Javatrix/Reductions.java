@@ -0,0 +1,369 @@
+package Javatrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reductions - sums, extrema and norms over a row-major block of a flat array,
+ * given as (array, offset of the first element, row stride, rows, columns).
+ *
+ * Every reduction walks the rows in storage order and is split recursively into
+ * blocks of rows, and of columns when one value is wanted, whose partial results
+ * are merged in a fixed order. The split does not depend on whether a pool is
+ * used, so the parallel and serial paths return identical results.
+ *
+ * Sums carry the exact rounding error of every addition (Knuth's two-sum) and add
+ * it back at the end, unless the sum is no longer finite: the error terms of an
+ * infinite sum are NaN, and the sum itself is the answer. Sums of squares are
+ * kept as scale^2 * ssq as in LAPACK's dlassq, so the Frobenius norm neither
+ * overflows nor underflows unless the norm itself does.
+ */
+final class Reductions
+{
+	/** Tasks holding fewer elements than this are not split. */
+	static final int LEAF = 1 << 14;
+	/** Reductions to one value per column are split into at most this many row blocks, each with its own accumulators. */
+	static final int SPLITS = 16;
+
+	/** Row sums of squares below this may have lost digits to underflow and are redone scaled. */
+	private static final double TINY = 0x1p-900;
+
+	private static final int SUM = 0;
+	private static final int MIN = 1;
+	private static final int MAX = 2;
+	private static final int SSQ = 3;
+	private static final int ROW_ABS = 4;
+	private static final int COLUMN_ABS = 5;
+	private static final int ROW_SUMS = 6;
+	private static final int COLUMN_SUMS = 7;
+
+	private Reductions() {}
+
+	/**
+	 * sum - compensated sum of all elements
+	 */
+	static double sum(double[] a, int off, int ld, int rows, int cols)
+	{
+		double[] r = reduce(SUM, a, off, ld, rows, cols, null);
+		return total(r[0], r[1]);
+	}
+
+	/**
+	 * total - a compensated sum s with its accumulated rounding error c added back.
+	 * 		An infinite or NaN s is returned as it is, since c is then meaningless.
+	 */
+	static double total(double s, double c)
+	{
+		return Double.isFinite(s) ? s + c : s;
+	}
+
+	/**
+	 * min - smallest element, NaN if any element is NaN and +Infinity if there are none
+	 */
+	static double min(double[] a, int off, int ld, int rows, int cols)
+	{
+		return reduce(MIN, a, off, ld, rows, cols, null)[0];
+	}
+
+	/**
+	 * max - largest element, NaN if any element is NaN and -Infinity if there are none
+	 */
+	static double max(double[] a, int off, int ld, int rows, int cols)
+	{
+		return reduce(MAX, a, off, ld, rows, cols, null)[0];
+	}
+
+	/**
+	 * normF - square root of the sum of squares, from a scaled sum
+	 */
+	static double normF(double[] a, int off, int ld, int rows, int cols)
+	{
+		return scaledNorm(reduce(SSQ, a, off, ld, rows, cols, null));
+	}
+
+	/**
+	 * maxRowAbsSum - largest sum of absolute values of a row
+	 */
+	static double maxRowAbsSum(double[] a, int off, int ld, int rows, int cols)
+	{
+		return reduce(ROW_ABS, a, off, ld, rows, cols, null)[0];
+	}
+
+	/**
+	 * maxColumnAbsSum - largest sum of absolute values of a column, accumulated a row at a time
+	 */
+	static double maxColumnAbsSum(double[] a, int off, int ld, int rows, int cols)
+	{
+		if(rows == 0) return 0;
+		double[] s = reduce(COLUMN_ABS, a, off, ld, rows, cols, null);
+		double max = 0;
+		for (int j = 0; j < cols; j++) max = Math.max(max, s[j]);
+		return max;
+	}
+
+	/**
+	 * rowSums - compensated sum of each row
+	 */
+	static double[] rowSums(double[] a, int off, int ld, int rows, int cols)
+	{
+		double[] out = new double[rows];
+		reduce(ROW_SUMS, a, off, ld, rows, cols, out);
+		return out;
+	}
+
+	/**
+	 * columnSums - compensated sum of each column, accumulated a row at a time
+	 */
+	static double[] columnSums(double[] a, int off, int ld, int rows, int cols)
+	{
+		if(rows == 0) return new double[cols];
+		double[] r = reduce(COLUMN_SUMS, a, off, ld, rows, cols, null);
+		double[] out = new double[cols];
+		for (int j = 0; j < cols; j++) out[j] = total(r[j], r[cols + j]);
+		return out;
+	}
+
+	/**
+	 * accumulateSquares - folds the squares of len contiguous elements into state, a
+	 * 		{scale, ssq} pair starting at {0, 0}. The plain sum of squares is used
+	 * 		when it is safely inside the exponent range, otherwise the run is summed
+	 * 		again relative to its largest magnitude.
+	 */
+	static void accumulateSquares(double[] state, double[] a, int off, int len)
+	{
+		double s = 0;
+		for (int j = off; j < off + len; j++) {
+			s += a[j] * a[j];
+		}
+		if(s >= TINY && s < Double.POSITIVE_INFINITY) {
+			fold(state, Math.sqrt(s), 1);
+			return;
+		}
+		double amax = 0;
+		for (int j = off; j < off + len; j++) {
+			amax = Math.max(amax, Math.abs(a[j]));
+		}
+		if(amax == 0) return;
+		if(Double.isNaN(amax) || Double.isInfinite(amax)) {
+			fold(state, amax, 1);
+			return;
+		}
+		double q = 0;
+		for (int j = off; j < off + len; j++) {
+			double x = a[j] / amax;
+			q += x * x;
+		}
+		fold(state, amax, q);
+	}
+
+	/**
+	 * scaledNorm - scale * sqrt(ssq) of a {scale, ssq} pair
+	 */
+	static double scaledNorm(double[] state)
+	{
+		return state[0] * Math.sqrt(state[1]);
+	}
+
+	/**
+	 * fold - adds scale^2 * ssq to the pair in state, keeping the larger scale
+	 */
+	private static void fold(double[] state, double scale, double ssq)
+	{
+		if(Double.isNaN(scale) || Double.isNaN(state[0])) {
+			state[0] = Double.NaN;
+		}
+		else if(scale == state[0]) {
+			state[1] += ssq;
+		}
+		else if(scale > state[0]) {
+			double r = state[0] / scale;
+			state[1] = ssq + state[1] * r * r;
+			state[0] = scale;
+		}
+		else {
+			double r = scale / state[0];
+			state[1] += ssq * r * r;
+		}
+	}
+
+	private static double[] reduce(int op, double[] a, int off, int ld, int rows, int cols, double[] out)
+	{
+		long total = (long)rows * cols;
+		long grain = op == COLUMN_ABS || op == COLUMN_SUMS ? Math.max(LEAF, total / SPLITS) : LEAF;
+		Task task = new Task(op, a, off, ld, 0, rows, 0, cols, grain, out);
+		ForkJoinPool pool = Matrix.sharedPool(total);
+		return pool == null ? task.compute() : pool.invoke(task);
+	}
+
+	/**
+	 * Task - halves the rows, or the columns of a single row for reductions to one
+	 * 		value, until the block holds at most grain elements. Run outside a pool
+	 * 		it recurses on the calling thread.
+	 */
+	private static final class Task extends RecursiveTask<double[]>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int op;
+		private final double[] a;
+		private final int off, ld, i0, i1, j0, j1;
+		private final long grain;
+		private final double[] out;
+
+		Task(int op, double[] a, int off, int ld, int i0, int i1, int j0, int j1, long grain, double[] out)
+		{
+			this.op = op;
+			this.a = a;
+			this.off = off;
+			this.ld = ld;
+			this.i0 = i0;
+			this.i1 = i1;
+			this.j0 = j0;
+			this.j1 = j1;
+			this.grain = grain;
+			this.out = out;
+		}
+
+		@Override
+		protected double[] compute()
+		{
+			Task left, right;
+			if((long)(i1 - i0) * (j1 - j0) <= grain) {
+				return leaf();
+			}
+			else if(i1 - i0 > 1) {
+				int h = (i0 + i1) >>> 1;
+				left = new Task(op, a, off, ld, i0, h, j0, j1, grain, out);
+				right = new Task(op, a, off, ld, h, i1, j0, j1, grain, out);
+			}
+			else if(op <= SSQ) {
+				int h = (j0 + j1) >>> 1;
+				left = new Task(op, a, off, ld, i0, i1, j0, h, grain, out);
+				right = new Task(op, a, off, ld, i0, i1, h, j1, grain, out);
+			}
+			else {
+				return leaf();
+			}
+			if(inForkJoinPool()) {
+				invokeAll(left, right);
+				return combine(left.join(), right.join());
+			}
+			return combine(left.compute(), right.compute());
+		}
+
+		private double[] leaf()
+		{
+			switch(op) {
+				case SUM: {
+					double s = 0, c = 0;
+					for (int i = i0; i < i1; i++) {
+						for (int j = off + i * ld + j0, end = j + j1 - j0; j < end; j++) {
+							double x = a[j], t = s + x, z = t - s;
+							c += (s - (t - z)) + (x - z);
+							s = t;
+						}
+					}
+					return new double[] {s, c};
+				}
+				case MIN: {
+					double v = Double.POSITIVE_INFINITY;
+					for (int i = i0; i < i1; i++) {
+						for (int j = off + i * ld + j0, end = j + j1 - j0; j < end; j++) {
+							v = Math.min(v, a[j]);
+						}
+					}
+					return new double[] {v};
+				}
+				case MAX: {
+					double v = Double.NEGATIVE_INFINITY;
+					for (int i = i0; i < i1; i++) {
+						for (int j = off + i * ld + j0, end = j + j1 - j0; j < end; j++) {
+							v = Math.max(v, a[j]);
+						}
+					}
+					return new double[] {v};
+				}
+				case SSQ: {
+					double[] state = new double[2];
+					for (int i = i0; i < i1; i++) {
+						accumulateSquares(state, a, off + i * ld + j0, j1 - j0);
+					}
+					return state;
+				}
+				case ROW_ABS: {
+					double max = 0;
+					for (int i = i0; i < i1; i++) {
+						double s = 0;
+						for (int j = off + i * ld, end = j + j1; j < end; j++) {
+							s += Math.abs(a[j]);
+						}
+						max = Math.max(max, s);
+					}
+					return new double[] {max};
+				}
+				case COLUMN_ABS: {
+					double[] s = new double[j1];
+					for (int i = i0; i < i1; i++) {
+						int r = off + i * ld;
+						for (int j = 0; j < j1; j++) {
+							s[j] += Math.abs(a[r + j]);
+						}
+					}
+					return s;
+				}
+				case ROW_SUMS: {
+					for (int i = i0; i < i1; i++) {
+						double s = 0, c = 0;
+						for (int j = off + i * ld, end = j + j1; j < end; j++) {
+							double x = a[j], t = s + x, z = t - s;
+							c += (s - (t - z)) + (x - z);
+							s = t;
+						}
+						out[i] = total(s, c);
+					}
+					return null;
+				}
+				default: {
+					//Sums in [0, j1), their rounding errors in [j1, 2*j1)
+					double[] s = new double[2 * j1];
+					for (int i = i0; i < i1; i++) {
+						int r = off + i * ld;
+						for (int j = 0; j < j1; j++) {
+							double x = a[r + j], u = s[j], t = u + x, z = t - u;
+							s[j1 + j] += (u - (t - z)) + (x - z);
+							s[j] = t;
+						}
+					}
+					return s;
+				}
+			}
+		}
+
+		private double[] combine(double[] x, double[] y)
+		{
+			switch(op) {
+				case SUM: {
+					double t = x[0] + y[0], z = t - x[0];
+					x[1] += y[1] + (x[0] - (t - z)) + (y[0] - z);
+					x[0] = t;
+					return x;
+				}
+				case MIN: x[0] = Math.min(x[0], y[0]); return x;
+				case MAX:
+				case ROW_ABS: x[0] = Math.max(x[0], y[0]); return x;
+				case SSQ: fold(x, y[0], y[1]); return x;
+				case COLUMN_ABS:
+					for (int j = 0; j < j1; j++) x[j] += y[j];
+					return x;
+				case ROW_SUMS: return null;
+				default:
+					for (int j = 0; j < j1; j++) {
+						double t = x[j] + y[j], z = t - x[j];
+						x[j1 + j] += y[j1 + j] + (x[j] - (t - z)) + (y[j] - z);
+						x[j] = t;
+					}
+					return x;
+			}
+		}
+	}
+}
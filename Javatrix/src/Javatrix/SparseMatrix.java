@@ -0,0 +1,502 @@
+package Javatrix;
+
+import java.util.Arrays;
+
+/**
+ * SparseMatrix - a matrix in compressed sparse row (CSR) form.
+ *
+ * Only nonzero elements are stored: row i holds the entries
+ * colIndex[rowStart[i]] .. colIndex[rowStart[i+1]-1], sorted by column, with their
+ * values in the same positions of values. Instances are immutable; build them with
+ * a Builder or from a dense Matrix.
+ */
+public class SparseMatrix
+{
+	private final int m;
+	private final int n;
+	private final int[] rowStart;
+	private final int[] colIndex;
+	private final double[] values;
+
+	/**
+	 * Builder - collects (row, column, value) triplets in coordinate (COO) form and
+	 * 		compresses them into a SparseMatrix. Triplets may come in any order;
+	 * 		duplicates are summed and entries that end up zero are dropped.
+	 */
+	public static class Builder
+	{
+		private final int m;
+		private final int n;
+		private int size;
+		private int[] rows = new int[16];
+		private int[] cols = new int[16];
+		private double[] vals = new double[16];
+
+		/**
+		 * Creates a builder for an m x n matrix.
+		 *
+		 * @param m - Number of rows
+		 * @param n - Number of columns
+		 */
+		public Builder(int m, int n)
+		{
+			if(m < 0 || n < 0) throw new IllegalArgumentException();
+			this.m = m;
+			this.n = n;
+		}
+
+		/**
+		 * add - adds s to element (i, j)
+		 *
+		 * @param i - row index
+		 * @param j - column index
+		 * @param s - value to add
+		 * @return this builder
+		 */
+		public Builder add(int i, int j, double s) throws ArrayIndexOutOfBoundsException
+		{
+			if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+			if(size == rows.length) {
+				rows = Arrays.copyOf(rows, 2 * size);
+				cols = Arrays.copyOf(cols, 2 * size);
+				vals = Arrays.copyOf(vals, 2 * size);
+			}
+			rows[size] = i;
+			cols[size] = j;
+			vals[size] = s;
+			size++;
+			return this;
+		}
+
+		/**
+		 * build - compresses the triplets added so far into CSR form
+		 *
+		 * @return SparseMatrix
+		 */
+		public SparseMatrix build()
+		{
+			//Counting sort by row
+			int[] start = new int[m + 1];
+			for (int t = 0; t < size; t++) start[rows[t] + 1]++;
+			for (int i = 0; i < m; i++) start[i + 1] += start[i];
+			int[] next = Arrays.copyOf(start, m);
+			int[] c = new int[size];
+			double[] v = new double[size];
+			for (int t = 0; t < size; t++) {
+				int p = next[rows[t]]++;
+				c[p] = cols[t];
+				v[p] = vals[t];
+			}
+
+			//Sort each row by column, sum duplicates and drop zeros, compacting in place
+			int[] rowStart = new int[m + 1];
+			int nz = 0;
+			for (int i = 0; i < m; i++) {
+				sortRow(c, v, start[i], start[i + 1]);
+				for (int p = start[i]; p < start[i + 1]; ) {
+					int j = c[p];
+					double sum = 0;
+					for (; p < start[i + 1] && c[p] == j; p++) sum += v[p];
+					if(sum != 0) {
+						c[nz] = j;
+						v[nz] = sum;
+						nz++;
+					}
+				}
+				rowStart[i + 1] = nz;
+			}
+			return new SparseMatrix(m, n, rowStart, Arrays.copyOf(c, nz), Arrays.copyOf(v, nz));
+		}
+
+		/**
+		 * sortRow - insertion sort for short rows, otherwise sorts an index permutation
+		 */
+		private static void sortRow(int[] c, double[] v, int from, int to)
+		{
+			if(to - from <= 32) {
+				for (int p = from + 1; p < to; p++) {
+					int cj = c[p];
+					double vj = v[p];
+					int q = p - 1;
+					for (; q >= from && c[q] > cj; q--) {
+						c[q + 1] = c[q];
+						v[q + 1] = v[q];
+					}
+					c[q + 1] = cj;
+					v[q + 1] = vj;
+				}
+				return;
+			}
+			long[] keyed = new long[to - from];
+			for (int p = from; p < to; p++) keyed[p - from] = ((long)c[p] << 32) | (p - from);
+			Arrays.sort(keyed);
+			double[] vs = Arrays.copyOfRange(v, from, to);
+			for (int p = from; p < to; p++) {
+				c[p] = (int)(keyed[p - from] >>> 32);
+				v[p] = vs[(int)keyed[p - from]];
+			}
+		}
+	}
+
+	private SparseMatrix(int m, int n, int[] rowStart, int[] colIndex, double[] values)
+	{
+		this.m = m;
+		this.n = n;
+		this.rowStart = rowStart;
+		this.colIndex = colIndex;
+		this.values = values;
+	}
+
+	/**
+	 * Constructs a sparse copy of a dense matrix, keeping only its nonzero elements.
+	 *
+	 * @param A - the dense matrix
+	 */
+	public SparseMatrix(Matrix A)
+	{
+		A = A.plain();
+		this.m = A.getRowDimension();
+		this.n = A.getColumnDimension();
+		double[] data = A.storage();
+		int offset = A.offset(), stride = A.stride();
+		int nz = 0;
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				if(data[offset+i*stride+j] != 0) nz++;
+			}
+		}
+		this.rowStart = new int[m + 1];
+		this.colIndex = new int[nz];
+		this.values = new double[nz];
+		nz = 0;
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				double x = data[offset+i*stride+j];
+				if(x != 0) {
+					colIndex[nz] = j;
+					values[nz] = x;
+					nz++;
+				}
+			}
+			rowStart[i + 1] = nz;
+		}
+	}
+
+	/**
+	 * toMatrix - returns a dense copy of this matrix
+	 *
+	 * @return Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix A = new Matrix(m, n);
+		double[] data = A.storage();
+		int stride = A.stride();
+		for (int i = 0; i < m; i++) {
+			for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+				data[i*stride+colIndex[p]] = values[p];
+			}
+		}
+		return A;
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return m;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * nonZeros - returns the number of stored (nonzero) elements
+	 *
+	 * @return int
+	 */
+	public int nonZeros()
+	{
+		return values.length;
+	}
+
+	/**
+	 * get - returns a specific element from the matrix
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= m || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		int p = Arrays.binarySearch(colIndex, rowStart[i], rowStart[i + 1], j);
+		return p >= 0 ? values[p] : 0;
+	}
+
+	/**
+	 * times - sparse times dense, touching only the nonzero elements of this matrix
+	 *
+	 * @param B - dense right operand
+	 * @return Matrix product
+	 */
+	public Matrix times(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		B = B.plain();
+		int p = B.getColumnDimension();
+		Matrix C = new Matrix(m, p);
+		double[] b = B.storage(), c = C.storage();
+		int ldb = B.stride(), ldc = C.stride();
+		int bOff = B.offset();
+		for (int i = 0; i < m; i++) {
+			int ci = i * ldc;
+			for (int q = rowStart[i]; q < rowStart[i + 1]; q++) {
+				double s = values[q];
+				int bk = bOff + colIndex[q] * ldb;
+				for (int j = 0; j < p; j++) {
+					c[ci + j] += s * b[bk + j];
+				}
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * leftTimes - dense times sparse, A*S, skipping zero elements of A and touching
+	 * 		only the nonzero elements of this matrix
+	 *
+	 * @param A - dense left operand
+	 * @return Matrix product
+	 */
+	public Matrix leftTimes(Matrix A) throws IllegalArgumentException
+	{
+		if(A.getColumnDimension() != m) throw new IllegalArgumentException();
+		A = A.plain();
+		int rows = A.getRowDimension();
+		Matrix C = new Matrix(rows, n);
+		double[] a = A.storage(), c = C.storage();
+		int lda = A.stride(), ldc = C.stride();
+		int aOff = A.offset();
+		for (int i = 0; i < rows; i++) {
+			int ai = aOff + i * lda, ci = i * ldc;
+			for (int k = 0; k < m; k++) {
+				double s = a[ai + k];
+				if(s == 0) continue;
+				for (int q = rowStart[k]; q < rowStart[k + 1]; q++) {
+					c[ci + colIndex[q]] += s * values[q];
+				}
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * times - sparse times sparse (Gustavson's row-by-row algorithm)
+	 *
+	 * @param B - sparse right operand
+	 * @return SparseMatrix product
+	 */
+	public SparseMatrix times(SparseMatrix B) throws IllegalArgumentException
+	{
+		if(B.m != n) throw new IllegalArgumentException();
+		int p = B.n;
+		double[] acc = new double[p];
+		int[] marker = new int[p];
+		Arrays.fill(marker, -1);
+		int[] pattern = new int[p];
+
+		int[] start = new int[m + 1];
+		int[] cols = new int[Math.max(16, values.length + B.values.length)];
+		double[] vals = new double[cols.length];
+		int nz = 0;
+		for (int i = 0; i < m; i++) {
+			int count = 0;
+			for (int q = rowStart[i]; q < rowStart[i + 1]; q++) {
+				double s = values[q];
+				int k = colIndex[q];
+				for (int r = B.rowStart[k]; r < B.rowStart[k + 1]; r++) {
+					int j = B.colIndex[r];
+					if(marker[j] != i) {
+						marker[j] = i;
+						acc[j] = 0;
+						pattern[count++] = j;
+					}
+					acc[j] += s * B.values[r];
+				}
+			}
+			Arrays.sort(pattern, 0, count);
+			if(nz + count > cols.length) {
+				int size = Math.max(2 * cols.length, nz + count);
+				cols = Arrays.copyOf(cols, size);
+				vals = Arrays.copyOf(vals, size);
+			}
+			for (int t = 0; t < count; t++) {
+				int j = pattern[t];
+				if(acc[j] != 0) {
+					cols[nz] = j;
+					vals[nz] = acc[j];
+					nz++;
+				}
+			}
+			start[i + 1] = nz;
+		}
+		return new SparseMatrix(m, p, start, Arrays.copyOf(cols, nz), Arrays.copyOf(vals, nz));
+	}
+
+	/**
+	 * times - multiplies every element by a scalar
+	 *
+	 * @param s - the scalar
+	 * @return SparseMatrix s*A
+	 */
+	public SparseMatrix times(double s)
+	{
+		if(s == 0) return new SparseMatrix(m, n, new int[m + 1], new int[0], new double[0]);
+		double[] v = new double[values.length];
+		for (int q = 0; q < v.length; q++) v[q] = values[q] * s;
+		return new SparseMatrix(m, n, rowStart, colIndex, v);
+	}
+
+	/**
+	 * transpose - returns the transpose, in CSR form
+	 *
+	 * @return SparseMatrix A'
+	 */
+	public SparseMatrix transpose()
+	{
+		int[] start = new int[n + 1];
+		for (int q = 0; q < colIndex.length; q++) start[colIndex[q] + 1]++;
+		for (int j = 0; j < n; j++) start[j + 1] += start[j];
+		int[] next = Arrays.copyOf(start, n);
+		int[] cols = new int[colIndex.length];
+		double[] vals = new double[values.length];
+		for (int i = 0; i < m; i++) {
+			for (int q = rowStart[i]; q < rowStart[i + 1]; q++) {
+				int t = next[colIndex[q]]++;
+				cols[t] = i;
+				vals[t] = values[q];
+			}
+		}
+		return new SparseMatrix(n, m, start, cols, vals);
+	}
+
+	/**
+	 * plus - sparse sum, merging the rows of both operands
+	 *
+	 * @param B - Matrix to be added. Must be same dimension.
+	 * @return SparseMatrix A + B
+	 */
+	public SparseMatrix plus(SparseMatrix B) throws IllegalArgumentException
+	{
+		if(B.m != m || B.n != n) throw new IllegalArgumentException();
+		int[] start = new int[m + 1];
+		int[] cols = new int[values.length + B.values.length];
+		double[] vals = new double[cols.length];
+		int nz = 0;
+		for (int i = 0; i < m; i++) {
+			int p = rowStart[i], pEnd = rowStart[i + 1];
+			int q = B.rowStart[i], qEnd = B.rowStart[i + 1];
+			while(p < pEnd || q < qEnd) {
+				int j;
+				double s;
+				if(q == qEnd || (p < pEnd && colIndex[p] < B.colIndex[q])) {
+					j = colIndex[p];
+					s = values[p++];
+				}
+				else if(p == pEnd || B.colIndex[q] < colIndex[p]) {
+					j = B.colIndex[q];
+					s = B.values[q++];
+				}
+				else {
+					j = colIndex[p];
+					s = values[p++] + B.values[q++];
+				}
+				if(s != 0) {
+					cols[nz] = j;
+					vals[nz] = s;
+					nz++;
+				}
+			}
+			start[i + 1] = nz;
+		}
+		return new SparseMatrix(m, n, start, Arrays.copyOf(cols, nz), Arrays.copyOf(vals, nz));
+	}
+
+	/**
+	 * plus - sparse plus dense
+	 *
+	 * @param B - Matrix to be added. Must be same dimension.
+	 * @return Matrix A + B
+	 */
+	public Matrix plus(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != m || B.getColumnDimension() != n) throw new IllegalArgumentException();
+		Matrix C = B.copy();
+		double[] c = C.storage();
+		int ldc = C.stride();
+		for (int i = 0; i < m; i++) {
+			for (int q = rowStart[i]; q < rowStart[i + 1]; q++) {
+				c[i*ldc+colIndex[q]] += values[q];
+			}
+		}
+		return C;
+	}
+
+	/**
+	 * norm1 - returns one norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each column.
+	 */
+	public double norm1()
+	{
+		double[] sums = new double[n];
+		for (int q = 0; q < values.length; q++) {
+			sums[colIndex[q]] += Math.abs(values[q]);
+		}
+		double max = 0;
+		for (int j = 0; j < n; j++) max = Math.max(max, sums[j]);
+		return max;
+	}
+
+	/**
+	 * normInF - returns infinity norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each row.
+	 */
+	public double normInF()
+	{
+		double max = 0;
+		for (int i = 0; i < m; i++) {
+			double sum = 0;
+			for (int q = rowStart[i]; q < rowStart[i + 1]; q++) {
+				sum += Math.abs(values[q]);
+			}
+			max = Math.max(max, sum);
+		}
+		return max;
+	}
+
+	/**
+	 * normF - returns Frobenius norm of the matrix.
+	 *
+	 * @return sqrt of sum of squares of all elements.
+	 */
+	public double normF()
+	{
+		double sum = 0;
+		for (int q = 0; q < values.length; q++) {
+			sum += values[q] * values[q];
+		}
+		return Math.sqrt(sum);
+	}
+}
@@ -0,0 +1,154 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SparseMatrixTest {
+	private double delta = 1e-9;
+	
+	/*
+	 * Builds a random m x n matrix with about the given fraction of nonzero elements.
+	 */
+	private static Matrix randomSparse(int m, int n, double density, long seed) {
+		Random r = new Random(seed);
+		Matrix A = new Matrix(m, n);
+		for(int i = 0; i < m; i++) {
+			for(int j = 0; j < n; j++) {
+				if(r.nextDouble() < density) A.set(i, j, r.nextDouble() * 10 - 5);
+			}
+		}
+		return A;
+	}
+	
+	private static void assertMatrixEquals(Matrix expected, Matrix actual, double delta) {
+		assertEquals(expected.getRowDimension(), actual.getRowDimension());
+		assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+		assertArrayEquals(expected.getRowPackedCopy(), actual.getRowPackedCopy(), delta);
+	}
+	
+	/*
+	 * Tests the COO builder, including unordered and duplicate triplets, and get
+	 */
+	@Test(expected=ArrayIndexOutOfBoundsException.class)
+	public void testBuilder() {
+		SparseMatrix.Builder b = new SparseMatrix.Builder(3, 4);
+		b.add(2, 3, 1.5).add(0, 1, 2).add(2, 0, -1).add(0, 1, 3).add(1, 2, 4).add(1, 2, -4);
+		SparseMatrix s = b.build();
+		double[][] expected = {{0, 5, 0, 0}, {0, 0, 0, 0}, {-1, 0, 0, 1.5}};
+		assertEquals(3, s.nonZeros());
+		assertEquals(3, s.getRowDimension());
+		assertEquals(4, s.getColumnDimension());
+		for(int i = 0; i < 3; i++) {
+			for(int j = 0; j < 4; j++) assertEquals(expected[i][j], s.get(i, j), delta);
+		}
+		
+		//Test out of bounds triplets are rejected
+		b.add(3, 0, 1);
+	}
+	
+	/*
+	 * Tests a row long enough to take the sorting path of the builder
+	 */
+	@Test
+	public void testBuilderLongRow() {
+		SparseMatrix.Builder b = new SparseMatrix.Builder(1, 100);
+		for(int j = 99; j >= 0; j--) b.add(0, j, j + 1);
+		SparseMatrix s = b.build();
+		for(int j = 0; j < 100; j++) assertEquals(j + 1, s.get(0, j), delta);
+	}
+	
+	/*
+	 * Tests conversion from and to dense matrices
+	 */
+	@Test
+	public void testConversion() {
+		Matrix A = randomSparse(20, 30, 0.1, 1);
+		SparseMatrix s = new SparseMatrix(A);
+		assertMatrixEquals(A, s.toMatrix(), 0);
+		int nz = 0;
+		for(double x : A.getRowPackedCopy()) if(x != 0) nz++;
+		assertEquals(nz, s.nonZeros());
+	}
+	
+	/*
+	 * Tests sparse times dense and dense times sparse
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testTimesDense() {
+		Matrix A = randomSparse(25, 40, 0.1, 2);
+		Matrix B = Matrix.random(40, 13);
+		Matrix C = Matrix.random(7, 25);
+		assertMatrixEquals(A.times(B), new SparseMatrix(A).times(B), delta);
+		assertMatrixEquals(C.times(A), C.times(new SparseMatrix(A)), delta);
+		
+		//Test mismatched dimensions are rejected
+		new SparseMatrix(A).times(C);
+	}
+	
+	/*
+	 * Tests sparse times sparse and sparse times scalar
+	 */
+	@Test
+	public void testTimesSparse() {
+		Matrix A = randomSparse(30, 20, 0.15, 3);
+		Matrix B = randomSparse(20, 35, 0.15, 4);
+		SparseMatrix product = new SparseMatrix(A).times(new SparseMatrix(B));
+		assertMatrixEquals(A.times(B), product.toMatrix(), delta);
+		assertMatrixEquals(A.times(-2), new SparseMatrix(A).times(-2).toMatrix(), delta);
+		assertEquals(0, new SparseMatrix(A).times(0).nonZeros());
+	}
+	
+	/*
+	 * Tests transpose
+	 */
+	@Test
+	public void testTranspose() {
+		Matrix A = randomSparse(17, 23, 0.2, 5);
+		assertMatrixEquals(A.transpose(), new SparseMatrix(A).transpose().toMatrix(), 0);
+	}
+	
+	/*
+	 * Tests sparse plus sparse, including cancellation, and sparse plus dense
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testPlus() {
+		Matrix A = randomSparse(15, 12, 0.3, 6);
+		Matrix B = randomSparse(15, 12, 0.3, 7);
+		assertMatrixEquals(A.plus(B), new SparseMatrix(A).plus(new SparseMatrix(B)).toMatrix(), delta);
+		assertEquals(0, new SparseMatrix(A).plus(new SparseMatrix(A.uminus())).nonZeros());
+		assertMatrixEquals(A.plus(B), new SparseMatrix(A).plus(B), delta);
+		
+		//Test mismatched dimensions are rejected
+		new SparseMatrix(A).plus(new SparseMatrix(B.transpose()));
+	}
+	
+	/*
+	 * Tests norm1, normInF and normF against the dense norms
+	 */
+	@Test
+	public void testNorms() {
+		Matrix A = randomSparse(40, 30, 0.1, 8);
+		SparseMatrix s = new SparseMatrix(A);
+		assertEquals(A.norm1(), s.norm1(), delta);
+		assertEquals(A.normInF(), s.normInF(), delta);
+		assertEquals(A.normF(), s.normF(), delta);
+	}
+	
+	/*
+	 * Tests dense operands that are views into a larger matrix
+	 */
+	@Test
+	public void testDenseViews() {
+		Matrix big = randomSparse(40, 40, 0.3, 9);
+		Matrix A = big.view(3, 22, 5, 34);
+		SparseMatrix S = new SparseMatrix(A);
+		assertArrayEquals(A.copy().getRowPackedCopy(), S.toMatrix().getRowPackedCopy(), 0);
+		Matrix B = big.view(10, 39, 0, 6);
+		assertArrayEquals(A.times(B).getRowPackedCopy(), S.times(B).getRowPackedCopy(), delta);
+		Matrix L = big.view(0, 4, 20, 39);
+		assertArrayEquals(L.times(A).getRowPackedCopy(), S.leftTimes(L).getRowPackedCopy(), delta);
+	}
+}
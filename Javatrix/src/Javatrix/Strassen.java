@@ -0,0 +1,156 @@
+package Javatrix;
+
+/**
+ * Strassen - Strassen-Winograd multiply, C = A*B, with 7 half-size products and
+ * 15 block additions per level.
+ *
+ * The recursion bottoms out in Gemm once any dimension drops to the crossover.
+ * Odd dimensions are handled by dynamic peeling: the even leading part goes
+ * through the recursion and the last row, column or inner index is fixed up
+ * with a thin classic product. Operands use the same (array, offset, row stride)
+ * convention as Gemm.
+ */
+final class Strassen
+{
+	private Strassen() {}
+
+	/**
+	 * multiply - C = A*B for an m x k block A and a k x n block B
+	 *
+	 * @param crossover - dimensions at or below this use the classic kernel
+	 */
+	static void multiply(double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+			double[] c, int cOff, int ldc, int m, int n, int k, int crossover)
+	{
+		if(m <= crossover || n <= crossover || k <= crossover) {
+			zero(c, cOff, ldc, m, n);
+			Gemm.multiply(a, aOff, lda, b, bOff, ldb, c, cOff, ldc, m, n, k);
+			return;
+		}
+
+		int mh = m / 2, nh = n / 2, kh = k / 2;
+		winograd(a, aOff, lda, b, bOff, ldb, c, cOff, ldc, mh, nh, kh, crossover);
+
+		//Peel the odd inner index: C(0:2mh, 0:2nh) += A(0:2mh, k-1) * B(k-1, 0:2nh)
+		if(k % 2 != 0) {
+			Gemm.multiply(a, aOff + k - 1, lda, b, bOff + (k - 1) * ldb, ldb, c, cOff, ldc, 2 * mh, 2 * nh, 1);
+		}
+		//Peel the odd column: C(0:2mh, n-1) = A(0:2mh, :) * B(:, n-1)
+		if(n % 2 != 0) {
+			zero(c, cOff + n - 1, ldc, 2 * mh, 1);
+			Gemm.multiply(a, aOff, lda, b, bOff + n - 1, ldb, c, cOff + n - 1, ldc, 2 * mh, 1, k);
+		}
+		//Peel the odd row: C(m-1, :) = A(m-1, :) * B
+		if(m % 2 != 0) {
+			zero(c, cOff + (m - 1) * ldc, ldc, 1, n);
+			Gemm.multiply(a, aOff + (m - 1) * lda, lda, b, bOff, ldb, c, cOff + (m - 1) * ldc, ldc, 1, n, k);
+		}
+	}
+
+	/**
+	 * winograd - one level of the Winograd variant on the 2mh x 2kh and 2kh x 2nh
+	 * 		leading blocks, using C's quadrants and three temporaries as workspace.
+	 */
+	private static void winograd(double[] a, int aOff, int lda, double[] b, int bOff, int ldb,
+			double[] c, int cOff, int ldc, int mh, int nh, int kh, int crossover)
+	{
+		int a11 = aOff, a12 = aOff + kh, a21 = aOff + mh * lda, a22 = a21 + kh;
+		int b11 = bOff, b12 = bOff + nh, b21 = bOff + kh * ldb, b22 = b21 + nh;
+		int c11 = cOff, c12 = cOff + nh, c21 = cOff + mh * ldc, c22 = c21 + nh;
+
+		double[] x = new double[mh * kh];
+		double[] y = new double[kh * nh];
+		double[] z = new double[mh * nh];
+
+		//P7 = (A11 - A21)(B22 - B12) -> C21
+		sub(mh, kh, a, a11, lda, a, a21, lda, x, 0, kh);
+		sub(kh, nh, b, b22, ldb, b, b12, ldb, y, 0, nh);
+		multiply(x, 0, kh, y, 0, nh, c, c21, ldc, mh, nh, kh, crossover);
+
+		//P5 = S1*T1 = (A21 + A22)(B12 - B11) -> C22
+		add(mh, kh, a, a21, lda, a, a22, lda, x, 0, kh);
+		sub(kh, nh, b, b12, ldb, b, b11, ldb, y, 0, nh);
+		multiply(x, 0, kh, y, 0, nh, c, c22, ldc, mh, nh, kh, crossover);
+
+		//P6 = S2*T2 = (S1 - A11)(B22 - T1) -> C12
+		sub(mh, kh, x, 0, kh, a, a11, lda, x, 0, kh);
+		sub(kh, nh, b, b22, ldb, y, 0, nh, y, 0, nh);
+		multiply(x, 0, kh, y, 0, nh, c, c12, ldc, mh, nh, kh, crossover);
+
+		//P3 = S4*B22 = (A12 - S2)B22 -> C11
+		sub(mh, kh, a, a12, lda, x, 0, kh, x, 0, kh);
+		multiply(x, 0, kh, b, b22, ldb, c, c11, ldc, mh, nh, kh, crossover);
+
+		//P1 = A11*B11 -> Z
+		multiply(a, a11, lda, b, b11, ldb, z, 0, nh, mh, nh, kh, crossover);
+
+		//U2 = P1 + P6 -> C12, U3 = U2 + P7 -> C21, U4 = U2 + P5 -> C12,
+		//U7 = U3 + P5 -> C22, U5 = U4 + P3 -> C12
+		add(mh, nh, c, c12, ldc, z, 0, nh, c, c12, ldc);
+		add(mh, nh, c, c21, ldc, c, c12, ldc, c, c21, ldc);
+		add(mh, nh, c, c12, ldc, c, c22, ldc, c, c12, ldc);
+		add(mh, nh, c, c22, ldc, c, c21, ldc, c, c22, ldc);
+		add(mh, nh, c, c12, ldc, c, c11, ldc, c, c12, ldc);
+
+		//P4 = A22*T4 = A22(T2 - B21) -> C11, U6 = U3 - P4 -> C21
+		sub(kh, nh, y, 0, nh, b, b21, ldb, y, 0, nh);
+		multiply(a, a22, lda, y, 0, nh, c, c11, ldc, mh, nh, kh, crossover);
+		sub(mh, nh, c, c21, ldc, c, c11, ldc, c, c21, ldc);
+
+		//P2 = A12*B21 -> C11, U1 = P1 + P2 -> C11
+		multiply(a, a12, lda, b, b21, ldb, c, c11, ldc, mh, nh, kh, crossover);
+		add(mh, nh, c, c11, ldc, z, 0, nh, c, c11, ldc);
+	}
+
+	/**
+	 * errorBound - the first order bound on max|C - A*B| for the Winograd variant,
+	 * 		[18^L (n0^2 + 6 n0) - 6k] u max|A| max|B|, where L is the number of recursion
+	 * 		levels and n0 = k / 2^L the inner dimension at the crossover. With L = 0 this is
+	 * 		the classic bound k^2 u max|A| max|B|.
+	 */
+	static double errorBound(int m, int n, int k, int crossover, double maxA, double maxB)
+	{
+		int levels = 0;
+		double n0 = k;
+		while(m > crossover && n > crossover && k > crossover) {
+			m /= 2;
+			n /= 2;
+			k /= 2;
+			n0 /= 2;
+			levels++;
+		}
+		double u = Math.ulp(1.0) / 2;
+		double growth = Math.pow(18, levels) * (n0 * n0 + 6 * n0) - 6 * n0 * Math.pow(2, levels);
+		return growth * u * maxA * maxB;
+	}
+
+	private static void add(int m, int n, double[] x, int xOff, int ldx, double[] y, int yOff, int ldy, double[] z, int zOff, int ldz)
+	{
+		for (int i = 0; i < m; i++) {
+			int xi = xOff + i * ldx, yi = yOff + i * ldy, zi = zOff + i * ldz;
+			for (int j = 0; j < n; j++) {
+				z[zi + j] = x[xi + j] + y[yi + j];
+			}
+		}
+	}
+
+	private static void sub(int m, int n, double[] x, int xOff, int ldx, double[] y, int yOff, int ldy, double[] z, int zOff, int ldz)
+	{
+		for (int i = 0; i < m; i++) {
+			int xi = xOff + i * ldx, yi = yOff + i * ldy, zi = zOff + i * ldz;
+			for (int j = 0; j < n; j++) {
+				z[zi + j] = x[xi + j] - y[yi + j];
+			}
+		}
+	}
+
+	private static void zero(double[] c, int cOff, int ldc, int m, int n)
+	{
+		for (int i = 0; i < m; i++) {
+			int ci = cOff + i * ldc;
+			for (int j = 0; j < n; j++) {
+				c[ci + j] = 0;
+			}
+		}
+	}
+}
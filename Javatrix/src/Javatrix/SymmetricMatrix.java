@@ -0,0 +1,344 @@
+package Javatrix;
+
+import java.util.Arrays;
+
+/**
+ * SymmetricMatrix - an n x n symmetric matrix in packed storage.
+ *
+ * Only the lower triangle is stored, row by row: element (i, j) with j <= i is
+ * data[i*(i+1)/2 + j], and (j, i) reads the same slot. That is n*(n+1)/2 doubles
+ * instead of n*n, and products and norms read each stored element once.
+ */
+public class SymmetricMatrix
+{
+	/** Rows handled per Gemm call by gram and times. */
+	private static final int GRAM_BLOCK = 64;
+
+	private final int n;
+	private final double[] data;
+
+	/**
+	 * Creates an n x n matrix of zeros.
+	 *
+	 * @param n - Number of rows and columns
+	 * @throws IllegalArgumentException - If n is negative or n*(n+1) overflows an int
+	 */
+	public SymmetricMatrix(int n) throws IllegalArgumentException
+	{
+		this.data = new double[Matrix.triangle(n)];
+		this.n = n;
+	}
+
+	/**
+	 * Constructs a packed copy of a square matrix from its lower triangle. The strict
+	 * upper triangle of A is not read.
+	 *
+	 * @param A - the square matrix
+	 * @throws IllegalArgumentException - If A is not square
+	 */
+	public SymmetricMatrix(Matrix A) throws IllegalArgumentException
+	{
+		this(A.getRowDimension());
+		if(A.getColumnDimension() != n) throw new IllegalArgumentException("Matrix must be square.");
+		for (int i = 0; i < n; i++) {
+			int r = i * (i + 1) / 2;
+			for (int j = 0; j <= i; j++) {
+				data[r + j] = A.get(i, j);
+			}
+		}
+	}
+
+	private SymmetricMatrix(int n, double[] data)
+	{
+		this.n = n;
+		this.data = data;
+	}
+
+	/**
+	 * gram - A'*A, computing only the lower triangle of the product
+	 *
+	 * @param A - an m x n matrix
+	 * @return the n x n Gram matrix
+	 */
+	public static SymmetricMatrix gram(Matrix A)
+	{
+		A = A.plain();
+		int m = A.getRowDimension(), n = A.getColumnDimension();
+		SymmetricMatrix G = new SymmetricMatrix(n);
+		double[] a = A.storage(), g = G.data;
+		int aOff = A.offset(), lda = A.stride();
+		//Rows i0 .. i1-1 of G, up to column i1, come from one Gemm call and are then packed
+		double[] t = new double[Math.min(GRAM_BLOCK, n) * n];
+		for (int i0 = 0; i0 < n; i0 += GRAM_BLOCK) {
+			int i1 = Math.min(n, i0 + GRAM_BLOCK);
+			Arrays.fill(t, 0, (i1 - i0) * i1, 0);
+			Gemm.multiply(a, aOff + i0, lda, true, a, aOff, lda, false, t, 0, i1, i1 - i0, i1, m);
+			for (int i = i0; i < i1; i++) {
+				System.arraycopy(t, (i - i0) * i1, g, i * (i + 1) / 2, i + 1);
+			}
+		}
+		return G;
+	}
+
+	/**
+	 * toMatrix - returns a dense copy of this matrix
+	 *
+	 * @return Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix A = new Matrix(n, n);
+		double[] a = A.storage();
+		for (int i = 0; i < n; i++) {
+			int r = i * (i + 1) / 2;
+			for (int j = 0; j <= i; j++) {
+				a[i * n + j] = data[r + j];
+				a[j * n + i] = data[r + j];
+			}
+		}
+		return A;
+	}
+
+	/**
+	 * copy - Copies the matrix.
+	 *
+	 * @return SymmetricMatrix
+	 */
+	public SymmetricMatrix copy()
+	{
+		return new SymmetricMatrix(n, data.clone());
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	private int index(int i, int j)
+	{
+		if(i < 0 || i >= n || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		return i >= j ? i * (i + 1) / 2 + j : j * (j + 1) / 2 + i;
+	}
+
+	/**
+	 * get - returns a specific element from the matrix
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		return data[index(i, j)];
+	}
+
+	/**
+	 * set - sets elements (i, j) and (j, i)
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 * @param s - the value
+	 */
+	public void set(int i, int j, double s) throws ArrayIndexOutOfBoundsException
+	{
+		data[index(i, j)] = s;
+	}
+
+	/**
+	 * times - symmetric times dense. Blocks of rows of A are unpacked into a dense
+	 * 		panel, mirroring the upper part from the packed lower triangle, and
+	 * 		multiplied with the Gemm kernel.
+	 *
+	 * @param B - dense right operand
+	 * @return Matrix product
+	 */
+	public Matrix times(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		int p = B.getColumnDimension();
+		Matrix C = new Matrix(n, p);
+		double[] panel = new double[Math.min(GRAM_BLOCK, n) * n];
+		for (int i0 = 0; i0 < n; i0 += GRAM_BLOCK) {
+			int i1 = Math.min(n, i0 + GRAM_BLOCK);
+			for (int i = i0; i < i1; i++) {
+				int pi = (i - i0) * n;
+				System.arraycopy(data, i * (i + 1) / 2, panel, pi, i + 1);
+				for (int j = i + 1; j < n; j++) {
+					panel[pi + j] = data[j * (j + 1) / 2 + i];
+				}
+			}
+			Gemm.multiply(panel, 0, n, false, B.storage(), B.offset(), B.stride(), B.transposed(),
+					C.storage(), i0 * p, p, i1 - i0, p, n);
+		}
+		return C;
+	}
+
+	/**
+	 * times - s*A
+	 *
+	 * @param s - the scalar
+	 * @return SymmetricMatrix
+	 */
+	public SymmetricMatrix times(double s)
+	{
+		double[] c = new double[data.length];
+		for (int k = 0; k < c.length; k++) c[k] = s * data[k];
+		return new SymmetricMatrix(n, c);
+	}
+
+	/**
+	 * plus - A + B
+	 *
+	 * @param B - another symmetric matrix
+	 * @return SymmetricMatrix
+	 */
+	public SymmetricMatrix plus(SymmetricMatrix B) throws IllegalArgumentException
+	{
+		if(B.n != n) throw new IllegalArgumentException();
+		double[] c = new double[data.length];
+		for (int k = 0; k < c.length; k++) c[k] = data[k] + B.data[k];
+		return new SymmetricMatrix(n, c);
+	}
+
+	/**
+	 * minus - A - B
+	 *
+	 * @param B - another symmetric matrix
+	 * @return SymmetricMatrix
+	 */
+	public SymmetricMatrix minus(SymmetricMatrix B) throws IllegalArgumentException
+	{
+		if(B.n != n) throw new IllegalArgumentException();
+		double[] c = new double[data.length];
+		for (int k = 0; k < c.length; k++) c[k] = data[k] - B.data[k];
+		return new SymmetricMatrix(n, c);
+	}
+
+	/**
+	 * transpose - A' which, for a symmetric matrix, is a copy of A
+	 *
+	 * @return SymmetricMatrix
+	 */
+	public SymmetricMatrix transpose()
+	{
+		return copy();
+	}
+
+	/**
+	 * trace - sum of the diagonal
+	 *
+	 * @return double
+	 */
+	public double trace()
+	{
+		double t = 0;
+		for (int i = 0; i < n; i++) t += data[i * (i + 3) / 2];
+		return t;
+	}
+
+	/**
+	 * norm1 - returns one norm of the matrix, which is also its infinity norm.
+	 *
+	 * @return largest sum of absolute values from each column.
+	 */
+	public double norm1()
+	{
+		double[] sums = new double[n];
+		for (int i = 0; i < n; i++) {
+			int r = i * (i + 1) / 2;
+			double row = 0;
+			for (int j = 0; j < i; j++) {
+				double x = Math.abs(data[r + j]);
+				row += x;
+				sums[j] += x;
+			}
+			sums[i] += row + Math.abs(data[r + i]);
+		}
+		double max = 0;
+		for (int j = 0; j < n; j++) max = Math.max(max, sums[j]);
+		return max;
+	}
+
+	/**
+	 * normInF - returns infinity norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each row.
+	 */
+	public double normInF()
+	{
+		return norm1();
+	}
+
+	/**
+	 * normF - returns Frobenius norm of the matrix.
+	 *
+	 * @return sqrt of sum of squares of all elements.
+	 */
+	public double normF()
+	{
+		double diagonal = 0, off = 0;
+		for (int i = 0; i < n; i++) {
+			int r = i * (i + 1) / 2;
+			for (int j = 0; j < i; j++) off += data[r + j] * data[r + j];
+			diagonal += data[r + i] * data[r + i];
+		}
+		return Math.sqrt(diagonal + 2 * off);
+	}
+
+	/**
+	 * cholesky - the lower triangular L with A = L*L', computed in packed storage
+	 *
+	 * @return TriangularMatrix L
+	 * @throws IllegalArgumentException - If A is not positive definite
+	 */
+	public TriangularMatrix cholesky() throws IllegalArgumentException
+	{
+		double[] l = new double[data.length];
+		for (int i = 0; i < n; i++) {
+			int ri = i * (i + 1) / 2;
+			for (int j = 0; j <= i; j++) {
+				int rj = j * (j + 1) / 2;
+				double s = data[ri + j];
+				for (int k = 0; k < j; k++) s -= l[ri + k] * l[rj + k];
+				if(j < i) l[ri + j] = s / l[rj + j];
+				else if(s > 0) l[ri + i] = Math.sqrt(s);
+				else throw new IllegalArgumentException("Matrix is not symmetric positive definite.");
+			}
+		}
+		return new TriangularMatrix(n, false, l);
+	}
+
+	/**
+	 * solve - X with A*X = B, by Cholesky when A is positive definite and by LU
+	 * 		of the dense matrix otherwise
+	 *
+	 * @param B - right hand side, n rows
+	 * @return Matrix X
+	 * @throws IllegalArgumentException - If B has the wrong number of rows or A is singular
+	 */
+	public Matrix solve(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		TriangularMatrix L;
+		try {
+			L = cholesky();
+		} catch(IllegalArgumentException e) {
+			return toMatrix().solve(B);
+		}
+		return L.transpose().solve(L.solve(B));
+	}
+}
@@ -0,0 +1,91 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SymmetricMatrixTest {
+
+	private static Matrix symmetric(int n) {
+		Matrix a = Matrix.random(n, n);
+		return a.plus(a.transpose());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLarge() {
+		new SymmetricMatrix(46341);
+	}
+
+	@Test
+	public void testConversion() {
+		Matrix a = symmetric(5);
+		SymmetricMatrix s = new SymmetricMatrix(a);
+		assertArrayEquals(a.getRowPackedCopy(), s.toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.get(1, 3), s.get(3, 1), 0);
+		s.set(0, 4, 7);
+		assertEquals(7, s.get(4, 0), 0);
+		assertEquals(7, s.toMatrix().get(0, 4), 0);
+		//Only the lower triangle is read
+		Matrix lower = a.copy();
+		lower.set(0, 1, 99);
+		assertArrayEquals(a.getRowPackedCopy(), new SymmetricMatrix(lower).toMatrix().getRowPackedCopy(), 0);
+		try {
+			new SymmetricMatrix(new Matrix(2, 3));
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			s.get(5, 0);
+			fail();
+		} catch(ArrayIndexOutOfBoundsException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix a = symmetric(7), b = symmetric(7), c = Matrix.random(7, 4);
+		SymmetricMatrix sa = new SymmetricMatrix(a), sb = new SymmetricMatrix(b);
+		assertArrayEquals(a.times(c).getRowPackedCopy(), sa.times(c).getRowPackedCopy(), 1e-14);
+		assertArrayEquals(a.times(c.transpose().transposeView()).getRowPackedCopy(),
+				sa.times(c.transpose().transposeView()).getRowPackedCopy(), 1e-14);
+		Matrix big = symmetric(150), d = Matrix.random(150, 30);
+		assertArrayEquals(big.times(d).getRowPackedCopy(), new SymmetricMatrix(big).times(d).getRowPackedCopy(), 1e-12);
+		assertArrayEquals(a.plus(b).getRowPackedCopy(), sa.plus(sb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.minus(b).getRowPackedCopy(), sa.minus(sb).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.times(-2).getRowPackedCopy(), sa.times(-2).toMatrix().getRowPackedCopy(), 0);
+		assertArrayEquals(a.getRowPackedCopy(), sa.transpose().toMatrix().getRowPackedCopy(), 0);
+		assertEquals(a.trace(), sa.trace(), 1e-13);
+		assertEquals(a.norm1(), sa.norm1(), 1e-14);
+		assertEquals(a.normInF(), sa.normInF(), 1e-14);
+		assertEquals(a.normF(), sa.normF(), 1e-12);
+	}
+
+	@Test
+	public void testGram() {
+		Matrix a = Matrix.random(50, 300);
+		SymmetricMatrix g = SymmetricMatrix.gram(a);
+		assertArrayEquals(a.transpose().times(a).getRowPackedCopy(), g.toMatrix().getRowPackedCopy(), 1e-12);
+		Matrix v = a.view(3, 20, 5, 40);
+		assertArrayEquals(v.transpose().times(v).getRowPackedCopy(), SymmetricMatrix.gram(v).toMatrix().getRowPackedCopy(), 1e-12);
+	}
+
+	@Test
+	public void testSolve() {
+		Matrix a = Matrix.random(30, 8);
+		SymmetricMatrix g = SymmetricMatrix.gram(a);
+		Matrix b = Matrix.random(8, 3);
+		TriangularMatrix l = g.cholesky();
+		assertFalse(l.isUpper());
+		assertArrayEquals(g.toMatrix().getRowPackedCopy(), l.times(l.transpose().toMatrix()).getRowPackedCopy(), 1e-12);
+		assertArrayEquals(g.toMatrix().solve(b).getRowPackedCopy(), g.solve(b).getRowPackedCopy(), 1e-9);
+		//Indefinite matrices fall back to LU
+		SymmetricMatrix s = new SymmetricMatrix(new Matrix(new double[][] {{0, 1}, {1, 0}}));
+		try {
+			s.cholesky();
+			fail();
+		} catch(IllegalArgumentException e) {}
+		assertArrayEquals(new double[] {2, 1}, s.solve(new Matrix(new double[] {1, 2}, 2)).getRowPackedCopy(), 0);
+		try {
+			new SymmetricMatrix(2).solve(new Matrix(2, 1));
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
@@ -0,0 +1,309 @@
+package Javatrix;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * TextParser - single pass tokenizer for whitespace separated matrices.
+ *
+ * Numbers are parsed straight out of each line's characters into a growable
+ * double[], so reading costs one pass over the input and no per-token objects.
+ * Lines are still taken with readLine so that the reader is left just after
+ * the blank line that ends the matrix, as it always has been.
+ */
+final class TextParser
+{
+	/** Powers of ten that are exact doubles; m * 10^e is correctly rounded for m < 2^53. */
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/** Powers of ten that are exact floats; m * 10^e is correctly rounded for m < 2^24. */
+	private static final float[] POW10F = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	private TextParser() {}
+
+	/**
+	 * read - parses rows up to the first empty line or the end of input. The first
+	 * 		row fixes the column count; shorter rows are zero filled.
+	 *
+	 * @return Matrix, or null if the input is empty or a row has too many values
+	 * @throws NumberFormatException - If a token is not a number
+	 */
+	static Matrix read(BufferedReader input) throws IOException
+	{
+		String line = input.readLine();
+		if(line == null) return null;
+
+		double[] row = new double[16];
+		int cols = 0;
+		int len = line.length();
+		for (int p = skip(line, 0, len); p < len; p = skip(line, p, len)) {
+			int end = token(line, p, len);
+			if(cols == row.length) row = grow(row, cols + 1);
+			row[cols++] = parseDouble(line, p, end);
+			p = end;
+		}
+
+		double[] data = new double[Math.max(cols, 1) * 16];
+		System.arraycopy(row, 0, data, 0, cols);
+		int rows = 1;
+		while((line = input.readLine()) != null) {
+			len = line.length();
+			if(len == 0) break;
+			int base = rows * cols;
+			if(base + cols > data.length) data = grow(data, base + cols);
+			int k = 0;
+			for (int p = skip(line, 0, len); p < len; p = skip(line, p, len)) {
+				if(k == cols) return null;
+				int end = token(line, p, len);
+				data[base + k++] = parseDouble(line, p, end);
+				p = end;
+			}
+			rows++;
+		}
+
+		if(data.length != rows * cols) {
+			double[] exact = new double[rows * cols];
+			System.arraycopy(data, 0, exact, 0, exact.length);
+			data = exact;
+		}
+		return new Matrix(rows, cols, data);
+	}
+
+	/**
+	 * readFloat - as read, into a FloatMatrix. Each token is parsed straight to the
+	 * 		nearest float, never through a double.
+	 *
+	 * @return FloatMatrix, or null if the input is empty or a row has too many values
+	 * @throws NumberFormatException - If a token is not a number
+	 */
+	static FloatMatrix readFloat(BufferedReader input) throws IOException
+	{
+		String line = input.readLine();
+		if(line == null) return null;
+
+		float[] row = new float[16];
+		int cols = 0;
+		int len = line.length();
+		for (int p = skip(line, 0, len); p < len; p = skip(line, p, len)) {
+			int end = token(line, p, len);
+			if(cols == row.length) row = grow(row, cols + 1);
+			row[cols++] = parseFloat(line, p, end);
+			p = end;
+		}
+
+		float[] data = new float[Math.max(cols, 1) * 16];
+		System.arraycopy(row, 0, data, 0, cols);
+		int rows = 1;
+		while((line = input.readLine()) != null) {
+			len = line.length();
+			if(len == 0) break;
+			int base = rows * cols;
+			if(base + cols > data.length) data = grow(data, base + cols);
+			int k = 0;
+			for (int p = skip(line, 0, len); p < len; p = skip(line, p, len)) {
+				if(k == cols) return null;
+				int end = token(line, p, len);
+				data[base + k++] = parseFloat(line, p, end);
+				p = end;
+			}
+			rows++;
+		}
+
+		if(data.length != rows * cols) {
+			float[] exact = new float[rows * cols];
+			System.arraycopy(data, 0, exact, 0, exact.length);
+			data = exact;
+		}
+		return new FloatMatrix(rows, cols, data);
+	}
+
+	/**
+	 * parseDouble - parses s[start, end) as Double.parseDouble would.
+	 *
+	 * Plain decimals with at most 15 significant digits and a small enough
+	 * exponent are computed as one exact multiply or divide by a power of ten,
+	 * which is correctly rounded. Anything else goes to Double.parseDouble.
+	 *
+	 * @throws NumberFormatException - If the token is not a number
+	 */
+	static double parseDouble(CharSequence s, int start, int end)
+	{
+		int p = start;
+		boolean negative = false;
+		if(p < end && (s.charAt(p) == '-' || s.charAt(p) == '+')) {
+			negative = s.charAt(p) == '-';
+			p++;
+		}
+
+		long mantissa = 0;
+		int digits = 0, scale = 0;
+		boolean any = false;
+		for (; p < end; p++) {
+			int d = s.charAt(p) - '0';
+			if(d < 0 || d > 9) break;
+			any = true;
+			if(mantissa == 0 && d == 0) continue;
+			mantissa = mantissa * 10 + d;
+			if(++digits > 15) return slow(s, start, end);
+		}
+		if(p < end && s.charAt(p) == '.') {
+			for (p++; p < end; p++) {
+				int d = s.charAt(p) - '0';
+				if(d < 0 || d > 9) break;
+				any = true;
+				scale--;
+				if(mantissa == 0 && d == 0) continue;
+				mantissa = mantissa * 10 + d;
+				if(++digits > 15) return slow(s, start, end);
+			}
+		}
+		if(!any) return slow(s, start, end);
+
+		if(p < end && (s.charAt(p) == 'e' || s.charAt(p) == 'E')) {
+			p++;
+			boolean negExp = false;
+			if(p < end && (s.charAt(p) == '-' || s.charAt(p) == '+')) {
+				negExp = s.charAt(p) == '-';
+				p++;
+			}
+			int exp = 0, expStart = p;
+			for (; p < end; p++) {
+				int d = s.charAt(p) - '0';
+				if(d < 0 || d > 9 || exp > 1000) return slow(s, start, end);
+				exp = exp * 10 + d;
+			}
+			if(p == expStart) return slow(s, start, end);
+			scale += negExp ? -exp : exp;
+		}
+		if(p != end) return slow(s, start, end);
+
+		double v;
+		if(mantissa == 0) v = 0;
+		else if(scale >= 0 && scale < POW10.length) v = mantissa * POW10[scale];
+		else if(scale < 0 && -scale < POW10.length) v = mantissa / POW10[-scale];
+		else return slow(s, start, end);
+		return negative ? -v : v;
+	}
+
+	/**
+	 * parseFloat - parses s[start, end) as Float.parseFloat would, with one rounding.
+	 *
+	 * Plain decimals with at most 7 significant digits and an exponent within
+	 * 10 are one exact float multiply or divide by a power of ten. Anything else
+	 * goes to Float.parseFloat.
+	 *
+	 * @throws NumberFormatException - If the token is not a number
+	 */
+	static float parseFloat(CharSequence s, int start, int end)
+	{
+		int p = start;
+		boolean negative = false;
+		if(p < end && (s.charAt(p) == '-' || s.charAt(p) == '+')) {
+			negative = s.charAt(p) == '-';
+			p++;
+		}
+
+		int mantissa = 0;
+		int digits = 0, scale = 0;
+		boolean any = false;
+		for (; p < end; p++) {
+			int d = s.charAt(p) - '0';
+			if(d < 0 || d > 9) break;
+			any = true;
+			if(mantissa == 0 && d == 0) continue;
+			mantissa = mantissa * 10 + d;
+			if(++digits > 7) return slowFloat(s, start, end);
+		}
+		if(p < end && s.charAt(p) == '.') {
+			for (p++; p < end; p++) {
+				int d = s.charAt(p) - '0';
+				if(d < 0 || d > 9) break;
+				any = true;
+				scale--;
+				if(mantissa == 0 && d == 0) continue;
+				mantissa = mantissa * 10 + d;
+				if(++digits > 7) return slowFloat(s, start, end);
+			}
+		}
+		if(!any) return slowFloat(s, start, end);
+
+		if(p < end && (s.charAt(p) == 'e' || s.charAt(p) == 'E')) {
+			p++;
+			boolean negExp = false;
+			if(p < end && (s.charAt(p) == '-' || s.charAt(p) == '+')) {
+				negExp = s.charAt(p) == '-';
+				p++;
+			}
+			int exp = 0, expStart = p;
+			for (; p < end; p++) {
+				int d = s.charAt(p) - '0';
+				if(d < 0 || d > 9 || exp > 1000) return slowFloat(s, start, end);
+				exp = exp * 10 + d;
+			}
+			if(p == expStart) return slowFloat(s, start, end);
+			scale += negExp ? -exp : exp;
+		}
+		if(p != end) return slowFloat(s, start, end);
+
+		float v;
+		if(mantissa == 0) v = 0;
+		else if(scale >= 0 && scale < POW10F.length) v = mantissa * POW10F[scale];
+		else if(scale < 0 && -scale < POW10F.length) v = mantissa / POW10F[-scale];
+		else return slowFloat(s, start, end);
+		return negative ? -v : v;
+	}
+
+	private static float slowFloat(CharSequence s, int start, int end)
+	{
+		return Float.parseFloat(s.subSequence(start, end).toString());
+	}
+
+	private static double slow(CharSequence s, int start, int end)
+	{
+		return Double.parseDouble(s.subSequence(start, end).toString());
+	}
+
+	/**
+	 * skip - index of the first non-whitespace character at or after p
+	 */
+	static int skip(CharSequence s, int p, int end)
+	{
+		while(p < end && isSpace(s.charAt(p))) p++;
+		return p;
+	}
+
+	/**
+	 * token - index just past the token starting at p
+	 */
+	static int token(CharSequence s, int p, int end)
+	{
+		while(p < end && !isSpace(s.charAt(p))) p++;
+		return p;
+	}
+
+	private static boolean isSpace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\r' || c == '\f';
+	}
+
+	private static float[] grow(float[] a, int min)
+	{
+		int size = Math.max(min, a.length + (a.length >> 1));
+		float[] b = new float[size];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+
+	private static double[] grow(double[] a, int min)
+	{
+		int size = Math.max(min, a.length + (a.length >> 1));
+		double[] b = new double[size];
+		System.arraycopy(a, 0, b, 0, a.length);
+		return b;
+	}
+}
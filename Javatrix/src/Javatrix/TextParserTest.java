@@ -0,0 +1,38 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TextParserTest {
+	
+	/*
+	 * Tests parseDouble agrees bit for bit with Double.parseDouble
+	 */
+	@Test
+	public void testParseDouble() {
+		String[] tokens = {"0", "-0", "-0.0", "1", "+7", "0.1", "-1.25", ".5", "3.", "123456789012345",
+			"1234567890123456789", "0.000001234", "1e22", "1e23", "1.5E-7", "9007199254740993",
+			"2.2250738585072014E-308", "4.9e-324", "1.7976931348623157e308", "1e400",
+			"NaN", "-Infinity", "0x1p3", "2d", "3.14159265358979323846"};
+		for(String t : tokens) {
+			double expected = Double.parseDouble(t);
+			double actual = TextParser.parseDouble(t, 0, t.length());
+			assertEquals(t, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+		}
+		java.util.Random r = new java.util.Random(42);
+		for(int i = 0; i < 100000; i++) {
+			String t = Double.toString((r.nextDouble() - 0.5) * Math.pow(10, r.nextInt(40) - 20));
+			assertEquals(t, Double.parseDouble(t), TextParser.parseDouble(t, 0, t.length()), 0);
+		}
+	}
+	
+	/*
+	 * Tests malformed tokens are rejected
+	 */
+	@Test(expected=NumberFormatException.class)
+	public void testParseDoubleInvalid() {
+		String t = "1.2.3";
+		TextParser.parseDouble(t, 0, t.length());
+	}
+}
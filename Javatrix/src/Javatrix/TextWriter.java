@@ -0,0 +1,240 @@
+package Javatrix;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+
+/**
+ * TextWriter - buffered text output of matrices, the counterpart of TextParser.
+ *
+ * Cells are formatted straight into a reusable char buffer that is handed to the
+ * Writer in large blocks. Fixed point elements are rounded with long arithmetic;
+ * String.format rounds the shortest decimal representation half up, which only
+ * differs from rounding the binary value near a tie, so elements within a few
+ * ulps of one are passed to String.format itself and the output stays identical.
+ */
+final class TextWriter
+{
+	/** Powers of ten that are exact doubles and longs. */
+	private static final long[] POW10 = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+		10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L
+	};
+
+	/** Scaled magnitudes below this are rounded exactly in a long. */
+	private static final double FAST_LIMIT = 1e15;
+
+	private final Writer out;
+	private final char[] buf = new char[8192];
+	private int pos;
+	private final StringBuilder sb = new StringBuilder(32);
+
+	private TextWriter(Writer out)
+	{
+		this.out = out;
+	}
+
+	/**
+	 * write - writes the m x n block at off with row stride ld, one line per row and
+	 * 		an empty line after the last, then flushes out. Lines end with the
+	 * 		line.separator property as it is at the time of the call.
+	 */
+	static void write(Writer out, FormatSpec spec, double[] data, int off, int ld, int m, int n) throws IOException
+	{
+		TextWriter w = new TextWriter(out);
+		String eol = System.getProperty("line.separator");
+		if(spec.mode == FormatSpec.NUMBER_FORMAT) fitWidth((DecimalFormat)spec.format, spec.width);
+		for (int i = 0; i < m; i++) {
+			int r = off + i * ld;
+			for (int j = 0; j < n; j++) {
+				double x = data[r + j];
+				if(spec.mode == FormatSpec.SHORTEST) {
+					w.sb.setLength(0);
+					w.sb.append(x);
+					w.shortest(j);
+				}
+				else w.cell(x, spec);
+			}
+			w.put(eol);
+		}
+		w.put(eol);
+		w.flush();
+		out.flush();
+	}
+
+	/**
+	 * write - as write(Writer, FormatSpec, double[], ...) for float elements. Each float
+	 * 		is widened to the double of the same value, so fixed and NumberFormat cells
+	 * 		round it once; shortest cells are the shortest text that reads back as the float.
+	 */
+	static void write(Writer out, FormatSpec spec, float[] data, int off, int ld, int m, int n) throws IOException
+	{
+		TextWriter w = new TextWriter(out);
+		String eol = System.getProperty("line.separator");
+		if(spec.mode == FormatSpec.NUMBER_FORMAT) fitWidth((DecimalFormat)spec.format, spec.width);
+		for (int i = 0; i < m; i++) {
+			int r = off + i * ld;
+			for (int j = 0; j < n; j++) {
+				float x = data[r + j];
+				if(spec.mode == FormatSpec.SHORTEST) {
+					w.sb.setLength(0);
+					w.sb.append(x);
+					w.shortest(j);
+				}
+				else w.cell(x, spec);
+			}
+			w.put(eol);
+		}
+		w.put(eol);
+		w.flush();
+		out.flush();
+	}
+
+	/**
+	 * shortest - a cell of FormatSpec.shortest, already in sb, separated by a space
+	 * 		from the one before
+	 */
+	private void shortest(int j) throws IOException
+	{
+		if(j > 0) put(' ');
+		put(sb);
+	}
+
+	/**
+	 * cell - a fixed or NumberFormat cell
+	 */
+	private void cell(double x, FormatSpec spec) throws IOException
+	{
+		if(spec.mode == FormatSpec.FIXED) fixed(x, spec);
+		else numberFormat(x, spec.format, spec.width);
+	}
+
+	/**
+	 * fitWidth - limits the digits of a DecimalFormat to a column width, as
+	 * 		print(PrintWriter, NumberFormat, int) always has
+	 */
+	static void fitWidth(DecimalFormat df, int width)
+	{
+		if(width == 1) {
+			df.setMaximumFractionDigits(0);
+			df.setMaximumIntegerDigits(1);
+		} else if(width == 2) {
+			df.setMaximumFractionDigits(0);
+			df.setMaximumIntegerDigits(2);
+		} else if(width == 3) {
+			df.setMaximumFractionDigits(1);
+			df.setMaximumIntegerDigits(1);
+		} else if(width >= 4) {
+			int fractDigits = df.getMaximumFractionDigits();
+			int intDigits = df.getMaximumIntegerDigits();
+			if(fractDigits + intDigits > width-1) {
+				df.setMaximumFractionDigits(width/2);
+				df.setMaximumIntegerDigits(width/2);
+			}
+		}
+	}
+
+	/**
+	 * numberFormat - a cell of print(PrintWriter, NumberFormat, int): the formatted
+	 * 		value right aligned in width+1 characters
+	 */
+	private void numberFormat(double x, NumberFormat format, int width) throws IOException
+	{
+		String s = format.format(x);
+		if(x < 0) width++;
+		else put(' ');
+		pad(width - s.length());
+		put(s);
+	}
+
+	/**
+	 * fixed - a cell of print(PrintWriter, w, d): " %w.df " for elements that are not
+	 * 		negative and "%(w+1).df " for those that are
+	 */
+	private void fixed(double x, FormatSpec spec) throws IOException
+	{
+		int w = spec.width, d = spec.digits;
+		if(x < 0) w++;
+		else put(' ');
+		boolean negative = Double.doubleToRawLongBits(x) < 0;
+		double a = Math.abs(x);
+		double scaled = d < POW10.length ? a * POW10[d] : Double.POSITIVE_INFINITY;
+		long v = 0;
+		boolean fast = spec.asciiDigits && scaled < FAST_LIMIT;
+		if(fast) {
+			double f = Math.floor(scaled), frac = scaled - f;
+			fast = Math.abs(frac - 0.5) > 4 * Math.ulp(scaled);
+			v = (long)f + (frac > 0.5 ? 1 : 0);
+		}
+		if(!fast) {
+			String s = String.format("%." + d + "f", x);
+			pad(w - s.length());
+			put(s);
+			put(' ');
+			return;
+		}
+		long p = POW10[d], whole = v / p, fraction = v % p;
+		int wholeDigits = digits(whole);
+		pad(w - (negative ? 1 : 0) - wholeDigits - (d > 0 ? d + 1 : 0));
+		ensure((negative ? 1 : 0) + wholeDigits + d + 2);
+		if(negative) buf[pos++] = '-';
+		pos += wholeDigits;
+		for (int k = pos - 1; k >= pos - wholeDigits; k--) {
+			buf[k] = (char)('0' + whole % 10);
+			whole /= 10;
+		}
+		if(d > 0) {
+			buf[pos++] = spec.point;
+			pos += d;
+			for (int k = pos - 1; k >= pos - d; k--) {
+				buf[k] = (char)('0' + fraction % 10);
+				fraction /= 10;
+			}
+		}
+		buf[pos++] = ' ';
+	}
+
+	private static int digits(long v)
+	{
+		int k = 1;
+		while(k < POW10.length && v >= POW10[k]) k++;
+		return k;
+	}
+
+	private void ensure(int k) throws IOException
+	{
+		if(pos + k > buf.length) flush();
+	}
+
+	private void flush() throws IOException
+	{
+		out.write(buf, 0, pos);
+		pos = 0;
+	}
+
+	private void put(char c) throws IOException
+	{
+		ensure(1);
+		buf[pos++] = c;
+	}
+
+	private void put(CharSequence s) throws IOException
+	{
+		int len = s.length();
+		if(len > buf.length) {
+			flush();
+			out.write(s.toString());
+			return;
+		}
+		ensure(len);
+		if(s instanceof String) ((String)s).getChars(0, len, buf, pos);
+		else ((StringBuilder)s).getChars(0, len, buf, pos);
+		pos += len;
+	}
+
+	private void pad(int k) throws IOException
+	{
+		for (; k > 0; k--) put(' ');
+	}
+}
@@ -0,0 +1,129 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TextWriterTest {
+
+	private static final double[] SPECIAL = {0, -0.0, 0.15, 0.25, 0.35, 1.005, 0.125, 2.5, -2.5, 0.045, -0.001,
+		9.995, 99.5, 1e-7, -1e-300, 1e14, 123456789.125, 1e15, 1e20, -1.7976931348623157e308, 4.9e-324,
+		Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+	/** The cells of print(PrintWriter, w, d) as it was written, one String.format per element */
+	private static String printFixed(Matrix a, int w, int d) {
+		StringBuilder sb = new StringBuilder();
+		String eol = System.getProperty("line.separator");
+		for (int i = 0; i < a.getRowDimension(); i++) {
+			for (int j = 0; j < a.getColumnDimension(); j++) {
+				double x = a.get(i, j);
+				if(x < 0) sb.append(String.format("%" + (w+1) + "." + d + "f ", x));
+				else sb.append(String.format(" %" + w + "." + d + "f ", x));
+			}
+			sb.append(eol);
+		}
+		return sb.append(eol).toString();
+	}
+
+	/** The cells of print(PrintWriter, NumberFormat, width) as it was written */
+	private static String printFormat(Matrix a, DecimalFormat format, int width) {
+		StringWriter out = new StringWriter();
+		PrintWriter output = new PrintWriter(out);
+		String eol = System.getProperty("line.separator");
+		TextWriter.fitWidth(format, width);
+		for (int i = 0; i < a.getRowDimension(); i++) {
+			for (int j = 0; j < a.getColumnDimension(); j++) {
+				double x = a.get(i, j);
+				if(x < 0) output.format("%" + (width+1) + "s", format.format(x));
+				else output.format(" %" + width + "s", format.format(x));
+			}
+			output.print(eol);
+		}
+		output.print(eol);
+		output.flush();
+		return out.toString();
+	}
+
+	private static String write(Matrix a, FormatSpec spec) throws IOException {
+		StringWriter out = new StringWriter();
+		a.write(out, spec);
+		return out.toString();
+	}
+
+	/*
+	 * Tests fixed output matches String.format, ties and non-finite values included
+	 */
+	@Test
+	public void testFixed() throws IOException {
+		Random r = new Random(7);
+		double[] values = new double[4000];
+		for (int k = 0; k < values.length; k++) {
+			switch(k % 4) {
+				case 0: values[k] = SPECIAL[k / 4 % SPECIAL.length]; break;
+				//Exact ties at various positions
+				case 1: values[k] = (r.nextInt(20001) - 10000) / 8.0; break;
+				case 2: values[k] = (r.nextInt(2000001) - 1000000) / 1000.0 + 0.0005; break;
+				default: values[k] = (r.nextDouble() - 0.5) * Math.pow(10, r.nextInt(24) - 8);
+			}
+		}
+		Matrix a = new Matrix(values, 40);
+		int[][] wd = {{1, 0}, {6, 0}, {6, 2}, {9, 3}, {12, 1}, {3, 8}, {20, 15}, {25, 17}};
+		for (int[] p : wd) {
+			assertEquals(p[0] + "." + p[1], printFixed(a, p[0], p[1]), write(a, FormatSpec.fixed(p[0], p[1])));
+		}
+		assertEquals(printFixed(a.transpose(), 8, 3), write(a.transposeView(), FormatSpec.fixed(8, 3)));
+	}
+
+	/*
+	 * Tests the NumberFormat mode matches print and the shortest mode reads back exactly
+	 */
+	@Test
+	public void testNumberFormatAndShortest() throws IOException {
+		Random r = new Random(11);
+		double[] values = new double[600];
+		for (int k = 0; k < values.length; k++) {
+			values[k] = k < SPECIAL.length ? SPECIAL[k] : (r.nextDouble() - 0.5) * Math.pow(10, r.nextInt(40) - 20);
+		}
+		Matrix a = new Matrix(values, 30);
+		for (int width : new int[] {1, 3, 5, 12}) {
+			String expected = printFormat(a, new DecimalFormat("0.###E0"), width);
+			assertEquals(expected, write(a, FormatSpec.numberFormat(new DecimalFormat("0.###E0"), width)));
+			StringWriter printed = new StringWriter();
+			a.print(new PrintWriter(printed), new DecimalFormat("0.###E0"), width);
+			assertEquals(expected, printed.toString());
+		}
+		Matrix finite = a.getMatrix(1, 29, 0, 19);
+		Matrix back = Matrix.read(new BufferedReader(new StringReader(write(finite, FormatSpec.shortest()))));
+		assertArrayEquals(finite.getRowPackedCopy(), back.getRowPackedCopy(), 0);
+		String eol = System.getProperty("line.separator");
+		assertEquals("1.0 -0.5" + eol + eol,
+				write(new Matrix(new double[][] {{1, -0.5}}), FormatSpec.shortest()));
+	}
+
+	/*
+	 * Tests invalid specifications are rejected
+	 */
+	@Test
+	public void testSpec() {
+		try {
+			FormatSpec.fixed(0, 2);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			FormatSpec.fixed(5, -1);
+			fail();
+		} catch(IllegalArgumentException e) {}
+		try {
+			FormatSpec.numberFormat(java.text.NumberFormat.getInstance(), 0);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+}
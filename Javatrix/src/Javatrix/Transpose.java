@@ -0,0 +1,122 @@
+package Javatrix;
+
+/**
+ * Transpose - cache-oblivious transpose kernels.
+ *
+ * The block is halved along its longer side until it is at most LEAF x LEAF,
+ * and the leaves are transposed with a plain double loop. A leaf of the source
+ * and of the destination then fit in L1 together, so each cache line is
+ * loaded once instead of once per element of a column, whatever the cache
+ * sizes. Operands use the same (array, offset, row stride) convention as Gemm.
+ */
+final class Transpose
+{
+	/** Leaves of at most LEAF x LEAF doubles, 8 KiB each, are done directly. */
+	static final int LEAF = 32;
+
+	private Transpose() {}
+
+	/**
+	 * transpose - B = A' for an m x n block A and an n x m block B, which must not overlap
+	 */
+	static void transpose(double[] a, int aOff, int lda, double[] b, int bOff, int ldb, int m, int n)
+	{
+		if(m <= LEAF && n <= LEAF) {
+			//Rows of B are written contiguously; the strided reads of A stay in the leaf's cache lines
+			for (int j = 0; j < n; j++) {
+				int aj = aOff + j;
+				int bj = bOff + j * ldb;
+				for (int i = 0; i < m; i++) {
+					b[bj + i] = a[aj + i * lda];
+				}
+			}
+		}
+		else if(m >= n) {
+			int h = m / 2;
+			transpose(a, aOff, lda, b, bOff, ldb, h, n);
+			transpose(a, aOff + h * lda, lda, b, bOff + h, ldb, m - h, n);
+		}
+		else {
+			int h = n / 2;
+			transpose(a, aOff, lda, b, bOff, ldb, m, h);
+			transpose(a, aOff + h, lda, b, bOff + h * ldb, ldb, m, n - h);
+		}
+	}
+
+	/**
+	 * transpose - B = A' as above, for single precision blocks
+	 */
+	static void transpose(float[] a, int aOff, int lda, float[] b, int bOff, int ldb, int m, int n)
+	{
+		if(m <= LEAF && n <= LEAF) {
+			for (int j = 0; j < n; j++) {
+				int aj = aOff + j;
+				int bj = bOff + j * ldb;
+				for (int i = 0; i < m; i++) {
+					b[bj + i] = a[aj + i * lda];
+				}
+			}
+		}
+		else if(m >= n) {
+			int h = m / 2;
+			transpose(a, aOff, lda, b, bOff, ldb, h, n);
+			transpose(a, aOff + h * lda, lda, b, bOff + h, ldb, m - h, n);
+		}
+		else {
+			int h = n / 2;
+			transpose(a, aOff, lda, b, bOff, ldb, m, h);
+			transpose(a, aOff + h, lda, b, bOff + h * ldb, ldb, m, n - h);
+		}
+	}
+
+	/**
+	 * inPlace - transposes the n x n block at off in place: the diagonal blocks are
+	 * 		transposed recursively and the off-diagonal ones are swapped with each other.
+	 */
+	static void inPlace(double[] a, int off, int lda, int n)
+	{
+		if(n <= LEAF) {
+			for (int i = 0; i < n; i++) {
+				for (int j = i + 1; j < n; j++) {
+					int x = off + i * lda + j, y = off + j * lda + i;
+					double t = a[x];
+					a[x] = a[y];
+					a[y] = t;
+				}
+			}
+			return;
+		}
+		int h = n / 2;
+		inPlace(a, off, lda, h);
+		inPlace(a, off + h * lda + h, lda, n - h);
+		swap(a, off + h, off + h * lda, lda, h, n - h);
+	}
+
+	/**
+	 * swap - exchanges the m x n block X at x with the transpose of the n x m block Y at y
+	 */
+	private static void swap(double[] a, int x, int y, int lda, int m, int n)
+	{
+		if(m <= LEAF && n <= LEAF) {
+			for (int i = 0; i < m; i++) {
+				int xi = x + i * lda;
+				int yi = y + i;
+				for (int j = 0; j < n; j++) {
+					double t = a[xi + j];
+					a[xi + j] = a[yi + j * lda];
+					a[yi + j * lda] = t;
+				}
+			}
+		}
+		else if(m >= n) {
+			int h = m / 2;
+			swap(a, x, y, lda, h, n);
+			swap(a, x + h * lda, y + h, lda, m - h, n);
+		}
+		else {
+			int h = n / 2;
+			swap(a, x, y, lda, m, h);
+			swap(a, x + h, y + h * lda, lda, m, n - h);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TransposeTest {
+	
+	/*
+	 * Tests out of place transposes of blocks inside larger arrays, across leaf sizes
+	 */
+	@Test
+	public void testTranspose() {
+		int[][] shapes = {{1, 1}, {3, 70}, {33, 31}, {100, 7}, {129, 257}};
+		for(int[] shape : shapes) {
+			int m = shape[0], n = shape[1];
+			int lda = n + 3, ldb = m + 5;
+			double[] a = new double[2 + m * lda];
+			double[] b = new double[1 + n * ldb];
+			for(int i = 0; i < a.length; i++) a[i] = i;
+			Transpose.transpose(a, 2, lda, b, 1, ldb, m, n);
+			for(int i = 0; i < m; i++) {
+				for(int j = 0; j < n; j++) {
+					assertEquals(a[2 + i * lda + j], b[1 + j * ldb + i], 0);
+				}
+			}
+			//Padding between rows is untouched
+			if(n > 0) assertEquals(0, b[1 + m], 0);
+		}
+	}
+	
+	/*
+	 * Tests in place transposes of square blocks inside larger arrays
+	 */
+	@Test
+	public void testInPlace() {
+		int[] sizes = {1, 2, 31, 32, 33, 100, 301};
+		for(int n : sizes) {
+			int lda = n + 2;
+			double[] a = new double[1 + n * lda];
+			for(int i = 0; i < a.length; i++) a[i] = i;
+			double[] orig = a.clone();
+			Transpose.inPlace(a, 1, lda, n);
+			for(int i = 0; i < n; i++) {
+				for(int j = 0; j < n; j++) {
+					assertEquals(orig[1 + i * lda + j], a[1 + j * lda + i], 0);
+				}
+				assertEquals(orig[1 + i * lda + n], a[1 + i * lda + n], 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,348 @@
+package Javatrix;
+
+import java.util.Arrays;
+
+/**
+ * TriangularMatrix - an n x n lower or upper triangular matrix in packed storage.
+ *
+ * Only the triangle is stored, row by row: row i of a lower matrix holds columns
+ * 0 .. i starting at i*(i+1)/2, and row i of an upper matrix holds columns i .. n-1
+ * starting at i*n - i*(i-1)/2. Elements outside the triangle are zero and cannot be
+ * set to anything else.
+ */
+public class TriangularMatrix
+{
+	/** Rows handled per Gemm call by times. */
+	private static final int BLOCK = 64;
+
+	private final int n;
+	private final boolean upper;
+	private final double[] data;
+
+	/**
+	 * Creates an n x n triangular matrix of zeros.
+	 *
+	 * @param n - Number of rows and columns
+	 * @param upper - true for an upper, false for a lower triangular matrix
+	 * @throws IllegalArgumentException - If n is negative or n*(n+1) overflows an int
+	 */
+	public TriangularMatrix(int n, boolean upper) throws IllegalArgumentException
+	{
+		this(n, upper, new double[Matrix.triangle(n)]);
+	}
+
+	/**
+	 * Constructs a packed copy of one triangle of a square matrix, including the
+	 * diagonal. The other triangle of A is not read.
+	 *
+	 * @param A - the square matrix
+	 * @param upper - true to take the upper, false to take the lower triangle
+	 * @throws IllegalArgumentException - If A is not square
+	 */
+	public TriangularMatrix(Matrix A, boolean upper) throws IllegalArgumentException
+	{
+		this(A.getRowDimension(), upper);
+		if(A.getColumnDimension() != n) throw new IllegalArgumentException("Matrix must be square.");
+		for (int i = 0; i < n; i++) {
+			int r = start(i);
+			for (int j = first(i); j <= last(i); j++) {
+				data[r + j] = A.get(i, j);
+			}
+		}
+	}
+
+	/**
+	 * Wraps packed storage laid out as described above, now owned by the matrix.
+	 */
+	TriangularMatrix(int n, boolean upper, double[] data)
+	{
+		this.n = n;
+		this.upper = upper;
+		this.data = data;
+	}
+
+	/** Offset in data of column 0 of row i, which for an upper matrix lies before the row. */
+	private int start(int i)
+	{
+		return upper ? i * n - i * (i + 1) / 2 : i * (i + 1) / 2;
+	}
+
+	private int first(int i)
+	{
+		return upper ? i : 0;
+	}
+
+	private int last(int i)
+	{
+		return upper ? n - 1 : i;
+	}
+
+	/**
+	 * toMatrix - returns a dense copy of this matrix
+	 *
+	 * @return Matrix
+	 */
+	public Matrix toMatrix()
+	{
+		Matrix A = new Matrix(n, n);
+		double[] a = A.storage();
+		for (int i = 0; i < n; i++) {
+			int r = start(i);
+			for (int j = first(i); j <= last(i); j++) {
+				a[i * n + j] = data[r + j];
+			}
+		}
+		return A;
+	}
+
+	/**
+	 * copy - Copies the matrix.
+	 *
+	 * @return TriangularMatrix
+	 */
+	public TriangularMatrix copy()
+	{
+		return new TriangularMatrix(n, upper, data.clone());
+	}
+
+	/**
+	 * getRowDimension - Gets the row dimension.
+	 *
+	 * @return int
+	 */
+	public int getRowDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * getColumnDimension - Gets the column dimension.
+	 *
+	 * @return int
+	 */
+	public int getColumnDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * isUpper - whether this is an upper triangular matrix
+	 *
+	 * @return boolean
+	 */
+	public boolean isUpper()
+	{
+		return upper;
+	}
+
+	/**
+	 * get - returns a specific element from the matrix
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 */
+	public double get(int i, int j) throws ArrayIndexOutOfBoundsException
+	{
+		if(i < 0 || i >= n || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		return j >= first(i) && j <= last(i) ? data[start(i) + j] : 0;
+	}
+
+	/**
+	 * set - sets a specific element of the triangle
+	 *
+	 * @param i - row index
+	 * @param j - column index
+	 * @param s - the value
+	 * @throws IllegalArgumentException - If (i, j) is outside the triangle and s is not zero
+	 */
+	public void set(int i, int j, double s) throws ArrayIndexOutOfBoundsException, IllegalArgumentException
+	{
+		if(i < 0 || i >= n || j < 0 || j >= n) throw new ArrayIndexOutOfBoundsException();
+		if(j >= first(i) && j <= last(i)) data[start(i) + j] = s;
+		else if(s != 0) throw new IllegalArgumentException();
+	}
+
+	/**
+	 * times - triangular times dense. Blocks of rows of A are unpacked into a dense
+	 * 		panel covering only the columns the triangle reaches in those rows, so
+	 * 		the Gemm kernel does about half the multiply-adds of a dense product.
+	 *
+	 * @param B - dense right operand
+	 * @return Matrix product
+	 */
+	public Matrix times(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		int p = B.getColumnDimension();
+		Matrix C = new Matrix(n, p);
+		double[] panel = new double[Math.min(BLOCK, n) * n];
+		for (int i0 = 0; i0 < n; i0 += BLOCK) {
+			int i1 = Math.min(n, i0 + BLOCK);
+			//Columns j0 .. j1-1 of rows i0 .. i1-1
+			int j0 = upper ? i0 : 0, j1 = upper ? n : i1, w = j1 - j0;
+			Arrays.fill(panel, 0, (i1 - i0) * w, 0);
+			for (int i = i0; i < i1; i++) {
+				System.arraycopy(data, start(i) + first(i), panel, (i - i0) * w + first(i) - j0, last(i) - first(i) + 1);
+			}
+			Gemm.multiply(panel, 0, w, false, B.storage(), B.offset() + (B.transposed() ? j0 : j0 * B.stride()), B.stride(),
+					B.transposed(), C.storage(), i0 * p, p, i1 - i0, p, w);
+		}
+		return C;
+	}
+
+	/**
+	 * times - s*A
+	 *
+	 * @param s - the scalar
+	 * @return TriangularMatrix
+	 */
+	public TriangularMatrix times(double s)
+	{
+		double[] c = new double[data.length];
+		for (int k = 0; k < c.length; k++) c[k] = s * data[k];
+		return new TriangularMatrix(n, upper, c);
+	}
+
+	/**
+	 * plus - A + B
+	 *
+	 * @param B - a triangular matrix of the same size and orientation
+	 * @return TriangularMatrix
+	 */
+	public TriangularMatrix plus(TriangularMatrix B) throws IllegalArgumentException
+	{
+		if(B.n != n || B.upper != upper) throw new IllegalArgumentException();
+		double[] c = new double[data.length];
+		for (int k = 0; k < c.length; k++) c[k] = data[k] + B.data[k];
+		return new TriangularMatrix(n, upper, c);
+	}
+
+	/**
+	 * minus - A - B
+	 *
+	 * @param B - a triangular matrix of the same size and orientation
+	 * @return TriangularMatrix
+	 */
+	public TriangularMatrix minus(TriangularMatrix B) throws IllegalArgumentException
+	{
+		if(B.n != n || B.upper != upper) throw new IllegalArgumentException();
+		double[] c = new double[data.length];
+		for (int k = 0; k < c.length; k++) c[k] = data[k] - B.data[k];
+		return new TriangularMatrix(n, upper, c);
+	}
+
+	/**
+	 * transpose - A', which is triangular the other way round
+	 *
+	 * @return TriangularMatrix
+	 */
+	public TriangularMatrix transpose()
+	{
+		TriangularMatrix T = new TriangularMatrix(n, !upper);
+		for (int i = 0; i < n; i++) {
+			int r = start(i);
+			for (int j = first(i); j <= last(i); j++) {
+				T.data[T.start(j) + i] = data[r + j];
+			}
+		}
+		return T;
+	}
+
+	/**
+	 * det - the determinant, the product of the diagonal
+	 *
+	 * @return double
+	 */
+	public double det()
+	{
+		double d = 1;
+		for (int i = 0; i < n; i++) d *= data[start(i) + i];
+		return d;
+	}
+
+	/**
+	 * norm1 - returns one norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each column.
+	 */
+	public double norm1()
+	{
+		double[] sums = new double[n];
+		for (int i = 0; i < n; i++) {
+			int r = start(i);
+			for (int j = first(i); j <= last(i); j++) {
+				sums[j] += Math.abs(data[r + j]);
+			}
+		}
+		double max = 0;
+		for (int j = 0; j < n; j++) max = Math.max(max, sums[j]);
+		return max;
+	}
+
+	/**
+	 * normInF - returns infinity norm of the matrix.
+	 *
+	 * @return largest sum of absolute values from each row.
+	 */
+	public double normInF()
+	{
+		double max = 0;
+		for (int i = 0; i < n; i++) {
+			int r = start(i);
+			double sum = 0;
+			for (int j = first(i); j <= last(i); j++) {
+				sum += Math.abs(data[r + j]);
+			}
+			max = Math.max(max, sum);
+		}
+		return max;
+	}
+
+	/**
+	 * normF - returns Frobenius norm of the matrix.
+	 *
+	 * @return sqrt of sum of squares of all elements.
+	 */
+	public double normF()
+	{
+		double sum = 0;
+		for (int k = 0; k < data.length; k++) {
+			sum += data[k] * data[k];
+		}
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * solve - X with A*X = B, by forward substitution for a lower and back
+	 * 		substitution for an upper matrix, a row of X at a time
+	 *
+	 * @param B - right hand side, n rows
+	 * @return Matrix X
+	 * @throws IllegalArgumentException - If B has the wrong number of rows or A is singular
+	 */
+	public Matrix solve(Matrix B) throws IllegalArgumentException
+	{
+		if(B.getRowDimension() != n) throw new IllegalArgumentException();
+		int p = B.getColumnDimension();
+		Matrix X = B.copy();
+		double[] x = X.storage();
+		for (int t = 0; t < n; t++) {
+			int i = upper ? n - 1 - t : t, r = start(i), xi = i * p;
+			//Row i of X less the rows already solved, then divided by the diagonal
+			for (int k = upper ? i + 1 : 0, end = upper ? n : i; k < end; k++) {
+				double s = data[r + k];
+				if(s == 0) continue;
+				int xk = k * p;
+				for (int j = 0; j < p; j++) {
+					x[xi + j] -= s * x[xk + j];
+				}
+			}
+			double d = data[r + i];
+			if(d == 0) throw new IllegalArgumentException("Matrix is singular.");
+			for (int j = 0; j < p; j++) {
+				x[xi + j] /= d;
+			}
+		}
+		return X;
+	}
+}
@@ -0,0 +1,89 @@
+package Javatrix;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TriangularMatrixTest {
+
+	private static Matrix triangle(Matrix a, boolean upper) {
+		Matrix t = a.copy();
+		for (int i = 0; i < t.getRowDimension(); i++) {
+			for (int j = 0; j < t.getColumnDimension(); j++) {
+				if(upper ? j < i : j > i) t.set(i, j, 0);
+			}
+		}
+		return t;
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLarge() {
+		new TriangularMatrix(46341, true);
+	}
+
+	@Test
+	public void testConversion() {
+		Matrix a = Matrix.random(5, 5);
+		for (boolean upper : new boolean[] {false, true}) {
+			TriangularMatrix t = new TriangularMatrix(a, upper);
+			assertEquals(upper, t.isUpper());
+			assertArrayEquals(triangle(a, upper).getRowPackedCopy(), t.toMatrix().getRowPackedCopy(), 0);
+			assertEquals(0, t.get(upper ? 4 : 0, upper ? 0 : 4), 0);
+			t.set(2, 2, 9);
+			assertEquals(9, t.get(2, 2), 0);
+			t.set(upper ? 3 : 1, upper ? 1 : 3, 0);
+			try {
+				t.set(upper ? 3 : 1, upper ? 1 : 3, 1);
+				fail();
+			} catch(IllegalArgumentException e) {}
+		}
+		try {
+			new TriangularMatrix(new Matrix(3, 2), true);
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testArithmetic() {
+		Matrix a = Matrix.random(6, 6), b = Matrix.random(6, 6), c = Matrix.random(6, 3);
+		for (boolean upper : new boolean[] {false, true}) {
+			Matrix da = triangle(a, upper), db = triangle(b, upper);
+			TriangularMatrix ta = new TriangularMatrix(a, upper), tb = new TriangularMatrix(b, upper);
+			assertArrayEquals(da.times(c).getRowPackedCopy(), ta.times(c).getRowPackedCopy(), 1e-14);
+			assertArrayEquals(da.plus(db).getRowPackedCopy(), ta.plus(tb).toMatrix().getRowPackedCopy(), 0);
+			assertArrayEquals(da.minus(db).getRowPackedCopy(), ta.minus(tb).toMatrix().getRowPackedCopy(), 0);
+			assertArrayEquals(da.times(3).getRowPackedCopy(), ta.times(3).toMatrix().getRowPackedCopy(), 0);
+			assertArrayEquals(da.transpose().getRowPackedCopy(), ta.transpose().toMatrix().getRowPackedCopy(), 0);
+			assertEquals(!upper, ta.transpose().isUpper());
+			assertEquals(da.det(), ta.det(), 1e-12 * Math.abs(da.det()));
+			assertEquals(da.norm1(), ta.norm1(), 1e-14);
+			assertEquals(da.normInF(), ta.normInF(), 1e-14);
+			assertEquals(da.normF(), ta.normF(), 1e-12);
+		}
+		//Several row blocks, and a transposed right operand
+		Matrix big = Matrix.random(150, 150), d = Matrix.random(40, 150).transposeView();
+		for (boolean upper : new boolean[] {false, true}) {
+			assertArrayEquals(triangle(big, upper).times(d).getRowPackedCopy(),
+					new TriangularMatrix(big, upper).times(d).getRowPackedCopy(), 1e-12);
+		}
+		try {
+			new TriangularMatrix(a, true).plus(new TriangularMatrix(a, false));
+			fail();
+		} catch(IllegalArgumentException e) {}
+	}
+
+	@Test
+	public void testSolve() {
+		Matrix a = Matrix.random(8, 8).plus(Matrix.identity(8, 8).times(4)), b = Matrix.random(8, 2);
+		for (boolean upper : new boolean[] {false, true}) {
+			TriangularMatrix t = new TriangularMatrix(a, upper);
+			Matrix x = t.solve(b);
+			assertArrayEquals(b.getRowPackedCopy(), t.times(x).getRowPackedCopy(), 1e-12);
+			t.set(5, 5, 0);
+			try {
+				t.solve(b);
+				fail();
+			} catch(IllegalArgumentException e) {}
+		}
+	}
+}
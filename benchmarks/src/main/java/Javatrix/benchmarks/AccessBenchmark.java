@@ -0,0 +1,132 @@
+package Javatrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Javatrix.Matrix;
+
+/**
+ * AccessBenchmark - element access, array exports and submatrices.
+ *
+ * get and set are measured as a full sweep over the matrix, so their scores are
+ * comparable with the other whole-matrix operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessBenchmark
+{
+	@Benchmark
+	public double get(MatrixState s)
+	{
+		double sum = 0;
+		for (int i = 0; i < s.rows; i++) {
+			for (int j = 0; j < s.cols; j++) {
+				sum += s.A.get(i, j);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public Matrix set(MatrixState s)
+	{
+		for (int i = 0; i < s.rows; i++) {
+			for (int j = 0; j < s.cols; j++) {
+				s.B.set(i, j, j);
+			}
+		}
+		return s.B;
+	}
+
+	@Benchmark
+	public double[][] getArray(MatrixState s)
+	{
+		return s.A.getArray();
+	}
+
+	@Benchmark
+	public double[][] getArrayCopy(MatrixState s)
+	{
+		return s.A.getArrayCopy();
+	}
+
+	@Benchmark
+	public double[] getColumnPackedCopy(MatrixState s)
+	{
+		return s.A.getColumnPackedCopy();
+	}
+
+	@Benchmark
+	public double[] getRowPackedCopy(MatrixState s)
+	{
+		return s.A.getRowPackedCopy();
+	}
+
+	@Benchmark
+	public int dimensions(MatrixState s)
+	{
+		return s.A.getRowDimension() + s.A.getColumnDimension();
+	}
+
+	@Benchmark
+	public Matrix getMatrixIndices(MatrixState s)
+	{
+		return s.A.getMatrix(s.rowIndices, s.columnIndices);
+	}
+
+	@Benchmark
+	public Matrix getMatrixRowIndices(MatrixState s)
+	{
+		return s.A.getMatrix(s.rowIndices, 0, s.cols / 2);
+	}
+
+	@Benchmark
+	public Matrix getMatrixColumnIndices(MatrixState s)
+	{
+		return s.A.getMatrix(0, s.rows / 2, s.columnIndices);
+	}
+
+	@Benchmark
+	public Matrix getMatrixRange(MatrixState s)
+	{
+		return s.A.getMatrix(0, s.rows / 2, 0, s.cols / 2);
+	}
+
+	@Benchmark
+	public Matrix setMatrixIndices(MatrixState s)
+	{
+		s.B.setMatrix(s.rowIndices, s.columnIndices, s.A);
+		return s.B;
+	}
+
+	@Benchmark
+	public Matrix setMatrixRowIndices(MatrixState s)
+	{
+		s.B.setMatrix(s.rowIndices, 0, s.cols / 2, s.A);
+		return s.B;
+	}
+
+	@Benchmark
+	public Matrix setMatrixColumnIndices(MatrixState s)
+	{
+		s.B.setMatrix(0, s.rows / 2, s.columnIndices, s.A);
+		return s.B;
+	}
+
+	@Benchmark
+	public Matrix setMatrixRange(MatrixState s)
+	{
+		s.B.setMatrix(0, s.rows / 2, 0, s.cols / 2, s.A);
+		return s.B;
+	}
+}
@@ -0,0 +1,84 @@
+package Javatrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Javatrix.Matrix;
+
+/**
+ * ConstructionBenchmark - constructors, factories and copies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark
+{
+	@Benchmark
+	public Matrix constructFromArray(MatrixState s)
+	{
+		return new Matrix(s.array);
+	}
+
+	@Benchmark
+	public Matrix constructQuick(MatrixState s)
+	{
+		return new Matrix(s.array, s.rows, s.cols);
+	}
+
+	@Benchmark
+	public Matrix constructFromPacked(MatrixState s)
+	{
+		return new Matrix(s.columnPacked, s.rows);
+	}
+
+	@Benchmark
+	public Matrix constructZeros(MatrixState s)
+	{
+		return new Matrix(s.rows, s.cols);
+	}
+
+	@Benchmark
+	public Matrix constructFilled(MatrixState s)
+	{
+		return new Matrix(s.rows, s.cols, 1.5);
+	}
+
+	@Benchmark
+	public Matrix constructWithCopy(MatrixState s)
+	{
+		return Matrix.constructWithCopy(s.array);
+	}
+
+	@Benchmark
+	public Matrix copy(MatrixState s)
+	{
+		return s.A.copy();
+	}
+
+	@Benchmark
+	public Object cloneMatrix(MatrixState s)
+	{
+		return s.A.clone();
+	}
+
+	@Benchmark
+	public Matrix identity(MatrixState s)
+	{
+		return Matrix.identity(s.rows, s.cols);
+	}
+
+	@Benchmark
+	public Matrix random(MatrixState s)
+	{
+		return Matrix.random(s.rows, s.cols);
+	}
+}
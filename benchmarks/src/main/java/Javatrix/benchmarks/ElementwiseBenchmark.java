@@ -0,0 +1,117 @@
+package Javatrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Javatrix.Matrix;
+
+/**
+ * ElementwiseBenchmark - element-by-element arithmetic.
+ *
+ * The in-place variants update B (or multiply and divide by ones) so that repeated
+ * invocations neither overflow nor change the operands the other benchmarks read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementwiseBenchmark
+{
+	@Benchmark
+	public Matrix plus(MatrixState s)
+	{
+		return s.A.plus(s.B);
+	}
+
+	@Benchmark
+	public Matrix minus(MatrixState s)
+	{
+		return s.A.minus(s.B);
+	}
+
+	@Benchmark
+	public Matrix plusEquals(MatrixState s)
+	{
+		return s.B.plusEquals(s.A);
+	}
+
+	@Benchmark
+	public Matrix minusEquals(MatrixState s)
+	{
+		return s.B.minusEquals(s.A);
+	}
+
+	@Benchmark
+	public Matrix timesScalar(MatrixState s)
+	{
+		return s.A.times(1.5);
+	}
+
+	@Benchmark
+	public Matrix timesEquals(MatrixState s)
+	{
+		return s.B.timesEquals(1.0);
+	}
+
+	@Benchmark
+	public Matrix uminus(MatrixState s)
+	{
+		return s.A.uminus();
+	}
+
+	@Benchmark
+	public Matrix arrayTimes(MatrixState s)
+	{
+		return s.A.arrayTimes(s.B);
+	}
+
+	@Benchmark
+	public Matrix arrayTimesEquals(MatrixState s)
+	{
+		return s.B.arrayTimesEquals(s.ones);
+	}
+
+	@Benchmark
+	public Matrix arrayLeftDivide(MatrixState s)
+	{
+		return s.A.arrayLeftDivide(s.B);
+	}
+
+	@Benchmark
+	public Matrix arrayLeftDivideEquals(MatrixState s)
+	{
+		return s.ones.arrayLeftDivideEquals(s.ones);
+	}
+
+	@Benchmark
+	public Matrix arrayRightDivide(MatrixState s)
+	{
+		return s.A.arrayRightDivide(s.B);
+	}
+
+	@Benchmark
+	public Matrix arrayRightDivideEquals(MatrixState s)
+	{
+		return s.B.arrayRightDivideEquals(s.ones);
+	}
+
+	@Benchmark
+	public Matrix chainEager(MatrixState s)
+	{
+		return s.A.plus(s.B).minus(s.ones).times(1.5);
+	}
+
+	@Benchmark
+	public Matrix chainLazy(MatrixState s)
+	{
+		return s.A.lazy().plus(s.B).minus(s.ones).times(1.5).evaluate();
+	}
+}
@@ -0,0 +1,77 @@
+package Javatrix.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Javatrix.Matrix;
+
+/**
+ * MatrixState - operands shared by the benchmarks, parameterized over size and shape.
+ *
+ * A square matrix of the given size is n x n; tall and wide matrices hold about the
+ * same number of elements as 4n x n/4 and n/4 x 4n. Tall sizes are capped at
+ * MAX_TALL, since the 4n x 4n product A.times(Bt) of a tall 4096 case would need
+ * 2 GiB on its own; above the cap the tall cases repeat the MAX_TALL operands.
+ */
+@State(Scope.Thread)
+public class MatrixState
+{
+	/** Largest size used for the tall shape, whose products are 4n x 4n. */
+	public static final int MAX_TALL = 1024;
+
+	@Param({"8", "64", "256", "1024", "4096"})
+	public int size;
+
+	@Param({"square", "tall", "wide"})
+	public String shape;
+
+	/** Rows and columns of A and B. */
+	public int rows, cols;
+
+	/** Random operands of the benchmarked shape. */
+	public Matrix A, B;
+	/** A matrix of ones of the benchmarked shape, for in-place products and quotients. */
+	public Matrix ones;
+	/** A random cols x rows operand, so that A.times(Bt) is defined for every shape. */
+	public Matrix Bt;
+
+	public double[][] array;
+	public double[] columnPacked;
+	public int[] rowIndices, columnIndices;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		if(shape.equals("square")) {
+			rows = size;
+			cols = size;
+		}
+		else if(shape.equals("tall")) {
+			int n = Math.min(size, MAX_TALL);
+			rows = 4 * n;
+			cols = Math.max(1, n / 4);
+		}
+		else if(shape.equals("wide")) {
+			rows = Math.max(1, size / 4);
+			cols = 4 * size;
+		}
+		else {
+			throw new IllegalArgumentException(shape);
+		}
+
+		A = Matrix.random(rows, cols);
+		B = Matrix.random(rows, cols);
+		ones = new Matrix(rows, cols, 1.0);
+		Bt = Matrix.random(cols, rows);
+		array = A.getArrayCopy();
+		columnPacked = A.getColumnPackedCopy();
+
+		rowIndices = new int[rows / 2 + 1];
+		for (int i = 0; i < rowIndices.length; i++) rowIndices[i] = Math.min(rows - 1, 2 * i);
+		columnIndices = new int[cols / 2 + 1];
+		for (int j = 0; j < columnIndices.length; j++) columnIndices[j] = Math.min(cols - 1, 2 * j);
+	}
+}
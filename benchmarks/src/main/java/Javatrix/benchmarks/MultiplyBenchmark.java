@@ -0,0 +1,60 @@
+package Javatrix.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Javatrix.Matrix;
+
+/**
+ * MultiplyBenchmark - linear algebraic products, A (rows x cols) times Bt (cols x rows).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class MultiplyBenchmark
+{
+	@State(Scope.Benchmark)
+	public static class Pool
+	{
+		public ForkJoinPool pool;
+
+		@Setup(Level.Trial)
+		public void setup()
+		{
+			pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Matrix times(MatrixState s)
+	{
+		return s.A.times(s.Bt);
+	}
+
+	@Benchmark
+	public Matrix timesPool(MatrixState s, Pool p)
+	{
+		return s.A.times(s.Bt, p.pool);
+	}
+}
@@ -0,0 +1,54 @@
+package Javatrix.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Javatrix.Matrix;
+
+/**
+ * ReductionBenchmark - norms, trace and transpose.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReductionBenchmark
+{
+	@Benchmark
+	public double norm1(MatrixState s)
+	{
+		return s.A.norm1();
+	}
+
+	@Benchmark
+	public double normInF(MatrixState s)
+	{
+		return s.A.normInF();
+	}
+
+	@Benchmark
+	public double normF(MatrixState s)
+	{
+		return s.A.normF();
+	}
+
+	@Benchmark
+	public double trace(MatrixState s)
+	{
+		return s.A.trace();
+	}
+
+	@Benchmark
+	public Matrix transpose(MatrixState s)
+	{
+		return s.A.transpose();
+	}
+}
@@ -0,0 +1,92 @@
+package Javatrix.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Javatrix.Matrix;
+
+/**
+ * TextBenchmark - Matrix.read and the print variants.
+ *
+ * Printing goes to a Writer that discards its input, so only formatting is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TextBenchmark
+{
+	@State(Scope.Thread)
+	public static class Text
+	{
+		public String text;
+		public PrintWriter sink;
+
+		@Setup(Level.Trial)
+		public void setup(MatrixState s)
+		{
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < s.rows; i++) {
+				for (int j = 0; j < s.cols; j++) {
+					sb.append(' ').append(s.A.get(i, j));
+				}
+				sb.append('\n');
+			}
+			text = sb.toString();
+			sink = new PrintWriter(new NullWriter());
+		}
+	}
+
+	@Benchmark
+	public Matrix read(Text t) throws IOException
+	{
+		return Matrix.read(new BufferedReader(new StringReader(t.text)));
+	}
+
+	@Benchmark
+	public PrintWriter printWidthDigits(MatrixState s, Text t)
+	{
+		s.A.print(t.sink, 10, 4);
+		return t.sink;
+	}
+
+	@Benchmark
+	public PrintWriter printNumberFormat(MatrixState s, Text t)
+	{
+		s.A.print(t.sink, new DecimalFormat("0.0000"), 10);
+		return t.sink;
+	}
+
+	private static final class NullWriter extends Writer
+	{
+		@Override
+		public void write(char[] cbuf, int off, int len) {}
+
+		@Override
+		public void write(String str, int off, int len) {}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+}